@@ -0,0 +1,196 @@
+package software.amazon.networkfirewall.common;
+
+import software.amazon.awssdk.awscore.AwsRequest;
+import software.amazon.awssdk.awscore.AwsResponse;
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+import software.amazon.awssdk.services.networkfirewall.model.ThrottlingException;
+import software.amazon.cloudformation.proxy.Logger;
+import software.amazon.cloudformation.proxy.ProxyClient;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Records the service calls one handler invocation makes through its {@link ProxyClient}: the latency
+ * distribution, and the error, throttle and retry counts of every operation. {@link #flush(Logger)}
+ * writes them as CloudWatch Embedded Metric Format lines, one per operation, so they turn into metrics
+ * straight from the handler log.
+ *
+ * A call counts as a retry when it sends a request whose previous call failed, the way {@link RetryPolicy}
+ * retries, so calls of an operation in flight together do not count as retries of each other. Throttles
+ * are not counted as errors. Recording allocates nothing once an operation has been seen and until a call
+ * fails. Async calls are recorded when they complete.
+ */
+public class ApiCallMetrics {
+    public static final String NAMESPACE = "NetworkFirewall/ResourceHandlers";
+    // EMF takes at most 100 values per metric, beyond that a reservoir keeps a uniform sample
+    public static final int MAX_LATENCY_VALUES = 100;
+    public static final ClassValue<String> OPERATION_NAMES = new ClassValue<String>() {
+        @Override
+        protected String computeValue(final Class<?> type) {
+            final String name = type.getSimpleName();
+            return name.endsWith("Request") ? name.substring(0, name.length() - "Request".length()) : name;
+        }
+    };
+
+    private final String resourceType;
+    private final String action;
+    private final LongSupplier nanoTime;
+    private final Map<String, OperationMetrics> operations = new ConcurrentSkipListMap<>();
+
+    public ApiCallMetrics(final String resourceType, final String action) {
+        this(resourceType, action, System::nanoTime);
+    }
+
+    public ApiCallMetrics(final String resourceType, final String action, final LongSupplier nanoTime) {
+        this.resourceType = resourceType;
+        this.action = action;
+        this.nanoTime = nanoTime;
+    }
+
+    // the action of a handler is its class name without the Handler suffix
+    public static String actionOf(final Class<?> handlerClass) {
+        final String name = handlerClass.getSimpleName();
+        return name.endsWith("Handler") ? name.substring(0, name.length() - "Handler".length()) : name;
+    }
+
+    public <ClientT> ProxyClient<ClientT> instrument(final ProxyClient<ClientT> proxyClient) {
+        return new InstrumentedProxyClient<>(proxyClient);
+    }
+
+    public void flush(final Logger logger) {
+        flush(logger, System.currentTimeMillis());
+    }
+
+    public void flush(final Logger logger, final long timestamp) {
+        final StringBuilder line = new StringBuilder(512);
+        for (final Map.Entry<String, OperationMetrics> operation : operations.entrySet()) {
+            line.setLength(0);
+            operation.getValue().appendTo(line, timestamp, resourceType, action, operation.getKey());
+            logger.log(line.toString());
+        }
+        operations.clear();
+    }
+
+    private OperationMetrics operation(final Object request) {
+        return operations.computeIfAbsent(OPERATION_NAMES.get(request.getClass()), name -> new OperationMetrics());
+    }
+
+    private static boolean isThrottle(final Throwable failure) {
+        return failure instanceof ThrottlingException
+                || failure instanceof AwsServiceException && ((AwsServiceException) failure).isThrottlingException();
+    }
+
+    private static final class OperationMetrics {
+        private final long[] latencies = new long[MAX_LATENCY_VALUES];
+        // the requests whose last call failed, a retry sends the same request again
+        private final Set<Object> failedRequests = Collections.newSetFromMap(new IdentityHashMap<>());
+        private int calls;
+        private int errors;
+        private int throttles;
+        private int retries;
+
+        private synchronized void record(final Object request, final long latencyNanos, final Throwable failure) {
+            if (failedRequests.remove(request)) {
+                retries++;
+            }
+            calls++;
+            final int slot = calls <= MAX_LATENCY_VALUES ? calls - 1 : ThreadLocalRandom.current().nextInt(calls);
+            if (slot < MAX_LATENCY_VALUES) {
+                latencies[slot] = latencyNanos;
+            }
+            if (failure != null) {
+                failedRequests.add(request);
+            }
+            if (failure != null && isThrottle(failure)) {
+                throttles++;
+            } else if (failure != null) {
+                errors++;
+            }
+        }
+
+        private synchronized void appendTo(final StringBuilder line, final long timestamp, final String resourceType,
+                                           final String action, final String operation) {
+            line.append("{\"_aws\":{\"Timestamp\":").append(timestamp)
+                    .append(",\"CloudWatchMetrics\":[{\"Namespace\":\"").append(NAMESPACE)
+                    .append("\",\"Dimensions\":[[\"ResourceType\",\"Action\",\"Operation\"]],\"Metrics\":[")
+                    .append("{\"Name\":\"Latency\",\"Unit\":\"Milliseconds\"},")
+                    .append("{\"Name\":\"Calls\",\"Unit\":\"Count\"},")
+                    .append("{\"Name\":\"Errors\",\"Unit\":\"Count\"},")
+                    .append("{\"Name\":\"Throttles\",\"Unit\":\"Count\"},")
+                    .append("{\"Name\":\"Retries\",\"Unit\":\"Count\"}]}]}");
+            appendProperty(line, "ResourceType", resourceType);
+            appendProperty(line, "Action", action);
+            appendProperty(line, "Operation", operation);
+            line.append(",\"Latency\":[");
+            for (int i = 0; i < Math.min(calls, MAX_LATENCY_VALUES); i++) {
+                if (i > 0) {
+                    line.append(',');
+                }
+                // whole microseconds, in milliseconds
+                line.append(latencies[i] / 1000 / 1000.0);
+            }
+            line.append("],\"Calls\":").append(calls)
+                    .append(",\"Errors\":").append(errors)
+                    .append(",\"Throttles\":").append(throttles)
+                    .append(",\"Retries\":").append(retries)
+                    .append('}');
+        }
+
+        private static void appendProperty(final StringBuilder line, final String name, final String value) {
+            line.append(",\"").append(name).append("\":\"");
+            for (int i = 0; i < value.length(); i++) {
+                final char c = value.charAt(i);
+                if (c == '"' || c == '\\') {
+                    line.append('\\');
+                }
+                line.append(c);
+            }
+            line.append('"');
+        }
+    }
+
+    private final class InstrumentedProxyClient<ClientT> extends ForwardingProxyClient<ClientT> {
+        private InstrumentedProxyClient(final ProxyClient<ClientT> delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public <RequestT extends AwsRequest, ResponseT extends AwsResponse> ResponseT injectCredentialsAndInvokeV2(
+                final RequestT request, final Function<RequestT, ResponseT> requestFunction) {
+            final OperationMetrics metrics = operation(request);
+            final long start = nanoTime.getAsLong();
+            try {
+                final ResponseT response = delegate.injectCredentialsAndInvokeV2(request, requestFunction);
+                metrics.record(request, nanoTime.getAsLong() - start, null);
+                return response;
+            } catch (final RuntimeException e) {
+                metrics.record(request, nanoTime.getAsLong() - start, e);
+                throw e;
+            }
+        }
+
+        @Override
+        public <RequestT extends AwsRequest, ResponseT extends AwsResponse> CompletableFuture<ResponseT> injectCredentialsAndInvokeV2Async(
+                final RequestT request, final Function<RequestT, CompletableFuture<ResponseT>> requestFunction) {
+            final long start = nanoTime.getAsLong();
+            final CompletableFuture<ResponseT> response;
+            try {
+                response = delegate.injectCredentialsAndInvokeV2Async(request, requestFunction);
+            } catch (final RuntimeException e) {
+                operation(request).record(request, nanoTime.getAsLong() - start, e);
+                throw e;
+            }
+            // looked up on completion, a flush while the call is in flight leaves nothing behind
+            return response.whenComplete((result, failure) -> operation(request).record(request,
+                    nanoTime.getAsLong() - start, failure == null ? null : AsyncFanOut.unwrap(failure)));
+        }
+    }
+}
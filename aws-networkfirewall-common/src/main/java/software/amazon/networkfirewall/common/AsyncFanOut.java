@@ -0,0 +1,126 @@
+package software.amazon.networkfirewall.common;
+
+import software.amazon.awssdk.awscore.AwsRequest;
+import software.amazon.awssdk.awscore.AwsResponse;
+import software.amazon.cloudformation.exceptions.CfnGeneralServiceException;
+import software.amazon.cloudformation.proxy.ProxyClient;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+
+/**
+ * Sends the calls of a fan-out through an async {@link ProxyClient} with a bounded number of them in flight.
+ * Once the limit is reached the sending thread waits for a call to complete before it sends the next one,
+ * which is the back-pressure that keeps a page of hundreds of Describe calls from piling up on the
+ * connections of the client. Responses complete on the threads of the HTTP client, so a fan-out of any width
+ * needs no threads of its own.
+ *
+ * The limit can be lowered while calls are in flight, for callers that back off when the service throttles.
+ */
+public class AsyncFanOut<ClientT> {
+    private final ProxyClient<ClientT> proxyClient;
+    private final LimitSemaphore inFlight;
+    private int limit;
+
+    public AsyncFanOut(final ProxyClient<ClientT> proxyClient, final int maxInFlight) {
+        this.proxyClient = proxyClient;
+        this.limit = Math.max(1, maxInFlight);
+        this.inFlight = new LimitSemaphore(limit);
+    }
+
+    public ClientT client() {
+        return proxyClient.client();
+    }
+
+    /**
+     * Sends a call once there is room for it. A call the proxy rejects before it is sent gives its room back
+     * and fails here rather than through the returned future.
+     */
+    public <RequestT extends AwsRequest, ResponseT extends AwsResponse> CompletableFuture<ResponseT> send(
+            final RequestT request, final Function<RequestT, CompletableFuture<ResponseT>> requestFunction) {
+        try {
+            inFlight.acquire();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CfnGeneralServiceException(ApiCallMetrics.OPERATION_NAMES.get(request.getClass()), e);
+        }
+        final CompletableFuture<ResponseT> response;
+        try {
+            response = proxyClient.injectCredentialsAndInvokeV2Async(request, requestFunction);
+        } catch (final RuntimeException e) {
+            inFlight.release();
+            throw e;
+        }
+        return response.whenComplete((result, failure) -> inFlight.release());
+    }
+
+    public synchronized int limit() {
+        return limit;
+    }
+
+    /**
+     * Halves the calls allowed in flight, down to one. Calls already in flight complete, the next ones wait
+     * until the fan-out is below the new limit.
+     */
+    public synchronized int reduceLimit() {
+        final int reduced = Math.max(1, limit / 2);
+        inFlight.reduce(limit - reduced);
+        limit = reduced;
+        return limit;
+    }
+
+    /**
+     * Waits for a call, failing with the error of the call itself rather than the completion wrapping it.
+     */
+    public static <T> T join(final CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (final CompletionException e) {
+            final Throwable cause = unwrap(e);
+            throw cause instanceof RuntimeException ? (RuntimeException) cause : e;
+        }
+    }
+
+    /**
+     * Waits for a task of a fan-out, failing with the error of the task itself. An interrupted wait, or a task
+     * that failed with a checked error, fails as a service error of the operation the fan-out makes.
+     */
+    public static <T> T await(final Future<T> future, final String operation) {
+        try {
+            return future.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CfnGeneralServiceException(operation, e);
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new CfnGeneralServiceException(operation, e.getCause());
+        }
+    }
+
+    // the error a future failed with, without the wrapping of join, get or a dependent stage
+    public static Throwable unwrap(final Throwable failure) {
+        Throwable cause = failure;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException) && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    private static final class LimitSemaphore extends Semaphore {
+        private static final long serialVersionUID = 1L;
+
+        private LimitSemaphore(final int permits) {
+            super(permits);
+        }
+
+        private void reduce(final int permits) {
+            reducePermits(permits);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package software.amazon.networkfirewall.common;
+
+import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.networkfirewall.NetworkFirewallAsyncClient;
+import software.amazon.awssdk.services.networkfirewall.NetworkFirewallAsyncClientBuilder;
+import software.amazon.awssdk.services.networkfirewall.NetworkFirewallClient;
+import software.amazon.cloudformation.LambdaWrapper;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * The Network Firewall clients of the handlers, one per region for the lifetime of the function. Building a
+ * client resolves endpoints, loads the service model and sets up its interceptors, which a warm invocation
+ * no longer pays for. Sharing is safe: the proxy injects the credentials of the caller into every request,
+ * and all clients send through the HTTP client of the wrapper.
+ *
+ * The async clients of the fan-outs that describe a page of resources at once have an HTTP client of their
+ * own, whose few event loop threads carry every call in flight.
+ *
+ * The clients make a single attempt per call: retries are left to the {@link RetryPolicy} of the invocation,
+ * which knows which calls are safe to send again and what the deadline leaves room for. With the retries of
+ * the SDK on as well, a throttled call would be sent up to four times for every attempt of the policy, and a
+ * mutation that failed with a 5xx would be sent again by the SDK whatever the policy decides.
+ */
+public final class ClientPool {
+    private static final Map<String, NetworkFirewallClient> CLIENTS = new ConcurrentHashMap<>();
+    private static final Map<String, NetworkFirewallAsyncClient> ASYNC_CLIENTS = new ConcurrentHashMap<>();
+    private static final ClientOverrideConfiguration SINGLE_ATTEMPT = ClientOverrideConfiguration.builder()
+            .retryPolicy(software.amazon.awssdk.core.retry.RetryPolicy.none())
+            .build();
+
+    private ClientPool() {
+    }
+
+    /**
+     * The client of a region, built on first use. GovCloud regions go to their FIPS endpoints.
+     */
+    public static Supplier<NetworkFirewallClient> getClient(final String region) {
+        return () -> CLIENTS.computeIfAbsent(region, ClientPool::newClient);
+    }
+
+    /**
+     * The async client of a region, built on first use with at most maxConnections connections; calls beyond
+     * them wait for a free one. The connections are those of the first caller for the lifetime of the function.
+     */
+    public static Supplier<NetworkFirewallAsyncClient> getAsyncClient(final String region, final int maxConnections) {
+        return () -> ASYNC_CLIENTS.computeIfAbsent(region, r -> newAsyncClient(r, maxConnections));
+    }
+
+    private static NetworkFirewallClient newClient(final String region) {
+        if (region.equals("us-gov-west-1") || region.equals("us-gov-east-1")) {
+            return NetworkFirewallClient.builder()
+                    .httpClient(LambdaWrapper.HTTP_CLIENT)
+                    .overrideConfiguration(SINGLE_ATTEMPT)
+                    .region(Region.of("fips-" + region))
+                    .build();
+        }
+        return NetworkFirewallClient.builder()
+                .httpClient(LambdaWrapper.HTTP_CLIENT)
+                .overrideConfiguration(SINGLE_ATTEMPT)
+                .build();
+    }
+
+    private static NetworkFirewallAsyncClient newAsyncClient(final String region, final int maxConnections) {
+        final NetworkFirewallAsyncClientBuilder builder = NetworkFirewallAsyncClient.builder()
+                .httpClientBuilder(NettyNioAsyncHttpClient.builder().maxConcurrency(maxConnections))
+                .overrideConfiguration(SINGLE_ATTEMPT);
+        if (region.equals("us-gov-west-1") || region.equals("us-gov-east-1")) {
+            builder.region(Region.of("fips-" + region));
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,71 @@
+package software.amazon.networkfirewall.common;
+
+import software.amazon.cloudformation.proxy.ProgressEvent;
+
+import java.time.Duration;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * The time a handler invocation may still spend. Handlers do not see the Lambda context, so the deadline
+ * is the invocation budget counted from the moment the request reached the handler. Work that would not
+ * fit any more is left to a callback: the handler returns IN_PROGRESS with a callback delay and picks up
+ * from its callback context when it is invoked again.
+ */
+public class Deadline {
+    // kept back for the call or poll under way when the deadline is checked and for returning the progress
+    public static final Duration RESERVE = Duration.ofSeconds(10);
+    // callback delay of progress handed back because a step would have run past the deadline
+    public static final int CHECKPOINT_DELAY_SECONDS = 1;
+
+    private static final Deadline UNBOUNDED = new Deadline(System::nanoTime, 0L, true);
+
+    private final LongSupplier nanoClock;
+    private final long deadlineNanos;
+    private final boolean unbounded;
+
+    private Deadline(final LongSupplier nanoClock, final long deadlineNanos, final boolean unbounded) {
+        this.nanoClock = nanoClock;
+        this.deadlineNanos = deadlineNanos;
+        this.unbounded = unbounded;
+    }
+
+    /**
+     * The deadline of handlers invoked directly rather than through their {@code BaseHandlerStd}, which never passes.
+     */
+    public static Deadline unbounded() {
+        return UNBOUNDED;
+    }
+
+    public static Deadline after(final Duration budget) {
+        return after(budget, System::nanoTime);
+    }
+
+    // a deadline on another clock, for tests that move time on by hand
+    public static Deadline after(final Duration budget, final LongSupplier nanoClock) {
+        return new Deadline(nanoClock, nanoClock.getAsLong() + budget.toNanos(), false);
+    }
+
+    public Duration remaining() {
+        return unbounded ? Duration.ofSeconds(Long.MAX_VALUE) : Duration.ofNanos(deadlineNanos - nanoClock.getAsLong());
+    }
+
+    /**
+     * Whether work of the given length still fits before the deadline, with the reserve to spare.
+     */
+    public boolean allows(final Duration work) {
+        return unbounded || remaining().compareTo(work.plus(RESERVE)) > 0;
+    }
+
+    /**
+     * Runs a step of a progress chain only while it can still start before the deadline. Otherwise the chain
+     * stops with IN_PROGRESS; the call chains of the steps already done are kept in the callback context,
+     * so the next invocation skips their service calls and continues with this step.
+     */
+    public <M, C> Function<ProgressEvent<M, C>, ProgressEvent<M, C>> checkpoint(
+            final Function<ProgressEvent<M, C>, ProgressEvent<M, C>> step) {
+        return progress -> allows(Duration.ZERO) ? step.apply(progress)
+                : ProgressEvent.defaultInProgressHandler(progress.getCallbackContext(), CHECKPOINT_DELAY_SECONDS,
+                        progress.getResourceModel());
+    }
+}
@@ -0,0 +1,118 @@
+package software.amazon.networkfirewall.common;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executors for the fan-outs of the handlers, the Describe calls of list enrichment and reference validation.
+ * By default a fan-out gets a pool of platform threads as wide as its parallelism. With virtual threads asked
+ * for, on a runtime that has them, every task gets a virtual thread of its own and the parallelism is held by a
+ * semaphore instead: a task waiting on a service call parks its virtual thread rather than holding a platform
+ * one, so the width of a fan-out no longer costs a thread stack per call. Before Java 21 the option falls back
+ * to the platform pool.
+ */
+public final class FanOutExecutors {
+    private FanOutExecutors() {
+    }
+
+    public static boolean virtualThreadsAvailable() {
+        return VirtualThreads.available();
+    }
+
+    /**
+     * An executor running at most parallelism tasks at a time, in the order they were submitted. It is shut
+     * down by the caller once the fan-out is done.
+     */
+    public static ExecutorService newExecutor(final String name, final int parallelism, final boolean virtualThreads) {
+        final int threads = Math.max(1, parallelism);
+        if (virtualThreads && virtualThreadsAvailable()) {
+            return bounded(VirtualThreads.newThreadPerTaskExecutor(name), threads);
+        }
+        return Executors.newFixedThreadPool(threads, platformThreads(name));
+    }
+
+    // runs the tasks on a thread per task of the given executor, parallelism of them at a time
+    static ExecutorService bounded(final ExecutorService threads, final int parallelism) {
+        return new BoundedExecutor(threads, parallelism);
+    }
+
+    private static ThreadFactory platformThreads(final String name) {
+        final AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            final Thread thread = new Thread(runnable, name + "-" + count.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    // a thread per task, with the threads past the parallelism parked until one of the running ones is done;
+    // every thread that gets its turn runs the task submitted longest ago, so tasks start in submission order
+    private static final class BoundedExecutor extends AbstractExecutorService {
+        private final ExecutorService threads;
+        private final Semaphore running;
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+        private BoundedExecutor(final ExecutorService threads, final int parallelism) {
+            this.threads = threads;
+            this.running = new Semaphore(parallelism);
+        }
+
+        @Override
+        public void execute(final Runnable task) {
+            tasks.add(task);
+            threads.execute(this::runNext);
+        }
+
+        private void runNext() {
+            try {
+                running.acquire();
+            } catch (final InterruptedException e) {
+                // shut down before its turn came, a task never runs
+                final Runnable task = tasks.poll();
+                if (task instanceof Future) {
+                    ((Future<?>) task).cancel(false);
+                }
+                return;
+            }
+            try {
+                tasks.poll().run();
+            } finally {
+                running.release();
+            }
+        }
+
+        @Override
+        public void shutdown() {
+            threads.shutdown();
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return threads.shutdownNow();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return threads.isShutdown();
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return threads.isTerminated();
+        }
+
+        @Override
+        public boolean awaitTermination(final long timeout, final TimeUnit unit) throws InterruptedException {
+            return threads.awaitTermination(timeout, unit);
+        }
+    }
+}
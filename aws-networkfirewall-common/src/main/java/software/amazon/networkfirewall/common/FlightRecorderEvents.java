@@ -0,0 +1,358 @@
+package software.amazon.networkfirewall.common;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import software.amazon.awssdk.awscore.AwsRequest;
+import software.amazon.awssdk.awscore.AwsResponse;
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+import software.amazon.awssdk.services.networkfirewall.NetworkFirewallClient;
+import software.amazon.cloudformation.proxy.CallChain;
+import software.amazon.cloudformation.proxy.ProgressEvent;
+import software.amazon.cloudformation.proxy.ProxyClient;
+import software.amazon.cloudformation.proxy.StdCallbackContext;
+
+import java.util.function.Function;
+
+/**
+ * Java Flight Recorder events of one handler invocation: the invocation itself, every call chain it
+ * initiates or step it takes as a phase, the translation of each chain's request, every service call,
+ * and every stabilization poll with the status it observed. Loaded next to the allocation and GC events
+ * of the same recording they show where handler time and memory go.
+ *
+ * A phase starts when its call chain is initiated, or its step taken, and lasts until the next one is,
+ * or until the invocation returns. The callback context, the steps and the stabilizers find the
+ * invocation through a thread local, so phases and polls are only seen on the handler thread; service
+ * calls are seen on any. What a poll observed is read off the responses of its service calls by the
+ * status function of the resource type.
+ */
+public class FlightRecorderEvents {
+    private static final boolean AVAILABLE = isAvailable();
+    private static final ThreadLocal<FlightRecorderEvents> CURRENT = new ThreadLocal<>();
+
+    private final String resourceType;
+    private final String action;
+    private final Function<AwsResponse, String> observedStatus;
+    private final FlightRecorderEvents previous;
+    private final InvocationEvent invocation = new InvocationEvent();
+    private volatile PhaseEvent phase;
+    private String callGraph;
+    private volatile StabilizationPollEvent poll;
+
+    private FlightRecorderEvents(final String resourceType, final String action,
+                                 final Function<AwsResponse, String> observedStatus, final FlightRecorderEvents previous) {
+        this.resourceType = resourceType;
+        this.action = action;
+        this.observedStatus = observedStatus;
+        this.previous = previous;
+        invocation.resourceType = resourceType;
+        invocation.action = action;
+        invocation.begin();
+    }
+
+    // the Lambda Java 8 runtime ships the flight recorder, other runtimes may not
+    public static boolean isAvailable() {
+        try {
+            Class.forName("jdk.jfr.Event", false, FlightRecorderEvents.class.getClassLoader());
+            return true;
+        } catch (final ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    /**
+     * Starts recording an invocation on the current thread, or returns null when the runtime has no
+     * flight recorder. Every started invocation has to be closed on the same thread. The status
+     * function gives what a response shows a stabilizer waits on, or null for a response that does not.
+     */
+    public static FlightRecorderEvents start(final String resourceType, final String action,
+                                             final Function<AwsResponse, String> observedStatus) {
+        if (!AVAILABLE) {
+            return null;
+        }
+        final FlightRecorderEvents events = new FlightRecorderEvents(resourceType, action, observedStatus, CURRENT.get());
+        CURRENT.set(events);
+        return events;
+    }
+
+    public ProxyClient<NetworkFirewallClient> instrument(final ProxyClient<NetworkFirewallClient> proxyClient) {
+        return new RecordingProxyClient(proxyClient);
+    }
+
+    public void completed(final ProgressEvent<?, ?> progress) {
+        invocation.status = String.valueOf(progress.getStatus());
+        invocation.errorCode = progress.getErrorCode() == null ? null : progress.getErrorCode().name();
+    }
+
+    public void close() {
+        endPhase();
+        invocation.commit();
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    /**
+     * Starts the phase of a call chain, ending the one before. A chain asks for its request more than
+     * once, only the first time starts its phase.
+     */
+    public static void phase(final String callGraph) {
+        final FlightRecorderEvents events = CURRENT.get();
+        if (events != null && !callGraph.equals(events.callGraph)) {
+            events.callGraph = callGraph;
+            events.startPhase(phaseOf(callGraph));
+        }
+    }
+
+    /**
+     * Starts the phase of a step of a handler that takes it without a call chain, ending the one before.
+     */
+    public static void step(final String step) {
+        final FlightRecorderEvents events = CURRENT.get();
+        if (events != null) {
+            events.callGraph = null;
+            events.startPhase(events.resourceType.replace("::", "-") + "::" + events.action + "-" + step);
+        }
+    }
+
+    /**
+     * The name a call chain was initiated with, from the call graph the proxy derives from it,
+     * {@code <service>:<operation>-<name>-<request hash>}.
+     */
+    public static String phaseOf(final String callGraph) {
+        final int operation = callGraph.indexOf(':');
+        final int name = callGraph.indexOf('-', operation + 1);
+        int hash = callGraph.lastIndexOf('-');
+        if (hash > 0 && callGraph.charAt(hash - 1) == '-') {
+            hash--;
+        }
+        return name < 0 || hash <= name ? callGraph : callGraph.substring(name + 1, hash);
+    }
+
+    /**
+     * Times the translation of a model into the request of a call chain.
+     */
+    public static <M, R> Function<M, R> translation(final String callGraph, final Function<M, R> translator) {
+        final FlightRecorderEvents events = CURRENT.get();
+        if (events == null) {
+            return translator;
+        }
+        return model -> {
+            final TranslationEvent event = new TranslationEvent();
+            event.resourceType = events.resourceType;
+            event.action = events.action;
+            event.phase = phaseOf(callGraph);
+            event.begin();
+            final R request = translator.apply(model);
+            event.requestType = request == null ? null : request.getClass().getSimpleName();
+            event.commit();
+            return request;
+        };
+    }
+
+    /**
+     * Records every invocation of a stabilizer as a poll, with the status of the resource the
+     * service calls made in it observed.
+     */
+    public static <RequestT, ResponseT, ClientT, ModelT, CallbackT extends StdCallbackContext>
+            CallChain.Callback<RequestT, ResponseT, ClientT, ModelT, CallbackT, Boolean> polled(
+                    final CallChain.Callback<RequestT, ResponseT, ClientT, ModelT, CallbackT, Boolean> stabilizer) {
+        return (request, response, client, model, context) -> {
+            pollStarted();
+            boolean stabilized = false;
+            try {
+                stabilized = Boolean.TRUE.equals(stabilizer.invoke(request, response, client, model, context));
+                return stabilized;
+            } finally {
+                pollEnded(stabilized);
+            }
+        };
+    }
+
+    public static void pollStarted() {
+        final FlightRecorderEvents events = CURRENT.get();
+        if (events != null) {
+            final StabilizationPollEvent event = new StabilizationPollEvent();
+            event.resourceType = events.resourceType;
+            event.action = events.action;
+            event.phase = events.phaseName();
+            event.begin();
+            events.poll = event;
+        }
+    }
+
+    public static void pollEnded(final boolean stabilized) {
+        final FlightRecorderEvents events = CURRENT.get();
+        final StabilizationPollEvent event = events == null ? null : events.poll;
+        if (event != null) {
+            event.stabilized = stabilized;
+            event.commit();
+            events.poll = null;
+        }
+    }
+
+    private void startPhase(final String name) {
+        endPhase();
+        final PhaseEvent next = new PhaseEvent();
+        next.resourceType = resourceType;
+        next.action = action;
+        next.phase = name;
+        next.begin();
+        phase = next;
+    }
+
+    private void endPhase() {
+        final PhaseEvent ended = phase;
+        if (ended != null) {
+            ended.commit();
+            phase = null;
+        }
+    }
+
+    private String phaseName() {
+        final PhaseEvent current = phase;
+        return current == null ? null : current.phase;
+    }
+
+    // the error code of a failed service call, or the kind of error for one that never reached the service
+    public static String errorCode(final RuntimeException e) {
+        if (e instanceof AwsServiceException && ((AwsServiceException) e).awsErrorDetails() != null
+                && ((AwsServiceException) e).awsErrorDetails().errorCode() != null) {
+            return ((AwsServiceException) e).awsErrorDetails().errorCode();
+        }
+        return e.getClass().getSimpleName();
+    }
+
+    private final class RecordingProxyClient extends ForwardingProxyClient<NetworkFirewallClient> {
+        private RecordingProxyClient(final ProxyClient<NetworkFirewallClient> delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public <RequestT extends AwsRequest, ResponseT extends AwsResponse> ResponseT injectCredentialsAndInvokeV2(
+                final RequestT request, final Function<RequestT, ResponseT> requestFunction) {
+            final ServiceCallEvent event = new ServiceCallEvent();
+            event.resourceType = resourceType;
+            event.action = action;
+            event.phase = phaseName();
+            event.operation = ApiCallMetrics.OPERATION_NAMES.get(request.getClass());
+            event.begin();
+            final StabilizationPollEvent polling = CURRENT.get() == FlightRecorderEvents.this ? poll : null;
+            try {
+                final ResponseT response = delegate.injectCredentialsAndInvokeV2(request, requestFunction);
+                event.commit();
+                final String status = polling == null ? null : observedStatus.apply(response);
+                if (status != null) {
+                    polling.observedStatus = status;
+                }
+                return response;
+            } catch (final RuntimeException e) {
+                event.errorCode = errorCode(e);
+                event.commit();
+                if (polling != null) {
+                    polling.observedStatus = event.errorCode;
+                }
+                throw e;
+            }
+        }
+    }
+
+    @Name("software.amazon.networkfirewall.HandlerInvocation")
+    @Label("Handler Invocation")
+    @Category({"NetworkFirewall", "Handler"})
+    @StackTrace(false)
+    static final class InvocationEvent extends Event {
+        @Label("Resource Type")
+        String resourceType;
+
+        @Label("Action")
+        String action;
+
+        @Label("Status")
+        String status = "FAILED";
+
+        @Label("Error Code")
+        String errorCode;
+    }
+
+    @Name("software.amazon.networkfirewall.HandlerPhase")
+    @Label("Handler Phase")
+    @Description("A call chain or step of a handler, until the next one starts or the handler returns")
+    @Category({"NetworkFirewall", "Handler"})
+    @StackTrace(false)
+    static final class PhaseEvent extends Event {
+        @Label("Resource Type")
+        String resourceType;
+
+        @Label("Action")
+        String action;
+
+        @Label("Phase")
+        String phase;
+    }
+
+    @Name("software.amazon.networkfirewall.Translation")
+    @Label("Request Translation")
+    @Category({"NetworkFirewall", "Handler"})
+    @StackTrace(false)
+    static final class TranslationEvent extends Event {
+        @Label("Resource Type")
+        String resourceType;
+
+        @Label("Action")
+        String action;
+
+        @Label("Phase")
+        String phase;
+
+        @Label("Request Type")
+        String requestType;
+    }
+
+    @Name("software.amazon.networkfirewall.ServiceCall")
+    @Label("Service Call")
+    @Category({"NetworkFirewall", "Handler"})
+    @StackTrace(false)
+    static final class ServiceCallEvent extends Event {
+        @Label("Resource Type")
+        String resourceType;
+
+        @Label("Action")
+        String action;
+
+        @Label("Phase")
+        String phase;
+
+        @Label("Operation")
+        String operation;
+
+        @Label("Error Code")
+        String errorCode;
+    }
+
+    @Name("software.amazon.networkfirewall.StabilizationPoll")
+    @Label("Stabilization Poll")
+    @Category({"NetworkFirewall", "Handler"})
+    @StackTrace(false)
+    static final class StabilizationPollEvent extends Event {
+        @Label("Resource Type")
+        String resourceType;
+
+        @Label("Action")
+        String action;
+
+        @Label("Phase")
+        String phase;
+
+        @Label("Observed Status")
+        String observedStatus;
+
+        @Label("Stabilized")
+        boolean stabilized;
+    }
+}
@@ -0,0 +1,283 @@
+package software.amazon.networkfirewall.common;
+
+import java.nio.file.Paths;
+
+/**
+ * The options every handler of this project is invoked with, switched on per deployment through the function
+ * environment like the options of each resource type, which hold them next to their own. Everything defaults to the
+ * original behaviour.
+ */
+public final class InvocationOptions {
+    public static final String API_CALL_METRICS = "NETWORKFIREWALL_API_CALL_METRICS";
+    public static final String FLIGHT_RECORDER_EVENTS = "NETWORKFIREWALL_FLIGHT_RECORDER_EVENTS";
+    public static final String TRACE_SPANS = "NETWORKFIREWALL_TRACE_SPANS";
+    public static final String TRACE_EXPORTER = "NETWORKFIREWALL_TRACE_EXPORTER";
+    public static final String TRACE_DIRECTORY = "NETWORKFIREWALL_TRACE_DIRECTORY";
+    public static final String INVOCATION_BUDGET_SECONDS = "NETWORKFIREWALL_INVOCATION_BUDGET_SECONDS";
+    public static final String RETRY_BUDGET = "NETWORKFIREWALL_RETRY_BUDGET";
+    public static final String RETRY_BASE_DELAY_MILLIS = "NETWORKFIREWALL_RETRY_BASE_DELAY_MILLIS";
+    public static final String RETRY_MAX_DELAY_MILLIS = "NETWORKFIREWALL_RETRY_MAX_DELAY_MILLIS";
+    public static final String ASYNC_CLIENT = "NETWORKFIREWALL_ASYNC_CLIENT";
+    public static final String ASYNC_MAX_CONNECTIONS = "NETWORKFIREWALL_ASYNC_MAX_CONNECTIONS";
+    public static final String VIRTUAL_THREADS = "NETWORKFIREWALL_VIRTUAL_THREADS";
+    public static final String COALESCE_DESCRIBES = "NETWORKFIREWALL_COALESCE_DESCRIBES";
+    public static final int DEFAULT_INVOCATION_BUDGET_SECONDS = 60;
+    public static final int DEFAULT_RETRY_BUDGET = 4;
+    public static final int DEFAULT_RETRY_BASE_DELAY_MILLIS = 100;
+    public static final int DEFAULT_RETRY_MAX_DELAY_MILLIS = 5000;
+    public static final int DEFAULT_ASYNC_MAX_CONNECTIONS = 16;
+    public static final String DEFAULT_TRACE_DIRECTORY =
+            Paths.get(System.getProperty("java.io.tmpdir"), "networkfirewall-traces").toString();
+
+    // log latency, errors, throttles and retries of every service call as embedded metrics
+    private final boolean apiCallMetrics;
+
+    // emit flight recorder events for handler phases, translations, service calls and stabilization polls
+    private final boolean flightRecorderEvents;
+
+    // record a span per update step, service call and stabilization poll and export them per invocation, where the
+    // handler traces its steps
+    private final boolean traceSpans;
+
+    // class name of the SpanExporter that receives the spans, a JSON file per invocation when unset
+    private final String traceExporter;
+
+    // directory the default exporter writes its JSON files to
+    private final String traceDirectory;
+
+    // seconds an invocation may spend before it hands the rest of its work to a callback, kept well below the
+    // function timeout
+    private final int invocationBudgetSeconds;
+
+    // retries of throttled, failed or dropped service calls one invocation may make
+    private final int retryBudget;
+
+    // shortest wait before a retry
+    private final int retryBaseDelayMillis;
+
+    // longest wait before a retry
+    private final int retryMaxDelayMillis;
+
+    // give the handlers an async client for the Describe calls they fan out, rather than a pool of threads
+    private final boolean asyncClient;
+
+    // connections of the async client of a region, calls in flight beyond them wait for a free one
+    private final int asyncMaxConnections;
+
+    // fan Describe calls out from virtual threads rather than pooled platform threads, on a runtime that has them;
+    // ignored before Java 21
+    private final boolean virtualThreads;
+
+    // let identical Describe calls that handlers of the same account and region have in flight at the same time in
+    // this JVM share one call and its response
+    private final boolean coalesceDescribes;
+
+    private InvocationOptions(final Builder builder) {
+        this.apiCallMetrics = builder.apiCallMetrics;
+        this.flightRecorderEvents = builder.flightRecorderEvents;
+        this.traceSpans = builder.traceSpans;
+        this.traceExporter = builder.traceExporter;
+        this.traceDirectory = builder.traceDirectory;
+        this.invocationBudgetSeconds = builder.invocationBudgetSeconds;
+        this.retryBudget = builder.retryBudget;
+        this.retryBaseDelayMillis = builder.retryBaseDelayMillis;
+        this.retryMaxDelayMillis = builder.retryMaxDelayMillis;
+        this.asyncClient = builder.asyncClient;
+        this.asyncMaxConnections = builder.asyncMaxConnections;
+        this.virtualThreads = builder.virtualThreads;
+        this.coalesceDescribes = builder.coalesceDescribes;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    // the original behaviour
+    public static InvocationOptions defaults() {
+        return builder().build();
+    }
+
+    public static InvocationOptions fromEnvironment() {
+        return builder()
+                .apiCallMetrics(Boolean.parseBoolean(System.getenv(API_CALL_METRICS)))
+                .flightRecorderEvents(Boolean.parseBoolean(System.getenv(FLIGHT_RECORDER_EVENTS)))
+                .traceSpans(Boolean.parseBoolean(System.getenv(TRACE_SPANS)))
+                .traceExporter(System.getenv(TRACE_EXPORTER))
+                .traceDirectory(System.getenv(TRACE_DIRECTORY) != null
+                        ? System.getenv(TRACE_DIRECTORY) : DEFAULT_TRACE_DIRECTORY)
+                .invocationBudgetSeconds(positiveIntOrDefault(System.getenv(INVOCATION_BUDGET_SECONDS),
+                        DEFAULT_INVOCATION_BUDGET_SECONDS))
+                .retryBudget(positiveIntOrDefault(System.getenv(RETRY_BUDGET), DEFAULT_RETRY_BUDGET))
+                .retryBaseDelayMillis(positiveIntOrDefault(System.getenv(RETRY_BASE_DELAY_MILLIS),
+                        DEFAULT_RETRY_BASE_DELAY_MILLIS))
+                .retryMaxDelayMillis(positiveIntOrDefault(System.getenv(RETRY_MAX_DELAY_MILLIS),
+                        DEFAULT_RETRY_MAX_DELAY_MILLIS))
+                .asyncClient(Boolean.parseBoolean(System.getenv(ASYNC_CLIENT)))
+                .asyncMaxConnections(positiveIntOrDefault(System.getenv(ASYNC_MAX_CONNECTIONS),
+                        DEFAULT_ASYNC_MAX_CONNECTIONS))
+                .virtualThreads(Boolean.parseBoolean(System.getenv(VIRTUAL_THREADS)))
+                .coalesceDescribes(Boolean.parseBoolean(System.getenv(COALESCE_DESCRIBES)))
+                .build();
+    }
+
+    /**
+     * The positive number an environment variable holds, or the default when it is unset, not a number or not
+     * positive.
+     */
+    public static int positiveIntOrDefault(final String value, final int defaultValue) {
+        final Integer parsed = positiveIntOrNull(value);
+        return parsed == null ? defaultValue : parsed;
+    }
+
+    public static Integer positiveIntOrNull(final String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            final int parsed = Integer.parseInt(value.trim());
+            return parsed > 0 ? parsed : null;
+        } catch (final NumberFormatException e) {
+            return null;
+        }
+    }
+
+    public boolean isApiCallMetrics() {
+        return apiCallMetrics;
+    }
+
+    public boolean isFlightRecorderEvents() {
+        return flightRecorderEvents;
+    }
+
+    public boolean isTraceSpans() {
+        return traceSpans;
+    }
+
+    public String getTraceExporter() {
+        return traceExporter;
+    }
+
+    public String getTraceDirectory() {
+        return traceDirectory;
+    }
+
+    public int getInvocationBudgetSeconds() {
+        return invocationBudgetSeconds;
+    }
+
+    public int getRetryBudget() {
+        return retryBudget;
+    }
+
+    public int getRetryBaseDelayMillis() {
+        return retryBaseDelayMillis;
+    }
+
+    public int getRetryMaxDelayMillis() {
+        return retryMaxDelayMillis;
+    }
+
+    public boolean isAsyncClient() {
+        return asyncClient;
+    }
+
+    public int getAsyncMaxConnections() {
+        return asyncMaxConnections;
+    }
+
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    public boolean isCoalesceDescribes() {
+        return coalesceDescribes;
+    }
+
+    public static final class Builder {
+        private boolean apiCallMetrics;
+        private boolean flightRecorderEvents;
+        private boolean traceSpans;
+        private String traceExporter;
+        private String traceDirectory = DEFAULT_TRACE_DIRECTORY;
+        private int invocationBudgetSeconds = DEFAULT_INVOCATION_BUDGET_SECONDS;
+        private int retryBudget = DEFAULT_RETRY_BUDGET;
+        private int retryBaseDelayMillis = DEFAULT_RETRY_BASE_DELAY_MILLIS;
+        private int retryMaxDelayMillis = DEFAULT_RETRY_MAX_DELAY_MILLIS;
+        private boolean asyncClient;
+        private int asyncMaxConnections = DEFAULT_ASYNC_MAX_CONNECTIONS;
+        private boolean virtualThreads;
+        private boolean coalesceDescribes;
+
+        private Builder() {
+        }
+
+        public Builder apiCallMetrics(final boolean apiCallMetrics) {
+            this.apiCallMetrics = apiCallMetrics;
+            return this;
+        }
+
+        public Builder flightRecorderEvents(final boolean flightRecorderEvents) {
+            this.flightRecorderEvents = flightRecorderEvents;
+            return this;
+        }
+
+        public Builder traceSpans(final boolean traceSpans) {
+            this.traceSpans = traceSpans;
+            return this;
+        }
+
+        public Builder traceExporter(final String traceExporter) {
+            this.traceExporter = traceExporter;
+            return this;
+        }
+
+        public Builder traceDirectory(final String traceDirectory) {
+            this.traceDirectory = traceDirectory;
+            return this;
+        }
+
+        public Builder invocationBudgetSeconds(final int invocationBudgetSeconds) {
+            this.invocationBudgetSeconds = invocationBudgetSeconds;
+            return this;
+        }
+
+        public Builder retryBudget(final int retryBudget) {
+            this.retryBudget = retryBudget;
+            return this;
+        }
+
+        public Builder retryBaseDelayMillis(final int retryBaseDelayMillis) {
+            this.retryBaseDelayMillis = retryBaseDelayMillis;
+            return this;
+        }
+
+        public Builder retryMaxDelayMillis(final int retryMaxDelayMillis) {
+            this.retryMaxDelayMillis = retryMaxDelayMillis;
+            return this;
+        }
+
+        public Builder asyncClient(final boolean asyncClient) {
+            this.asyncClient = asyncClient;
+            return this;
+        }
+
+        public Builder asyncMaxConnections(final int asyncMaxConnections) {
+            this.asyncMaxConnections = asyncMaxConnections;
+            return this;
+        }
+
+        public Builder virtualThreads(final boolean virtualThreads) {
+            this.virtualThreads = virtualThreads;
+            return this;
+        }
+
+        public Builder coalesceDescribes(final boolean coalesceDescribes) {
+            this.coalesceDescribes = coalesceDescribes;
+            return this;
+        }
+
+        public InvocationOptions build() {
+            return new InvocationOptions(this);
+        }
+    }
+}
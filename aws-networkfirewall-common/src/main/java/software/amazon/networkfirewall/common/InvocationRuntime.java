@@ -0,0 +1,129 @@
+package software.amazon.networkfirewall.common;
+
+import software.amazon.awssdk.awscore.AwsResponse;
+import software.amazon.awssdk.services.networkfirewall.NetworkFirewallAsyncClient;
+import software.amazon.awssdk.services.networkfirewall.NetworkFirewallClient;
+import software.amazon.cloudformation.proxy.AmazonWebServicesClientProxy;
+import software.amazon.cloudformation.proxy.Logger;
+import software.amazon.cloudformation.proxy.ProgressEvent;
+import software.amazon.cloudformation.proxy.ProxyClient;
+import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+
+import java.time.Duration;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Sets up each invocation of the handlers of a resource type: the deadline of its budget, the retries it may make,
+ * and the clients it calls the service through, wrapped for those retries and, as the options ask, for embedded
+ * metrics, flight recorder events and coalesced Describe calls. The BaseHandlerStd of each module holds one, made
+ * with what differs between them: the type name and the status its stabilizers wait on.
+ */
+public final class InvocationRuntime {
+    /**
+     * The callback context of an invocation, which carries what the runtime set up for it to the steps of the handler.
+     */
+    public interface Context {
+        Deadline getDeadline();
+
+        void setDeadline(Deadline deadline);
+
+        void setRetries(RetryPolicy retries);
+
+        void setAsyncProxyClient(ProxyClient<NetworkFirewallAsyncClient> asyncProxyClient);
+    }
+
+    private final String typeName;
+    private final Function<AwsResponse, String> observedStatus;
+    private final InvocationOptions options;
+
+    public InvocationRuntime(final String typeName, final Function<AwsResponse, String> observedStatus,
+            final InvocationOptions options) {
+        this.typeName = typeName;
+        this.observedStatus = observedStatus;
+        this.options = options;
+    }
+
+    /**
+     * Runs one invocation of a handler, which gets the client it is handed to make its calls through. Describe calls
+     * are coalesced within the stack operation the request is part of.
+     *
+     * @param client the client of the request's region, or a stand-in for the service
+     * @param handlerClass the handler, whose action names the metrics and events of the invocation
+     */
+    public <M, C extends Context> ProgressEvent<M, C> run(
+            final AmazonWebServicesClientProxy proxy,
+            final ResourceHandlerRequest<M> request,
+            final Supplier<NetworkFirewallClient> client,
+            final Class<?> handlerClass,
+            final C context,
+            final Logger logger,
+            final Function<ProxyClient<NetworkFirewallClient>, ProgressEvent<M, C>> handler) {
+        final Deadline deadline = Deadline.after(Duration.ofSeconds(options.getInvocationBudgetSeconds()));
+        final RetryPolicy retries = RetryPolicy.of(options.getRetryBudget(), options.getRetryBaseDelayMillis(),
+                options.getRetryMaxDelayMillis(), deadline, logger);
+        context.setDeadline(deadline);
+        context.setRetries(retries);
+        final String region = request.getRegion();
+        // identical Describe calls of the handlers of a stack operation in flight at the same time in this JVM share
+        // one call
+        final String scope = options.isCoalesceDescribes()
+                ? SingleFlight.scope(request.getAwsAccountId(), region, request.getStackId()) : null;
+        ProxyClient<NetworkFirewallClient> proxyClient = proxy.newProxy(client);
+        if (!options.isApiCallMetrics() && !options.isFlightRecorderEvents()) {
+            context.setAsyncProxyClient(newAsyncProxyClient(proxy, region, retries, null));
+            return handler.apply(SingleFlight.instrument(retries.instrument(proxyClient), scope));
+        }
+        final String action = ApiCallMetrics.actionOf(handlerClass);
+        final ApiCallMetrics metrics = options.isApiCallMetrics() ? new ApiCallMetrics(typeName, action) : null;
+        final FlightRecorderEvents events = options.isFlightRecorderEvents()
+                ? FlightRecorderEvents.start(typeName, action, observedStatus) : null;
+        if (metrics != null) {
+            proxyClient = metrics.instrument(proxyClient);
+        }
+        context.setAsyncProxyClient(newAsyncProxyClient(proxy, region, retries, metrics));
+        if (events != null) {
+            proxyClient = events.instrument(proxyClient);
+        }
+        // retried attempts show up in the metrics and events one by one
+        // a coalesced call is made, retried and recorded once, by the handler that made it
+        proxyClient = SingleFlight.instrument(retries.instrument(proxyClient), scope);
+        try {
+            final ProgressEvent<M, C> progress = handler.apply(proxyClient);
+            if (events != null) {
+                events.completed(progress);
+            }
+            return progress;
+        } finally {
+            if (events != null) {
+                events.close();
+            }
+            if (metrics != null) {
+                metrics.flush(logger);
+            }
+        }
+    }
+
+    /**
+     * The trace of an invocation when the options ask for one, exported as they name.
+     */
+    public StepTrace trace(final String name, final String clientRequestToken, final Logger logger) {
+        if (!options.isTraceSpans()) {
+            return StepTrace.disabled();
+        }
+        return StepTrace.start(name, clientRequestToken,
+                StepTrace.exporterOf(options.getTraceExporter(), options.getTraceDirectory(), logger),
+                observedStatus, logger);
+    }
+
+    // async calls are recorded and retried like the sync ones; flight recorder events only cover the sync client
+    private ProxyClient<NetworkFirewallAsyncClient> newAsyncProxyClient(final AmazonWebServicesClientProxy proxy,
+            final String region, final RetryPolicy retries, final ApiCallMetrics metrics) {
+        if (!options.isAsyncClient()) {
+            return null;
+        }
+        final ProxyClient<NetworkFirewallAsyncClient> asyncClient =
+                proxy.newProxy(ClientPool.getAsyncClient(region, options.getAsyncMaxConnections()));
+        return retries.instrument(metrics != null ? metrics.instrument(asyncClient) : asyncClient);
+    }
+}
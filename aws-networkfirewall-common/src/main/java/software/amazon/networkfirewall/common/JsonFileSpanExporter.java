@@ -0,0 +1,91 @@
+package software.amazon.networkfirewall.common;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the spans of an invocation to {@code <trace id>-<root span id>.json} in a directory, in the
+ * Trace Event Format that chrome://tracing and Perfetto draw as a waterfall. The callbacks of one
+ * operation share their trace id, so an update that took several invocations leaves one file each.
+ */
+public class JsonFileSpanExporter implements SpanExporter {
+    private final Path directory;
+
+    public JsonFileSpanExporter(final Path directory) {
+        this.directory = directory;
+    }
+
+    @Override
+    public void export(final List<Span> spans) {
+        if (spans.isEmpty()) {
+            return;
+        }
+        final Span root = spans.get(0);
+        final Path file = directory.resolve(fileName(root.getTraceId()) + "-" + root.getSpanId() + ".json");
+        try {
+            Files.createDirectories(directory);
+            Files.write(file, format(spans).getBytes(StandardCharsets.UTF_8));
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static String format(final List<Span> spans) {
+        final StringBuilder json = new StringBuilder(256 * spans.size());
+        json.append("{\"displayTimeUnit\":\"ms\",\"traceEvents\":[");
+        for (int i = 0; i < spans.size(); i++) {
+            final Span span = spans.get(i);
+            if (i > 0) {
+                json.append(',');
+            }
+            // complete events on one thread, nested by their times
+            json.append("{\"ph\":\"X\",\"pid\":1,\"tid\":1,\"name\":");
+            appendString(json, span.getName());
+            json.append(",\"cat\":");
+            appendString(json, span.getKind());
+            json.append(",\"ts\":").append(span.getStartEpochNanos() / 1000)
+                    .append(",\"dur\":").append(span.durationNanos() / 1000)
+                    .append(",\"args\":{\"traceId\":");
+            appendString(json, span.getTraceId());
+            json.append(",\"spanId\":");
+            appendString(json, span.getSpanId());
+            if (span.getParentSpanId() != null) {
+                json.append(",\"parentSpanId\":");
+                appendString(json, span.getParentSpanId());
+            }
+            for (final Map.Entry<String, String> attribute : span.getAttributes().entrySet()) {
+                json.append(',');
+                appendString(json, attribute.getKey());
+                json.append(':');
+                appendString(json, attribute.getValue());
+            }
+            json.append("}}");
+        }
+        return json.append("]}").toString();
+    }
+
+    private static void appendString(final StringBuilder json, final String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        json.append('"');
+    }
+
+    // client request tokens are UUIDs, anything else is kept to a safe file name
+    private static String fileName(final String traceId) {
+        return traceId.replaceAll("[^A-Za-z0-9._-]", "_");
+    }
+}
@@ -0,0 +1,87 @@
+package software.amazon.networkfirewall.common;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * The resource models a warm container has translated from Describe responses, one per resource ARN. A model
+ * is served again for a response carrying the same UpdateToken, which the service changes on every update of
+ * the resource, so reads of an unchanged rule group or policy skip translating its definition. Entries live for
+ * the time to live at most, the least recently read entry makes room once the cache is full, and a handler that
+ * changes or deletes a resource invalidates its entry.
+ *
+ * A served model is the one that was translated first; callers copy what they hand out rather than modify it.
+ */
+public class ModelCache<M> {
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final LongSupplier nanoClock;
+    private final Map<String, Entry<M>> entries;
+
+    public ModelCache(final int maxEntries, final Duration ttl) {
+        this(maxEntries, ttl, System::nanoTime);
+    }
+
+    // a cache on another clock, for tests that move time on by hand
+    public ModelCache(final int maxEntries, final Duration ttl, final LongSupplier nanoClock) {
+        this.maxEntries = Math.max(1, maxEntries);
+        this.ttlNanos = ttl.toNanos();
+        this.nanoClock = nanoClock;
+        this.entries = new LinkedHashMap<String, Entry<M>>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, Entry<M>> eldest) {
+                return size() > ModelCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * The model of the resource at this UpdateToken, translated and kept on a miss. Translation runs outside the
+     * lock, so concurrent misses for the same resource may each translate; the last one is kept. A response
+     * without an ARN or a token is translated every time.
+     */
+    public M get(final String arn, final String updateToken, final Supplier<M> translate) {
+        if (arn == null || updateToken == null) {
+            return translate.get();
+        }
+        synchronized (this) {
+            final Entry<M> entry = entries.get(arn);
+            if (entry != null && entry.updateToken.equals(updateToken) && nanoClock.getAsLong() - entry.expiresAt < 0) {
+                return entry.model;
+            }
+        }
+        final M model = translate.get();
+        synchronized (this) {
+            entries.put(arn, new Entry<>(updateToken, model, nanoClock.getAsLong() + ttlNanos));
+        }
+        return model;
+    }
+
+    // the resource was changed or deleted, its next read translates again
+    public synchronized void invalidate(final String arn) {
+        if (arn != null) {
+            entries.remove(arn);
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private static final class Entry<M> {
+        private final String updateToken;
+        private final M model;
+        private final long expiresAt;
+
+        private Entry(final String updateToken, final M model, final long expiresAt) {
+            this.updateToken = updateToken;
+            this.model = model;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
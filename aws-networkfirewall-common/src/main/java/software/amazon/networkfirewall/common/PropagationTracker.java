@@ -0,0 +1,221 @@
+package software.amazon.networkfirewall.common;
+
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+import software.amazon.awssdk.services.networkfirewall.NetworkFirewallClient;
+import software.amazon.awssdk.services.networkfirewall.model.DescribeFirewallRequest;
+import software.amazon.awssdk.services.networkfirewall.model.DescribeFirewallResponse;
+import software.amazon.awssdk.services.networkfirewall.model.FirewallMetadata;
+import software.amazon.awssdk.services.networkfirewall.model.FirewallStatus;
+import software.amazon.awssdk.services.networkfirewall.model.ListFirewallsRequest;
+import software.amazon.awssdk.services.networkfirewall.model.ListFirewallsResponse;
+import software.amazon.awssdk.services.networkfirewall.model.PerObjectStatus;
+import software.amazon.awssdk.services.networkfirewall.model.PerObjectSyncStatus;
+import software.amazon.awssdk.services.networkfirewall.model.ResourceNotFoundException;
+import software.amazon.awssdk.services.networkfirewall.model.SyncState;
+import software.amazon.cloudformation.exceptions.CfnGeneralServiceException;
+import software.amazon.cloudformation.proxy.Logger;
+import software.amazon.cloudformation.proxy.ProxyClient;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.LongSupplier;
+
+/**
+ * Follows an updated firewall policy or rule group until it has reached every firewall that uses it. The
+ * firewalls of the account and region are listed and described in bounded parallel rounds; a firewall uses the
+ * resource when the config of its sync states lists it, and the update has reached the firewall once every zone
+ * that lists it shows it IN_SYNC at the update token of the update. One DescribeFirewall per firewall and round
+ * checks all of its zones, and firewalls the update has reached, or that do not use the resource, are not
+ * described again.
+ *
+ * The latency of every firewall, from the update until the round that found it in sync, is logged and kept in
+ * the map the caller hands in, so that a wait carried on in a callback neither describes nor reports a firewall
+ * twice.
+ */
+public class PropagationTracker {
+    static final int LIST_PAGE_SIZE = 100;
+
+    public enum Outcome {
+        // every firewall that uses the resource shows the update
+        PROPAGATED,
+        // the longest wait is over with firewalls still behind, they are logged
+        GAVE_UP,
+        // the invocation has no time left for another round, the wait carries on in a callback
+        OUT_OF_TIME
+    }
+
+    // what a round found on a firewall
+    enum Sync {
+        IN_SYNC,
+        PENDING,
+        NOT_USED,
+        UNKNOWN
+    }
+
+    @FunctionalInterface
+    public interface Sleeper {
+        void sleep(long millis) throws InterruptedException;
+    }
+
+    private final String resourceType;
+    private final ProxyClient<NetworkFirewallClient> proxyClient;
+    private final int parallelism;
+    private final boolean virtualThreads;
+    private final Duration pollInterval;
+    private final Logger logger;
+    private final LongSupplier clock;
+    private final Sleeper sleeper;
+
+    public PropagationTracker(final String resourceType, final ProxyClient<NetworkFirewallClient> proxyClient,
+            final int parallelism, final boolean virtualThreads, final Duration pollInterval, final Logger logger) {
+        this(resourceType, proxyClient, parallelism, virtualThreads, pollInterval, logger, System::currentTimeMillis,
+                Thread::sleep);
+    }
+
+    // a tracker on another clock that waits through the given sleeper, for tests that move time on by hand
+    public PropagationTracker(final String resourceType, final ProxyClient<NetworkFirewallClient> proxyClient,
+            final int parallelism, final boolean virtualThreads, final Duration pollInterval, final Logger logger,
+            final LongSupplier clock, final Sleeper sleeper) {
+        this.resourceType = resourceType;
+        this.proxyClient = proxyClient;
+        this.parallelism = Math.max(1, parallelism);
+        this.virtualThreads = virtualThreads;
+        this.pollInterval = pollInterval;
+        this.logger = logger;
+        this.clock = clock;
+        this.sleeper = sleeper;
+    }
+
+    /**
+     * Describes the firewalls in rounds until the update of the resource has reached all that use it, the
+     * longest wait since the update is over, or the deadline leaves no room for another round.
+     *
+     * @param updatedAt epoch millis the update succeeded at, which latencies are counted from
+     * @param reached   latency in millis of the firewalls the update has already reached; the ones reached now are
+     *                  added
+     */
+    public Outcome await(final String resourceArn, final String updateToken, final long updatedAt,
+            final Duration maxWait, final Deadline deadline, final Map<String, Long> reached) {
+        final Set<String> pending = listFirewalls();
+        pending.removeAll(reached.keySet());
+        while (!pending.isEmpty()) {
+            final Map<String, Sync> round = describeRound(pending, resourceArn, updateToken);
+            final long checkedAt = clock.getAsLong();
+            round.forEach((firewallArn, sync) -> {
+                if (sync == Sync.IN_SYNC) {
+                    reached.put(firewallArn, checkedAt - updatedAt);
+                    logger.log(String.format("%s %s reached firewall %s after %d ms.",
+                            resourceType, resourceArn, firewallArn, checkedAt - updatedAt));
+                }
+                if (sync == Sync.IN_SYNC || sync == Sync.NOT_USED) {
+                    pending.remove(firewallArn);
+                }
+            });
+            if (pending.isEmpty()) {
+                break;
+            }
+            if (checkedAt - updatedAt + pollInterval.toMillis() > maxWait.toMillis()) {
+                logger.log(String.format("%s %s has not reached firewalls %s after %d seconds, no longer waiting.",
+                        resourceType, resourceArn, pending, maxWait.getSeconds()));
+                return Outcome.GAVE_UP;
+            }
+            if (!deadline.allows(pollInterval)) {
+                return Outcome.OUT_OF_TIME;
+            }
+            pause();
+        }
+        logger.log(String.format("%s %s reached all %d firewalls that use it, the last after %d ms.", resourceType,
+                resourceArn, reached.size(), reached.values().stream().mapToLong(Long::longValue).max().orElse(0L)));
+        return Outcome.PROPAGATED;
+    }
+
+    /**
+     * What a firewall shows of the resource, in every zone whose config lists it.
+     */
+    static Sync syncOf(final DescribeFirewallResponse response, final String resourceArn, final String updateToken) {
+        final FirewallStatus status = response.firewallStatus();
+        if (status == null || !status.hasSyncStates()) {
+            return Sync.NOT_USED;
+        }
+        boolean listed = false;
+        for (final SyncState zone : status.syncStates().values()) {
+            final PerObjectStatus config = zone.hasConfig() ? zone.config().get(resourceArn) : null;
+            if (config == null) {
+                continue;
+            }
+            listed = true;
+            // a zone that does not say which version it has may still have the one before the update
+            final boolean current = updateToken == null || updateToken.equals(config.updateToken());
+            if (config.syncStatus() != PerObjectSyncStatus.IN_SYNC || !current) {
+                return Sync.PENDING;
+            }
+        }
+        return listed ? Sync.IN_SYNC : Sync.NOT_USED;
+    }
+
+    private Set<String> listFirewalls() {
+        final Set<String> firewallArns = new TreeSet<>();
+        String nextToken = null;
+        do {
+            final ListFirewallsRequest request = ListFirewallsRequest.builder()
+                    .maxResults(LIST_PAGE_SIZE)
+                    .nextToken(nextToken)
+                    .build();
+            final ListFirewallsResponse response =
+                    proxyClient.injectCredentialsAndInvokeV2(request, proxyClient.client()::listFirewalls);
+            if (response.hasFirewalls()) {
+                response.firewalls().stream().map(FirewallMetadata::firewallArn).forEach(firewallArns::add);
+            }
+            nextToken = response.nextToken();
+        } while (nextToken != null);
+        return firewallArns;
+    }
+
+    private Map<String, Sync> describeRound(final Set<String> firewallArns, final String resourceArn,
+            final String updateToken) {
+        final ExecutorService executor = FanOutExecutors.newExecutor("propagation",
+                Math.min(parallelism, firewallArns.size()), virtualThreads);
+        try {
+            final Map<String, Future<Sync>> pending = new LinkedHashMap<>();
+            for (final String firewallArn : firewallArns) {
+                pending.put(firewallArn, executor.submit(() -> describe(firewallArn, resourceArn, updateToken)));
+            }
+            final Map<String, Sync> round = new LinkedHashMap<>();
+            for (final Map.Entry<String, Future<Sync>> entry : pending.entrySet()) {
+                round.put(entry.getKey(), AsyncFanOut.await(entry.getValue(), "DescribeFirewall"));
+            }
+            return round;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // a firewall that is gone does not use the resource; one that cannot be described now is tried again
+    private Sync describe(final String firewallArn, final String resourceArn, final String updateToken) {
+        try {
+            return syncOf(proxyClient.injectCredentialsAndInvokeV2(
+                    DescribeFirewallRequest.builder().firewallArn(firewallArn).build(),
+                    proxyClient.client()::describeFirewall), resourceArn, updateToken);
+        } catch (final ResourceNotFoundException e) {
+            return Sync.NOT_USED;
+        } catch (final AwsServiceException e) {
+            logger.log(String.format("Firewall %s could not be described, checking it again: %s",
+                    firewallArn, e.getMessage()));
+            return Sync.UNKNOWN;
+        }
+    }
+
+    private void pause() {
+        try {
+            sleeper.sleep(pollInterval.toMillis());
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CfnGeneralServiceException("DescribeFirewall", e);
+        }
+    }
+}
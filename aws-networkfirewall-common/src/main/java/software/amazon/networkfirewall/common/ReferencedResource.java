@@ -0,0 +1,124 @@
+package software.amazon.networkfirewall.common;
+
+import software.amazon.awssdk.services.networkfirewall.NetworkFirewallClient;
+import software.amazon.cloudformation.proxy.Logger;
+import software.amazon.cloudformation.proxy.ProgressEvent;
+import software.amazon.cloudformation.proxy.ProxyClient;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * What the handlers of rule groups and firewall policies, the resources firewalls use by reference, have in common:
+ * the models a warm container translated from their Describe responses, and the optional wait for an update to
+ * reach the firewalls that use them.
+ */
+public final class ReferencedResource<M> {
+    // the read cache of each resource type, shared by the handlers of every invocation in this JVM
+    private static final ConcurrentMap<String, ModelCache<?>> READ_MODELS = new ConcurrentHashMap<>();
+
+    /**
+     * The options of the read cache and the propagation wait, which the options of each resource type hold.
+     */
+    public interface Options {
+        InvocationOptions getInvocation();
+
+        // resources whose translated model a warm container keeps for reads at the same UpdateToken, 0 keeps none
+        int getReadCacheSize();
+
+        // seconds a translated model is kept at most
+        int getReadCacheTtlSeconds();
+
+        // after an update, wait until every firewall that uses the resource shows the new version in sync
+        boolean isPropagationWait();
+
+        // upper bound on concurrent DescribeFirewall calls made while waiting for an update to propagate
+        int getPropagationParallelism();
+
+        // seconds between two rounds of DescribeFirewall calls of the propagation wait
+        int getPropagationPollSeconds();
+
+        // seconds after the update the wait gives up on firewalls that are still behind
+        int getPropagationTimeoutSeconds();
+    }
+
+    /**
+     * The callback context of an update, which carries the propagation wait over to the invocations after it.
+     */
+    public interface Context extends InvocationRuntime.Context {
+        Long getPropagationStartedAt();
+
+        void setPropagationStartedAt(Long propagationStartedAt);
+
+        String getPropagationUpdateToken();
+
+        void setPropagationUpdateToken(String propagationUpdateToken);
+
+        // milliseconds each firewall the update has reached so far took to get it
+        Map<String, Long> getPropagatedFirewalls();
+    }
+
+    private final String typeName;
+    private final Options options;
+
+    public ReferencedResource(final String typeName, final Options options) {
+        this.typeName = typeName;
+        this.options = options;
+    }
+
+    /**
+     * The translated models of the resource type, null while the read cache option is off. The first handler that
+     * asks sizes the cache.
+     */
+    @SuppressWarnings("unchecked")
+    public ModelCache<M> readModels() {
+        if (options.getReadCacheSize() <= 0) {
+            return null;
+        }
+        return (ModelCache<M>) READ_MODELS.computeIfAbsent(typeName, type ->
+                new ModelCache<M>(options.getReadCacheSize(), Duration.ofSeconds(options.getReadCacheTtlSeconds())));
+    }
+
+    // the resource was changed or deleted, so its next read translates it again
+    public void invalidateReadModel(final String arn) {
+        final ModelCache<M> models = readModels();
+        if (models != null) {
+            models.invalidate(arn);
+        }
+    }
+
+    // the update the optional propagation wait follows
+    public void recordUpdate(final Context context, final String updateToken) {
+        if (options.isPropagationWait()) {
+            context.setPropagationStartedAt(System.currentTimeMillis());
+            context.setPropagationUpdateToken(updateToken);
+        }
+    }
+
+    /**
+     * Optional: waits for the recorded update to reach the firewalls that use the resource, carrying on in a callback
+     * when the invocation runs out of time.
+     */
+    public <C extends Context> ProgressEvent<M, C> awaitPropagation(final ProxyClient<NetworkFirewallClient> proxyClient,
+            final Logger logger, final String arn, final ProgressEvent<M, C> progress) {
+        final C context = progress.getCallbackContext();
+        if (!options.isPropagationWait() || context.getPropagationStartedAt() == null) {
+            return progress;
+        }
+        final PropagationTracker.Outcome outcome = new PropagationTracker(typeName, proxyClient,
+                options.getPropagationParallelism(), options.getInvocation().isVirtualThreads(),
+                Duration.ofSeconds(options.getPropagationPollSeconds()), logger)
+                .await(arn, context.getPropagationUpdateToken(), context.getPropagationStartedAt(),
+                        Duration.ofSeconds(options.getPropagationTimeoutSeconds()), context.getDeadline(),
+                        context.getPropagatedFirewalls());
+        if (outcome == PropagationTracker.Outcome.OUT_OF_TIME) {
+            return ProgressEvent.defaultInProgressHandler(context, Deadline.CHECKPOINT_DELAY_SECONDS,
+                    progress.getResourceModel());
+        }
+        // waited for once, a step after this one that is left to a callback does not wait again
+        context.setPropagationStartedAt(null);
+        return progress;
+    }
+}
@@ -0,0 +1,225 @@
+package software.amazon.networkfirewall.common;
+
+import software.amazon.awssdk.awscore.AwsRequest;
+import software.amazon.awssdk.awscore.AwsResponse;
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.services.networkfirewall.model.InsufficientCapacityException;
+import software.amazon.awssdk.services.networkfirewall.model.InternalServerErrorException;
+import software.amazon.awssdk.services.networkfirewall.model.ThrottlingException;
+import software.amazon.cloudformation.proxy.Logger;
+import software.amazon.cloudformation.proxy.ProxyClient;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Retries of service calls that failed for a reason likely to be gone a moment later, so that a throttle or
+ * a 5xx in the middle of a long create does not fail the resource. Throttled calls were rejected before the
+ * service acted on them and are retried whatever they do; server errors and broken connections are retried
+ * for Describe and List calls only, since a mutation may have gone through before the error. Anything else
+ * is terminal and reaches the handler at once. The pooled clients of {@link ClientPool} do not retry on their
+ * own, so each attempt counted here is one request sent.
+ *
+ * The retries of an invocation share one budget, and a retry only waits while the deadline leaves room for
+ * the wait. Waits follow decorrelated jitter, so handlers throttled by the same API spread out rather than
+ * retrying in lock step.
+ *
+ * Async calls are retried the same way, with the wait scheduled rather than slept, so a retry holds no thread
+ * and the future of the call completes with its last attempt.
+ */
+public class RetryPolicy {
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "retry-scheduler");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final RetryPolicy NONE = new RetryPolicy(0, 0L, 0L, Deadline.unbounded(), null, millis -> { });
+
+    private final AtomicInteger remaining;
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+    private final Deadline deadline;
+    private final Logger logger;
+    private final Sleeper sleeper;
+    private final Scheduler scheduler;
+
+    RetryPolicy(final int budget, final long baseDelayMillis, final long maxDelayMillis, final Deadline deadline,
+                final Logger logger, final Sleeper sleeper) {
+        this(budget, baseDelayMillis, maxDelayMillis, deadline, logger, sleeper,
+                (retry, millis) -> SCHEDULER.schedule(retry, millis, TimeUnit.MILLISECONDS));
+    }
+
+    RetryPolicy(final int budget, final long baseDelayMillis, final long maxDelayMillis, final Deadline deadline,
+                final Logger logger, final Sleeper sleeper, final Scheduler scheduler) {
+        this.remaining = new AtomicInteger(budget);
+        this.baseDelayMillis = baseDelayMillis;
+        this.maxDelayMillis = Math.max(baseDelayMillis, maxDelayMillis);
+        this.deadline = deadline;
+        this.logger = logger;
+        this.sleeper = sleeper;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * The policy of handlers invoked directly rather than through their {@code BaseHandlerStd}, which never retries.
+     */
+    public static RetryPolicy none() {
+        return NONE;
+    }
+
+    public static RetryPolicy of(final int budget, final long baseDelayMillis, final long maxDelayMillis,
+                                 final Deadline deadline, final Logger logger) {
+        return new RetryPolicy(budget, baseDelayMillis, maxDelayMillis, deadline, logger, Thread::sleep);
+    }
+
+    /**
+     * Whether an error says nothing about the request itself: a throttle, a server error or a broken connection.
+     */
+    public static boolean isTransient(final Throwable e) {
+        if (e instanceof ThrottlingException || e instanceof InternalServerErrorException
+                || e instanceof InsufficientCapacityException) {
+            return true;
+        }
+        if (e instanceof AwsServiceException) {
+            return ((AwsServiceException) e).isThrottlingException() || ((AwsServiceException) e).statusCode() >= 500;
+        }
+        return e instanceof SdkClientException && e.getCause() instanceof IOException;
+    }
+
+    static boolean isRetryable(final AwsRequest request, final Throwable e) {
+        if (e instanceof ThrottlingException
+                || e instanceof AwsServiceException && ((AwsServiceException) e).isThrottlingException()) {
+            return true;
+        }
+        final String operation = operationOf(request);
+        return isTransient(e) && (operation.startsWith("Describe") || operation.startsWith("List"));
+    }
+
+    public int remaining() {
+        return remaining.get();
+    }
+
+    /**
+     * Lets a stabilizer treat a transient error of its poll as "not stabilized yet", taking a retry from the
+     * budget, so that the next poll or callback tries again instead of failing progress already made.
+     */
+    public boolean absorbs(final Throwable e) {
+        if (!isTransient(e) || !acquire()) {
+            return false;
+        }
+        logger.log(String.format("Polling again after %s, %d retries left in this invocation",
+                errorCode(e), remaining.get()));
+        return true;
+    }
+
+    public <ClientT> ProxyClient<ClientT> instrument(final ProxyClient<ClientT> proxyClient) {
+        return this == NONE ? proxyClient : new RetryingProxyClient<>(proxyClient);
+    }
+
+    // decorrelated jitter: a random wait between the base and three times the previous wait, capped
+    long nextDelayMillis(final long previousDelayMillis) {
+        final long upper = Math.max(baseDelayMillis, Math.min(maxDelayMillis, previousDelayMillis * 3));
+        return upper <= baseDelayMillis ? baseDelayMillis : ThreadLocalRandom.current().nextLong(baseDelayMillis, upper + 1);
+    }
+
+    private boolean acquire() {
+        return remaining.getAndUpdate(left -> left > 0 ? left - 1 : 0) > 0;
+    }
+
+    private static String operationOf(final AwsRequest request) {
+        final String name = request.getClass().getSimpleName();
+        return name.endsWith("Request") ? name.substring(0, name.length() - "Request".length()) : name;
+    }
+
+    private static String errorCode(final Throwable e) {
+        if (e instanceof AwsServiceException && ((AwsServiceException) e).awsErrorDetails() != null
+                && ((AwsServiceException) e).awsErrorDetails().errorCode() != null) {
+            return ((AwsServiceException) e).awsErrorDetails().errorCode();
+        }
+        return e.getClass().getSimpleName();
+    }
+
+    interface Sleeper {
+        void sleep(long millis) throws InterruptedException;
+    }
+
+    interface Scheduler {
+        void schedule(Runnable retry, long millis);
+    }
+
+    private final class RetryingProxyClient<ClientT> extends ForwardingProxyClient<ClientT> {
+        private RetryingProxyClient(final ProxyClient<ClientT> delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public <RequestT extends AwsRequest, ResponseT extends AwsResponse> ResponseT injectCredentialsAndInvokeV2(
+                final RequestT request, final Function<RequestT, ResponseT> requestFunction) {
+            long delayMillis = baseDelayMillis;
+            while (true) {
+                try {
+                    return delegate.injectCredentialsAndInvokeV2(request, requestFunction);
+                } catch (final RuntimeException e) {
+                    if (!isRetryable(request, e)) {
+                        throw e;
+                    }
+                    delayMillis = nextDelayMillis(delayMillis);
+                    if (!deadline.allows(Duration.ofMillis(delayMillis)) || !acquire()) {
+                        throw e;
+                    }
+                    logger.log(String.format("Retrying %s in %d ms after %s, %d retries left in this invocation",
+                            operationOf(request), delayMillis, errorCode(e), remaining.get()));
+                    try {
+                        sleeper.sleep(delayMillis);
+                    } catch (final InterruptedException interrupted) {
+                        Thread.currentThread().interrupt();
+                        throw e;
+                    }
+                }
+            }
+        }
+
+        @Override
+        public <RequestT extends AwsRequest, ResponseT extends AwsResponse> CompletableFuture<ResponseT> injectCredentialsAndInvokeV2Async(
+                final RequestT request, final Function<RequestT, CompletableFuture<ResponseT>> requestFunction) {
+            final CompletableFuture<ResponseT> result = new CompletableFuture<>();
+            attempt(request, requestFunction, baseDelayMillis, result);
+            return result;
+        }
+
+        private <RequestT extends AwsRequest, ResponseT extends AwsResponse> void attempt(
+                final RequestT request, final Function<RequestT, CompletableFuture<ResponseT>> requestFunction,
+                final long previousDelayMillis, final CompletableFuture<ResponseT> result) {
+            CompletableFuture<ResponseT> response;
+            try {
+                response = delegate.injectCredentialsAndInvokeV2Async(request, requestFunction);
+            } catch (final RuntimeException e) {
+                response = new CompletableFuture<>();
+                response.completeExceptionally(e);
+            }
+            response.whenComplete((value, failure) -> {
+                if (failure == null) {
+                    result.complete(value);
+                    return;
+                }
+                final Throwable e = AsyncFanOut.unwrap(failure);
+                final long delayMillis = nextDelayMillis(previousDelayMillis);
+                if (!isRetryable(request, e) || !deadline.allows(Duration.ofMillis(delayMillis)) || !acquire()) {
+                    result.completeExceptionally(e);
+                    return;
+                }
+                logger.log(String.format("Retrying %s in %d ms after %s, %d retries left in this invocation",
+                        operationOf(request), delayMillis, errorCode(e), remaining.get()));
+                scheduler.schedule(() -> attempt(request, requestFunction, delayMillis, result), delayMillis);
+            });
+        }
+    }
+}
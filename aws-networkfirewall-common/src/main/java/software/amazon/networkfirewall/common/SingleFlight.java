@@ -0,0 +1,131 @@
+package software.amazon.networkfirewall.common;
+
+import software.amazon.awssdk.awscore.AwsRequest;
+import software.amazon.awssdk.awscore.AwsResponse;
+import software.amazon.cloudformation.proxy.ProxyClient;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+
+/**
+ * Coalesces identical Describe calls that handlers running at the same time in one JVM make, as the stabilizers
+ * of several operations on the same firewall do when the executable entry point or a load harness runs them side
+ * by side. The first call of a request is made; a caller asking for an equal request while it is in flight waits
+ * for it and gets its response, or its error, instead of making a call of its own. Only calls of the same scope,
+ * the stack operation a handler request is part of, are coalesced, so neither another account nor a stack deployed
+ * with other permissions ever sees another's answers.
+ *
+ * A caller never joins a call that was made before a mutation of its scope went through this class: each mutation
+ * moves its scope on to the next generation once it returns, and a Describe only joins a call of the generation it
+ * asked in. A caller therefore sees its own mutations and those of the other handlers of its stack that returned
+ * before it asked. Mutations this JVM does not make are not followed; a call of its own may miss them just as well.
+ * Other operations are never coalesced.
+ */
+public final class SingleFlight {
+    // generations are kept per stripe of scopes, so that they take the same memory however many stacks a container
+    // serves; a mutation of another scope of the stripe only keeps a Describe from joining a call it could have
+    private static final int GENERATION_STRIPES = 64;
+
+    private static final ConcurrentMap<Key, CompletableFuture<AwsResponse>> IN_FLIGHT = new ConcurrentHashMap<>();
+    private static final AtomicLongArray GENERATIONS = new AtomicLongArray(GENERATION_STRIPES);
+
+    private SingleFlight() {
+    }
+
+    /**
+     * Coalesces the Describe calls of a handler request with those of the same scope, or leaves the client as it is
+     * without a scope.
+     */
+    public static <ClientT> ProxyClient<ClientT> instrument(final ProxyClient<ClientT> proxyClient, final String scope) {
+        return scope == null ? proxyClient : new CoalescingProxyClient<>(proxyClient, scope);
+    }
+
+    /**
+     * The scope of the calls of a handler request: the account, region and stack it is for, null without a stack.
+     * The credentials a handler is handed are not in its request, this relies on CloudFormation running one operation
+     * of a stack at a time, with the same credentials for every handler of it.
+     */
+    public static String scope(final String accountId, final String region, final String stackId) {
+        return stackId == null ? null : accountId + "/" + region + "/" + stackId;
+    }
+
+    // the calls in flight right now, across every scope
+    static int inFlight() {
+        return IN_FLIGHT.size();
+    }
+
+    static boolean coalesces(final AwsRequest request) {
+        return request.getClass().getSimpleName().startsWith("Describe");
+    }
+
+    private static int stripe(final String scope) {
+        return Math.floorMod(scope.hashCode(), GENERATION_STRIPES);
+    }
+
+    private static final class Key {
+        private final String scope;
+        private final long generation;
+        private final AwsRequest request;
+
+        private Key(final String scope, final long generation, final AwsRequest request) {
+            this.scope = scope;
+            this.generation = generation;
+            this.request = request;
+        }
+
+        @Override
+        public boolean equals(final Object other) {
+            return other instanceof Key && Objects.equals(scope, ((Key) other).scope)
+                    && generation == ((Key) other).generation && request.equals(((Key) other).request);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(scope, generation, request);
+        }
+    }
+
+    private static final class CoalescingProxyClient<ClientT> extends ForwardingProxyClient<ClientT> {
+        private final String scope;
+
+        private CoalescingProxyClient(final ProxyClient<ClientT> delegate, final String scope) {
+            super(delegate);
+            this.scope = scope;
+        }
+
+        // a request equal to one in flight is answered with the response of that call, which is of its type
+        @Override
+        @SuppressWarnings("unchecked")
+        public <RequestT extends AwsRequest, ResponseT extends AwsResponse> ResponseT injectCredentialsAndInvokeV2(
+                final RequestT request, final Function<RequestT, ResponseT> requestFunction) {
+            if (!coalesces(request)) {
+                try {
+                    return delegate.injectCredentialsAndInvokeV2(request, requestFunction);
+                } finally {
+                    // a failed mutation may have been made all the same
+                    GENERATIONS.incrementAndGet(stripe(scope));
+                }
+            }
+            final Key key = new Key(scope, GENERATIONS.get(stripe(scope)), request);
+            final CompletableFuture<AwsResponse> call = new CompletableFuture<>();
+            final CompletableFuture<AwsResponse> inFlight = IN_FLIGHT.putIfAbsent(key, call);
+            if (inFlight != null) {
+                return (ResponseT) AsyncFanOut.join(inFlight);
+            }
+            try {
+                final ResponseT response = delegate.injectCredentialsAndInvokeV2(request, requestFunction);
+                call.complete(response);
+                return response;
+            } catch (final RuntimeException | Error e) {
+                call.completeExceptionally(e);
+                throw e;
+            } finally {
+                IN_FLIGHT.remove(key, call);
+            }
+        }
+    }
+}
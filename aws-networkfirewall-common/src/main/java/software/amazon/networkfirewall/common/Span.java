@@ -0,0 +1,83 @@
+package software.amazon.networkfirewall.common;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A timed piece of a handler invocation in a {@link StepTrace}: the invocation itself, one of its steps,
+ * or a service call or stabilization poll made in a step. Times are nanoseconds since the epoch.
+ */
+public class Span {
+    public static final String KIND_HANDLER = "handler";
+    public static final String KIND_STEP = "step";
+    public static final String KIND_SERVICE_CALL = "call";
+    public static final String KIND_POLL = "poll";
+
+    private final String traceId;
+    private final String spanId;
+    private final String parentSpanId;
+    private final String name;
+    private final String kind;
+    private final long startEpochNanos;
+    private long endEpochNanos;
+    private final Map<String, String> attributes = new LinkedHashMap<>();
+
+    Span(final String traceId, final String spanId, final String parentSpanId, final String name, final String kind,
+         final long startEpochNanos) {
+        this.traceId = traceId;
+        this.spanId = spanId;
+        this.parentSpanId = parentSpanId;
+        this.name = name;
+        this.kind = kind;
+        this.startEpochNanos = startEpochNanos;
+    }
+
+    public String getTraceId() {
+        return traceId;
+    }
+
+    public String getSpanId() {
+        return spanId;
+    }
+
+    public String getParentSpanId() {
+        return parentSpanId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getKind() {
+        return kind;
+    }
+
+    public long getStartEpochNanos() {
+        return startEpochNanos;
+    }
+
+    public long getEndEpochNanos() {
+        return endEpochNanos;
+    }
+
+    public Map<String, String> getAttributes() {
+        return Collections.unmodifiableMap(attributes);
+    }
+
+    public long durationNanos() {
+        return endEpochNanos - startEpochNanos;
+    }
+
+    // null values are left out, so that optional identifiers need no checks at the call site
+    Span attribute(final String key, final Object value) {
+        if (value != null) {
+            attributes.put(key, String.valueOf(value));
+        }
+        return this;
+    }
+
+    void end(final long endEpochNanos) {
+        this.endEpochNanos = endEpochNanos;
+    }
+}
@@ -0,0 +1,12 @@
+package software.amazon.networkfirewall.common;
+
+import java.util.List;
+
+/**
+ * Receives the spans of every traced handler invocation once it returns, root span first and the others
+ * in the order they started. Implementations are named through the trace exporter option of the handlers
+ * and need a public no-argument constructor.
+ */
+public interface SpanExporter {
+    void export(List<Span> spans);
+}
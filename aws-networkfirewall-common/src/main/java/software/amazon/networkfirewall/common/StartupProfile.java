@@ -0,0 +1,154 @@
+package software.amazon.networkfirewall.common;
+
+import software.amazon.cloudformation.ExecutableWrapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ClassLoadingMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Profiles the start of the handlers of a module: the class loading and static initialization of the
+ * wrapper, the client pool, the SDK client and the translator, then a first request and a second one that
+ * no longer pays for any of it. Every stage reports its time and the classes it loaded.
+ *
+ * <pre>
+ * java -cp handler.jar software.amazon.networkfirewall.common.StartupProfile &lt;handler package&gt; &lt;request file&gt;
+ * </pre>
+ *
+ * The client is built for the region of AWS_REGION. The wrapper empties the temporary directory after every
+ * request, so the profile gives it one of its own. Run with -XX:DumpLoadedClassList it is the training run of
+ * the class data sharing archive of the module, as the cds profile of the handler poms does.
+ */
+public final class StartupProfile {
+    static final String CLIENT_POOL = "software.amazon.networkfirewall.common.ClientPool";
+    static final String CLIENT = "software.amazon.awssdk.services.networkfirewall.DefaultNetworkFirewallClient";
+
+    private final ClassLoadingMXBean classLoading = ManagementFactory.getClassLoadingMXBean();
+    private final ClassLoader classLoader;
+    private final List<Stage> stages = new ArrayList<>();
+
+    StartupProfile(final ClassLoader classLoader) {
+        this.classLoader = classLoader;
+        stages.add(new Stage("jvm start", 0, ManagementFactory.getRuntimeMXBean().getUptime(),
+                classLoading.getTotalLoadedClassCount()));
+    }
+
+    public static void main(final String[] args) throws Exception {
+        if (args.length != 2) {
+            System.err.println("usage: StartupProfile <handler package> <request file>");
+            System.exit(1);
+        }
+        final StartupProfile profile = new StartupProfile(StartupProfile.class.getClassLoader());
+        final byte[] request = Files.readAllBytes(Paths.get(args[1]));
+        final Path temporaryDirectory = Files.createTempDirectory("startup-profile");
+        temporaryDirectory.toFile().deleteOnExit();
+        System.setProperty("java.io.tmpdir", temporaryDirectory.toString());
+
+        final Class<?> executable = profile.loadAndInitialize(args[0] + ".HandlerWrapperExecutable");
+        profile.loadAndInitialize(CLIENT_POOL);
+        profile.loadAndInitialize(CLIENT);
+        profile.time("client build", () -> ClientPool.getClient(System.getenv("AWS_REGION")).get());
+        profile.loadAndInitialize(args[0] + ".Translator");
+
+        final ExecutableWrapper<?, ?, ?> wrapper =
+                (ExecutableWrapper<?, ?, ?>) executable.getDeclaredConstructor().newInstance();
+        profile.invoke("first request", wrapper::handleRequest, request);
+        profile.invoke("second request", wrapper::handleRequest, request);
+        System.out.print(profile.format());
+    }
+
+    /**
+     * Loads a class, then initializes it, timing both and counting the classes they load on the way.
+     */
+    Class<?> loadAndInitialize(final String className) throws ClassNotFoundException {
+        final long loadedBefore = classLoading.getTotalLoadedClassCount();
+        final long start = System.nanoTime();
+        final Class<?> type = Class.forName(className, false, classLoader);
+        final long loaded = System.nanoTime();
+        Class.forName(className, true, classLoader);
+        stages.add(new Stage(className, millisBetween(start, loaded), millisBetween(loaded, System.nanoTime()),
+                classLoading.getTotalLoadedClassCount() - loadedBefore));
+        return type;
+    }
+
+    void time(final String name, final Runnable stage) {
+        final long loadedBefore = classLoading.getTotalLoadedClassCount();
+        final long start = System.nanoTime();
+        stage.run();
+        stages.add(new Stage(name, 0, millisBetween(start, System.nanoTime()),
+                classLoading.getTotalLoadedClassCount() - loadedBefore));
+    }
+
+    /**
+     * Times one request through the wrapper. The response is dropped: a request that fails once it reaches
+     * the service has still gone through everything a first request loads.
+     */
+    void invoke(final String name, final Handler handler, final byte[] request) throws IOException {
+        final long loadedBefore = classLoading.getTotalLoadedClassCount();
+        final long start = System.nanoTime();
+        handler.handleRequest(new ByteArrayInputStream(request), new ByteArrayOutputStream());
+        stages.add(new Stage(name, 0, millisBetween(start, System.nanoTime()),
+                classLoading.getTotalLoadedClassCount() - loadedBefore));
+    }
+
+    List<Stage> stages() {
+        return stages;
+    }
+
+    String format() {
+        final StringBuilder report = new StringBuilder();
+        report.append(String.format("%-80s %8s %8s %8s%n", "stage", "load ms", "run ms", "classes"));
+        stages.forEach(stage -> report.append(String.format("%-80s %8d %8d %8d%n",
+                stage.getName(), stage.getLoadMillis(), stage.getRunMillis(), stage.getLoadedClasses())));
+        return report.toString();
+    }
+
+    private static long millisBetween(final long startNanos, final long endNanos) {
+        return (endNanos - startNanos) / 1_000_000;
+    }
+
+    interface Handler {
+        void handleRequest(InputStream input, OutputStream output) throws IOException;
+    }
+
+    static final class Stage {
+        private final String name;
+        private final long loadMillis;
+        private final long runMillis;
+        private final long loadedClasses;
+
+        Stage(final String name, final long loadMillis, final long runMillis, final long loadedClasses) {
+            this.name = name;
+            this.loadMillis = loadMillis;
+            this.runMillis = runMillis;
+            this.loadedClasses = loadedClasses;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        // loading and linking of a class, zero for stages that do not load one
+        long getLoadMillis() {
+            return loadMillis;
+        }
+
+        // static initialization of a class, or the run time of any other stage
+        long getRunMillis() {
+            return runMillis;
+        }
+
+        long getLoadedClasses() {
+            return loadedClasses;
+        }
+    }
+}
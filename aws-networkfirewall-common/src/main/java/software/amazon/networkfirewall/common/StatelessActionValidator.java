@@ -0,0 +1,80 @@
+package software.amazon.networkfirewall.common;
+
+import software.amazon.cloudformation.exceptions.CfnInvalidRequestException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Local checks of stateless actions, run before any request is made:
+ *  - every set of actions holds exactly one of the standard actions
+ *  - every other action it holds names a custom action defined next to it
+ *  - custom action names are unique
+ *
+ * The firewall policy and rule group handlers each hand over the custom actions and the sets of actions of
+ * their model; all errors found are reported together.
+ */
+public class StatelessActionValidator {
+    public static final String PASS_ACTION = "aws:pass";
+    public static final String DROP_ACTION = "aws:drop";
+    public static final String FORWARD_TO_SFE_ACTION = "aws:forward_to_sfe";
+    public static final Set<String> STANDARD_ACTIONS =
+            Collections.unmodifiableSet(new TreeSet<>(Arrays.asList(PASS_ACTION, DROP_ACTION, FORWARD_TO_SFE_ACTION)));
+    private static final String STANDARD_ACTION_PREFIX = "aws:";
+
+    private final Set<String> customActionNames = new HashSet<>();
+    private final List<String> errors = new ArrayList<>();
+
+    public StatelessActionValidator(final Collection<String> customActionNames) {
+        final Set<String> duplicates = new TreeSet<>();
+        for (final String name : customActionNames) {
+            if (!this.customActionNames.add(name)) {
+                duplicates.add(name);
+            }
+        }
+        for (final String duplicate : duplicates) {
+            errors.add(String.format("custom action %s is defined more than once", duplicate));
+        }
+    }
+
+    /**
+     * Checks one set of actions, named by the field that holds it in the error messages.
+     */
+    public StatelessActionValidator actions(final String field, final Set<String> actions) {
+        final Set<String> sortedActions = actions == null ? Collections.emptySet() : new TreeSet<>(actions);
+        final Set<String> standardActions = new TreeSet<>(sortedActions);
+        standardActions.retainAll(STANDARD_ACTIONS);
+        if (standardActions.size() != 1) {
+            errors.add(String.format("%s must contain exactly one of %s but contains %s", field, STANDARD_ACTIONS, standardActions));
+        }
+        for (final String action : sortedActions) {
+            if (STANDARD_ACTIONS.contains(action)) {
+                continue;
+            }
+            if (action.startsWith(STANDARD_ACTION_PREFIX)) {
+                errors.add(String.format("%s contains unsupported standard action %s", field, action));
+            } else if (!customActionNames.contains(action)) {
+                errors.add(String.format("%s references custom action %s which is not defined", field, action));
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Fails with every error found so far, in a stable order, naming the resource the actions belong to.
+     */
+    public void validate(final String resource) {
+        if (!errors.isEmpty()) {
+            final List<String> sorted = new ArrayList<>(errors);
+            Collections.sort(sorted);
+            throw new CfnInvalidRequestException(String.format("%s has invalid stateless actions: %s",
+                    resource, String.join("; ", sorted)));
+        }
+    }
+}
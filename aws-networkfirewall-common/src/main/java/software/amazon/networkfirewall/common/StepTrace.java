@@ -0,0 +1,243 @@
+package software.amazon.networkfirewall.common;
+
+import software.amazon.awssdk.awscore.AwsRequest;
+import software.amazon.awssdk.awscore.AwsResponse;
+import software.amazon.awssdk.services.networkfirewall.NetworkFirewallClient;
+import software.amazon.cloudformation.proxy.CallChain;
+import software.amazon.cloudformation.proxy.Logger;
+import software.amazon.cloudformation.proxy.ProgressEvent;
+import software.amazon.cloudformation.proxy.ProxyClient;
+import software.amazon.cloudformation.proxy.StdCallbackContext;
+
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+
+/**
+ * Spans of one handler invocation, laid out as a waterfall: a root span for the invocation, one span per
+ * step of its progress chain, and under a step one span per service call and per stabilization poll it
+ * makes. Steps carry the status they left the progress in, so the step that dominated a slow update and
+ * the one that failed it stand out, and polls carry what they observed, read off the responses of their
+ * service calls by the status function of the resource type. {@link #export()} hands the spans to the
+ * configured {@link SpanExporter}, a JSON file per invocation unless another one is named.
+ *
+ * A trace is driven by the handler thread only. A disabled trace records nothing and hands back the
+ * steps, clients and stabilizers it is given.
+ */
+public class StepTrace {
+    private static final StepTrace DISABLED = new StepTrace(null, null, null, null, null);
+
+    private final SpanExporter exporter;
+    private final Function<AwsResponse, String> observedStatus;
+    private final Logger logger;
+    private final long startEpochNanos = System.currentTimeMillis() * 1_000_000L;
+    private final long startNanoTime = System.nanoTime();
+    private final List<Span> spans = new ArrayList<>();
+    private final Deque<Span> open = new ArrayDeque<>();
+    private final Span root;
+
+    private StepTrace(final String name, final String traceId, final SpanExporter exporter,
+                      final Function<AwsResponse, String> observedStatus, final Logger logger) {
+        this.exporter = exporter;
+        this.observedStatus = observedStatus;
+        this.logger = logger;
+        this.root = name == null ? null : start(traceId, name, Span.KIND_HANDLER);
+    }
+
+    public static StepTrace disabled() {
+        return DISABLED;
+    }
+
+    /**
+     * Starts the trace of an invocation, exported to the given exporter. The callbacks of an operation
+     * share its client request token, which makes them one trace.
+     */
+    public static StepTrace start(final String name, final String clientRequestToken, final SpanExporter exporter,
+                                  final Function<AwsResponse, String> observedStatus, final Logger logger) {
+        final String traceId = clientRequestToken != null ? clientRequestToken : randomId() + randomId();
+        return new StepTrace(name, traceId, exporter, observedStatus, logger);
+    }
+
+    /**
+     * The exporter of the given class name, or a JSON file per invocation in the directory when none is
+     * named or the named one cannot be created.
+     */
+    public static SpanExporter exporterOf(final String exporter, final String directory, final Logger logger) {
+        if (exporter != null && !exporter.trim().isEmpty()) {
+            try {
+                return Class.forName(exporter.trim()).asSubclass(SpanExporter.class).getDeclaredConstructor().newInstance();
+            } catch (final ReflectiveOperationException | ClassCastException | LinkageError e) {
+                logger.log(String.format("Span exporter %s could not be created, writing spans to %s instead: %s",
+                        exporter, directory, e));
+            }
+        }
+        return new JsonFileSpanExporter(Paths.get(directory));
+    }
+
+    public boolean isEnabled() {
+        return root != null;
+    }
+
+    /**
+     * Adds an attribute to the root span, such as an identifier of the resource.
+     */
+    public StepTrace attribute(final String key, final Object value) {
+        if (isEnabled()) {
+            root.attribute(key, value);
+        }
+        return this;
+    }
+
+    public <M, C> Function<ProgressEvent<M, C>, ProgressEvent<M, C>> step(
+            final String name, final Function<ProgressEvent<M, C>, ProgressEvent<M, C>> step) {
+        if (!isEnabled()) {
+            return step;
+        }
+        return progress -> {
+            final Span span = push(name, Span.KIND_STEP);
+            try {
+                return outcome(span, step.apply(progress));
+            } catch (final RuntimeException e) {
+                span.attribute("error", e.getClass().getSimpleName());
+                throw e;
+            } finally {
+                pop(span);
+            }
+        };
+    }
+
+    public ProxyClient<NetworkFirewallClient> instrument(final ProxyClient<NetworkFirewallClient> proxyClient) {
+        return isEnabled() ? new TracingProxyClient(proxyClient) : proxyClient;
+    }
+
+    public <RequestT, ResponseT, ClientT, ModelT, CallbackT extends StdCallbackContext>
+            CallChain.Callback<RequestT, ResponseT, ClientT, ModelT, CallbackT, Boolean> polled(
+                    final CallChain.Callback<RequestT, ResponseT, ClientT, ModelT, CallbackT, Boolean> stabilizer) {
+        if (!isEnabled()) {
+            return stabilizer;
+        }
+        return (request, response, client, model, context) -> {
+            final Span span = push("Poll", Span.KIND_POLL);
+            try {
+                final Boolean stabilized = stabilizer.invoke(request, response, client, model, context);
+                span.attribute("stabilized", Boolean.TRUE.equals(stabilized));
+                return stabilized;
+            } catch (final RuntimeException e) {
+                span.attribute("error", e.getClass().getSimpleName());
+                throw e;
+            } finally {
+                pop(span);
+            }
+        };
+    }
+
+    /**
+     * Records the outcome of the whole invocation on the root span.
+     */
+    public <M, C> ProgressEvent<M, C> completed(final ProgressEvent<M, C> progress) {
+        return isEnabled() ? outcome(root, progress) : progress;
+    }
+
+    /**
+     * Ends the invocation and exports its spans. A failing exporter is logged, it never fails the handler.
+     */
+    public void export() {
+        if (!isEnabled()) {
+            return;
+        }
+        final List<Span> ended;
+        synchronized (this) {
+            final long end = now();
+            while (!open.isEmpty()) {
+                open.pop().end(end);
+            }
+            root.end(end);
+            ended = new ArrayList<>(spans);
+        }
+        try {
+            exporter.export(ended);
+        } catch (final RuntimeException e) {
+            logger.log(String.format("Failed to export the spans of trace %s: %s", root.getTraceId(), e));
+        }
+    }
+
+    List<Span> spans() {
+        return spans;
+    }
+
+    // service calls can be made from more than one thread at a time, they never become the parent of a span
+    private synchronized Span start(final String traceId, final String name, final String kind) {
+        final Span parent = open.peek();
+        final Span span = new Span(traceId, randomId(), parent == null ? null : parent.getSpanId(), name, kind, now());
+        spans.add(span);
+        if (!Span.KIND_SERVICE_CALL.equals(kind)) {
+            open.push(span);
+        }
+        return span;
+    }
+
+    private synchronized Span current() {
+        return open.peek();
+    }
+
+    private Span push(final String name, final String kind) {
+        return start(root.getTraceId(), name, kind);
+    }
+
+    private synchronized void pop(final Span span) {
+        span.end(now());
+        open.remove(span);
+    }
+
+    private static <M, C> ProgressEvent<M, C> outcome(final Span span, final ProgressEvent<M, C> progress) {
+        if (progress != null) {
+            span.attribute("status", progress.getStatus());
+            span.attribute("errorCode", progress.getErrorCode());
+            if (progress.getCallbackDelaySeconds() > 0) {
+                span.attribute("callbackDelaySeconds", progress.getCallbackDelaySeconds());
+            }
+        }
+        return progress;
+    }
+
+    private long now() {
+        return startEpochNanos + System.nanoTime() - startNanoTime;
+    }
+
+    private static String randomId() {
+        return String.format("%016x", ThreadLocalRandom.current().nextLong());
+    }
+
+    private final class TracingProxyClient extends ForwardingProxyClient<NetworkFirewallClient> {
+        private TracingProxyClient(final ProxyClient<NetworkFirewallClient> delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public <RequestT extends AwsRequest, ResponseT extends AwsResponse> ResponseT injectCredentialsAndInvokeV2(
+                final RequestT request, final Function<RequestT, ResponseT> requestFunction) {
+            final Span parent = current();
+            final String operation = ApiCallMetrics.OPERATION_NAMES.get(request.getClass());
+            final Span span = push(operation, Span.KIND_SERVICE_CALL).attribute("operation", operation);
+            try {
+                final ResponseT response = delegate.injectCredentialsAndInvokeV2(request, requestFunction);
+                if (parent != null && Span.KIND_POLL.equals(parent.getKind())) {
+                    parent.attribute("observedStatus", observedStatus.apply(response));
+                }
+                return response;
+            } catch (final RuntimeException e) {
+                span.attribute("error", FlightRecorderEvents.errorCode(e));
+                if (parent != null && Span.KIND_POLL.equals(parent.getKind())) {
+                    parent.attribute("observedStatus", FlightRecorderEvents.errorCode(e));
+                }
+                throw e;
+            } finally {
+                pop(span);
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package software.amazon.networkfirewall.common;
+
+import com.google.common.collect.MapDifference;
+import com.google.common.collect.Maps;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The tag changes of an update. The tags of a resource are its stack tags overlaid by the tags of the
+ * resource request; the diff between the previous and the desired ones is computed once.
+ */
+public class TagDiff {
+    private final Map<String, String> previousTags;
+    private final Map<String, String> desiredTags;
+    private final Map<String, String> tagsToAddOrUpdate;
+    private final Map<String, String> tagsToRemove;
+
+    public TagDiff(final Map<String, String> previousResourceTags, final Map<String, String> desiredResourceTags,
+                   final Map<String, String> previousStackTags, final Map<String, String> desiredStackTags) {
+        this.previousTags = merge(previousStackTags, previousResourceTags);
+        this.desiredTags = merge(desiredStackTags, desiredResourceTags);
+        final MapDifference<String, String> tagsDiff = Maps.difference(previousTags, desiredTags);
+
+        // tags to add contains both new tags and exiting tag with new value
+        final Map<String, String> tagsToAdd = new HashMap<>(tagsDiff.entriesOnlyOnRight());
+        tagsDiff.entriesDiffering().forEach((k, v) -> tagsToAdd.put(k, v.rightValue()));
+        this.tagsToAddOrUpdate = Collections.unmodifiableMap(tagsToAdd);
+        this.tagsToRemove = Collections.unmodifiableMap(new HashMap<>(tagsDiff.entriesOnlyOnLeft()));
+    }
+
+    public Map<String, String> tagsToAddOrUpdate() {
+        return tagsToAddOrUpdate;
+    }
+
+    public Map<String, String> tagsToRemove() {
+        return tagsToRemove;
+    }
+
+    // the tags the stack applied before this update, and the ones it applies with it
+    Map<String, String> previousTags() {
+        return previousTags;
+    }
+
+    Map<String, String> desiredTags() {
+        return desiredTags;
+    }
+
+    // resource request tags override stack tags of the same key
+    private static Map<String, String> merge(final Map<String, String> stackTags, final Map<String, String> resourceTags) {
+        final Map<String, String> tags = stackTags == null ? new HashMap<>() : new HashMap<>(stackTags);
+        if (resourceTags != null) {
+            tags.putAll(resourceTags);
+        }
+        return Collections.unmodifiableMap(tags);
+    }
+}
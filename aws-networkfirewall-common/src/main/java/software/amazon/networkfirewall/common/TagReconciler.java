@@ -0,0 +1,100 @@
+package software.amazon.networkfirewall.common;
+
+import software.amazon.awssdk.core.util.SdkAutoConstructList;
+import software.amazon.awssdk.services.networkfirewall.model.Tag;
+import software.amazon.cloudformation.proxy.ProgressEvent;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Brings the tags of a resource to the desired ones of an update, starting from the tags the resource has
+ * rather than the ones the previous model says it should have. With the live tags of a Describe the handler
+ * made anyway, tags already in place are not sent again, and an update with nothing left to change makes no
+ * call at all. Only tags the stack applied before are removed: tags added outside of CloudFormation, and the
+ * aws: tags of the service, are left alone.
+ *
+ * Without live tags, when the Describe was made by an earlier invocation, it falls back to the diff of the
+ * previous and desired tags. Either way a removed key is never a desired one, so the Untag and Tag calls
+ * never touch the same key. They are made one after the other on the handler thread, since both go through
+ * the call graph of the same callback context.
+ */
+public class TagReconciler {
+    private final Map<String, String> tagsToAddOrUpdate;
+    private final Set<String> tagsToRemove;
+
+    public TagReconciler(final TagDiff diff, final Map<String, String> liveTags) {
+        if (liveTags == null) {
+            this.tagsToAddOrUpdate = diff.tagsToAddOrUpdate();
+            this.tagsToRemove = diff.tagsToRemove().keySet();
+        } else {
+            this.tagsToAddOrUpdate = Collections.unmodifiableMap(missingOrDiffering(diff.desiredTags(), liveTags));
+            this.tagsToRemove = Collections.unmodifiableSet(stillApplied(diff, liveTags));
+        }
+    }
+
+    /**
+     * The tags of a Describe response, or null when the response did not carry any.
+     */
+    public static Map<String, String> liveTags(final List<Tag> tags) {
+        if (tags == null || tags instanceof SdkAutoConstructList) {
+            return null;
+        }
+        final Map<String, String> liveTags = new HashMap<>();
+        tags.forEach(tag -> liveTags.put(tag.key(), tag.value()));
+        return liveTags;
+    }
+
+    private static Map<String, String> missingOrDiffering(final Map<String, String> desiredTags,
+                                                          final Map<String, String> liveTags) {
+        final Map<String, String> tagsToAdd = new HashMap<>();
+        desiredTags.forEach((key, value) -> {
+            if (!Objects.equals(liveTags.get(key), value)) {
+                tagsToAdd.put(key, value);
+            }
+        });
+        return tagsToAdd;
+    }
+
+    // the tags the stack applied before and no longer does, that the resource still has
+    private static Set<String> stillApplied(final TagDiff diff, final Map<String, String> liveTags) {
+        final Set<String> keysToRemove = new HashSet<>();
+        for (final String key : diff.previousTags().keySet()) {
+            if (!diff.desiredTags().containsKey(key) && liveTags.containsKey(key)) {
+                keysToRemove.add(key);
+            }
+        }
+        return keysToRemove;
+    }
+
+    public Map<String, String> tagsToAddOrUpdate() {
+        return tagsToAddOrUpdate;
+    }
+
+    public Set<String> tagsToRemove() {
+        return tagsToRemove;
+    }
+
+    /**
+     * Makes the Untag and Tag steps the reconciliation needs, the Untag step first. A failed Untag is returned
+     * without tagging.
+     */
+    public <M, C> ProgressEvent<M, C> reconcile(final ProgressEvent<M, C> progress,
+                                                final Function<ProgressEvent<M, C>, ProgressEvent<M, C>> untag,
+                                                final Function<ProgressEvent<M, C>, ProgressEvent<M, C>> tag) {
+        ProgressEvent<M, C> reconciled = progress;
+        if (!tagsToRemove.isEmpty()) {
+            reconciled = untag.apply(reconciled);
+        }
+        if (!tagsToAddOrUpdate.isEmpty() && !reconciled.isFailed()) {
+            reconciled = tag.apply(reconciled);
+        }
+        return reconciled;
+    }
+}
@@ -0,0 +1,63 @@
+package software.amazon.networkfirewall.common;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Virtual threads, found at runtime so that the module still compiles and runs on Java 8. A jar built on
+ * Java 21 carries a version of this class under META-INF/versions/21 that calls them directly; this one is
+ * what a Java 21 runtime loads when it runs the classes unpacked, the way Lambda runs a function, or from a
+ * jar built on an older JDK. Java 19 and 20 only have them as a preview, which counts as not having them.
+ */
+final class VirtualThreads {
+    private static final Method OF_VIRTUAL;
+    private static final Method NAME;
+    private static final Method FACTORY;
+    private static final Method NEW_THREAD_PER_TASK_EXECUTOR;
+
+    static {
+        Method ofVirtual = null;
+        Method name = null;
+        Method factory = null;
+        Method newThreadPerTaskExecutor = null;
+        try {
+            final Class<?> builder = Class.forName("java.lang.Thread$Builder");
+            ofVirtual = Thread.class.getMethod("ofVirtual");
+            name = builder.getMethod("name", String.class, long.class);
+            factory = builder.getMethod("factory");
+            newThreadPerTaskExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            // throws on a runtime that has them as a preview that is not enabled
+            ofVirtual.invoke(null);
+        } catch (final ReflectiveOperationException | RuntimeException | LinkageError e) {
+            ofVirtual = null;
+        }
+        OF_VIRTUAL = ofVirtual;
+        NAME = name;
+        FACTORY = factory;
+        NEW_THREAD_PER_TASK_EXECUTOR = newThreadPerTaskExecutor;
+    }
+
+    private VirtualThreads() {
+    }
+
+    static boolean available() {
+        return OF_VIRTUAL != null;
+    }
+
+    /**
+     * An executor starting a virtual thread per task, named after the executor and numbered.
+     */
+    static ExecutorService newThreadPerTaskExecutor(final String name) {
+        if (!available()) {
+            throw new UnsupportedOperationException("Virtual threads need Java 21 or later");
+        }
+        try {
+            final Object builder = NAME.invoke(OF_VIRTUAL.invoke(null), name + "-", 0L);
+            return (ExecutorService) NEW_THREAD_PER_TASK_EXECUTOR.invoke(null, (ThreadFactory) FACTORY.invoke(builder));
+        } catch (final ReflectiveOperationException e) {
+            throw new IllegalStateException("Virtual threads could not be started", e);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package software.amazon.networkfirewall.common;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Virtual threads, called directly. The Java 21 version of the class the multi-release jar carries under
+ * META-INF/versions/21.
+ */
+final class VirtualThreads {
+    private VirtualThreads() {
+    }
+
+    static boolean available() {
+        return true;
+    }
+
+    /**
+     * An executor starting a virtual thread per task, named after the executor and numbered.
+     */
+    static ExecutorService newThreadPerTaskExecutor(final String name) {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(name + "-", 0).factory());
+    }
+}
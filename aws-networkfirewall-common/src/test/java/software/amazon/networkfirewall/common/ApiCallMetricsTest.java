@@ -0,0 +1,161 @@
+package software.amazon.networkfirewall.common;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+import software.amazon.awssdk.services.networkfirewall.NetworkFirewallAsyncClient;
+import software.amazon.awssdk.services.networkfirewall.NetworkFirewallClient;
+import software.amazon.awssdk.services.networkfirewall.model.DescribeFirewallRequest;
+import software.amazon.awssdk.services.networkfirewall.model.DescribeFirewallResponse;
+import software.amazon.awssdk.services.networkfirewall.model.UpdateFirewallDescriptionRequest;
+import software.amazon.awssdk.services.networkfirewall.model.UpdateFirewallDescriptionResponse;
+import software.amazon.awssdk.services.networkfirewall.model.InternalServerErrorException;
+import software.amazon.awssdk.services.networkfirewall.model.ThrottlingException;
+import software.amazon.cloudformation.proxy.ProxyClient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ApiCallMetricsTest {
+    private static final String TYPE_NAME = "AWS::NetworkFirewall::Firewall";
+    // every clock reading moves 2.5 ms on, so every call takes 2.5 ms
+    private static final long TICK_NANOS = 2_500_000L;
+
+    private NetworkFirewallClient networkFirewallClient;
+    private AtomicLong clock;
+    private ApiCallMetrics metrics;
+    private ProxyClient<NetworkFirewallClient> proxyClient;
+    private List<String> lines;
+
+    @BeforeEach
+    public void setup() {
+        networkFirewallClient = mock(NetworkFirewallClient.class);
+        clock = new AtomicLong();
+        metrics = new ApiCallMetrics(TYPE_NAME, "Update", () -> clock.addAndGet(TICK_NANOS));
+        proxyClient = metrics.instrument(new DirectProxyClient<>(networkFirewallClient));
+        lines = new ArrayList<>();
+    }
+
+    @Test
+    public void testFlushWritesOneEmbeddedMetricLinePerOperation() {
+        when(networkFirewallClient.describeFirewall(any(DescribeFirewallRequest.class)))
+                .thenThrow(ThrottlingException.builder().message("Rate exceeded").build())
+                .thenReturn(DescribeFirewallResponse.builder().build())
+                .thenThrow(InternalServerErrorException.builder().message("Internal failure").build())
+                .thenReturn(DescribeFirewallResponse.builder().build());
+        when(networkFirewallClient.updateFirewallDescription(any(UpdateFirewallDescriptionRequest.class)))
+                .thenReturn(UpdateFirewallDescriptionResponse.builder().build());
+
+        final DescribeFirewallRequest throttled = DescribeFirewallRequest.builder().build();
+        final DescribeFirewallRequest failed = DescribeFirewallRequest.builder().build();
+        assertThrows(ThrottlingException.class, () -> describe(throttled));
+        describe(throttled);
+        assertThrows(InternalServerErrorException.class, () -> describe(failed));
+        describe(failed);
+        proxyClient.injectCredentialsAndInvokeV2(UpdateFirewallDescriptionRequest.builder().build(),
+                proxyClient.client()::updateFirewallDescription);
+        metrics.flush(lines::add, 1700000000000L);
+
+        assertThat(lines).hasSize(2);
+        assertThat(lines.get(0))
+                .startsWith("{\"_aws\":{\"Timestamp\":1700000000000,\"CloudWatchMetrics\":[{\"Namespace\":\"NetworkFirewall/ResourceHandlers\","
+                        + "\"Dimensions\":[[\"ResourceType\",\"Action\",\"Operation\"]],")
+                .contains("{\"Name\":\"Latency\",\"Unit\":\"Milliseconds\"}")
+                .contains("\"ResourceType\":\"" + TYPE_NAME + "\",\"Action\":\"Update\",\"Operation\":\"DescribeFirewall\"")
+                .endsWith("\"Latency\":[2.5,2.5,2.5,2.5],\"Calls\":4,\"Errors\":1,\"Throttles\":1,\"Retries\":2}");
+        assertThat(lines.get(1))
+                .contains("\"Operation\":\"UpdateFirewallDescription\"")
+                .endsWith("\"Latency\":[2.5],\"Calls\":1,\"Errors\":0,\"Throttles\":0,\"Retries\":0}");
+
+        lines.clear();
+        metrics.flush(lines::add);
+        assertThat(lines).isEmpty();
+    }
+
+    @Test
+    public void testLatencyValuesAreCappedForEmbeddedMetrics() {
+        when(networkFirewallClient.describeFirewall(any(DescribeFirewallRequest.class)))
+                .thenReturn(DescribeFirewallResponse.builder().build());
+
+        for (int i = 0; i < ApiCallMetrics.MAX_LATENCY_VALUES * 2; i++) {
+            describe();
+        }
+        metrics.flush(lines::add, 0L);
+
+        assertThat(lines).hasSize(1);
+        final String latencies = lines.get(0).replaceAll(".*\"Latency\":\\[([^]]*)].*", "$1");
+        assertThat(latencies.split(",")).hasSize(ApiCallMetrics.MAX_LATENCY_VALUES).containsOnly("2.5");
+        assertThat(lines.get(0)).contains("\"Calls\":" + ApiCallMetrics.MAX_LATENCY_VALUES * 2 + ",");
+    }
+
+    @Test
+    public void testAsyncCallsAreRecordedWhenTheyComplete() {
+        final NetworkFirewallAsyncClient asyncClient = mock(NetworkFirewallAsyncClient.class);
+        final CompletableFuture<DescribeFirewallResponse> throttled = new CompletableFuture<>();
+        final CompletableFuture<DescribeFirewallResponse> described = new CompletableFuture<>();
+        when(asyncClient.describeFirewall(any(DescribeFirewallRequest.class))).thenReturn(throttled).thenReturn(described);
+        final ProxyClient<NetworkFirewallAsyncClient> asyncProxyClient =
+                metrics.instrument(new DirectProxyClient<>(asyncClient));
+
+        final CompletableFuture<DescribeFirewallResponse> first = asyncProxyClient.injectCredentialsAndInvokeV2Async(
+                DescribeFirewallRequest.builder().build(), asyncProxyClient.client()::describeFirewall);
+        final CompletableFuture<DescribeFirewallResponse> second = asyncProxyClient.injectCredentialsAndInvokeV2Async(
+                DescribeFirewallRequest.builder().build(), asyncProxyClient.client()::describeFirewall);
+        metrics.flush(lines::add, 0L);
+        assertThat(lines).isEmpty();
+
+        // the calls were in flight together, the clock moved on while they were
+        clock.addAndGet(TICK_NANOS);
+        throttled.completeExceptionally(ThrottlingException.builder().message("Rate exceeded").build());
+        described.complete(DescribeFirewallResponse.builder().build());
+        metrics.flush(lines::add, 0L);
+
+        assertThat(first).isCompletedExceptionally();
+        assertThat(second).isCompleted();
+        assertThat(lines).hasSize(1);
+        // the second call was in flight with the first, it is not a retry of it
+        assertThat(lines.get(0)).endsWith("\"Latency\":[7.5,7.5],\"Calls\":2,\"Errors\":0,\"Throttles\":1,\"Retries\":0}");
+    }
+
+    @Test
+    public void testRetriesAreTheCallsARetryPolicyRepeats() {
+        when(networkFirewallClient.describeFirewall(any(DescribeFirewallRequest.class)))
+                .thenThrow(ThrottlingException.builder().message("Rate exceeded").build())
+                .thenThrow(InternalServerErrorException.builder().message("Internal failure").build())
+                .thenReturn(DescribeFirewallResponse.builder().build());
+        final RetryPolicy retries = new RetryPolicy(1, 1L, 1L, Deadline.unbounded(), message -> { }, millis -> { });
+        proxyClient = retries.instrument(proxyClient);
+
+        // the budget covers the throttle, the server error fails the call and the next call is a new one
+        assertThrows(InternalServerErrorException.class, this::describe);
+        describe();
+        metrics.flush(lines::add, 0L);
+
+        assertThat(lines).hasSize(1);
+        assertThat(lines.get(0)).endsWith("\"Calls\":3,\"Errors\":1,\"Throttles\":1,\"Retries\":1}");
+    }
+
+    @Test
+    public void testActionOfHandler() {
+        assertThat(ApiCallMetrics.actionOf(CreateHandler.class)).isEqualTo("Create");
+        assertThat(ApiCallMetrics.actionOf(ApiCallMetrics.class)).isEqualTo("ApiCallMetrics");
+    }
+
+    private DescribeFirewallResponse describe() {
+        return describe(DescribeFirewallRequest.builder().build());
+    }
+
+    private DescribeFirewallResponse describe(final DescribeFirewallRequest request) {
+        return proxyClient.injectCredentialsAndInvokeV2(request, proxyClient.client()::describeFirewall);
+    }
+
+    private static final class CreateHandler {
+    }
+}
@@ -0,0 +1,127 @@
+package software.amazon.networkfirewall.common;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import software.amazon.awssdk.services.networkfirewall.NetworkFirewallAsyncClient;
+import software.amazon.awssdk.services.networkfirewall.model.DescribeRuleGroupRequest;
+import software.amazon.awssdk.services.networkfirewall.model.DescribeRuleGroupResponse;
+import software.amazon.awssdk.services.networkfirewall.model.ThrottlingException;
+import software.amazon.cloudformation.exceptions.CfnGeneralServiceException;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class AsyncFanOutTest {
+    private final NetworkFirewallAsyncClient client = mock(NetworkFirewallAsyncClient.class);
+    private final List<CompletableFuture<DescribeRuleGroupResponse>> sent = new ArrayList<>();
+
+    @Test
+    public void testSendingWaitsWhileTheLimitIsInFlight() throws Exception {
+        respondLater();
+        final AsyncFanOut<NetworkFirewallAsyncClient> fanOut = new AsyncFanOut<>(new DirectProxyClient<>(client), 2);
+        describe(fanOut);
+        describe(fanOut);
+
+        final CompletableFuture<Void> third = CompletableFuture.runAsync(() -> describe(fanOut));
+        assertThatThrownBy(() -> third.get(100, TimeUnit.MILLISECONDS))
+                .isInstanceOf(TimeoutException.class);
+
+        sent.get(0).complete(DescribeRuleGroupResponse.builder().build());
+        third.get(5, TimeUnit.SECONDS);
+        assertThat(sent).hasSize(3);
+    }
+
+    @Test
+    public void testReducedLimitAppliesToTheNextCalls() throws Exception {
+        respondLater();
+        final AsyncFanOut<NetworkFirewallAsyncClient> fanOut = new AsyncFanOut<>(new DirectProxyClient<>(client), 4);
+        describe(fanOut);
+        describe(fanOut);
+
+        assertThat(fanOut.reduceLimit()).isEqualTo(2);
+        final CompletableFuture<Void> third = CompletableFuture.runAsync(() -> describe(fanOut));
+        assertThatThrownBy(() -> third.get(100, TimeUnit.MILLISECONDS))
+                .isInstanceOf(TimeoutException.class);
+
+        sent.get(1).complete(DescribeRuleGroupResponse.builder().build());
+        third.get(5, TimeUnit.SECONDS);
+        assertThat(fanOut.reduceLimit()).isEqualTo(1);
+        assertThat(fanOut.reduceLimit()).isEqualTo(1);
+    }
+
+    @Test
+    public void testRejectedCallGivesItsRoomBack() {
+        final ThrottlingException throttled = ThrottlingException.builder().message("throttled").build();
+        when(client.describeRuleGroup(any(DescribeRuleGroupRequest.class))).thenThrow(throttled);
+        final AsyncFanOut<NetworkFirewallAsyncClient> fanOut = new AsyncFanOut<>(new DirectProxyClient<>(client), 1);
+
+        assertThatThrownBy(() -> describe(fanOut)).isSameAs(throttled);
+        assertThatThrownBy(() -> describe(fanOut)).isSameAs(throttled);
+    }
+
+    @Test
+    public void testJoinFailsWithTheErrorOfTheCall() {
+        final ThrottlingException throttled = ThrottlingException.builder().message("throttled").build();
+        final CompletableFuture<DescribeRuleGroupResponse> failed = new CompletableFuture<>();
+        failed.completeExceptionally(throttled);
+
+        assertThatThrownBy(() -> AsyncFanOut.join(failed.thenApply(response -> response))).isSameAs(throttled);
+        assertThat(AsyncFanOut.unwrap(new CompletionException(throttled))).isSameAs(throttled);
+        assertThat(AsyncFanOut.join(CompletableFuture.completedFuture("done"))).isEqualTo("done");
+    }
+
+    @Test
+    public void testAwaitFailsWithTheErrorOfTheTask() {
+        final ThrottlingException throttled = ThrottlingException.builder().message("throttled").build();
+        final FutureTask<String> failed = new FutureTask<>(() -> {
+            throw throttled;
+        });
+        failed.run();
+        final FutureTask<String> checked = new FutureTask<>(() -> {
+            throw new Exception("checked");
+        });
+        checked.run();
+
+        assertThatThrownBy(() -> AsyncFanOut.await(failed, "DescribeRuleGroup")).isSameAs(throttled);
+        assertThatThrownBy(() -> AsyncFanOut.await(checked, "DescribeRuleGroup"))
+                .isInstanceOf(CfnGeneralServiceException.class)
+                .hasMessageContaining("DescribeRuleGroup");
+        assertThat(AsyncFanOut.await(CompletableFuture.completedFuture("done"), "DescribeRuleGroup")).isEqualTo("done");
+    }
+
+    @Test
+    public void testInterruptedAwaitKeepsTheInterrupt() {
+        Thread.currentThread().interrupt();
+        try {
+            assertThatThrownBy(() -> AsyncFanOut.await(new CompletableFuture<String>(), "DescribeRuleGroup"))
+                    .isInstanceOf(CfnGeneralServiceException.class);
+            assertThat(Thread.currentThread().isInterrupted()).isTrue();
+        } finally {
+            Thread.interrupted();
+        }
+    }
+
+    private void respondLater() {
+        when(client.describeRuleGroup(any(DescribeRuleGroupRequest.class))).thenAnswer(invocation -> {
+            final CompletableFuture<DescribeRuleGroupResponse> response = new CompletableFuture<>();
+            synchronized (sent) {
+                sent.add(response);
+            }
+            return response;
+        });
+    }
+
+    private static CompletableFuture<DescribeRuleGroupResponse> describe(final AsyncFanOut<NetworkFirewallAsyncClient> fanOut) {
+        return fanOut.send(DescribeRuleGroupRequest.builder().build(), fanOut.client()::describeRuleGroup);
+    }
+}
@@ -0,0 +1,50 @@
+package software.amazon.networkfirewall.common;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import software.amazon.cloudformation.proxy.OperationStatus;
+import software.amazon.cloudformation.proxy.ProgressEvent;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DeadlineTest {
+    private final AtomicLong nanos = new AtomicLong();
+
+    @Test
+    public void testAllowsWorkThatFitsWithTheReserveToSpare() {
+        final Deadline deadline = Deadline.after(Duration.ofSeconds(30), nanos::get);
+
+        assertThat(deadline.remaining()).isEqualTo(Duration.ofSeconds(30));
+        assertThat(deadline.allows(Duration.ofSeconds(19))).isTrue();
+        assertThat(deadline.allows(Duration.ofSeconds(20))).isFalse();
+
+        nanos.addAndGet(Duration.ofSeconds(25).toNanos());
+        assertThat(deadline.remaining()).isEqualTo(Duration.ofSeconds(5));
+        assertThat(deadline.allows(Duration.ZERO)).isFalse();
+        assertThat(Deadline.unbounded().allows(Duration.ofDays(1))).isTrue();
+    }
+
+    @Test
+    public void testCheckpointStopsTheChainOncePastTheDeadline() {
+        final Deadline deadline = Deadline.after(Duration.ofSeconds(15), nanos::get);
+        final Function<ProgressEvent<String, Object>, ProgressEvent<String, Object>> slow = progress -> {
+            nanos.addAndGet(Duration.ofSeconds(10).toNanos());
+            return progress;
+        };
+        final String model = "model";
+        final Object context = new Object();
+
+        final ProgressEvent<String, Object> progress = ProgressEvent.progress(model, context)
+                .then(deadline.checkpoint(slow))
+                .then(deadline.checkpoint(slow));
+
+        assertThat(nanos.get()).isEqualTo(Duration.ofSeconds(10).toNanos());
+        assertThat(progress.getStatus()).isEqualTo(OperationStatus.IN_PROGRESS);
+        assertThat(progress.getCallbackDelaySeconds()).isEqualTo(Deadline.CHECKPOINT_DELAY_SECONDS);
+        assertThat(progress.getResourceModel()).isSameAs(model);
+        assertThat(progress.getCallbackContext()).isSameAs(context);
+    }
+}
@@ -0,0 +1,119 @@
+package software.amazon.networkfirewall.common;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class FanOutExecutorsTest {
+    @Test
+    public void testPlatformThreadsAreNamedAfterTheFanOut() throws Exception {
+        final ExecutorService executor = FanOutExecutors.newExecutor("list-enrichment", 2, false);
+        try {
+            final Thread thread = executor.submit(Thread::currentThread).get(5, TimeUnit.SECONDS);
+            assertThat(thread.getName()).startsWith("list-enrichment-");
+            assertThat(thread.isDaemon()).isTrue();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testVirtualThreadsFallBackToPlatformThreadsWithoutThem() throws Exception {
+        assumeTrue(!FanOutExecutors.virtualThreadsAvailable());
+        final ExecutorService executor = FanOutExecutors.newExecutor("list-enrichment", 2, true);
+        try {
+            assertThat(executor.submit(() -> "described").get(5, TimeUnit.SECONDS)).isEqualTo("described");
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThatThrownBy(() -> VirtualThreads.newThreadPerTaskExecutor("list-enrichment"))
+                .isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    public void testVirtualThreadsRunEveryTaskOnAThreadOfItsOwn() throws Exception {
+        assumeTrue(FanOutExecutors.virtualThreadsAvailable());
+        final ExecutorService executor = FanOutExecutors.newExecutor("list-enrichment", 2, true);
+        try {
+            final Thread thread = executor.submit(Thread::currentThread).get(5, TimeUnit.SECONDS);
+            assertThat(thread.getName()).startsWith("list-enrichment-");
+            assertThat(Thread.class.getMethod("isVirtual").invoke(thread)).isEqualTo(true);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testBoundedExecutorRunsAtMostTheParallelism() throws Exception {
+        final ExecutorService executor = FanOutExecutors.bounded(Executors.newCachedThreadPool(), 3);
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        final CountDownLatch release = new CountDownLatch(1);
+        try {
+            final List<Future<Integer>> pending = new ArrayList<>();
+            for (int i = 0; i < 12; i++) {
+                final int task = i;
+                pending.add(executor.submit(() -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    release.await();
+                    running.decrementAndGet();
+                    return task;
+                }));
+            }
+            TimeUnit.MILLISECONDS.sleep(100);
+            assertThat(running.get()).isEqualTo(3);
+            release.countDown();
+            for (int i = 0; i < pending.size(); i++) {
+                assertThat(pending.get(i).get(5, TimeUnit.SECONDS)).isEqualTo(i);
+            }
+            assertThat(maxRunning.get()).isEqualTo(3);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testTasksWaitingForTheirTurnAreCancelledOnShutdown() throws Exception {
+        final ExecutorService executor = FanOutExecutors.bounded(Executors.newCachedThreadPool(), 1);
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch finish = new CountDownLatch(1);
+        final Future<?> running = executor.submit(() -> {
+            started.countDown();
+            // holds its turn through the interruption, until the waiting task has been cancelled
+            while (finish.getCount() > 0) {
+                try {
+                    finish.await();
+                } catch (final InterruptedException e) {
+                    // keeps waiting
+                }
+            }
+            return null;
+        });
+        final Future<?> waiting = executor.submit(() -> "never");
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        executor.shutdownNow();
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!waiting.isDone() && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        assertThat(waiting.isCancelled()).isTrue();
+        finish.countDown();
+
+        assertThat(executor.isShutdown()).isTrue();
+        assertThat(executor.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(executor.isTerminated()).isTrue();
+        assertThat(running.isDone()).isTrue();
+    }
+}
@@ -0,0 +1,164 @@
+package software.amazon.networkfirewall.common;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import software.amazon.awssdk.awscore.AwsResponse;
+import software.amazon.awssdk.services.networkfirewall.NetworkFirewallClient;
+import software.amazon.awssdk.services.networkfirewall.model.DescribeFirewallRequest;
+import software.amazon.awssdk.services.networkfirewall.model.DescribeRuleGroupRequest;
+import software.amazon.awssdk.services.networkfirewall.model.DescribeRuleGroupResponse;
+import software.amazon.awssdk.services.networkfirewall.model.InvalidRequestException;
+import software.amazon.awssdk.services.networkfirewall.model.ResourceNotFoundException;
+import software.amazon.awssdk.services.networkfirewall.model.RuleGroupResponse;
+import software.amazon.cloudformation.proxy.CallChain;
+import software.amazon.cloudformation.proxy.ProgressEvent;
+import software.amazon.cloudformation.proxy.ProxyClient;
+import software.amazon.cloudformation.proxy.StdCallbackContext;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class FlightRecorderEventsTest {
+    private static final String PREFIX = "software.amazon.networkfirewall.";
+    private static final String RESOURCE_TYPE = "AWS::NetworkFirewall::RuleGroup";
+    private static final Function<AwsResponse, String> RULE_GROUP_STATUS = response ->
+            response instanceof DescribeRuleGroupResponse && ((DescribeRuleGroupResponse) response).ruleGroupResponse() != null
+                    ? ((DescribeRuleGroupResponse) response).ruleGroupResponse().ruleGroupStatusAsString() : null;
+
+    private final NetworkFirewallClient client = mock(NetworkFirewallClient.class);
+
+    @Test
+    public void testRecordsPhasesTranslationsCallsAndPolls() throws IOException {
+        when(client.describeRuleGroup(any(DescribeRuleGroupRequest.class)))
+                .thenReturn(DescribeRuleGroupResponse.builder()
+                        .ruleGroupResponse(RuleGroupResponse.builder().ruleGroupStatus("DELETING").build())
+                        .build())
+                .thenThrow(ResourceNotFoundException.builder().message("gone").build());
+        final CallChain.Callback<DescribeRuleGroupRequest, Object, NetworkFirewallClient, Object, StdCallbackContext, Boolean>
+                stabilizer = FlightRecorderEvents.polled((request, response, proxied, model, context) -> {
+                    try {
+                        proxied.injectCredentialsAndInvokeV2(request, proxied.client()::describeRuleGroup);
+                        return false;
+                    } catch (final ResourceNotFoundException e) {
+                        return true;
+                    }
+                });
+
+        final List<RecordedEvent> recorded = record(() -> {
+            final FlightRecorderEvents events = FlightRecorderEvents.start(RESOURCE_TYPE, "Delete", RULE_GROUP_STATUS);
+            try {
+                final ProxyClient<NetworkFirewallClient> proxyClient = events.instrument(new DirectProxyClient<>(client));
+                final String callGraph = "NetworkFirewall:DeleteRuleGroup-AWS-NetworkFirewall-RuleGroup::Delete--2944";
+                FlightRecorderEvents.phase(callGraph);
+                FlightRecorderEvents.phase(callGraph);
+                assertThat(FlightRecorderEvents.translation(callGraph, model -> DescribeRuleGroupRequest.builder().build())
+                        .apply(null)).isNotNull();
+                stabilizer.invoke(DescribeRuleGroupRequest.builder().build(), null, proxyClient, null, null);
+                FlightRecorderEvents.step("Stabilize");
+                stabilizer.invoke(DescribeRuleGroupRequest.builder().build(), null, proxyClient, null, null);
+                events.completed(ProgressEvent.defaultSuccessHandler(null));
+            } finally {
+                events.close();
+            }
+        });
+
+        assertThat(recorded).allSatisfy(event -> assertThat(event.getString("resourceType")).isEqualTo(RESOURCE_TYPE));
+        assertThat(ofType(recorded, "HandlerPhase")).extracting(event -> event.getString("phase"))
+                .containsExactly("AWS-NetworkFirewall-RuleGroup::Delete", "AWS-NetworkFirewall-RuleGroup::Delete-Stabilize");
+        assertThat(ofType(recorded, "Translation")).extracting(event -> event.getString("requestType"))
+                .containsExactly("DescribeRuleGroupRequest");
+        assertThat(ofType(recorded, "ServiceCall")).extracting(event -> event.getString("operation"),
+                event -> event.getString("errorCode"), event -> event.getString("phase"))
+                .containsExactly(
+                        tuple("DescribeRuleGroup", null, "AWS-NetworkFirewall-RuleGroup::Delete"),
+                        tuple("DescribeRuleGroup", "ResourceNotFoundException", "AWS-NetworkFirewall-RuleGroup::Delete-Stabilize"));
+        assertThat(ofType(recorded, "StabilizationPoll")).extracting(event -> event.getString("observedStatus"),
+                event -> event.getBoolean("stabilized"))
+                .containsExactly(tuple("DELETING", false), tuple("ResourceNotFoundException", true));
+        assertThat(ofType(recorded, "HandlerInvocation")).extracting(event -> event.getString("action"),
+                event -> event.getString("status"))
+                .containsExactly(tuple("Delete", "SUCCESS"));
+    }
+
+    @Test
+    public void testFailedCallsFailTheInvocation() throws IOException {
+        final InvalidRequestException invalid = InvalidRequestException.builder().message("invalid").build();
+        when(client.describeFirewall(any(DescribeFirewallRequest.class))).thenThrow(invalid);
+
+        final List<RecordedEvent> recorded = record(() -> {
+            final FlightRecorderEvents events = FlightRecorderEvents.start(RESOURCE_TYPE, "Read", RULE_GROUP_STATUS);
+            try {
+                final ProxyClient<NetworkFirewallClient> proxyClient = events.instrument(new DirectProxyClient<>(client));
+                assertThatThrownBy(() -> proxyClient.injectCredentialsAndInvokeV2(DescribeFirewallRequest.builder().build(),
+                        proxyClient.client()::describeFirewall)).isSameAs(invalid);
+            } finally {
+                events.close();
+            }
+        });
+
+        assertThat(ofType(recorded, "ServiceCall")).extracting(event -> event.getString("operation"),
+                event -> event.getString("errorCode"))
+                .containsExactly(tuple("DescribeFirewall", "InvalidRequestException"));
+        assertThat(ofType(recorded, "HandlerInvocation")).extracting(event -> event.getString("status"))
+                .containsExactly("FAILED");
+        assertThat(FlightRecorderEvents.errorCode(new IllegalStateException())).isEqualTo("IllegalStateException");
+    }
+
+    @Test
+    public void testNothingIsRecordedOutsideAnInvocation() {
+        final Function<Object, String> translator = model -> "request";
+        assertThat(FlightRecorderEvents.translation("AWS-NetworkFirewall-RuleGroup::Read", translator)).isSameAs(translator);
+
+        FlightRecorderEvents.phase("AWS-NetworkFirewall-RuleGroup::Read");
+        FlightRecorderEvents.step("Stabilize");
+        FlightRecorderEvents.pollStarted();
+        FlightRecorderEvents.pollEnded(true);
+        assertThat(FlightRecorderEvents.isAvailable()).isTrue();
+    }
+
+    @Test
+    public void testPhaseIsTheNameTheChainWasInitiatedWith() {
+        assertThat(FlightRecorderEvents.phaseOf("NetworkFirewall:DeleteFirewall-AWS-NetworkFirewall-Firewall::Delete--294456788"))
+                .isEqualTo("AWS-NetworkFirewall-Firewall::Delete");
+        assertThat(FlightRecorderEvents.phaseOf("null:AssociateSubnets-AWS-NetworkFirewall-Firewall::Update-AssociateSubnets-1508"))
+                .isEqualTo("AWS-NetworkFirewall-Firewall::Update-AssociateSubnets");
+        assertThat(FlightRecorderEvents.phaseOf("unexpected")).isEqualTo("unexpected");
+    }
+
+    private static List<RecordedEvent> ofType(final List<RecordedEvent> events, final String name) {
+        return events.stream()
+                .filter(event -> event.getEventType().getName().equals(PREFIX + name))
+                .collect(Collectors.toList());
+    }
+
+    private static List<RecordedEvent> record(final Runnable invocation) throws IOException {
+        final Path file = Files.createTempFile("handler", ".jfr");
+        try (Recording recording = new Recording()) {
+            for (final String name : new String[] {"HandlerInvocation", "HandlerPhase", "Translation", "ServiceCall", "StabilizationPoll"}) {
+                recording.enable(PREFIX + name);
+            }
+            recording.start();
+            invocation.run();
+            recording.stop();
+            recording.dump(file);
+            return RecordingFile.readAllEvents(file).stream()
+                    .filter(event -> event.getEventType().getName().startsWith(PREFIX))
+                    .collect(Collectors.toList());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
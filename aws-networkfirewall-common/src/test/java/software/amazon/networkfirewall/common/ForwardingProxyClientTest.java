@@ -0,0 +1,55 @@
+package software.amazon.networkfirewall.common;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.CompletableFuture;
+
+import software.amazon.awssdk.core.ResponseBytes;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.pagination.sync.SdkIterable;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.services.networkfirewall.NetworkFirewallClient;
+import software.amazon.awssdk.services.networkfirewall.model.DescribeRuleGroupRequest;
+import software.amazon.awssdk.services.networkfirewall.model.DescribeRuleGroupResponse;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class ForwardingProxyClientTest {
+    private final NetworkFirewallClient client = mock(NetworkFirewallClient.class);
+    private final ForwardingProxyClient<NetworkFirewallClient> forwarding =
+            new ForwardingProxyClient<NetworkFirewallClient>(new DirectProxyClient<>(client)) { };
+    private final DescribeRuleGroupRequest request = DescribeRuleGroupRequest.builder().ruleGroupName("rules").build();
+    private final DescribeRuleGroupResponse response = DescribeRuleGroupResponse.builder().build();
+
+    @Test
+    public void testEveryCallIsHandedToTheDelegate() {
+        final DescribeRuleGroupResponse described = forwarding.injectCredentialsAndInvokeV2(request, sent -> response);
+        final CompletableFuture<DescribeRuleGroupResponse> describing =
+                forwarding.injectCredentialsAndInvokeV2Async(request, sent -> CompletableFuture.completedFuture(response));
+
+        assertThat(forwarding.client()).isSameAs(client);
+        assertThat(described).isSameAs(response);
+        assertThat(describing.join()).isSameAs(response);
+    }
+
+    @Test
+    public void testStreamingCallsAreHandedToTheDelegate() {
+        @SuppressWarnings("unchecked")
+        final SdkIterable<DescribeRuleGroupResponse> pages = mock(SdkIterable.class);
+        final ResponseInputStream<DescribeRuleGroupResponse> stream =
+                new ResponseInputStream<>(response, AbortableInputStream.create(new ByteArrayInputStream(new byte[0])));
+        final ResponseBytes<DescribeRuleGroupResponse> bytes = ResponseBytes.fromByteArray(response, new byte[0]);
+
+        final SdkIterable<DescribeRuleGroupResponse> listed = forwarding
+                .<DescribeRuleGroupRequest, DescribeRuleGroupResponse, SdkIterable<DescribeRuleGroupResponse>>
+                        injectCredentialsAndInvokeIterableV2(request, sent -> pages);
+        final ResponseInputStream<DescribeRuleGroupResponse> streamed =
+                forwarding.injectCredentialsAndInvokeV2InputStream(request, sent -> stream);
+        final ResponseBytes<DescribeRuleGroupResponse> read = forwarding.injectCredentialsAndInvokeV2Bytes(request, sent -> bytes);
+
+        assertThat(listed).isSameAs(pages);
+        assertThat(streamed).isSameAs(stream);
+        assertThat(read).isSameAs(bytes);
+    }
+}
@@ -0,0 +1,46 @@
+package software.amazon.networkfirewall.common;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class InvocationOptionsTest {
+
+    @Test
+    public void testDefaultsAreTheOriginalBehaviour() {
+        final InvocationOptions options = InvocationOptions.defaults();
+
+        assertThat(options.isApiCallMetrics()).isFalse();
+        assertThat(options.isFlightRecorderEvents()).isFalse();
+        assertThat(options.isTraceSpans()).isFalse();
+        assertThat(options.getTraceExporter()).isNull();
+        assertThat(options.getTraceDirectory()).isEqualTo(InvocationOptions.DEFAULT_TRACE_DIRECTORY);
+        assertThat(options.getInvocationBudgetSeconds()).isEqualTo(InvocationOptions.DEFAULT_INVOCATION_BUDGET_SECONDS);
+        assertThat(options.getRetryBudget()).isEqualTo(InvocationOptions.DEFAULT_RETRY_BUDGET);
+        assertThat(options.getRetryBaseDelayMillis()).isEqualTo(InvocationOptions.DEFAULT_RETRY_BASE_DELAY_MILLIS);
+        assertThat(options.getRetryMaxDelayMillis()).isEqualTo(InvocationOptions.DEFAULT_RETRY_MAX_DELAY_MILLIS);
+        assertThat(options.isAsyncClient()).isFalse();
+        assertThat(options.getAsyncMaxConnections()).isEqualTo(InvocationOptions.DEFAULT_ASYNC_MAX_CONNECTIONS);
+        assertThat(options.isVirtualThreads()).isFalse();
+        assertThat(options.isCoalesceDescribes()).isFalse();
+    }
+
+    @Test
+    public void testEnvironmentWithoutTheVariablesIsTheDefault() {
+        final InvocationOptions options = InvocationOptions.fromEnvironment();
+
+        assertThat(options.getInvocationBudgetSeconds()).isEqualTo(InvocationOptions.DEFAULT_INVOCATION_BUDGET_SECONDS);
+        assertThat(options.getTraceDirectory()).isEqualTo(InvocationOptions.DEFAULT_TRACE_DIRECTORY);
+        assertThat(options.isCoalesceDescribes()).isFalse();
+    }
+
+    @Test
+    public void testOnlyPositiveNumbersAreTaken() {
+        assertThat(InvocationOptions.positiveIntOrDefault(null, 3)).isEqualTo(3);
+        assertThat(InvocationOptions.positiveIntOrDefault(" 5 ", 3)).isEqualTo(5);
+        assertThat(InvocationOptions.positiveIntOrDefault("0", 3)).isEqualTo(3);
+        assertThat(InvocationOptions.positiveIntOrDefault("-2", 3)).isEqualTo(3);
+        assertThat(InvocationOptions.positiveIntOrDefault("many", 3)).isEqualTo(3);
+        assertThat(InvocationOptions.positiveIntOrNull("many")).isNull();
+    }
+}
@@ -0,0 +1,120 @@
+package software.amazon.networkfirewall.common;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import software.amazon.awssdk.awscore.AwsResponse;
+import software.amazon.awssdk.services.networkfirewall.NetworkFirewallAsyncClient;
+import software.amazon.awssdk.services.networkfirewall.NetworkFirewallClient;
+import software.amazon.cloudformation.proxy.AmazonWebServicesClientProxy;
+import software.amazon.cloudformation.proxy.Credentials;
+import software.amazon.cloudformation.proxy.Logger;
+import software.amazon.cloudformation.proxy.LoggerProxy;
+import software.amazon.cloudformation.proxy.OperationStatus;
+import software.amazon.cloudformation.proxy.ProgressEvent;
+import software.amazon.cloudformation.proxy.ProxyClient;
+import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+public class InvocationRuntimeTest {
+    private static final String RESOURCE_TYPE = "AWS::NetworkFirewall::RuleGroup";
+    private static final ResourceHandlerRequest<Object> REQUEST = ResourceHandlerRequest.<Object>builder()
+            .awsAccountId("123456789012")
+            .region("us-east-1")
+            .build();
+
+    private final AmazonWebServicesClientProxy proxy = new AmazonWebServicesClientProxy(new LoggerProxy(),
+            new Credentials("access", "secret", "token"), () -> 600000L);
+    private final NetworkFirewallClient client = mock(NetworkFirewallClient.class);
+    private final List<String> logged = new ArrayList<>();
+    private final Logger logger = logged::add;
+
+    @Test
+    public void testEachInvocationGetsItsDeadlineRetriesAndClients() {
+        final InvocationRuntime runtime = new InvocationRuntime(RESOURCE_TYPE, response -> null,
+                InvocationOptions.builder().invocationBudgetSeconds(30).retryBudget(2).asyncClient(true).build());
+        final Context context = new Context();
+        final AtomicReference<ProxyClient<NetworkFirewallClient>> proxyClient = new AtomicReference<>();
+
+        final ProgressEvent<Object, Context> progress = runtime.run(proxy, REQUEST, () -> client,
+                InvocationRuntimeTest.class, context, logger, handlerClient -> {
+                    proxyClient.set(handlerClient);
+                    return ProgressEvent.defaultSuccessHandler(null);
+                });
+
+        assertThat(progress.getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        assertThat(proxyClient.get().client()).isSameAs(client);
+        assertThat(context.getDeadline().remaining()).isLessThanOrEqualTo(Duration.ofSeconds(30))
+                .isGreaterThan(Duration.ofSeconds(20));
+        assertThat(context.retries.remaining()).isEqualTo(2);
+        assertThat(context.asyncProxyClient).isNotNull();
+        assertThat(logged).isEmpty();
+    }
+
+    @Test
+    public void testRecordedInvocationsAreClosedWhenTheHandlerFails() {
+        final InvocationRuntime runtime = new InvocationRuntime(RESOURCE_TYPE, response -> null,
+                InvocationOptions.builder().apiCallMetrics(true).flightRecorderEvents(true).build());
+        final Context context = new Context();
+        final IllegalStateException failure = new IllegalStateException("failed");
+
+        assertThatThrownBy(() -> runtime.run(proxy, REQUEST, () -> client, InvocationRuntimeTest.class, context,
+                logger, handlerClient -> {
+                    throw failure;
+                })).isSameAs(failure);
+        final ProgressEvent<Object, Context> progress = runtime.run(proxy, REQUEST, () -> client,
+                InvocationRuntimeTest.class, context, logger,
+                handlerClient -> ProgressEvent.defaultSuccessHandler(null));
+
+        assertThat(progress.getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        // without an async client option the context holds none, and no call left metrics to flush
+        assertThat(context.asyncProxyClient).isNull();
+        assertThat(logged).isEmpty();
+    }
+
+    @Test
+    public void testInvocationsAreTracedWhenAsked() {
+        final InvocationRuntime untraced = new InvocationRuntime(RESOURCE_TYPE, AwsResponse::toString,
+                InvocationOptions.defaults());
+        final InvocationRuntime traced = new InvocationRuntime(RESOURCE_TYPE, AwsResponse::toString,
+                InvocationOptions.builder()
+                        .traceSpans(true)
+                        .traceExporter(StepTraceTest.NoOpExporter.class.getName())
+                        .build());
+
+        assertThat(untraced.trace("AWS-NetworkFirewall-RuleGroup::Update", "token", logger).isEnabled()).isFalse();
+        assertThat(traced.trace("AWS-NetworkFirewall-RuleGroup::Update", "token", logger).isEnabled()).isTrue();
+    }
+
+    private static final class Context implements InvocationRuntime.Context {
+        private Deadline deadline = Deadline.unbounded();
+        private RetryPolicy retries = RetryPolicy.none();
+        private ProxyClient<NetworkFirewallAsyncClient> asyncProxyClient;
+
+        @Override
+        public Deadline getDeadline() {
+            return deadline;
+        }
+
+        @Override
+        public void setDeadline(final Deadline deadline) {
+            this.deadline = deadline;
+        }
+
+        @Override
+        public void setRetries(final RetryPolicy retries) {
+            this.retries = retries;
+        }
+
+        @Override
+        public void setAsyncProxyClient(final ProxyClient<NetworkFirewallAsyncClient> asyncProxyClient) {
+            this.asyncProxyClient = asyncProxyClient;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package software.amazon.networkfirewall.common;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ModelCacheTest {
+    private static final String ARN = "arn:aws:network-firewall:us-east-1:123456789012:stateful-rulegroup/cached";
+    private static final String OTHER_ARN = "arn:aws:network-firewall:us-east-1:123456789012:stateful-rulegroup/other";
+
+    private final AtomicLong nanos = new AtomicLong();
+    private final AtomicInteger translations = new AtomicInteger();
+    private final ModelCache<String> cache = new ModelCache<>(2, Duration.ofMinutes(5), nanos::get);
+
+    private Supplier<String> translate(final String model) {
+        return () -> {
+            translations.incrementAndGet();
+            return model;
+        };
+    }
+
+    @Test
+    public void testServesTheModelOfTheSameUpdateToken() {
+        assertThat(cache.get(ARN, "token-1", translate("first"))).isEqualTo("first");
+        assertThat(cache.get(ARN, "token-1", translate("second"))).isEqualTo("first");
+        assertThat(translations.get()).isEqualTo(1);
+
+        assertThat(cache.get(ARN, "token-2", translate("updated"))).isEqualTo("updated");
+        assertThat(cache.get(ARN, "token-2", translate("again"))).isEqualTo("updated");
+        assertThat(translations.get()).isEqualTo(2);
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void testTranslatesAgainOnceTheEntryExpired() {
+        cache.get(ARN, "token-1", translate("first"));
+        nanos.addAndGet(Duration.ofMinutes(5).minusNanos(1).toNanos());
+        assertThat(cache.get(ARN, "token-1", translate("second"))).isEqualTo("first");
+
+        nanos.addAndGet(1);
+        assertThat(cache.get(ARN, "token-1", translate("second"))).isEqualTo("second");
+        assertThat(translations.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void testEvictsTheLeastRecentlyReadEntry() {
+        final String thirdArn = ARN + "-third";
+        cache.get(ARN, "token", translate("first"));
+        cache.get(OTHER_ARN, "token", translate("other"));
+        cache.get(ARN, "token", translate("first"));
+        cache.get(thirdArn, "token", translate("third"));
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.get(ARN, "token", translate("first again"))).isEqualTo("first");
+        assertThat(cache.get(OTHER_ARN, "token", translate("other again"))).isEqualTo("other again");
+    }
+
+    @Test
+    public void testInvalidatedAndUnidentifiedResourcesAreTranslated() {
+        cache.get(ARN, "token", translate("first"));
+        cache.invalidate(ARN);
+        cache.invalidate(null);
+        assertThat(cache.size()).isEqualTo(0);
+        assertThat(cache.get(ARN, "token", translate("second"))).isEqualTo("second");
+
+        assertThat(cache.get(null, "token", translate("no arn"))).isEqualTo("no arn");
+        assertThat(cache.get(OTHER_ARN, null, translate("no token"))).isEqualTo("no token");
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(translations.get()).isEqualTo(4);
+    }
+}
@@ -0,0 +1,177 @@
+package software.amazon.networkfirewall.common;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import software.amazon.awssdk.services.networkfirewall.NetworkFirewallClient;
+import software.amazon.awssdk.services.networkfirewall.model.DescribeFirewallRequest;
+import software.amazon.awssdk.services.networkfirewall.model.DescribeFirewallResponse;
+import software.amazon.awssdk.services.networkfirewall.model.FirewallMetadata;
+import software.amazon.awssdk.services.networkfirewall.model.FirewallStatus;
+import software.amazon.awssdk.services.networkfirewall.model.ListFirewallsRequest;
+import software.amazon.awssdk.services.networkfirewall.model.ListFirewallsResponse;
+import software.amazon.awssdk.services.networkfirewall.model.PerObjectStatus;
+import software.amazon.awssdk.services.networkfirewall.model.PerObjectSyncStatus;
+import software.amazon.awssdk.services.networkfirewall.model.ResourceNotFoundException;
+import software.amazon.awssdk.services.networkfirewall.model.SyncState;
+import software.amazon.awssdk.services.networkfirewall.model.ThrottlingException;
+import software.amazon.cloudformation.proxy.Logger;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class PropagationTrackerTest {
+    private static final String POLICY_ARN = "arn:aws:network-firewall:us-east-1:123456789012:firewall-policy/rolled-out";
+    private static final String RULE_GROUP_ARN = "arn:aws:network-firewall:us-east-1:123456789012:stateful-rulegroup/rules";
+    private static final String FIREWALL_ARN = "arn:aws:network-firewall:us-east-1:123456789012:firewall/";
+    private static final long UPDATED_AT = 1_000_000L;
+
+    private final NetworkFirewallClient client = mock(NetworkFirewallClient.class);
+    private final AtomicLong millis = new AtomicLong(UPDATED_AT);
+    private final List<String> logs = new ArrayList<>();
+    private final Logger logger = logs::add;
+    private final PropagationTracker tracker = new PropagationTracker("AWS::NetworkFirewall::FirewallPolicy",
+            new DirectProxyClient<>(client), 2, false, Duration.ofSeconds(10), logger, millis::get,
+            sleep -> millis.addAndGet(sleep));
+
+    // a zone whose config lists the policy and a rule group of it
+    private static SyncState zone(final PerObjectSyncStatus policyStatus, final String policyToken) {
+        final Map<String, PerObjectStatus> config = new HashMap<>();
+        config.put(POLICY_ARN, PerObjectStatus.builder().syncStatus(policyStatus).updateToken(policyToken).build());
+        config.put(RULE_GROUP_ARN, PerObjectStatus.builder().syncStatus(PerObjectSyncStatus.IN_SYNC).updateToken("rules").build());
+        return SyncState.builder().config(config).build();
+    }
+
+    private static DescribeFirewallResponse firewall(final SyncState... zones) {
+        final Map<String, SyncState> syncStates = new TreeMap<>();
+        for (int i = 0; i < zones.length; i++) {
+            syncStates.put("us-east-1" + (char) ('a' + i), zones[i]);
+        }
+        return DescribeFirewallResponse.builder()
+                .firewallStatus(FirewallStatus.builder().syncStates(syncStates).build())
+                .build();
+    }
+
+    private static DescribeFirewallRequest describing(final String name) {
+        return argThat(request -> request != null && (FIREWALL_ARN + name).equals(request.firewallArn()));
+    }
+
+    private void listFirewalls(final String... names) {
+        final List<FirewallMetadata> firewalls = new ArrayList<>();
+        for (final String name : names) {
+            firewalls.add(FirewallMetadata.builder().firewallName(name).firewallArn(FIREWALL_ARN + name).build());
+        }
+        when(client.listFirewalls(any(ListFirewallsRequest.class)))
+                .thenReturn(ListFirewallsResponse.builder().firewalls(firewalls.subList(0, 1)).nextToken("page-2").build())
+                .thenReturn(ListFirewallsResponse.builder().firewalls(firewalls.subList(1, firewalls.size())).build());
+    }
+
+    @Test
+    public void testWaitsForEveryFirewallThatUsesTheResource() {
+        listFirewalls("fast", "slow", "other", "gone");
+        when(client.describeFirewall(describing("fast"))).thenReturn(
+                firewall(zone(PerObjectSyncStatus.IN_SYNC, "v2"), zone(PerObjectSyncStatus.IN_SYNC, "v2")));
+        when(client.describeFirewall(describing("slow")))
+                .thenReturn(firewall(zone(PerObjectSyncStatus.IN_SYNC, "v1"), zone(PerObjectSyncStatus.IN_SYNC, "v2")))
+                .thenThrow(ThrottlingException.builder().message("Rate exceeded").build())
+                .thenReturn(firewall(zone(PerObjectSyncStatus.IN_SYNC, "v2"), zone(PerObjectSyncStatus.IN_SYNC, "v2")));
+        when(client.describeFirewall(describing("other"))).thenReturn(firewall(SyncState.builder().build()));
+        when(client.describeFirewall(describing("gone"))).thenThrow(ResourceNotFoundException.builder().build());
+
+        final Map<String, Long> reached = new TreeMap<>();
+        final PropagationTracker.Outcome outcome =
+                tracker.await(POLICY_ARN, "v2", UPDATED_AT, Duration.ofMinutes(15), Deadline.unbounded(), reached);
+
+        assertThat(outcome).isEqualTo(PropagationTracker.Outcome.PROPAGATED);
+        assertThat(reached).containsOnlyKeys(FIREWALL_ARN + "fast", FIREWALL_ARN + "slow");
+        assertThat(reached.get(FIREWALL_ARN + "fast")).isEqualTo(0L);
+        assertThat(reached.get(FIREWALL_ARN + "slow")).isEqualTo(20_000L);
+        verify(client, times(2)).listFirewalls(any(ListFirewallsRequest.class));
+        verify(client, times(1)).describeFirewall(describing("fast"));
+        verify(client, times(3)).describeFirewall(describing("slow"));
+        verify(client, times(1)).describeFirewall(describing("other"));
+        verify(client, times(1)).describeFirewall(describing("gone"));
+        assertThat(logs).last().asString().contains("reached all 2 firewalls", "the last after 20000 ms");
+    }
+
+    @Test
+    public void testCarriesOnInACallbackAndGivesUpAfterTheLongestWait() {
+        listFirewalls("fast", "stuck");
+        when(client.describeFirewall(describing("fast"))).thenReturn(firewall(zone(PerObjectSyncStatus.IN_SYNC, "v2")));
+        when(client.describeFirewall(describing("stuck"))).thenReturn(
+                firewall(zone(PerObjectSyncStatus.IN_SYNC, "v2"), zone(PerObjectSyncStatus.CAPACITY_CONSTRAINED, "v2")));
+
+        // no room for a second round in the first invocation
+        final AtomicLong nanos = new AtomicLong();
+        final Map<String, Long> reached = new TreeMap<>();
+        assertThat(tracker.await(POLICY_ARN, "v2", UPDATED_AT, Duration.ofSeconds(35),
+                Deadline.after(Duration.ofSeconds(15), nanos::get), reached))
+                .isEqualTo(PropagationTracker.Outcome.OUT_OF_TIME);
+        assertThat(reached).containsOnlyKeys(FIREWALL_ARN + "fast");
+
+        millis.addAndGet(Duration.ofSeconds(5).toMillis());
+        when(client.listFirewalls(any(ListFirewallsRequest.class))).thenReturn(ListFirewallsResponse.builder()
+                .firewalls(FirewallMetadata.builder().firewallArn(FIREWALL_ARN + "fast").build(),
+                        FirewallMetadata.builder().firewallArn(FIREWALL_ARN + "stuck").build())
+                .build());
+        assertThat(tracker.await(POLICY_ARN, "v2", UPDATED_AT, Duration.ofSeconds(35), Deadline.unbounded(), reached))
+                .isEqualTo(PropagationTracker.Outcome.GAVE_UP);
+
+        // the firewall reached in the first invocation is neither described nor reported again
+        assertThat(reached).containsOnlyKeys(FIREWALL_ARN + "fast");
+        verify(client, times(1)).describeFirewall(describing("fast"));
+        verify(client, times(5)).describeFirewall(describing("stuck"));
+        assertThat(logs).last().asString().contains("has not reached firewalls [" + FIREWALL_ARN + "stuck]");
+    }
+
+    @Test
+    public void testNothingToWaitForWithoutFirewalls() {
+        when(client.listFirewalls(any(ListFirewallsRequest.class))).thenReturn(ListFirewallsResponse.builder().build());
+
+        assertThat(tracker.await(RULE_GROUP_ARN, "rules", UPDATED_AT, Duration.ofMinutes(15), Deadline.unbounded(),
+                new TreeMap<>())).isEqualTo(PropagationTracker.Outcome.PROPAGATED);
+        verify(client, never()).describeFirewall(any(DescribeFirewallRequest.class));
+    }
+
+    @Test
+    public void testSyncOfChecksEveryZoneThatListsTheResource() {
+        assertThat(PropagationTracker.syncOf(firewall(zone(PerObjectSyncStatus.IN_SYNC, "rules")), RULE_GROUP_ARN, "rules"))
+                .isEqualTo(PropagationTracker.Sync.IN_SYNC);
+        assertThat(PropagationTracker.syncOf(firewall(zone(PerObjectSyncStatus.IN_SYNC, "v2"),
+                zone(PerObjectSyncStatus.PENDING, "v2")), POLICY_ARN, "v2")).isEqualTo(PropagationTracker.Sync.PENDING);
+        assertThat(PropagationTracker.syncOf(firewall(zone(PerObjectSyncStatus.IN_SYNC, "v1")), POLICY_ARN, "v2"))
+                .isEqualTo(PropagationTracker.Sync.PENDING);
+        // an update that left no token is taken from the sync status alone
+        assertThat(PropagationTracker.syncOf(firewall(zone(PerObjectSyncStatus.IN_SYNC, "v1")), POLICY_ARN, null))
+                .isEqualTo(PropagationTracker.Sync.IN_SYNC);
+        assertThat(PropagationTracker.syncOf(firewall(zone(PerObjectSyncStatus.IN_SYNC, "v2"), SyncState.builder().build()),
+                POLICY_ARN, "v2")).isEqualTo(PropagationTracker.Sync.IN_SYNC);
+        assertThat(PropagationTracker.syncOf(firewall(zone(PerObjectSyncStatus.IN_SYNC, "v2")), POLICY_ARN + "-other", "v2"))
+                .isEqualTo(PropagationTracker.Sync.NOT_USED);
+        assertThat(PropagationTracker.syncOf(DescribeFirewallResponse.builder().build(), POLICY_ARN, "v2"))
+                .isEqualTo(PropagationTracker.Sync.NOT_USED);
+    }
+
+    @Test
+    public void testSyncOfTakesAZoneWithoutTheTokenAsPending() {
+        // the second zone lists the policy in sync but does not say at which version
+        final DescribeFirewallResponse firewall =
+                firewall(zone(PerObjectSyncStatus.IN_SYNC, "v2"), zone(PerObjectSyncStatus.IN_SYNC, null));
+
+        assertThat(PropagationTracker.syncOf(firewall, POLICY_ARN, "v2")).isEqualTo(PropagationTracker.Sync.PENDING);
+        assertThat(PropagationTracker.syncOf(firewall(zone(PerObjectSyncStatus.IN_SYNC, "v2"),
+                zone(PerObjectSyncStatus.IN_SYNC, "v2")), POLICY_ARN, "v2")).isEqualTo(PropagationTracker.Sync.IN_SYNC);
+    }
+}
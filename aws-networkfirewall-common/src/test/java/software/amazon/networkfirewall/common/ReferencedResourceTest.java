@@ -0,0 +1,174 @@
+package software.amazon.networkfirewall.common;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import software.amazon.awssdk.services.networkfirewall.NetworkFirewallAsyncClient;
+import software.amazon.awssdk.services.networkfirewall.NetworkFirewallClient;
+import software.amazon.awssdk.services.networkfirewall.model.ListFirewallsRequest;
+import software.amazon.awssdk.services.networkfirewall.model.ListFirewallsResponse;
+import software.amazon.cloudformation.proxy.Logger;
+import software.amazon.cloudformation.proxy.ProgressEvent;
+import software.amazon.cloudformation.proxy.ProxyClient;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ReferencedResourceTest {
+    private static final String RULE_GROUP_ARN = "arn:aws:network-firewall:us-east-1:123456789012:stateful-rulegroup/rules";
+
+    private final NetworkFirewallClient client = mock(NetworkFirewallClient.class);
+    private final List<String> logged = new ArrayList<>();
+    private final Logger logger = logged::add;
+
+    @Test
+    public void testHandlersOfATypeShareItsReadModels() {
+        final ReferencedResource<String> first = new ReferencedResource<>("Test::ReadModels::Shared", new Options(2, false));
+        final ReferencedResource<String> second = new ReferencedResource<>("Test::ReadModels::Shared", new Options(2, false));
+        final ReferencedResource<String> other = new ReferencedResource<>("Test::ReadModels::Other", new Options(2, false));
+
+        assertThat(first.readModels()).isNotNull().isSameAs(second.readModels()).isNotSameAs(other.readModels());
+        first.readModels().get(RULE_GROUP_ARN, "token", () -> "translated");
+        second.invalidateReadModel(RULE_GROUP_ARN);
+        assertThat(first.readModels().size()).isEqualTo(0);
+    }
+
+    @Test
+    public void testNoReadModelsWhileTheCacheIsOff() {
+        final ReferencedResource<String> resource = new ReferencedResource<>("Test::ReadModels::Off", new Options(0, false));
+
+        assertThat(resource.readModels()).isNull();
+        resource.invalidateReadModel(RULE_GROUP_ARN);
+    }
+
+    @Test
+    public void testUpdatesAreOnlyFollowedWhenAsked() {
+        final ReferencedResource<String> resource = new ReferencedResource<>("Test::Propagation::Off", new Options(0, false));
+        final Context context = new Context();
+        final ProgressEvent<String, Context> progress = ProgressEvent.progress("model", context);
+
+        resource.recordUpdate(context, "token");
+
+        assertThat(context.getPropagationStartedAt()).isNull();
+        assertThat(resource.awaitPropagation(new DirectProxyClient<>(client), logger, RULE_GROUP_ARN, progress))
+                .isSameAs(progress);
+        verify(client, never()).listFirewalls(any(ListFirewallsRequest.class));
+    }
+
+    @Test
+    public void testWaitIsOverOnceNoFirewallIsBehind() {
+        when(client.listFirewalls(any(ListFirewallsRequest.class))).thenReturn(ListFirewallsResponse.builder().build());
+        final ReferencedResource<String> resource = new ReferencedResource<>("Test::Propagation::On", new Options(0, true));
+        final Context context = new Context();
+        final ProgressEvent<String, Context> progress = ProgressEvent.progress("model", context);
+
+        resource.recordUpdate(context, "token");
+        assertThat(context.getPropagationStartedAt()).isNotNull();
+        assertThat(context.getPropagationUpdateToken()).isEqualTo("token");
+
+        assertThat(resource.awaitPropagation(new DirectProxyClient<>(client), logger, RULE_GROUP_ARN, progress))
+                .isSameAs(progress);
+        // a step after the wait that is left to a callback does not wait again
+        assertThat(context.getPropagationStartedAt()).isNull();
+    }
+
+    private static final class Options implements ReferencedResource.Options {
+        private final int readCacheSize;
+        private final boolean propagationWait;
+
+        private Options(final int readCacheSize, final boolean propagationWait) {
+            this.readCacheSize = readCacheSize;
+            this.propagationWait = propagationWait;
+        }
+
+        @Override
+        public InvocationOptions getInvocation() {
+            return InvocationOptions.defaults();
+        }
+
+        @Override
+        public int getReadCacheSize() {
+            return readCacheSize;
+        }
+
+        @Override
+        public int getReadCacheTtlSeconds() {
+            return 300;
+        }
+
+        @Override
+        public boolean isPropagationWait() {
+            return propagationWait;
+        }
+
+        @Override
+        public int getPropagationParallelism() {
+            return 2;
+        }
+
+        @Override
+        public int getPropagationPollSeconds() {
+            return 10;
+        }
+
+        @Override
+        public int getPropagationTimeoutSeconds() {
+            return 900;
+        }
+    }
+
+    private static final class Context implements ReferencedResource.Context {
+        private Long propagationStartedAt;
+        private String propagationUpdateToken;
+        private final Map<String, Long> propagatedFirewalls = new TreeMap<>();
+
+        @Override
+        public Deadline getDeadline() {
+            return Deadline.unbounded();
+        }
+
+        @Override
+        public void setDeadline(final Deadline deadline) {
+        }
+
+        @Override
+        public void setRetries(final RetryPolicy retries) {
+        }
+
+        @Override
+        public void setAsyncProxyClient(final ProxyClient<NetworkFirewallAsyncClient> asyncProxyClient) {
+        }
+
+        @Override
+        public Long getPropagationStartedAt() {
+            return propagationStartedAt;
+        }
+
+        @Override
+        public void setPropagationStartedAt(final Long propagationStartedAt) {
+            this.propagationStartedAt = propagationStartedAt;
+        }
+
+        @Override
+        public String getPropagationUpdateToken() {
+            return propagationUpdateToken;
+        }
+
+        @Override
+        public void setPropagationUpdateToken(final String propagationUpdateToken) {
+            this.propagationUpdateToken = propagationUpdateToken;
+        }
+
+        @Override
+        public Map<String, Long> getPropagatedFirewalls() {
+            return propagatedFirewalls;
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package software.amazon.networkfirewall.common;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.services.networkfirewall.NetworkFirewallAsyncClient;
+import software.amazon.awssdk.services.networkfirewall.NetworkFirewallClient;
+import software.amazon.awssdk.services.networkfirewall.model.DescribeFirewallRequest;
+import software.amazon.awssdk.services.networkfirewall.model.DescribeFirewallResponse;
+import software.amazon.awssdk.services.networkfirewall.model.Firewall;
+import software.amazon.awssdk.services.networkfirewall.model.InternalServerErrorException;
+import software.amazon.awssdk.services.networkfirewall.model.InvalidRequestException;
+import software.amazon.awssdk.services.networkfirewall.model.ResourceNotFoundException;
+import software.amazon.awssdk.services.networkfirewall.model.ThrottlingException;
+import software.amazon.awssdk.services.networkfirewall.model.UpdateFirewallDescriptionRequest;
+import software.amazon.awssdk.services.networkfirewall.model.UpdateFirewallDescriptionResponse;
+import software.amazon.cloudformation.proxy.Logger;
+import software.amazon.cloudformation.proxy.ProxyClient;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class RetryPolicyTest {
+    private static final InternalServerErrorException SERVER_ERROR =
+            InternalServerErrorException.builder().statusCode(500).message("internal").build();
+    private static final ThrottlingException THROTTLED =
+            ThrottlingException.builder().statusCode(429).message("throttled").build();
+
+    private final Logger logger = message -> { };
+    private final NetworkFirewallClient client = mock(NetworkFirewallClient.class);
+    private final ProxyClient<NetworkFirewallClient> direct = new DirectProxyClient<>(client);
+    private final List<Long> sleeps = new ArrayList<>();
+
+    @Test
+    public void testSeparatesRetryableFromTerminalErrors() {
+        final DescribeFirewallRequest describe = DescribeFirewallRequest.builder().build();
+        final UpdateFirewallDescriptionRequest update = UpdateFirewallDescriptionRequest.builder().build();
+
+        assertThat(RetryPolicy.isRetryable(describe, SERVER_ERROR)).isTrue();
+        assertThat(RetryPolicy.isRetryable(describe, SdkClientException.create("reset", new IOException()))).isTrue();
+        assertThat(RetryPolicy.isRetryable(update, THROTTLED)).isTrue();
+        // the update may have been applied before the server error, retrying it would race its own update token
+        assertThat(RetryPolicy.isRetryable(update, SERVER_ERROR)).isFalse();
+        assertThat(RetryPolicy.isRetryable(describe, InvalidRequestException.builder().statusCode(400).build())).isFalse();
+        assertThat(RetryPolicy.isRetryable(describe, ResourceNotFoundException.builder().statusCode(400).build())).isFalse();
+        assertThat(RetryPolicy.isRetryable(describe, SdkClientException.create("no region"))).isFalse();
+    }
+
+    @Test
+    public void testJitteredDelaysStayWithinBaseAndCap() {
+        final RetryPolicy policy = policy(8, Deadline.unbounded());
+
+        long delay = 100L;
+        for (int i = 0; i < 100; i++) {
+            final long next = policy.nextDelayMillis(delay);
+            assertThat(next).isBetween(100L, Math.min(1000L, delay * 3));
+            delay = next;
+        }
+    }
+
+    @Test
+    public void testRetriesTransientErrorsWithinTheBudget() {
+        when(client.describeFirewall(any(DescribeFirewallRequest.class)))
+                .thenThrow(SERVER_ERROR, THROTTLED)
+                .thenReturn(DescribeFirewallResponse.builder()
+                        .firewall(Firewall.builder().firewallArn("validarn").build())
+                        .build());
+        final RetryPolicy policy = policy(3, Deadline.unbounded());
+        final ProxyClient<NetworkFirewallClient> proxyClient = policy.instrument(direct);
+
+        final DescribeFirewallResponse response = proxyClient.injectCredentialsAndInvokeV2(
+                DescribeFirewallRequest.builder().firewallArn("validarn").build(), proxyClient.client()::describeFirewall);
+
+        assertThat(response.firewall().firewallArn()).isEqualTo("validarn");
+        assertThat(sleeps).hasSize(2).allSatisfy(sleep -> assertThat(sleep).isBetween(100L, 1000L));
+        assertThat(policy.remaining()).isEqualTo(1);
+        verify(client, times(3)).describeFirewall(any(DescribeFirewallRequest.class));
+    }
+
+    @Test
+    public void testGivesUpWhenTheBudgetIsSpent() {
+        when(client.describeFirewall(any(DescribeFirewallRequest.class))).thenThrow(SERVER_ERROR);
+        final RetryPolicy policy = policy(2, Deadline.unbounded());
+        final ProxyClient<NetworkFirewallClient> proxyClient = policy.instrument(direct);
+
+        assertThatThrownBy(() -> proxyClient.injectCredentialsAndInvokeV2(
+                DescribeFirewallRequest.builder().build(), proxyClient.client()::describeFirewall))
+                .isSameAs(SERVER_ERROR);
+        // the budget is shared by the calls of an invocation
+        assertThatThrownBy(() -> proxyClient.injectCredentialsAndInvokeV2(
+                DescribeFirewallRequest.builder().build(), proxyClient.client()::describeFirewall))
+                .isSameAs(SERVER_ERROR);
+
+        assertThat(sleeps).hasSize(2);
+        verify(client, times(4)).describeFirewall(any(DescribeFirewallRequest.class));
+    }
+
+    @Test
+    public void testDoesNotWaitPastTheDeadline() {
+        final AtomicLong nanos = new AtomicLong();
+        when(client.describeFirewall(any(DescribeFirewallRequest.class))).thenThrow(THROTTLED);
+        final RetryPolicy policy = policy(5, Deadline.after(Duration.ofSeconds(10), nanos::get));
+        final ProxyClient<NetworkFirewallClient> proxyClient = policy.instrument(direct);
+
+        assertThatThrownBy(() -> proxyClient.injectCredentialsAndInvokeV2(
+                DescribeFirewallRequest.builder().build(), proxyClient.client()::describeFirewall))
+                .isSameAs(THROTTLED);
+
+        assertThat(sleeps).isEmpty();
+        assertThat(policy.remaining()).isEqualTo(5);
+    }
+
+    @Test
+    public void testRetriesAsyncCallsOnTheScheduler() {
+        final NetworkFirewallAsyncClient asyncClient = mock(NetworkFirewallAsyncClient.class);
+        when(asyncClient.describeFirewall(any(DescribeFirewallRequest.class)))
+                .thenReturn(failed(THROTTLED))
+                .thenReturn(failed(SERVER_ERROR))
+                .thenReturn(CompletableFuture.completedFuture(DescribeFirewallResponse.builder()
+                        .firewall(Firewall.builder().firewallArn("validarn").build())
+                        .build()));
+        final List<Long> scheduled = new ArrayList<>();
+        final RetryPolicy policy = new RetryPolicy(3, 100L, 1000L, Deadline.unbounded(), logger, sleeps::add,
+                (retry, millis) -> {
+                    scheduled.add(millis);
+                    retry.run();
+                });
+        final ProxyClient<NetworkFirewallAsyncClient> proxyClient = policy.instrument(new DirectProxyClient<>(asyncClient));
+
+        final DescribeFirewallResponse response = proxyClient.injectCredentialsAndInvokeV2Async(
+                DescribeFirewallRequest.builder().build(), proxyClient.client()::describeFirewall).join();
+
+        assertThat(response.firewall().firewallArn()).isEqualTo("validarn");
+        assertThat(scheduled).hasSize(2).allSatisfy(delay -> assertThat(delay).isBetween(100L, 1000L));
+        // a scheduled retry holds no thread while it waits
+        assertThat(sleeps).isEmpty();
+        assertThat(policy.remaining()).isEqualTo(1);
+    }
+
+    @Test
+    public void testFailsAsyncCallsWithTheirOwnTerminalError() {
+        final NetworkFirewallAsyncClient asyncClient = mock(NetworkFirewallAsyncClient.class);
+        when(asyncClient.updateFirewallDescription(any(UpdateFirewallDescriptionRequest.class)))
+                .thenReturn(failed(SERVER_ERROR));
+        final RetryPolicy policy = policy(3, Deadline.unbounded());
+        final ProxyClient<NetworkFirewallAsyncClient> proxyClient = policy.instrument(new DirectProxyClient<>(asyncClient));
+
+        final CompletableFuture<UpdateFirewallDescriptionResponse> response = proxyClient.injectCredentialsAndInvokeV2Async(
+                UpdateFirewallDescriptionRequest.builder().build(), proxyClient.client()::updateFirewallDescription);
+
+        assertThatThrownBy(() -> AsyncFanOut.join(response)).isSameAs(SERVER_ERROR);
+        assertThat(policy.remaining()).isEqualTo(3);
+    }
+
+    @Test
+    public void testAbsorbsTransientErrorsOfPollsWithinTheBudget() {
+        final RetryPolicy policy = policy(1, Deadline.unbounded());
+
+        assertThat(policy.absorbs(ResourceNotFoundException.builder().statusCode(400).build())).isFalse();
+        assertThat(policy.absorbs(SERVER_ERROR)).isTrue();
+        assertThat(policy.absorbs(THROTTLED)).isFalse();
+        assertThat(policy.remaining()).isZero();
+    }
+
+    @Test
+    public void testNoneNeverRetries() {
+        assertThat(RetryPolicy.none().absorbs(SERVER_ERROR)).isFalse();
+        assertThat(RetryPolicy.none().instrument(direct)).isSameAs(direct);
+    }
+
+    private static <T> CompletableFuture<T> failed(final RuntimeException e) {
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(e);
+        return future;
+    }
+
+    private RetryPolicy policy(final int budget, final Deadline deadline) {
+        return new RetryPolicy(budget, 100L, 1000L, deadline, logger, sleeps::add);
+    }
+}
@@ -0,0 +1,217 @@
+package software.amazon.networkfirewall.common;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import software.amazon.awssdk.services.networkfirewall.NetworkFirewallClient;
+import software.amazon.awssdk.services.networkfirewall.model.DescribeFirewallRequest;
+import software.amazon.awssdk.services.networkfirewall.model.DescribeFirewallResponse;
+import software.amazon.awssdk.services.networkfirewall.model.ThrottlingException;
+import software.amazon.awssdk.services.networkfirewall.model.UpdateFirewallDescriptionRequest;
+import software.amazon.awssdk.services.networkfirewall.model.UpdateFirewallDescriptionResponse;
+import software.amazon.cloudformation.proxy.ProxyClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+public class SingleFlightTest {
+    private static final String SCOPE = "123456789012/us-east-1";
+    private static final String FIREWALL_ARN = "arn:aws:network-firewall:us-east-1:123456789012:firewall/coalesced";
+
+    private final ProxyClient<NetworkFirewallClient> proxyClient =
+            SingleFlight.instrument(new DirectProxyClient<>(mock(NetworkFirewallClient.class)), SCOPE);
+    private final CountDownLatch respond = new CountDownLatch(1);
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @AfterEach
+    public void tear_down() {
+        respond.countDown();
+    }
+
+    // a DescribeFirewall call that stays in flight until the test lets it respond
+    private Function<DescribeFirewallRequest, DescribeFirewallResponse> describeFirewall(final RuntimeException error) {
+        return request -> {
+            calls.incrementAndGet();
+            try {
+                respond.await(5, TimeUnit.SECONDS);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (error != null) {
+                throw error;
+            }
+            return DescribeFirewallResponse.builder().updateToken("token-" + calls.get()).build();
+        };
+    }
+
+    private static DescribeFirewallRequest describeRequest(final String firewallArn) {
+        return DescribeFirewallRequest.builder().firewallArn(firewallArn).build();
+    }
+
+    private static void awaitCalls(final AtomicInteger calls, final int expected) throws InterruptedException {
+        for (int i = 0; i < 500 && calls.get() < expected; i++) {
+            Thread.sleep(10);
+        }
+        assertThat(calls.get()).isEqualTo(expected);
+    }
+
+    // the followers have found the call in flight and wait for it
+    private static void awaitWaiting(final List<Thread> threads) throws InterruptedException {
+        for (final Thread thread : threads) {
+            for (int i = 0; i < 500 && thread.getState() != Thread.State.WAITING; i++) {
+                Thread.sleep(10);
+            }
+            assertThat(thread.getState()).isEqualTo(Thread.State.WAITING);
+        }
+    }
+
+    private List<Thread> start(final int count, final Runnable call) {
+        final List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            final Thread thread = new Thread(call, "single-flight-test-" + i);
+            thread.setDaemon(true);
+            thread.start();
+            threads.add(thread);
+        }
+        return threads;
+    }
+
+    @Test
+    public void testIdenticalDescribesShareOneCall() throws Exception {
+        final Function<DescribeFirewallRequest, DescribeFirewallResponse> describe = describeFirewall(null);
+        final CompletableFuture<DescribeFirewallResponse> leader = CompletableFuture.supplyAsync(() ->
+                proxyClient.injectCredentialsAndInvokeV2(describeRequest(FIREWALL_ARN), describe));
+        awaitCalls(calls, 1);
+        final List<DescribeFirewallResponse> responses = new ArrayList<>();
+        final List<Thread> followers = start(3, () -> {
+            final DescribeFirewallResponse response =
+                    proxyClient.injectCredentialsAndInvokeV2(describeRequest(FIREWALL_ARN), describe);
+            synchronized (responses) {
+                responses.add(response);
+            }
+        });
+        awaitWaiting(followers);
+
+        respond.countDown();
+        final DescribeFirewallResponse response = leader.get(5, TimeUnit.SECONDS);
+        for (final Thread follower : followers) {
+            follower.join(5000);
+        }
+
+        assertThat(calls.get()).isEqualTo(1);
+        assertThat(responses).hasSize(3).allSatisfy(shared -> assertThat(shared).isSameAs(response));
+        assertThat(SingleFlight.inFlight()).isEqualTo(0);
+
+        final DescribeFirewallResponse next = proxyClient.injectCredentialsAndInvokeV2(describeRequest(FIREWALL_ARN), describe);
+        assertThat(next.updateToken()).isEqualTo("token-2");
+    }
+
+    @Test
+    public void testWaitersGetTheErrorOfTheCall() throws Exception {
+        final ThrottlingException throttled = ThrottlingException.builder().message("Rate exceeded").build();
+        final Function<DescribeFirewallRequest, DescribeFirewallResponse> describe = describeFirewall(throttled);
+        final CompletableFuture<DescribeFirewallResponse> leader = CompletableFuture.supplyAsync(() ->
+                proxyClient.injectCredentialsAndInvokeV2(describeRequest(FIREWALL_ARN), describe));
+        awaitCalls(calls, 1);
+        final List<Throwable> errors = new ArrayList<>();
+        final List<Thread> followers = start(1, () -> {
+            try {
+                proxyClient.injectCredentialsAndInvokeV2(describeRequest(FIREWALL_ARN), describe);
+            } catch (final RuntimeException e) {
+                errors.add(e);
+            }
+        });
+        awaitWaiting(followers);
+
+        respond.countDown();
+        assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS)).hasCause(throttled);
+        followers.get(0).join(5000);
+
+        assertThat(errors).containsExactly(throttled);
+        assertThat(calls.get()).isEqualTo(1);
+        assertThat(SingleFlight.inFlight()).isEqualTo(0);
+    }
+
+    @Test
+    public void testOtherResourcesScopesAndOperationsMakeTheirOwnCalls() throws Exception {
+        final Function<DescribeFirewallRequest, DescribeFirewallResponse> describe = describeFirewall(null);
+        final ProxyClient<NetworkFirewallClient> otherAccount =
+                SingleFlight.instrument(new DirectProxyClient<>(mock(NetworkFirewallClient.class)), "210987654321/us-east-1");
+        final List<CompletableFuture<DescribeFirewallResponse>> pending = new ArrayList<>();
+        pending.add(CompletableFuture.supplyAsync(() ->
+                proxyClient.injectCredentialsAndInvokeV2(describeRequest(FIREWALL_ARN), describe)));
+        pending.add(CompletableFuture.supplyAsync(() ->
+                proxyClient.injectCredentialsAndInvokeV2(describeRequest(FIREWALL_ARN + "-other"), describe)));
+        pending.add(CompletableFuture.supplyAsync(() ->
+                otherAccount.injectCredentialsAndInvokeV2(describeRequest(FIREWALL_ARN), describe)));
+        awaitCalls(calls, 3);
+
+        final AtomicInteger updates = new AtomicInteger();
+        final Function<UpdateFirewallDescriptionRequest, UpdateFirewallDescriptionResponse> update = request -> {
+            updates.incrementAndGet();
+            return UpdateFirewallDescriptionResponse.builder().build();
+        };
+        final UpdateFirewallDescriptionRequest updateRequest =
+                UpdateFirewallDescriptionRequest.builder().firewallArn(FIREWALL_ARN).build();
+        proxyClient.injectCredentialsAndInvokeV2(updateRequest, update);
+        proxyClient.injectCredentialsAndInvokeV2(updateRequest, update);
+        assertThat(updates.get()).isEqualTo(2);
+
+        respond.countDown();
+        for (final CompletableFuture<DescribeFirewallResponse> call : pending) {
+            call.get(5, TimeUnit.SECONDS);
+        }
+        assertThat(SingleFlight.inFlight()).isEqualTo(0);
+    }
+
+    @Test
+    public void testDescribesAfterAMutationDoNotJoinACallMadeBeforeIt() throws Exception {
+        final Function<DescribeFirewallRequest, DescribeFirewallResponse> describe = describeFirewall(null);
+        final CompletableFuture<DescribeFirewallResponse> leader = CompletableFuture.supplyAsync(() ->
+                proxyClient.injectCredentialsAndInvokeV2(describeRequest(FIREWALL_ARN), describe));
+        awaitCalls(calls, 1);
+
+        // the update returns while the Describe the leader sent before it is still in flight
+        proxyClient.injectCredentialsAndInvokeV2(
+                UpdateFirewallDescriptionRequest.builder().firewallArn(FIREWALL_ARN).description("updated").build(),
+                request -> UpdateFirewallDescriptionResponse.builder().build());
+        final CompletableFuture<DescribeFirewallResponse> follower = CompletableFuture.supplyAsync(() ->
+                proxyClient.injectCredentialsAndInvokeV2(describeRequest(FIREWALL_ARN), describe));
+        awaitCalls(calls, 2);
+        final List<Thread> followersOfTheFollower = start(1, () ->
+                proxyClient.injectCredentialsAndInvokeV2(describeRequest(FIREWALL_ARN), describe));
+        awaitWaiting(followersOfTheFollower);
+
+        respond.countDown();
+        final DescribeFirewallResponse before = leader.get(5, TimeUnit.SECONDS);
+        final DescribeFirewallResponse after = follower.get(5, TimeUnit.SECONDS);
+        followersOfTheFollower.get(0).join(5000);
+
+        // the Describes after the update share the call made after it
+        assertThat(calls.get()).isEqualTo(2);
+        assertThat(after).isNotSameAs(before);
+        assertThat(SingleFlight.inFlight()).isEqualTo(0);
+    }
+
+    @Test
+    public void testScopeIsTheStackOperation() {
+        final String scope = SingleFlight.scope("123456789012", "us-east-1", "stack/first");
+
+        assertThat(scope).isEqualTo(SingleFlight.scope("123456789012", "us-east-1", "stack/first"));
+        // another stack of the same account, deployed with other permissions
+        assertThat(SingleFlight.scope("123456789012", "us-east-1", "stack/second")).isNotEqualTo(scope);
+        assertThat(SingleFlight.scope("210987654321", "us-east-1", "stack/first")).isNotEqualTo(scope);
+        // nothing tells the credentials of a request without a stack apart, so its calls are not coalesced
+        final ProxyClient<NetworkFirewallClient> unscoped = new DirectProxyClient<>(mock(NetworkFirewallClient.class));
+        assertThat(SingleFlight.scope("123456789012", "us-east-1", null)).isNull();
+        assertThat(SingleFlight.instrument(unscoped, null)).isSameAs(unscoped);
+    }
+}
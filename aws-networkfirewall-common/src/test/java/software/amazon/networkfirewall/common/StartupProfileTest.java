@@ -0,0 +1,64 @@
+package software.amazon.networkfirewall.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class StartupProfileTest {
+    static boolean initialized;
+
+    static class Initialized {
+        static {
+            initialized = true;
+        }
+    }
+
+    @Test
+    public void testStagesLoadAndInitializeClassesInOrder() throws Exception {
+        final StartupProfile profile = new StartupProfile(getClass().getClassLoader());
+
+        final Class<?> type = profile.loadAndInitialize(Initialized.class.getName());
+        profile.time("stage", () -> { });
+
+        assertThat(type).isEqualTo(Initialized.class);
+        assertThat(initialized).isTrue();
+        assertThat(profile.stages()).extracting(StartupProfile.Stage::getName)
+                .containsExactly("jvm start", Initialized.class.getName(), "stage");
+        assertThat(profile.stages().get(0).getRunMillis()).isPositive();
+        assertThat(profile.stages().get(0).getLoadedClasses()).isPositive();
+        assertThat(profile.stages().get(2).getLoadMillis()).isZero();
+    }
+
+    @Test
+    public void testInvokeHandsTheRequestToTheHandler() throws Exception {
+        final StartupProfile profile = new StartupProfile(getClass().getClassLoader());
+        final AtomicReference<String> received = new AtomicReference<>();
+
+        profile.invoke("first request", (input, output) -> {
+            final ByteArrayOutputStream request = new ByteArrayOutputStream();
+            int read;
+            while ((read = input.read()) != -1) {
+                request.write(read);
+            }
+            received.set(new String(request.toByteArray(), StandardCharsets.UTF_8));
+            output.write('{');
+        }, "{\"action\":\"READ\"}".getBytes(StandardCharsets.UTF_8));
+
+        assertThat(received.get()).isEqualTo("{\"action\":\"READ\"}");
+        assertThat(profile.format()).contains("jvm start").contains("first request").contains("classes");
+    }
+
+    @Test
+    public void testMissingClassFailsTheProfile() {
+        final StartupProfile profile = new StartupProfile(getClass().getClassLoader());
+
+        assertThatThrownBy(() -> profile.loadAndInitialize("software.amazon.networkfirewall.missing.HandlerWrapperExecutable"))
+                .isInstanceOf(ClassNotFoundException.class);
+        assertThat(profile.stages()).hasSize(1);
+    }
+}
@@ -0,0 +1,40 @@
+package software.amazon.networkfirewall.common;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import software.amazon.cloudformation.exceptions.CfnInvalidRequestException;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class StatelessActionValidatorTest {
+    @Test
+    public void testValidActions() {
+        new StatelessActionValidator(Collections.singletonList("metric"))
+                .actions("StatelessDefaultActions", Collections.singleton("aws:pass"))
+                .actions("StatelessFragmentDefaultActions", new HashSet<>(Arrays.asList("aws:forward_to_sfe", "metric")))
+                .validate("AWS::NetworkFirewall::FirewallPolicy");
+        new StatelessActionValidator(Collections.emptyList()).validate("AWS::NetworkFirewall::FirewallPolicy");
+    }
+
+    @Test
+    public void testEveryErrorIsReportedInOrder() {
+        final StatelessActionValidator validator = new StatelessActionValidator(Arrays.asList("defined", "defined"))
+                .actions("rule 2", new HashSet<>(Arrays.asList("aws:drop", "aws:alert")))
+                .actions("rule 1", new HashSet<>(Arrays.asList("aws:pass", "aws:drop", "undefined")))
+                .actions("rule 3", null);
+
+        assertThatThrownBy(() -> validator.validate("AWS::NetworkFirewall::RuleGroup"))
+                .isInstanceOf(CfnInvalidRequestException.class)
+                .hasMessageContaining("AWS::NetworkFirewall::RuleGroup has invalid stateless actions: "
+                        + "custom action defined is defined more than once; "
+                        + "rule 1 must contain exactly one of [aws:drop, aws:forward_to_sfe, aws:pass] but contains [aws:drop, aws:pass]; "
+                        + "rule 1 references custom action undefined which is not defined; "
+                        + "rule 2 contains unsupported standard action aws:alert; "
+                        + "rule 3 must contain exactly one of [aws:drop, aws:forward_to_sfe, aws:pass] but contains []");
+        assertThat(StatelessActionValidator.STANDARD_ACTIONS).containsExactly("aws:drop", "aws:forward_to_sfe", "aws:pass");
+    }
+}
@@ -0,0 +1,205 @@
+package software.amazon.networkfirewall.common;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import software.amazon.awssdk.awscore.AwsResponse;
+import software.amazon.awssdk.services.networkfirewall.NetworkFirewallClient;
+import software.amazon.awssdk.services.networkfirewall.model.DescribeRuleGroupRequest;
+import software.amazon.awssdk.services.networkfirewall.model.DescribeRuleGroupResponse;
+import software.amazon.awssdk.services.networkfirewall.model.RuleGroupResponse;
+import software.amazon.awssdk.services.networkfirewall.model.ThrottlingException;
+import software.amazon.cloudformation.proxy.CallChain;
+import software.amazon.cloudformation.proxy.HandlerErrorCode;
+import software.amazon.cloudformation.proxy.Logger;
+import software.amazon.cloudformation.proxy.OperationStatus;
+import software.amazon.cloudformation.proxy.ProgressEvent;
+import software.amazon.cloudformation.proxy.ProxyClient;
+import software.amazon.cloudformation.proxy.StdCallbackContext;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class StepTraceTest {
+    private static final Function<AwsResponse, String> RULE_GROUP_STATUS = response ->
+            response instanceof DescribeRuleGroupResponse && ((DescribeRuleGroupResponse) response).ruleGroupResponse() != null
+                    ? ((DescribeRuleGroupResponse) response).ruleGroupResponse().ruleGroupStatusAsString() : null;
+
+    private final NetworkFirewallClient client = mock(NetworkFirewallClient.class);
+    private final List<String> logged = new ArrayList<>();
+    private final Logger logger = logged::add;
+    private final List<List<Span>> exported = new ArrayList<>();
+
+    @Test
+    public void testPollsNestTheirDescribeCalls() {
+        when(client.describeRuleGroup(any(DescribeRuleGroupRequest.class))).thenReturn(DescribeRuleGroupResponse.builder()
+                .ruleGroupResponse(RuleGroupResponse.builder().ruleGroupStatus("ACTIVE").build())
+                .build());
+        final StepTrace trace = trace();
+        final ProxyClient<NetworkFirewallClient> proxyClient = trace.instrument(new DirectProxyClient<>(client));
+        final CallChain.Callback<DescribeRuleGroupRequest, Object, NetworkFirewallClient, Object, StdCallbackContext, Boolean>
+                stabilizer = trace.polled((request, response, proxied, model, context) ->
+                "DELETING".equals(proxied.injectCredentialsAndInvokeV2(request, proxied.client()::describeRuleGroup)
+                        .ruleGroupResponse().ruleGroupStatusAsString()));
+
+        final ProgressEvent<Object, StdCallbackContext> progress = trace.<Object, StdCallbackContext>step("Stabilize",
+                event -> {
+                    stabilizer.invoke(DescribeRuleGroupRequest.builder().build(), null, proxyClient, null, null);
+                    return ProgressEvent.defaultInProgressHandler(null, 30, null);
+                }).apply(ProgressEvent.progress(null, null));
+        trace.attribute("ruleGroupName", "name").attribute("ruleGroupArn", null).completed(progress);
+        trace.export();
+
+        final List<Span> spans = exported.get(0);
+        assertThat(spans).extracting(Span::getName, Span::getKind).containsExactly(
+                tuple("AWS-NetworkFirewall-RuleGroup::Update", Span.KIND_HANDLER),
+                tuple("Stabilize", Span.KIND_STEP),
+                tuple("Poll", Span.KIND_POLL),
+                tuple("DescribeRuleGroup", Span.KIND_SERVICE_CALL));
+        assertThat(spans).allSatisfy(span ->
+                assertThat(span.getEndEpochNanos()).isGreaterThanOrEqualTo(span.getStartEpochNanos()));
+        assertThat(spans.get(0).getAttributes()).containsEntry("ruleGroupName", "name").doesNotContainKey("ruleGroupArn")
+                .containsEntry("status", "IN_PROGRESS");
+        assertThat(spans.get(1).getAttributes()).containsEntry("status", "IN_PROGRESS")
+                .containsEntry("callbackDelaySeconds", "30");
+        assertThat(spans.get(2).getAttributes()).containsEntry("stabilized", "false")
+                .containsEntry("observedStatus", "ACTIVE");
+        assertThat(spans.get(3).getParentSpanId()).isEqualTo(spans.get(2).getSpanId());
+    }
+
+    @Test
+    public void testFailedPollsObserveTheErrorCode() {
+        final ThrottlingException throttled = ThrottlingException.builder().message("throttled").build();
+        when(client.describeRuleGroup(any(DescribeRuleGroupRequest.class))).thenThrow(throttled);
+        final StepTrace trace = trace();
+        final ProxyClient<NetworkFirewallClient> proxyClient = trace.instrument(new DirectProxyClient<>(client));
+        final CallChain.Callback<DescribeRuleGroupRequest, Object, NetworkFirewallClient, Object, StdCallbackContext, Boolean>
+                stabilizer = trace.polled((request, response, proxied, model, context) ->
+                proxied.injectCredentialsAndInvokeV2(request, proxied.client()::describeRuleGroup) != null);
+
+        assertThatThrownBy(() -> stabilizer.invoke(DescribeRuleGroupRequest.builder().build(), null, proxyClient, null, null))
+                .isSameAs(throttled);
+        trace.export();
+
+        assertThat(exported.get(0)).extracting(Span::getKind, span -> span.getAttributes().get("error"),
+                span -> span.getAttributes().get("observedStatus"))
+                .containsExactly(
+                        tuple(Span.KIND_HANDLER, null, null),
+                        tuple(Span.KIND_POLL, "ThrottlingException", "ThrottlingException"),
+                        tuple(Span.KIND_SERVICE_CALL, "ThrottlingException", null));
+    }
+
+    @Test
+    public void testFailedStepsCarryTheirError() {
+        final StepTrace trace = trace();
+        final Function<ProgressEvent<Object, StdCallbackContext>, ProgressEvent<Object, StdCallbackContext>> failed =
+                trace.step("Failed", progress -> ProgressEvent.defaultFailureHandler(new RuntimeException(), HandlerErrorCode.NotFound));
+        final Function<ProgressEvent<Object, StdCallbackContext>, ProgressEvent<Object, StdCallbackContext>> thrown =
+                trace.step("Thrown", progress -> {
+                    throw new IllegalStateException();
+                });
+
+        trace.completed(failed.apply(ProgressEvent.progress(null, null)));
+        assertThatThrownBy(() -> thrown.apply(ProgressEvent.progress(null, null))).isInstanceOf(IllegalStateException.class);
+        trace.export();
+
+        assertThat(exported.get(0)).extracting(Span::getName, span -> span.getAttributes().get("errorCode"),
+                span -> span.getAttributes().get("error"))
+                .containsExactly(
+                        tuple("AWS-NetworkFirewall-RuleGroup::Update", "NotFound", null),
+                        tuple("Failed", "NotFound", null),
+                        tuple("Thrown", null, "IllegalStateException"));
+    }
+
+    @Test
+    public void testDisabledTraceHandsBackWhatItIsGiven() {
+        final ProxyClient<NetworkFirewallClient> proxyClient = new DirectProxyClient<>(client);
+        final Function<ProgressEvent<Object, StdCallbackContext>, ProgressEvent<Object, StdCallbackContext>> step =
+                Function.identity();
+        final CallChain.Callback<Object, Object, NetworkFirewallClient, Object, StdCallbackContext, Boolean> stabilizer =
+                (request, response, proxied, model, context) -> true;
+        final ProgressEvent<Object, StdCallbackContext> progress = ProgressEvent.progress(null, null);
+        final StepTrace trace = StepTrace.disabled();
+
+        assertThat(trace.isEnabled()).isFalse();
+        assertThat(trace.instrument(proxyClient)).isSameAs(proxyClient);
+        assertThat(trace.step("Step", step)).isSameAs(step);
+        assertThat(trace.polled(stabilizer)).isSameAs(stabilizer);
+        assertThat(trace.attribute("key", "value").completed(progress)).isSameAs(progress);
+        trace.export();
+    }
+
+    @Test
+    public void testFailingExporterIsLogged() {
+        final StepTrace trace = StepTrace.start("AWS-NetworkFirewall-RuleGroup::Update", "token-1", spans -> {
+            throw new IllegalStateException("unavailable");
+        }, RULE_GROUP_STATUS, logger);
+
+        trace.export();
+
+        assertThat(logged).hasSize(1);
+        assertThat(logged.get(0)).contains("token-1").contains("unavailable");
+    }
+
+    @Test
+    public void testExporterFallsBackToJsonFiles() {
+        assertThat(StepTrace.exporterOf(null, "/tmp/traces", logger)).isInstanceOf(JsonFileSpanExporter.class);
+        assertThat(StepTrace.exporterOf("no.such.Exporter", "/tmp/traces", logger)).isInstanceOf(JsonFileSpanExporter.class);
+        assertThat(StepTrace.exporterOf(String.class.getName(), "/tmp/traces", logger)).isInstanceOf(JsonFileSpanExporter.class);
+        assertThat(logged).hasSize(2);
+        assertThat(StepTrace.exporterOf(" " + NoOpExporter.class.getName(), "/tmp/traces", logger)).isInstanceOf(NoOpExporter.class);
+    }
+
+    @Test
+    public void testJsonFileIsOneCompleteEventPerSpan() throws IOException {
+        final Path directory = Files.createTempDirectory("traces");
+        try {
+            final Span root = new Span("token/1", "00000000000000aa", null, "Update", Span.KIND_HANDLER, 2_000_000L)
+                    .attribute("firewallName", "a \"quoted\"\nname");
+            root.end(9_000_000L);
+            final Span step = new Span("token/1", "00000000000000bb", "00000000000000aa", "Tags", Span.KIND_STEP, 3_000_000L)
+                    .attribute("status", OperationStatus.SUCCESS);
+            step.end(4_500_000L);
+
+            new JsonFileSpanExporter(directory).export(Arrays.asList(root, step));
+            new JsonFileSpanExporter(directory).export(Collections.emptyList());
+
+            final Path file = directory.resolve("token_1-00000000000000aa.json");
+            assertThat(new String(Files.readAllBytes(file), StandardCharsets.UTF_8)).isEqualTo(
+                    "{\"displayTimeUnit\":\"ms\",\"traceEvents\":["
+                            + "{\"ph\":\"X\",\"pid\":1,\"tid\":1,\"name\":\"Update\",\"cat\":\"handler\",\"ts\":2000,\"dur\":7000,"
+                            + "\"args\":{\"traceId\":\"token/1\",\"spanId\":\"00000000000000aa\","
+                            + "\"firewallName\":\"a \\\"quoted\\\"\\u000aname\"}},"
+                            + "{\"ph\":\"X\",\"pid\":1,\"tid\":1,\"name\":\"Tags\",\"cat\":\"step\",\"ts\":3000,\"dur\":1500,"
+                            + "\"args\":{\"traceId\":\"token/1\",\"spanId\":\"00000000000000bb\","
+                            + "\"parentSpanId\":\"00000000000000aa\",\"status\":\"SUCCESS\"}}]}");
+        } finally {
+            try (Stream<Path> files = Files.walk(directory)) {
+                files.sorted(Collections.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+    private StepTrace trace() {
+        return StepTrace.start("AWS-NetworkFirewall-RuleGroup::Update", null, exported::add, RULE_GROUP_STATUS, logger);
+    }
+
+    public static class NoOpExporter implements SpanExporter {
+        @Override
+        public void export(final List<Span> spans) {
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package software.amazon.networkfirewall.common;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TagDiffTest {
+    @Test
+    public void testAddsUpdatesAndRemovesTags() {
+        final Map<String, String> previous = new HashMap<>();
+        previous.put("kept", "value");
+        previous.put("changed", "old");
+        previous.put("removed", "value");
+        final Map<String, String> desired = new HashMap<>();
+        desired.put("kept", "value");
+        desired.put("changed", "new");
+        desired.put("added", "value");
+
+        final TagDiff diff = new TagDiff(previous, desired, null, null);
+
+        final Map<String, String> expectedToAdd = new HashMap<>();
+        expectedToAdd.put("changed", "new");
+        expectedToAdd.put("added", "value");
+        assertThat(diff.tagsToAddOrUpdate()).isEqualTo(expectedToAdd);
+        assertThat(diff.tagsToRemove()).isEqualTo(Collections.singletonMap("removed", "value"));
+    }
+
+    @Test
+    public void testResourceTagsOverrideStackTags() {
+        final TagDiff diff = new TagDiff(null, Collections.singletonMap("key", "resource"),
+                Collections.singletonMap("key", "stack"), Collections.singletonMap("key", "stack"));
+
+        assertThat(diff.tagsToAddOrUpdate()).isEqualTo(Collections.singletonMap("key", "resource"));
+        assertThat(diff.tagsToRemove()).isEmpty();
+    }
+
+    @Test
+    public void testNothingChangesWhenTagsMatch() {
+        final Map<String, String> tags = Collections.singletonMap("key", "value");
+
+        final TagDiff diff = new TagDiff(tags, tags, tags, tags);
+
+        assertThat(diff.tagsToAddOrUpdate()).isEmpty();
+        assertThat(diff.tagsToRemove()).isEmpty();
+    }
+}
@@ -0,0 +1,146 @@
+package software.amazon.networkfirewall.common;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import software.amazon.awssdk.services.networkfirewall.model.Firewall;
+import software.amazon.awssdk.services.networkfirewall.model.Tag;
+import software.amazon.cloudformation.proxy.HandlerErrorCode;
+import software.amazon.cloudformation.proxy.OperationStatus;
+import software.amazon.cloudformation.proxy.ProgressEvent;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class TagReconcilerTest {
+    private final List<String> calls = Collections.synchronizedList(new ArrayList<>());
+    private final ProgressEvent<String, Object> progress = ProgressEvent.progress("model", null);
+
+    @Test
+    public void testMakesNoCallWhenLiveTagsAlreadyMatch() {
+        // the previous model is out of date, the tags were applied by an earlier attempt of this update
+        final TagReconciler tags = new TagReconciler(diff(tags("old", "value"), tags("new", "value")),
+                tags("new", "value"));
+
+        final ProgressEvent<String, Object> reconciled = tags.reconcile(progress, record("Untag"), record("Tag"));
+
+        assertThat(reconciled).isSameAs(progress);
+        assertThat(calls).isEmpty();
+    }
+
+    @Test
+    public void testDiffsAgainstLiveTags() {
+        final Map<String, String> live = tags("kept", "value");
+        live.put("drifted", "changed");
+        live.put("removed", "value");
+        live.put("aws:cloudformation:stack-name", "stack");
+        live.put("outside", "value");
+        final Map<String, String> previous = tags("kept", "value");
+        previous.put("drifted", "value");
+        previous.put("removed", "value");
+        previous.put("gone", "value");
+        final Map<String, String> desired = tags("kept", "value");
+        desired.put("drifted", "value");
+        desired.put("added", "value");
+
+        final TagReconciler tags = new TagReconciler(diff(previous, desired), live);
+
+        final Map<String, String> expectedToAdd = tags("drifted", "value");
+        expectedToAdd.put("added", "value");
+        assertThat(tags.tagsToAddOrUpdate()).isEqualTo(expectedToAdd);
+        // only tags the stack applied, and that are still there, are removed
+        assertThat(tags.tagsToRemove()).containsExactly("removed");
+    }
+
+    @Test
+    public void testFallsBackToThePreviousModelWithoutLiveTags() {
+        final TagReconciler tags = new TagReconciler(diff(tags("old", "value"), tags("new", "value")), null);
+
+        assertThat(tags.tagsToAddOrUpdate()).isEqualTo(tags("new", "value"));
+        assertThat(tags.tagsToRemove()).containsExactly("old");
+    }
+
+    @Test
+    public void testMakesOnlyTheCallsNeeded() {
+        new TagReconciler(diff(tags("old", "value"), null), null).reconcile(progress, record("Untag"), record("Tag"));
+        new TagReconciler(diff(null, tags("new", "value")), null).reconcile(progress, record("Untag"), record("Tag"));
+
+        assertThat(calls).containsExactly("Untag", "Tag");
+    }
+
+    @Test
+    public void testUntagsThenTags() {
+        final List<String> threads = Collections.synchronizedList(new ArrayList<>());
+        final TagReconciler tags = new TagReconciler(diff(tags("old", "value"), tags("new", "value")), null);
+
+        final ProgressEvent<String, Object> reconciled = tags.reconcile(progress,
+                current -> {
+                    threads.add(Thread.currentThread().getName());
+                    return record("Untag").apply(current);
+                },
+                current -> {
+                    threads.add(Thread.currentThread().getName());
+                    return record("Tag").apply(current);
+                });
+
+        assertThat(reconciled.getStatus()).isEqualTo(OperationStatus.IN_PROGRESS);
+        assertThat(calls).containsExactly("Untag", "Tag");
+        // both steps share the call graph of one callback context, they stay on the handler thread
+        assertThat(threads).containsOnly(Thread.currentThread().getName());
+    }
+
+    @Test
+    public void testReturnsTheFailedUntag() {
+        final TagReconciler tags = new TagReconciler(diff(tags("old", "value"), tags("new", "value")), null);
+        final ProgressEvent<String, Object> failed =
+                ProgressEvent.failed("model", null, HandlerErrorCode.AccessDenied, "untag denied");
+
+        assertThat(tags.reconcile(progress, current -> failed, record("Tag"))).isSameAs(failed);
+        assertThat(calls).isEmpty();
+    }
+
+    @Test
+    public void testRethrowsTheErrorOfEitherCall() {
+        final TagReconciler tags = new TagReconciler(diff(tags("old", "value"), tags("new", "value")), null);
+        final IllegalStateException error = new IllegalStateException("failed");
+
+        assertThatThrownBy(() -> tags.reconcile(progress, current -> {
+            throw error;
+        }, record("Tag"))).isSameAs(error);
+        assertThatThrownBy(() -> tags.reconcile(progress, record("Untag"), current -> {
+            throw error;
+        })).isSameAs(error);
+    }
+
+    @Test
+    public void testReadsTheTagsOfADescribeResponse() {
+        assertThat(TagReconciler.liveTags(Firewall.builder().build().tags())).isNull();
+        assertThat(TagReconciler.liveTags(Firewall.builder().tags(Collections.emptyList()).build().tags())).isEmpty();
+        assertThat(TagReconciler.liveTags(Arrays.asList(
+                Tag.builder().key("key").value("value").build()))).isEqualTo(tags("key", "value"));
+    }
+
+    private Function<ProgressEvent<String, Object>, ProgressEvent<String, Object>> record(
+            final String call) {
+        return current -> {
+            calls.add(call);
+            return current;
+        };
+    }
+
+    private static TagDiff diff(final Map<String, String> previous, final Map<String, String> desired) {
+        return new TagDiff(previous, desired, null, null);
+    }
+
+    private static Map<String, String> tags(final String key, final String value) {
+        final Map<String, String> tags = new HashMap<>();
+        tags.put(key, value);
+        return tags;
+    }
+}
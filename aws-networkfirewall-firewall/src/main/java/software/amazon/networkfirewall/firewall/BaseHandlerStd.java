@@ -1,26 +1,70 @@
 package software.amazon.networkfirewall.firewall;
 
+import java.util.function.Supplier;
+import software.amazon.awssdk.awscore.AwsResponse;
 import software.amazon.awssdk.services.networkfirewall.NetworkFirewallClient;
+import software.amazon.awssdk.services.networkfirewall.model.DescribeFirewallResponse;
+import software.amazon.awssdk.services.networkfirewall.model.FirewallStatus;
 import software.amazon.cloudformation.proxy.AmazonWebServicesClientProxy;
 import software.amazon.cloudformation.proxy.Logger;
 import software.amazon.cloudformation.proxy.ProgressEvent;
 import software.amazon.cloudformation.proxy.ProxyClient;
 import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+import software.amazon.networkfirewall.common.ClientPool;
+import software.amazon.networkfirewall.common.InvocationRuntime;
+import software.amazon.networkfirewall.common.StepTrace;
 
 public abstract class BaseHandlerStd extends BaseHandler<CallbackContext> {
+    protected final HandlerOptions options;
+
+    private final InvocationRuntime runtime;
+
+    protected BaseHandlerStd() {
+        this(HandlerOptions.fromEnvironment());
+    }
+
+    // the options the handler was constructed with also set up each invocation of it
+    protected BaseHandlerStd(final HandlerOptions options) {
+        this.options = options;
+        this.runtime = new InvocationRuntime(ResourceModel.TYPE_NAME, BaseHandlerStd::observedStatus,
+                options.getInvocation());
+    }
+
     @Override
     public final ProgressEvent<ResourceModel, CallbackContext> handleRequest(
             final AmazonWebServicesClientProxy proxy,
             final ResourceHandlerRequest<ResourceModel> request,
             final CallbackContext callbackContext,
             final Logger logger) {
-        return handleRequest(
-                proxy,
-                request,
-                callbackContext != null ? callbackContext : new CallbackContext(),
-                proxy.newProxy(ClientBuilder.getClient(request.getRegion())),
-                logger
-        );
+        return handleRequest(proxy, request, callbackContext, ClientPool.getClient(request.getRegion()), logger);
+    }
+
+    // the entry point with the client the handler calls the service through, for harnesses that drive the handlers in
+    // process against a stand-in for the service
+    public final ProgressEvent<ResourceModel, CallbackContext> handleRequest(
+            final AmazonWebServicesClientProxy proxy,
+            final ResourceHandlerRequest<ResourceModel> request,
+            final CallbackContext callbackContext,
+            final Supplier<NetworkFirewallClient> client,
+            final Logger logger) {
+        // the state of this invocation lives in its callback context, so concurrent invocations of a handler keep apart
+        final CallbackContext context = callbackContext != null ? callbackContext : new CallbackContext();
+        return runtime.run(proxy, request, client, getClass(), context, logger,
+                proxyClient -> handleRequest(proxy, request, context, proxyClient, logger));
+    }
+
+    // the trace of an invocation when the options ask for one, exported as they name
+    protected StepTrace trace(final String name, final ResourceHandlerRequest<ResourceModel> request, final Logger logger) {
+        return runtime.trace(name, request.getClientRequestToken(), logger);
+    }
+
+    // what a stabilizer waits on, the firewall status and its configuration sync state
+    static String observedStatus(final AwsResponse response) {
+        if (!(response instanceof DescribeFirewallResponse)) {
+            return null;
+        }
+        final FirewallStatus status = ((DescribeFirewallResponse) response).firewallStatus();
+        return status == null ? null : status.statusAsString() + "/" + status.configurationSyncStateSummaryAsString();
     }
 
     protected abstract ProgressEvent<ResourceModel, CallbackContext> handleRequest(
@@ -1,10 +1,52 @@
 package software.amazon.networkfirewall.firewall;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import software.amazon.awssdk.services.networkfirewall.NetworkFirewallAsyncClient;
+import software.amazon.cloudformation.proxy.ProxyClient;
 import software.amazon.cloudformation.proxy.StdCallbackContext;
+import software.amazon.networkfirewall.common.Deadline;
+import software.amazon.networkfirewall.common.FlightRecorderEvents;
+import software.amazon.networkfirewall.common.InvocationRuntime;
+import software.amazon.networkfirewall.common.RetryPolicy;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 
 @lombok.Getter
 @lombok.Setter
 @lombok.ToString
 @lombok.EqualsAndHashCode(callSuper = true)
-public class CallbackContext extends StdCallbackContext {
+public class CallbackContext extends StdCallbackContext implements InvocationRuntime.Context {
+    // the time left, the retries left and the async client of the current invocation, set up by BaseHandlerStd for
+    // each invocation and never carried over to the next; unbounded, none and null when a handler is invoked directly
+    @JsonIgnore
+    @lombok.ToString.Exclude
+    private transient Deadline deadline = Deadline.unbounded();
+    @JsonIgnore
+    @lombok.ToString.Exclude
+    private transient RetryPolicy retries = RetryPolicy.none();
+    @JsonIgnore
+    @lombok.ToString.Exclude
+    private transient ProxyClient<NetworkFirewallAsyncClient> asyncProxyClient;
+
+    // epoch millis of the first stabilization poll, for the adaptive polling cadence
+    private Long pollingStartedAt;
+
+    // the firewall as the first Describe of an update found it, kept for the invocations after it, whose Describe
+    // is replayed from the call graph; null where the service did not report it
+    private String liveDescription;
+    private Boolean liveDeleteProtection;
+    private Boolean liveSubnetChangeProtection;
+    private Boolean liveFirewallPolicyChangeProtection;
+    private String liveFirewallPolicyArn;
+    private Set<String> liveSubnetIds;
+    private Map<String, String> liveTags;
+
+    // every call chain starts by translating its request, which marks the start of its phase
+    @Override
+    public <M, R> Function<M, R> request(final String callGraph, final Function<M, R> func) {
+        FlightRecorderEvents.phase(callGraph);
+        return super.request(callGraph, FlightRecorderEvents.translation(callGraph, func));
+    }
 }
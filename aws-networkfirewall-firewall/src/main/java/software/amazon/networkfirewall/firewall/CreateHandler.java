@@ -18,10 +18,16 @@ import software.amazon.cloudformation.proxy.Logger;
 import software.amazon.cloudformation.proxy.ProgressEvent;
 import software.amazon.cloudformation.proxy.ProxyClient;
 import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+import software.amazon.networkfirewall.common.FlightRecorderEvents;
 
 public class CreateHandler extends BaseHandlerStd {
-    private Logger logger;
-    private ResourceModel resourceModel;
+    public CreateHandler() {
+        this(HandlerOptions.fromEnvironment());
+    }
+
+    public CreateHandler(final HandlerOptions options) {
+        super(options);
+    }
 
     protected ProgressEvent<ResourceModel, CallbackContext> handleRequest(
         final AmazonWebServicesClientProxy proxy,
@@ -30,8 +36,9 @@ public class CreateHandler extends BaseHandlerStd {
         final ProxyClient<NetworkFirewallClient> proxyClient,
         final Logger logger) {
 
-        this.logger = logger;
-        this.resourceModel = request.getDesiredResourceState();
+        final ResourceModel resourceModel = request.getDesiredResourceState();
+        final PollingCadence cadence = options.isAdaptivePolling()
+                ? PollingCadence.forCreate(resourceModel, callbackContext) : null;
 
         // get tags from resource request and CFN stack.
         final TagUtils tagUtils = new TagUtils(null, request.getDesiredResourceState().getTags(),
@@ -39,16 +46,18 @@ public class CreateHandler extends BaseHandlerStd {
 
         return ProgressEvent.progress(resourceModel, callbackContext)
             .then(progress ->
-                proxy.initiate("AWS-NetworkFirewall-Firewall::Create", proxyClient, progress.getResourceModel(), callbackContext)
-                    .translateToServiceRequest(model -> Translator.translateToCreateRequest(model, tagUtils.tagsToAddOrUpdate()))
-                    .makeServiceCall(this::submitCreateFirewallCall)
-                    .stabilize(this::isCreated)
+                PollingCadence.paced(cadence,
+                    proxy.initiate("AWS-NetworkFirewall-Firewall::Create", proxyClient, progress.getResourceModel(), callbackContext)
+                        .translateToServiceRequest(model -> Translator.translateToCreateRequest(model, tagUtils.tagsToAddOrUpdate())))
+                    .makeServiceCall((createRequest, client) -> submitCreateFirewallCall(createRequest, client, resourceModel))
+                    .stabilize(FlightRecorderEvents.polled((createRequest, createResponse, client, model, context) ->
+                        isCreated(client, model, context, cadence, logger)))
                     .progress())
             .then(progress -> new ReadHandler().handleRequest(proxy, request, callbackContext, proxyClient, logger));
     }
 
     private CreateFirewallResponse submitCreateFirewallCall(final CreateFirewallRequest request,
-            final ProxyClient<NetworkFirewallClient> client) {
+            final ProxyClient<NetworkFirewallClient> client, final ResourceModel resourceModel) {
         CreateFirewallResponse response;
         try {
             response = client.injectCredentialsAndInvokeV2(request, client.client()::createFirewall);
@@ -69,17 +78,24 @@ public class CreateHandler extends BaseHandlerStd {
         return response;
     }
 
-    private Boolean isCreated(CreateFirewallRequest request, CreateFirewallResponse createResponse,
-            ProxyClient<NetworkFirewallClient> client, ResourceModel model,
-            CallbackContext callbackContext) {
+    private Boolean isCreated(ProxyClient<NetworkFirewallClient> client, ResourceModel model,
+            CallbackContext callbackContext, PollingCadence cadence, Logger logger) {
         try {
             final DescribeFirewallResponse response = client.injectCredentialsAndInvokeV2(
                     Translator.translateToDescribeFirewallRequest(model),
                     client.client()::describeFirewall);
+            if (cadence != null) {
+                cadence.observed(response);
+            }
 
             switch (response.firewallStatus().status()) {
                 case READY:
-                    return response.firewallStatus().configurationSyncStateSummary() == ConfigurationSyncState.IN_SYNC;
+                    final boolean inSync =
+                            response.firewallStatus().configurationSyncStateSummary() == ConfigurationSyncState.IN_SYNC;
+                    if (inSync && cadence != null) {
+                        cadence.stabilized();
+                    }
+                    return inSync;
                 case PROVISIONING:
                     return false;
                 case DELETING:
@@ -92,6 +108,9 @@ public class CreateHandler extends BaseHandlerStd {
                     throw new CfnGeneralServiceException("Firewall failed to create");
             }
         } catch (final Exception e) {
+            if (callbackContext.getRetries().absorbs(e)) {
+                return false;
+            }
             throw new CfnGeneralServiceException("Firewall failed to create");
         }
     }
@@ -3,6 +3,7 @@ package software.amazon.networkfirewall.firewall;
 import software.amazon.awssdk.services.networkfirewall.NetworkFirewallClient;
 import software.amazon.awssdk.services.networkfirewall.model.DeleteFirewallRequest;
 import software.amazon.awssdk.services.networkfirewall.model.DeleteFirewallResponse;
+import software.amazon.awssdk.services.networkfirewall.model.DescribeFirewallResponse;
 import software.amazon.awssdk.services.networkfirewall.model.InternalServerErrorException;
 import software.amazon.awssdk.services.networkfirewall.model.InvalidOperationException;
 import software.amazon.awssdk.services.networkfirewall.model.InvalidRequestException;
@@ -15,9 +16,16 @@ import software.amazon.cloudformation.proxy.Logger;
 import software.amazon.cloudformation.proxy.ProgressEvent;
 import software.amazon.cloudformation.proxy.ProxyClient;
 import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+import software.amazon.networkfirewall.common.FlightRecorderEvents;
 
 public class DeleteHandler extends BaseHandlerStd {
-    private Logger logger;
+    public DeleteHandler() {
+        this(HandlerOptions.fromEnvironment());
+    }
+
+    public DeleteHandler(final HandlerOptions options) {
+        super(options);
+    }
 
     protected ProgressEvent<ResourceModel, CallbackContext> handleRequest(
         final AmazonWebServicesClientProxy proxy,
@@ -25,21 +33,24 @@ public class DeleteHandler extends BaseHandlerStd {
         final CallbackContext callbackContext,
         final ProxyClient<NetworkFirewallClient> proxyClient,
         final Logger logger) {
-        this.logger = logger;
+        final PollingCadence cadence = options.isAdaptivePolling()
+                ? PollingCadence.forDelete(request.getDesiredResourceState(), callbackContext) : null;
 
         return ProgressEvent.progress(request.getDesiredResourceState(), callbackContext)
             .then(progress ->
-                proxy.initiate("AWS-NetworkFirewall-Firewall::Delete", proxyClient, progress.getResourceModel(), progress.getCallbackContext())
-                    .translateToServiceRequest(Translator::translateToDeleteRequest)
-                    .makeServiceCall(this::submitDeleteFirewallCall)
-                    .stabilize(this::isDeleted)
+                PollingCadence.paced(cadence,
+                    proxy.initiate("AWS-NetworkFirewall-Firewall::Delete", proxyClient, progress.getResourceModel(), progress.getCallbackContext())
+                        .translateToServiceRequest(Translator::translateToDeleteRequest))
+                    .makeServiceCall((deleteRequest, client) -> submitDeleteFirewallCall(deleteRequest, client, logger))
+                    .stabilize(FlightRecorderEvents.polled((deleteRequest, deleteResponse, client, model, context) ->
+                        isDeleted(client, model, context, cadence)))
                     .progress()
             )
             .then(progress -> ProgressEvent.defaultSuccessHandler(null));
     }
 
     private DeleteFirewallResponse submitDeleteFirewallCall(final DeleteFirewallRequest request,
-            final ProxyClient<NetworkFirewallClient> client) {
+            final ProxyClient<NetworkFirewallClient> client, final Logger logger) {
         DeleteFirewallResponse response;
         try {
             response = client.injectCredentialsAndInvokeV2(request, client.client()::deleteFirewall);
@@ -57,13 +68,24 @@ public class DeleteHandler extends BaseHandlerStd {
         return response;
     }
 
-    private boolean isDeleted(final DeleteFirewallRequest awsRequest, final DeleteFirewallResponse awsResponse,
-            final ProxyClient<NetworkFirewallClient> client, final ResourceModel model, final CallbackContext callbackContext) {
+    private boolean isDeleted(final ProxyClient<NetworkFirewallClient> client, final ResourceModel model,
+            final CallbackContext callbackContext, final PollingCadence cadence) {
         try {
-            client.injectCredentialsAndInvokeV2(
+            final DescribeFirewallResponse response = client.injectCredentialsAndInvokeV2(
                     Translator.translateToDescribeFirewallRequest(model), client.client()::describeFirewall);
+            if (cadence != null) {
+                cadence.observed(response);
+            }
         } catch (final ResourceNotFoundException e) {
+            if (cadence != null) {
+                cadence.stabilized();
+            }
             return true;
+        } catch (final RuntimeException e) {
+            if (callbackContext.getRetries().absorbs(e)) {
+                return false;
+            }
+            throw e;
         }
 
         // resource still exists and not deleted.
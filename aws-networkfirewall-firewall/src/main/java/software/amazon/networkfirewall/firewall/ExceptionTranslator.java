@@ -0,0 +1,43 @@
+package software.amazon.networkfirewall.firewall;
+
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+import software.amazon.awssdk.services.networkfirewall.model.InsufficientCapacityException;
+import software.amazon.awssdk.services.networkfirewall.model.InternalServerErrorException;
+import software.amazon.awssdk.services.networkfirewall.model.InvalidOperationException;
+import software.amazon.awssdk.services.networkfirewall.model.InvalidRequestException;
+import software.amazon.awssdk.services.networkfirewall.model.InvalidTokenException;
+import software.amazon.awssdk.services.networkfirewall.model.LimitExceededException;
+import software.amazon.awssdk.services.networkfirewall.model.ResourceNotFoundException;
+import software.amazon.awssdk.services.networkfirewall.model.ThrottlingException;
+
+import software.amazon.cloudformation.exceptions.CfnGeneralServiceException;
+import software.amazon.cloudformation.exceptions.CfnInvalidRequestException;
+import software.amazon.cloudformation.exceptions.CfnNotFoundException;
+import software.amazon.cloudformation.exceptions.CfnServiceInternalErrorException;
+import software.amazon.cloudformation.exceptions.CfnServiceLimitExceededException;
+import software.amazon.cloudformation.exceptions.CfnThrottlingException;
+
+public class ExceptionTranslator {
+
+    private ExceptionTranslator() { }
+
+    public static RuntimeException translateToCfnException(final AwsServiceException e) {
+        if (e instanceof InvalidRequestException || e instanceof InvalidTokenException
+                || e instanceof InvalidOperationException) {
+            return new CfnInvalidRequestException(e.getMessage(), e);
+        }
+        if (e instanceof ThrottlingException) {
+            return new CfnThrottlingException(e);
+        }
+        if (e instanceof InternalServerErrorException || e instanceof InsufficientCapacityException) {
+            return new CfnServiceInternalErrorException(e.getMessage(), e);
+        }
+        if (e instanceof ResourceNotFoundException) {
+            return new CfnNotFoundException(e);
+        }
+        if (e instanceof LimitExceededException) {
+            return new CfnServiceLimitExceededException(e);
+        }
+        return new CfnGeneralServiceException(e.getMessage(), e);
+    }
+}
@@ -0,0 +1,134 @@
+package software.amazon.networkfirewall.firewall;
+
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+import software.amazon.awssdk.services.networkfirewall.NetworkFirewallAsyncClient;
+import software.amazon.awssdk.services.networkfirewall.NetworkFirewallClient;
+import software.amazon.awssdk.services.networkfirewall.model.DescribeFirewallRequest;
+import software.amazon.awssdk.services.networkfirewall.model.DescribeFirewallResponse;
+import software.amazon.awssdk.services.networkfirewall.model.FirewallMetadata;
+import software.amazon.awssdk.services.networkfirewall.model.FirewallStatusValue;
+import software.amazon.awssdk.services.networkfirewall.model.ResourceNotFoundException;
+import software.amazon.cloudformation.proxy.Logger;
+import software.amazon.cloudformation.proxy.ProxyClient;
+import software.amazon.networkfirewall.common.AsyncFanOut;
+import software.amazon.networkfirewall.common.FanOutExecutors;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import static software.amazon.networkfirewall.firewall.ExceptionTranslator.translateToCfnException;
+
+/**
+ * Describes the firewalls of one list page concurrently, at most the configured parallelism at a time,
+ * and translates them into complete models. Throttled and failed calls are retried by the retry policy
+ * of the invocation that the proxy clients carry; a call that still fails fails the page with its
+ * translated error, a throttle with a throttling error that CloudFormation retries.
+ *
+ * With an async client the calls are sent through it instead of from a pool of threads.
+ */
+public class FirewallListEnricher {
+    private final ProxyClient<NetworkFirewallClient> proxyClient;
+    private final ProxyClient<NetworkFirewallAsyncClient> asyncProxyClient;
+    private final HandlerOptions options;
+    private final Logger logger;
+    private final int parallelism;
+
+    public FirewallListEnricher(final ProxyClient<NetworkFirewallClient> proxyClient, final HandlerOptions options,
+                                final Logger logger) {
+        this(proxyClient, null, options, logger);
+    }
+
+    public FirewallListEnricher(final ProxyClient<NetworkFirewallClient> proxyClient,
+                                final ProxyClient<NetworkFirewallAsyncClient> asyncProxyClient,
+                                final HandlerOptions options, final Logger logger) {
+        this.proxyClient = proxyClient;
+        this.asyncProxyClient = asyncProxyClient;
+        this.options = options;
+        this.logger = logger;
+        this.parallelism = Math.max(1, options.getListEnrichmentParallelism());
+    }
+
+    List<ResourceModel> describe(final List<FirewallMetadata> firewalls) {
+        final List<ResourceModel> models = new ArrayList<>();
+        if (firewalls == null || firewalls.isEmpty()) {
+            return models;
+        }
+        if (asyncProxyClient != null) {
+            return describeAsync(firewalls);
+        }
+        final ExecutorService executor = FanOutExecutors.newExecutor("list-enrichment",
+                Math.min(parallelism, firewalls.size()), options.getInvocation().isVirtualThreads());
+        try {
+            final List<Future<ResourceModel>> pending = new ArrayList<>();
+            for (final FirewallMetadata firewall : firewalls) {
+                pending.add(executor.submit(() -> describeFirewall(firewall.firewallArn())));
+            }
+            for (final Future<ResourceModel> future : pending) {
+                final ResourceModel model = AsyncFanOut.await(future, "DescribeFirewall");
+                if (model != null) {
+                    models.add(model);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        logger.log(String.format("Described %d firewalls, at most %d at a time.", firewalls.size(),
+                Math.min(parallelism, firewalls.size())));
+        return models;
+    }
+
+    private List<ResourceModel> describeAsync(final List<FirewallMetadata> firewalls) {
+        final AsyncFanOut<NetworkFirewallAsyncClient> fanOut = new AsyncFanOut<>(asyncProxyClient, parallelism);
+        final Map<String, CompletableFuture<DescribeFirewallResponse>> pending = new LinkedHashMap<>();
+        for (final FirewallMetadata firewall : firewalls) {
+            pending.put(firewall.firewallArn(),
+                    fanOut.send(describeRequest(firewall.firewallArn()), fanOut.client()::describeFirewall));
+        }
+        final List<ResourceModel> models = new ArrayList<>();
+        for (final Map.Entry<String, CompletableFuture<DescribeFirewallResponse>> entry : pending.entrySet()) {
+            final ResourceModel model;
+            try {
+                model = listedModel(AsyncFanOut.join(entry.getValue()));
+            } catch (final ResourceNotFoundException e) {
+                continue;
+            } catch (final AwsServiceException e) {
+                throw translateToCfnException(e);
+            }
+            if (model != null) {
+                models.add(model);
+            }
+        }
+        logger.log(String.format("Described %d firewalls through the async client, at most %d at a time.",
+                firewalls.size(), parallelism));
+        return models;
+    }
+
+    // returns null for firewalls deleted since the page was listed, or being deleted, so they are left out
+    private ResourceModel describeFirewall(final String firewallArn) {
+        try {
+            return listedModel(proxyClient.injectCredentialsAndInvokeV2(describeRequest(firewallArn),
+                    proxyClient.client()::describeFirewall));
+        } catch (final ResourceNotFoundException e) {
+            return null;
+        } catch (final AwsServiceException e) {
+            throw translateToCfnException(e);
+        }
+    }
+
+    private static ResourceModel listedModel(final DescribeFirewallResponse response) {
+        if (response == null || response.firewallStatus() == null
+                || response.firewallStatus().status() == FirewallStatusValue.DELETING) {
+            return null;
+        }
+        return Translator.translateFromDescribeFirewallResponse(response);
+    }
+
+    private static DescribeFirewallRequest describeRequest(final String firewallArn) {
+        return Translator.translateToDescribeFirewallRequest(ResourceModel.builder().firewallArn(firewallArn).build());
+    }
+}
@@ -0,0 +1,45 @@
+package software.amazon.networkfirewall.firewall;
+
+import lombok.Builder;
+import lombok.Value;
+import software.amazon.networkfirewall.common.InvocationOptions;
+
+import static software.amazon.networkfirewall.common.InvocationOptions.positiveIntOrDefault;
+
+/**
+ * Optional handler behaviour that is switched on per deployment through the function environment
+ * rather than through the resource schema. Everything defaults to the original behaviour.
+ */
+@Value
+@Builder
+public class HandlerOptions {
+    static final String LIST_ENRICHMENT = "NETWORKFIREWALL_LIST_ENRICHMENT";
+    static final String LIST_ENRICHMENT_PARALLELISM = "NETWORKFIREWALL_LIST_ENRICHMENT_PARALLELISM";
+    static final String ADAPTIVE_POLLING = "NETWORKFIREWALL_ADAPTIVE_POLLING";
+    static final int DEFAULT_LIST_ENRICHMENT_PARALLELISM = 8;
+
+    // describe every firewall of a list page so that list returns complete models
+    boolean listEnrichment;
+
+    // upper bound on concurrent DescribeFirewall calls made while enriching a list page
+    @Builder.Default
+    int listEnrichmentParallelism = DEFAULT_LIST_ENRICHMENT_PARALLELISM;
+
+    // the options every handler of the project is invoked with
+    @Builder.Default
+    InvocationOptions invocation = InvocationOptions.defaults();
+
+    // poll creates and deletes at a cadence that follows the zone count of the firewall, the progress of its sync
+    // states and how long such firewalls took before, rather than every five seconds
+    boolean adaptivePolling;
+
+    public static HandlerOptions fromEnvironment() {
+        return HandlerOptions.builder()
+                .listEnrichment(Boolean.parseBoolean(System.getenv(LIST_ENRICHMENT)))
+                .listEnrichmentParallelism(positiveIntOrDefault(System.getenv(LIST_ENRICHMENT_PARALLELISM),
+                        DEFAULT_LIST_ENRICHMENT_PARALLELISM))
+                .invocation(InvocationOptions.fromEnvironment())
+                .adaptivePolling(Boolean.parseBoolean(System.getenv(ADAPTIVE_POLLING)))
+                .build();
+    }
+}
@@ -12,6 +12,14 @@ import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
 
 public class ListHandler extends BaseHandlerStd {
 
+    public ListHandler() {
+        this(HandlerOptions.fromEnvironment());
+    }
+
+    ListHandler(final HandlerOptions options) {
+        super(options);
+    }
+
     @Override
     public ProgressEvent<ResourceModel, CallbackContext> handleRequest(
         final AmazonWebServicesClientProxy proxy,
@@ -24,7 +32,9 @@ public class ListHandler extends BaseHandlerStd {
         final ListFirewallsResponse response = proxy.injectCredentialsAndInvokeV2(listFirewallsRequest, proxyClient.client()::listFirewalls);
 
         return ProgressEvent.<ResourceModel, CallbackContext>builder()
-            .resourceModels(Translator.translateFromListRequest(response))
+            .resourceModels(options.isListEnrichment()
+                ? new FirewallListEnricher(proxyClient, callbackContext.getAsyncProxyClient(), options, logger).describe(response.firewalls())
+                : Translator.translateFromListRequest(response))
             .nextToken(response.nextToken())
             .status(OperationStatus.SUCCESS)
             .build();
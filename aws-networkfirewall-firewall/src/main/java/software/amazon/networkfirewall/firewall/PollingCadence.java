@@ -0,0 +1,168 @@
+package software.amazon.networkfirewall.firewall;
+
+import software.amazon.awssdk.services.networkfirewall.model.AttachmentStatus;
+import software.amazon.awssdk.services.networkfirewall.model.DescribeFirewallResponse;
+import software.amazon.awssdk.services.networkfirewall.model.FirewallStatus;
+import software.amazon.awssdk.services.networkfirewall.model.FirewallStatusValue;
+import software.amazon.awssdk.services.networkfirewall.model.SyncState;
+import software.amazon.cloudformation.proxy.CallChain;
+import software.amazon.cloudformation.proxy.Delay;
+import software.amazon.cloudformation.proxy.StdCallbackContext;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.LongSupplier;
+
+/**
+ * How long the create and delete stabilizers wait between DescribeFirewall polls, in place of the framework's fixed
+ * five seconds. A firewall takes longer to provision and to tear down the more Availability Zones it has subnets in,
+ * so a poll waits for half of the time that looks left: what a firewall of as many zones took in this container, or
+ * a rough prior until one has been seen, less the time since the first poll, and less still once the sync states
+ * show zones that are done. Once every zone is done, or the firewall is READY and only its configuration is still
+ * syncing, it polls every {@link #TAIL_INTERVAL} until the stabilizer is satisfied.
+ *
+ * A wait is never shorter than {@link #MIN_INTERVAL} nor longer than {@link #MAX_INTERVAL} outside the tail, and
+ * polling gives up {@link #TIMEOUT} after the first poll, as the framework's cadence does. The first poll is
+ * recorded in the callback context, so the cadence carries on across callbacks.
+ */
+public class PollingCadence implements Delay {
+    static final Duration TAIL_INTERVAL = Duration.ofSeconds(2);
+    static final Duration MIN_INTERVAL = Duration.ofSeconds(5);
+    static final Duration MAX_INTERVAL = Duration.ofMinutes(1);
+    static final Duration TIMEOUT = Duration.ofMinutes(20);
+
+    // how long the operations of this container took, by operation and zone count
+    private static final ConcurrentMap<String, Duration> LEARNED = new ConcurrentHashMap<>();
+
+    enum Operation {
+        CREATE(Duration.ofMinutes(4), Duration.ofMinutes(1)),
+        DELETE(Duration.ofMinutes(2), Duration.ofSeconds(30));
+
+        private final Duration base;
+        private final Duration perZone;
+
+        Operation(final Duration base, final Duration perZone) {
+            this.base = base;
+            this.perZone = perZone;
+        }
+
+        Duration prior(final int zones) {
+            return base.plus(perZone.multipliedBy(zones));
+        }
+    }
+
+    private final Operation operation;
+    private final CallbackContext context;
+    private final LongSupplier clock;
+    private int zones;
+    private boolean observed;
+    private long done;
+    private boolean settling;
+
+    PollingCadence(final Operation operation, final ResourceModel model, final CallbackContext context,
+            final LongSupplier clock) {
+        this.operation = operation;
+        this.context = context;
+        this.clock = clock;
+        this.zones = model.getSubnetMappings() == null ? 0 : model.getSubnetMappings().size();
+    }
+
+    public static PollingCadence forCreate(final ResourceModel model, final CallbackContext context) {
+        return new PollingCadence(Operation.CREATE, model, context, System::currentTimeMillis);
+    }
+
+    public static PollingCadence forDelete(final ResourceModel model, final CallbackContext context) {
+        return new PollingCadence(Operation.DELETE, model, context, System::currentTimeMillis);
+    }
+
+    /**
+     * The call chain polled at this cadence, or at the framework's own when there is none.
+     */
+    public static <RequestT, ClientT, ModelT, CallbackT extends StdCallbackContext>
+            CallChain.Caller<RequestT, ClientT, ModelT, CallbackT> paced(final PollingCadence cadence,
+                    final CallChain.Caller<RequestT, ClientT, ModelT, CallbackT> caller) {
+        return cadence == null ? caller : caller.backoffDelay(cadence);
+    }
+
+    /**
+     * Takes in what a poll found: how many zones are done, attached when creating and gone when deleting, and
+     * whether only the configuration sync is left.
+     */
+    public void observed(final DescribeFirewallResponse response) {
+        started();
+        observed = true;
+        final FirewallStatus status = response.firewallStatus();
+        final Map<String, SyncState> syncStates = status != null && status.hasSyncStates()
+                ? status.syncStates() : Collections.emptyMap();
+        if (zones == 0) {
+            zones = syncStates.size();
+        }
+        done = zones - syncStates.size();
+        if (operation == Operation.CREATE) {
+            done = syncStates.values().stream()
+                    .filter(syncState -> syncState.attachment() != null
+                            && syncState.attachment().status() == AttachmentStatus.READY)
+                    .count();
+        }
+        done = Math.max(0, Math.min(zones, done));
+        settling = zones > 0 && done == zones
+                || operation == Operation.CREATE && status != null && status.status() == FirewallStatusValue.READY;
+    }
+
+    /**
+     * The stabilizer is satisfied; how long it took since the first poll becomes part of the estimate for firewalls
+     * of as many zones.
+     */
+    public void stabilized() {
+        if (context.getPollingStartedAt() == null) {
+            return;
+        }
+        LEARNED.merge(key(operation, zones), elapsed(), (learned, taken) -> learned.plus(taken).dividedBy(2));
+    }
+
+    @Override
+    public Duration nextDelay(final int attempt) {
+        // nothing polled yet, as when the framework retries the call that starts the operation
+        if (!observed) {
+            return MIN_INTERVAL;
+        }
+        final Duration elapsed = elapsed();
+        if (elapsed.compareTo(TIMEOUT) >= 0) {
+            return Duration.ZERO;
+        }
+        if (settling) {
+            return TAIL_INTERVAL;
+        }
+        Duration left = expected().minus(elapsed);
+        // the zones left take as long as the ones done did
+        if (done > 0) {
+            final Duration byProgress = elapsed.multipliedBy(zones - done).dividedBy(done);
+            left = byProgress.compareTo(left) < 0 ? byProgress : left;
+        }
+        final long seconds = left.dividedBy(2).getSeconds();
+        return Duration.ofSeconds(Math.max(MIN_INTERVAL.getSeconds(), Math.min(MAX_INTERVAL.getSeconds(), seconds)));
+    }
+
+    // what a firewall of as many zones is expected to take from its first poll on
+    Duration expected() {
+        final Duration learned = LEARNED.get(key(operation, zones));
+        return learned != null ? learned : operation.prior(zones);
+    }
+
+    private void started() {
+        if (context.getPollingStartedAt() == null) {
+            context.setPollingStartedAt(clock.getAsLong());
+        }
+    }
+
+    private Duration elapsed() {
+        return Duration.ofMillis(Math.max(0, clock.getAsLong() - context.getPollingStartedAt()));
+    }
+
+    private static String key(final Operation operation, final int zones) {
+        return operation + "/" + zones;
+    }
+}
@@ -16,8 +16,6 @@ import software.amazon.cloudformation.proxy.ProxyClient;
 import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
 
 public class ReadHandler extends BaseHandlerStd {
-    private Logger logger;
-
     protected ProgressEvent<ResourceModel, CallbackContext> handleRequest(
         final AmazonWebServicesClientProxy proxy,
         final ResourceHandlerRequest<ResourceModel> request,
@@ -25,8 +23,6 @@ public class ReadHandler extends BaseHandlerStd {
         final ProxyClient<NetworkFirewallClient> proxyClient,
         final Logger logger) {
 
-        this.logger = logger;
-
         return proxy.initiate("AWS-NetworkFirewall-Firewall::Read", proxyClient, request.getDesiredResourceState(), callbackContext)
             .translateToServiceRequest(Translator::translateToDescribeFirewallRequest)
             .makeServiceCall((describeFirewallRequest, client) -> {
@@ -74,6 +74,10 @@ public class Translator {
         for (final Map.Entry<String, SyncState> s : syncStates.entrySet()) {
             final String azName = s.getKey();
             final SyncState state = s.getValue();
+            // the endpoint of a zone that is still provisioning has not been created yet
+            if (state.attachment() == null || state.attachment().endpointId() == null) {
+                continue;
+            }
 
             // add AZName in the suffix of the endpointID.
             endpointIds.add(String.format("%s:%s", azName, state.attachment().endpointId()));
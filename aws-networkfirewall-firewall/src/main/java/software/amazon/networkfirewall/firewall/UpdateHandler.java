@@ -13,6 +13,7 @@ import software.amazon.awssdk.services.networkfirewall.model.ConfigurationSyncSt
 import software.amazon.awssdk.services.networkfirewall.model.DescribeFirewallResponse;
 import software.amazon.awssdk.services.networkfirewall.model.DisassociateSubnetsRequest;
 import software.amazon.awssdk.services.networkfirewall.model.DisassociateSubnetsResponse;
+import software.amazon.awssdk.services.networkfirewall.model.Firewall;
 import software.amazon.awssdk.services.networkfirewall.model.FirewallStatusValue;
 import software.amazon.awssdk.services.networkfirewall.model.InternalServerErrorException;
 import software.amazon.awssdk.services.networkfirewall.model.InvalidRequestException;
@@ -27,6 +28,9 @@ import software.amazon.cloudformation.proxy.Logger;
 import software.amazon.cloudformation.proxy.ProgressEvent;
 import software.amazon.cloudformation.proxy.ProxyClient;
 import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+import software.amazon.networkfirewall.common.FlightRecorderEvents;
+import software.amazon.networkfirewall.common.StepTrace;
+import software.amazon.networkfirewall.common.TagReconciler;
 
 import java.util.Comparator;
 import java.util.HashSet;
@@ -34,18 +38,17 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 public class UpdateHandler extends BaseHandlerStd {
-    private Logger logger;
-    private AmazonWebServicesClientProxy proxy;
-    private ResourceHandlerRequest<ResourceModel> handlerRequest;
-    private CallbackContext callbackContext;
-    private ProxyClient<NetworkFirewallClient> proxyClient;
-    private ResourceModel desiredStateModel;
-    private ResourceModel previousStateModel;
-    private Set<String> subnetsToRemove;
-    private Set<String> subnetsToAdd;
+    public UpdateHandler() {
+        this(HandlerOptions.fromEnvironment());
+    }
+
+    public UpdateHandler(final HandlerOptions options) {
+        super(options);
+    }
 
     protected ProgressEvent<ResourceModel, CallbackContext> handleRequest(
             final AmazonWebServicesClientProxy proxy,
@@ -53,293 +56,381 @@ public class UpdateHandler extends BaseHandlerStd {
             final CallbackContext callbackContext,
             final ProxyClient<NetworkFirewallClient> proxyClient,
             final Logger logger) {
-
-        this.logger = logger;
-        this.proxy = proxy;
-        this.handlerRequest = request;
-        this.callbackContext = callbackContext;
-        this.proxyClient = proxyClient;
-        this.logger = logger;
-        this.desiredStateModel = request.getDesiredResourceState();
-        this.previousStateModel = request.getPreviousResourceState();
-        this.subnetsToAdd = computeSubnetsToAdd(
-                previousStateModel.getSubnetMappings(), desiredStateModel.getSubnetMappings());
-        this.subnetsToRemove = computeSubnetsToRemove(
-                previousStateModel.getSubnetMappings(), desiredStateModel.getSubnetMappings());
-
-        return ProgressEvent.progress(desiredStateModel, callbackContext)
-                .then(this::verifyResourceExists)
-                .then(this::updateFirewallDescription)
-                .then(this::updateDeleteProtection)
-                .then(this::updateFirewallPolicyChangeProtection)
-                .then(this::updateSubnetChangeProtection)
-                .then(this::associateFirewallPolicy)
-                .then(this::associateSubnets)
-                .then(this::disassociateSubnets)
-                .then(this::updateTags)
-                .then(progress -> new ReadHandler().handleRequest(proxy, request, callbackContext, proxyClient, logger));
+        return new Update(proxy, request, callbackContext, logger).run(proxyClient);
     }
 
-    private ProgressEvent<ResourceModel, CallbackContext> verifyResourceExists(
-            final ProgressEvent<ResourceModel, CallbackContext> progress) {
-        return proxy.initiate(
-                "Firewall::Update-ResourceExists", proxyClient, progress.getResourceModel(), callbackContext)
-                .translateToServiceRequest(Translator::translateToDescribeFirewallRequest)
-                .makeServiceCall((describeFirewallRequest, client) -> {
-                    try {
-                        client.injectCredentialsAndInvokeV2(describeFirewallRequest, client.client()::describeFirewall);
-                    } catch (final ResourceNotFoundException e) {
-                        throw new CfnNotFoundException(e);
-                    } catch (final Exception e) {
-                        throw new CfnGeneralServiceException(e.getMessage(), e);
-                    }
-                    // resource we are trying to update exists, return success
-                    return ProgressEvent.defaultSuccessHandler(null);
-                })
-                .progress();
-    }
-
-    private ProgressEvent<ResourceModel, CallbackContext> associateSubnets(
-            final ProgressEvent<ResourceModel, CallbackContext> progress) {
-        if (CollectionUtils.isEmpty(subnetsToAdd)) {
-            // previous state and desired state are same. Nothing to update, so just return.
-            return progress;
+    // what the steps of one update share; the wrapper keeps a single handler for the invocations it runs, so none of
+    // it is kept in the handler
+    private final class Update {
+        private final Logger logger;
+        private final AmazonWebServicesClientProxy proxy;
+        private final ResourceHandlerRequest<ResourceModel> handlerRequest;
+        private final CallbackContext callbackContext;
+        private final ResourceModel desiredStateModel;
+        private final ResourceModel previousStateModel;
+        private final StepTrace trace;
+        private ProxyClient<NetworkFirewallClient> proxyClient;
+        private Set<String> subnetsToRemove;
+        private Set<String> subnetsToAdd;
+
+        private Update(final AmazonWebServicesClientProxy proxy, final ResourceHandlerRequest<ResourceModel> request,
+                final CallbackContext callbackContext, final Logger logger) {
+            this.logger = logger;
+            this.proxy = proxy;
+            this.handlerRequest = request;
+            this.callbackContext = callbackContext;
+            this.desiredStateModel = request.getDesiredResourceState();
+            this.previousStateModel = request.getPreviousResourceState();
+            this.trace = trace("AWS-NetworkFirewall-Firewall::Update", request, logger)
+                    .attribute("firewallArn", desiredStateModel.getFirewallArn())
+                    .attribute("firewallName", desiredStateModel.getFirewallName());
         }
-        return proxy.initiate(
-                "Firewall::Update-AssociateSubnets", proxyClient, progress.getResourceModel(), callbackContext)
-                .translateToServiceRequest((model) -> Translator.translateToAssociateSubnets(model, subnetsToAdd))
-                .makeServiceCall((request, client) ->
-                        client.injectCredentialsAndInvokeV2(request, client.client()::associateSubnets))
-                .stabilize(this::stabilizeAssociateSubnets)
-                .progress();
-    }
 
-    private ProgressEvent<ResourceModel, CallbackContext> disassociateSubnets(
-            final ProgressEvent<ResourceModel, CallbackContext> progress) {
-        if (CollectionUtils.isEmpty(subnetsToRemove)) {
-            // previous state and desired state are same. Nothing to update, so just return success.
-            return progress;
+        private ProgressEvent<ResourceModel, CallbackContext> run(final ProxyClient<NetworkFirewallClient> proxyClient) {
+            this.proxyClient = trace.instrument(proxyClient);
+            this.subnetsToAdd = computeSubnetsToAdd(
+                    previousStateModel.getSubnetMappings(), desiredStateModel.getSubnetMappings());
+            this.subnetsToRemove = computeSubnetsToRemove(
+                    previousStateModel.getSubnetMappings(), desiredStateModel.getSubnetMappings());
+
+            try {
+                return trace.completed(ProgressEvent.progress(desiredStateModel, callbackContext)
+                        .then(step("ResourceExists", this::verifyResourceExists))
+                        .then(step("Description", this::updateFirewallDescription))
+                        .then(step("DeleteProtection", this::updateDeleteProtection))
+                        .then(step("FirewallPolicyChangeProtection", this::updateFirewallPolicyChangeProtection))
+                        .then(step("SubnetChangeProtection", this::updateSubnetChangeProtection))
+                        .then(step("AssociateFirewallPolicy", this::associateFirewallPolicy))
+                        .then(step("AssociateSubnets", this::associateSubnets))
+                        .then(step("DisassociateSubnets", this::disassociateSubnets))
+                        .then(step("Tags", this::updateTags))
+                        .then(step("Read", progress -> new ReadHandler().handleRequest(proxy, handlerRequest,
+                                callbackContext, this.proxyClient, logger))));
+            } finally {
+                trace.export();
+            }
         }
-        return proxy.initiate(
-                "Firewall::Update-DisassociateSubnets", proxyClient, progress.getResourceModel(), callbackContext)
-                .translateToServiceRequest((model) -> Translator.translateToDisassociateSubnets(model, subnetsToRemove))
-                .makeServiceCall((request, client) ->
-                        client.injectCredentialsAndInvokeV2(request, client.client()::disassociateSubnets))
-                .stabilize(this::stabilizeDisassociateSubnets)
-                .progress();
-    }
 
-    private ProgressEvent<ResourceModel, CallbackContext> updateFirewallDescription(
-            final ProgressEvent<ResourceModel, CallbackContext> progress) {
-        if (Objects.equals(previousStateModel.getDescription(), desiredStateModel.getDescription())) {
-            // previous state and desired state are same. Nothing to update, so just return success.
-            return progress;
+        // a traced step that is left to the next invocation when it can no longer start before the deadline
+        private Function<ProgressEvent<ResourceModel, CallbackContext>, ProgressEvent<ResourceModel, CallbackContext>> step(
+                final String name,
+                final Function<ProgressEvent<ResourceModel, CallbackContext>, ProgressEvent<ResourceModel, CallbackContext>> step) {
+            return trace.step(name, callbackContext.getDeadline().checkpoint(step));
         }
-        return proxy.initiate(
-                "Firewall::Update-Description", proxyClient, progress.getResourceModel(), callbackContext)
-                .translateToServiceRequest(Translator::translateToUpdateFirewallDescription)
-                .makeServiceCall((request, client) ->
-                        client.injectCredentialsAndInvokeV2(request, client.client()::updateFirewallDescription))
-                .progress();
-    }
 
-    private ProgressEvent<ResourceModel, CallbackContext> updateDeleteProtection(
-            final ProgressEvent<ResourceModel, CallbackContext> progress) {
-        if (Objects.equals(previousStateModel.getDeleteProtection(), desiredStateModel.getDeleteProtection())) {
-            // previous state and desired state are same. Nothing to update, so just return success.
-            return progress;
+        private ProgressEvent<ResourceModel, CallbackContext> verifyResourceExists(
+                final ProgressEvent<ResourceModel, CallbackContext> progress) {
+            final ProgressEvent<ResourceModel, CallbackContext> described = proxy.initiate(
+                    "Firewall::Update-ResourceExists", proxyClient, progress.getResourceModel(), callbackContext)
+                    .translateToServiceRequest(Translator::translateToDescribeFirewallRequest)
+                    .makeServiceCall((describeFirewallRequest, client) -> {
+                        try {
+                            final DescribeFirewallResponse response =
+                                    client.injectCredentialsAndInvokeV2(describeFirewallRequest, client.client()::describeFirewall);
+                            // the firewall as it is now, so that changes an earlier attempt already made are not made again
+                            recordLiveFirewall(response.firewall());
+                        } catch (final ResourceNotFoundException e) {
+                            throw new CfnNotFoundException(e);
+                        } catch (final Exception e) {
+                            throw new CfnGeneralServiceException(e.getMessage(), e);
+                        }
+                        // resource we are trying to update exists, return success
+                        return ProgressEvent.defaultSuccessHandler(null);
+                    })
+                    .progress();
+            // on a callback the Describe is replayed from the call graph, the firewall it found is in the context
+            reconcileSubnetsWithLiveFirewall();
+            return described;
         }
-        return proxy.initiate(
-                "Firewall::Update-DeleteProtection", proxyClient, progress.getResourceModel(), callbackContext)
-                .translateToServiceRequest(Translator::translateToUpdateFirewallDeleteProtection)
-                .makeServiceCall((request, client) ->
-                        client.injectCredentialsAndInvokeV2(request, client.client()::updateFirewallDeleteProtection))
-                .progress();
-    }
 
-    private ProgressEvent<ResourceModel, CallbackContext> updateSubnetChangeProtection(
-            final ProgressEvent<ResourceModel, CallbackContext> progress) {
-        if (Objects.equals(previousStateModel.getSubnetChangeProtection(), desiredStateModel.getSubnetChangeProtection())) {
-            // previous state and desired state are same. Nothing to update, so just return success.
-            return progress;
+        private void recordLiveFirewall(final Firewall firewall) {
+            if (firewall == null) {
+                return;
+            }
+            callbackContext.setLiveDescription(firewall.description());
+            callbackContext.setLiveDeleteProtection(firewall.deleteProtection());
+            callbackContext.setLiveSubnetChangeProtection(firewall.subnetChangeProtection());
+            callbackContext.setLiveFirewallPolicyChangeProtection(firewall.firewallPolicyChangeProtection());
+            callbackContext.setLiveFirewallPolicyArn(firewall.firewallPolicyArn());
+            callbackContext.setLiveSubnetIds(firewall.hasSubnetMappings() ? firewall.subnetMappings().stream()
+                    .map(software.amazon.awssdk.services.networkfirewall.model.SubnetMapping::subnetId)
+                    .collect(Collectors.toCollection(TreeSet::new)) : null);
+            callbackContext.setLiveTags(TagReconciler.liveTags(firewall.tags()));
         }
-        return proxy.initiate(
-                "Firewall::Update-SubnetChangeProtection", proxyClient, progress.getResourceModel(), callbackContext)
-                .translateToServiceRequest(Translator::translateToUpdateSubnetChangeProtection)
-                .makeServiceCall((request, client) ->
-                        client.injectCredentialsAndInvokeV2(request, client.client()::updateSubnetChangeProtection))
-                .progress();
-    }
 
-    private ProgressEvent<ResourceModel, CallbackContext> updateFirewallPolicyChangeProtection(
-            final ProgressEvent<ResourceModel, CallbackContext> progress) {
-        if (Objects.equals(previousStateModel.getFirewallPolicyChangeProtection(), desiredStateModel.getFirewallPolicyChangeProtection())) {
-            // previous state and desired state are same. Nothing to update, so just return success.
-            return progress;
+        private ProgressEvent<ResourceModel, CallbackContext> associateSubnets(
+                final ProgressEvent<ResourceModel, CallbackContext> progress) {
+            if (CollectionUtils.isEmpty(subnetsToAdd)) {
+                // previous state and desired state are same. Nothing to update, so just return.
+                return progress;
+            }
+            return proxy.initiate(
+                    "Firewall::Update-AssociateSubnets", proxyClient, progress.getResourceModel(), callbackContext)
+                    .translateToServiceRequest((model) -> Translator.translateToAssociateSubnets(model, subnetsToAdd))
+                    .makeServiceCall((request, client) ->
+                            client.injectCredentialsAndInvokeV2(request, client.client()::associateSubnets))
+                    .stabilize(trace.polled(FlightRecorderEvents.polled(this::stabilizeAssociateSubnets)))
+                    .progress();
         }
-        return proxy.initiate(
-                "Firewall::Update-FirewallPolicyChangeProtection", proxyClient, progress.getResourceModel(), callbackContext)
-                .translateToServiceRequest(Translator::translateToUpdateFirewallPolicyChangeProtection)
-                .makeServiceCall((request, client) ->
-                        client.injectCredentialsAndInvokeV2(request, client.client()::updateFirewallPolicyChangeProtection))
-                .progress();
-    }
 
-    private ProgressEvent<ResourceModel, CallbackContext> associateFirewallPolicy(
-            final ProgressEvent<ResourceModel, CallbackContext> progress) {
-        if (Objects.equals(previousStateModel.getFirewallPolicyArn(), desiredStateModel.getFirewallPolicyArn())) {
-            // previous state and desired state are same. Nothing to update, so just return success.
-            return progress;
+        private ProgressEvent<ResourceModel, CallbackContext> disassociateSubnets(
+                final ProgressEvent<ResourceModel, CallbackContext> progress) {
+            if (CollectionUtils.isEmpty(subnetsToRemove)) {
+                // previous state and desired state are same. Nothing to update, so just return success.
+                return progress;
+            }
+            return proxy.initiate(
+                    "Firewall::Update-DisassociateSubnets", proxyClient, progress.getResourceModel(), callbackContext)
+                    .translateToServiceRequest((model) -> Translator.translateToDisassociateSubnets(model, subnetsToRemove))
+                    .makeServiceCall((request, client) ->
+                            client.injectCredentialsAndInvokeV2(request, client.client()::disassociateSubnets))
+                    .stabilize(trace.polled(FlightRecorderEvents.polled(this::stabilizeDisassociateSubnets)))
+                    .progress();
         }
-        return proxy.initiate(
-                "Firewall::Update-AssociateFirewallPolicy", proxyClient, progress.getResourceModel(), callbackContext)
-                .translateToServiceRequest(Translator::translateToAssociateFirewallPolicy)
-                .makeServiceCall((request, client) ->
-                        client.injectCredentialsAndInvokeV2(request, client.client()::associateFirewallPolicy))
-                .stabilize(this::stabilizeFirewallPolicyUpdate)
-                .progress();
-    }
 
-    private boolean stabilizeFirewallPolicyUpdate(final AssociateFirewallPolicyRequest awsRequest,
-            final AssociateFirewallPolicyResponse awsResponse, final ProxyClient<NetworkFirewallClient> client,
-            final ResourceModel model, final CallbackContext callbackContext) {
-        try {
-            final DescribeFirewallResponse response = client.injectCredentialsAndInvokeV2(
-                    Translator.translateToDescribeFirewallRequest(model),
-                    client.client()::describeFirewall);
-
-            // this can never be empty for active Firewall, but just in case of a bug, we should not mark the update
-            // as success.
-            if (response.firewallStatus().syncStates().isEmpty()) {
-                return false;
-            }
-            // Its not enough just for the firewallStatus to be in `READY` and the ConfigurationSyncStateSummary to be
-            // in `IN_SYNC` because firewall-policy association request is asynchronous. So, there is a
-            // chance that when we call describe right after associateFirewallPolicy API, the work might not have
-            // been started. So, the firewall status will be 'READY' and 'IN_SYNC' from the previous policy or
-            // rule group updates. So, to confirm if the desired firewallPolicy got associated, we have to verify
-            // the Config SyncStatus of this particular firewall policy ARN we are trying to associate here.
-
-            // since same policy is associated to all subnets in a firewall, loop through all AZs under SyncStates key.
-            for (final Map.Entry<String, SyncState> azSyncState : response.firewallStatus().syncStates().entrySet()) {
-                final SyncState syncState = azSyncState.getValue();
-                // check if the desired firewallPolicy ARN is part of the syncStates config Map.
-                if (syncState.config().containsKey(desiredStateModel.getFirewallPolicyArn())) {
-                    switch (syncState.config().get(desiredStateModel.getFirewallPolicyArn()).syncStatus()) {
-                        case PENDING:
-                            return false;
-                        case IN_SYNC:
-                            // continue to check the status in remaining AZs
-                            continue;
-                        default:
-                            logger.log(String.format("Invalid/Unsupported syncState found while associating firewall"
-                                    + "Policy:  %s", desiredStateModel.getFirewallPolicyArn()));
-                            throw new CfnServiceInternalErrorException("FirewallPolicy failed to associate.");
-                    }
-                } else {
-                    // desired firewallPolicy ARN is not yet added to SyncState, so still not stabilized
-                    return false;
-                }
+        private ProgressEvent<ResourceModel, CallbackContext> updateFirewallDescription(
+                final ProgressEvent<ResourceModel, CallbackContext> progress) {
+            if (!changeRequested("Description", previousStateModel.getDescription(), desiredStateModel.getDescription(),
+                    callbackContext.getLiveDescription())) {
+                // previous state and desired state are same. Nothing to update, so just return success.
+                return progress;
             }
-
-            // after confirming that firewallPolicy is associated to all subnets, check the firewallStatus and
-            // configurationSyncStateSummary because this policy might have brought in new ruleGroups which also should
-            // be in sync and that can be verified though the consolidated configurationSyncStateSummary.
-            return response.firewallStatus().status() == FirewallStatusValue.READY &&
-                    response.firewallStatus().configurationSyncStateSummary() == ConfigurationSyncState.IN_SYNC;
-        } catch (final Exception e) {
-            throw new CfnGeneralServiceException("FirewallPolicy failed to associate.");
+            return proxy.initiate(
+                    "Firewall::Update-Description", proxyClient, progress.getResourceModel(), callbackContext)
+                    .translateToServiceRequest(Translator::translateToUpdateFirewallDescription)
+                    .makeServiceCall((request, client) ->
+                            client.injectCredentialsAndInvokeV2(request, client.client()::updateFirewallDescription))
+                    .progress();
         }
-    }
 
-    // tags on resource request overrides tags attached to the CloudFormation stack this resource belongs to
-    private ProgressEvent<ResourceModel, CallbackContext> updateTags(ProgressEvent<ResourceModel, CallbackContext> progress) {
-        final TagUtils tagUtils = new TagUtils(previousStateModel.getTags(), desiredStateModel.getTags(),
-                handlerRequest.getPreviousResourceTags(), handlerRequest.getDesiredResourceTags());
-
-        // Untag resource: get tags to remove from firewall resource
-        if (tagUtils.tagsToRemove().size() > 0) {
-            progress = proxy.initiate("Firewall::Update-UntagResource", proxyClient, progress.getResourceModel(), callbackContext)
-                    .translateToServiceRequest(model ->
-                            Translator.translateToUntagRequest(model, tagUtils.tagsToRemove().keySet()))
+        private ProgressEvent<ResourceModel, CallbackContext> updateDeleteProtection(
+                final ProgressEvent<ResourceModel, CallbackContext> progress) {
+            if (!changeRequested("DeleteProtection", previousStateModel.getDeleteProtection(),
+                    desiredStateModel.getDeleteProtection(), callbackContext.getLiveDeleteProtection())) {
+                // previous state and desired state are same. Nothing to update, so just return success.
+                return progress;
+            }
+            return proxy.initiate(
+                    "Firewall::Update-DeleteProtection", proxyClient, progress.getResourceModel(), callbackContext)
+                    .translateToServiceRequest(Translator::translateToUpdateFirewallDeleteProtection)
                     .makeServiceCall((request, client) ->
-                            client.injectCredentialsAndInvokeV2(request, client.client()::untagResource))
+                            client.injectCredentialsAndInvokeV2(request, client.client()::updateFirewallDeleteProtection))
                     .progress();
+        }
 
-            if (progress.isFailed()) {
+        private ProgressEvent<ResourceModel, CallbackContext> updateSubnetChangeProtection(
+                final ProgressEvent<ResourceModel, CallbackContext> progress) {
+            if (!changeRequested("SubnetChangeProtection", previousStateModel.getSubnetChangeProtection(),
+                    desiredStateModel.getSubnetChangeProtection(),
+                    callbackContext.getLiveSubnetChangeProtection())) {
+                // previous state and desired state are same. Nothing to update, so just return success.
                 return progress;
             }
+            return proxy.initiate(
+                    "Firewall::Update-SubnetChangeProtection", proxyClient, progress.getResourceModel(), callbackContext)
+                    .translateToServiceRequest(Translator::translateToUpdateSubnetChangeProtection)
+                    .makeServiceCall((request, client) ->
+                            client.injectCredentialsAndInvokeV2(request, client.client()::updateSubnetChangeProtection))
+                    .progress();
         }
 
-        // Tag resource: add tags that are added newly and update tags for which the value has been updated
-        if (tagUtils.tagsToAddOrUpdate().size() > 0) {
-            progress = proxy.initiate("Firewall::Update-TagResource", proxyClient, progress.getResourceModel(), callbackContext)
-                    .translateToServiceRequest(model ->
-                            Translator.translateToTagRequest(model, tagUtils.tagsToAddOrUpdate()))
+        private ProgressEvent<ResourceModel, CallbackContext> updateFirewallPolicyChangeProtection(
+                final ProgressEvent<ResourceModel, CallbackContext> progress) {
+            if (!changeRequested("FirewallPolicyChangeProtection", previousStateModel.getFirewallPolicyChangeProtection(),
+                    desiredStateModel.getFirewallPolicyChangeProtection(),
+                    callbackContext.getLiveFirewallPolicyChangeProtection())) {
+                // previous state and desired state are same. Nothing to update, so just return success.
+                return progress;
+            }
+            return proxy.initiate(
+                    "Firewall::Update-FirewallPolicyChangeProtection", proxyClient, progress.getResourceModel(), callbackContext)
+                    .translateToServiceRequest(Translator::translateToUpdateFirewallPolicyChangeProtection)
                     .makeServiceCall((request, client) ->
-                            client.injectCredentialsAndInvokeV2(request, client.client()::tagResource))
+                            client.injectCredentialsAndInvokeV2(request, client.client()::updateFirewallPolicyChangeProtection))
                     .progress();
         }
 
-        return progress;
-    }
+        private ProgressEvent<ResourceModel, CallbackContext> associateFirewallPolicy(
+                final ProgressEvent<ResourceModel, CallbackContext> progress) {
+            if (!changeRequested("FirewallPolicyArn", previousStateModel.getFirewallPolicyArn(),
+                    desiredStateModel.getFirewallPolicyArn(), callbackContext.getLiveFirewallPolicyArn())) {
+                // previous state and desired state are same. Nothing to update, so just return success.
+                return progress;
+            }
+            return proxy.initiate(
+                    "Firewall::Update-AssociateFirewallPolicy", proxyClient, progress.getResourceModel(), callbackContext)
+                    .translateToServiceRequest(Translator::translateToAssociateFirewallPolicy)
+                    .makeServiceCall((request, client) ->
+                            client.injectCredentialsAndInvokeV2(request, client.client()::associateFirewallPolicy))
+                    .stabilize(trace.polled(FlightRecorderEvents.polled(this::stabilizeFirewallPolicyUpdate)))
+                    .progress();
+        }
 
-    private enum SubnetOperation {
-        ASSOCIATE,
-        DISASSOCIATE
-    }
+        // a change the update asks for, unless the live firewall shows that an earlier attempt already made it; a
+        // property the service did not report is changed as asked
+        private boolean changeRequested(final String property, final Object previous, final Object desired, final Object live) {
+            if (Objects.equals(previous, desired)) {
+                return false;
+            }
+            if (live != null && Objects.equals(live, desired)) {
+                logger.log(String.format("%s of %s is already %s, skipping its update.", property, ResourceModel.TYPE_NAME, desired));
+                return false;
+            }
+            return true;
+        }
 
-    private boolean stabilizeSubnets(final ProxyClient<NetworkFirewallClient> client,
-            final ResourceModel model, final CallbackContext callbackContext, final SubnetOperation operation) {
-        try {
-            final DescribeFirewallResponse response = client.injectCredentialsAndInvokeV2(
-                    Translator.translateToDescribeFirewallRequest(model),
-                    client.client()::describeFirewall);
-
-            // get all subnets from SyncStates of current firewall
-            Set<String> actualSubnets = new HashSet<>();
-            for (final Map.Entry<String, SyncState> e : response.firewallStatus().syncStates().entrySet()) {
-                final Attachment attachment = e.getValue().attachment();
-                if (attachment.subnetId() != null) {
-                    actualSubnets.add(attachment.subnetId());
-                }
+        // subnets the live firewall already has are not associated again, and those it no longer has are not
+        // disassociated again, along with the stabilization waits for them
+        private void reconcileSubnetsWithLiveFirewall() {
+            final Set<String> liveSubnets = callbackContext.getLiveSubnetIds();
+            if (liveSubnets == null) {
+                return;
+            }
+            final Set<String> associated = Sets.intersection(subnetsToAdd, liveSubnets);
+            final Set<String> disassociated = Sets.difference(subnetsToRemove, liveSubnets);
+            if (!associated.isEmpty() || !disassociated.isEmpty()) {
+                logger.log(String.format("%s already has subnets %s and no longer has subnets %s, skipping them.",
+                        ResourceModel.TYPE_NAME, new TreeSet<>(associated), new TreeSet<>(disassociated)));
             }
+            subnetsToAdd = new HashSet<>(Sets.difference(subnetsToAdd, liveSubnets));
+            subnetsToRemove = new HashSet<>(Sets.intersection(subnetsToRemove, liveSubnets));
+        }
 
-            switch (operation) {
-                case ASSOCIATE:
-                    if (!Sets.intersection(actualSubnets, subnetsToAdd).equals(subnetsToAdd)) {
-                        // some subnet we want added is still not associated, so return false.
+        private boolean stabilizeFirewallPolicyUpdate(final AssociateFirewallPolicyRequest awsRequest,
+                final AssociateFirewallPolicyResponse awsResponse, final ProxyClient<NetworkFirewallClient> client,
+                final ResourceModel model, final CallbackContext callbackContext) {
+            try {
+                final DescribeFirewallResponse response = client.injectCredentialsAndInvokeV2(
+                        Translator.translateToDescribeFirewallRequest(model),
+                        client.client()::describeFirewall);
+
+                // this can never be empty for active Firewall, but just in case of a bug, we should not mark the update
+                // as success.
+                if (response.firewallStatus().syncStates().isEmpty()) {
+                    return false;
+                }
+                // Its not enough just for the firewallStatus to be in `READY` and the ConfigurationSyncStateSummary to be
+                // in `IN_SYNC` because firewall-policy association request is asynchronous. So, there is a
+                // chance that when we call describe right after associateFirewallPolicy API, the work might not have
+                // been started. So, the firewall status will be 'READY' and 'IN_SYNC' from the previous policy or
+                // rule group updates. So, to confirm if the desired firewallPolicy got associated, we have to verify
+                // the Config SyncStatus of this particular firewall policy ARN we are trying to associate here.
+
+                // since same policy is associated to all subnets in a firewall, loop through all AZs under SyncStates key.
+                for (final Map.Entry<String, SyncState> azSyncState : response.firewallStatus().syncStates().entrySet()) {
+                    final SyncState syncState = azSyncState.getValue();
+                    // check if the desired firewallPolicy ARN is part of the syncStates config Map.
+                    if (syncState.config().containsKey(desiredStateModel.getFirewallPolicyArn())) {
+                        switch (syncState.config().get(desiredStateModel.getFirewallPolicyArn()).syncStatus()) {
+                            case PENDING:
+                                return false;
+                            case IN_SYNC:
+                                // continue to check the status in remaining AZs
+                                continue;
+                            default:
+                                logger.log(String.format("Invalid/Unsupported syncState found while associating firewall"
+                                        + "Policy:  %s", desiredStateModel.getFirewallPolicyArn()));
+                                throw new CfnServiceInternalErrorException("FirewallPolicy failed to associate.");
+                        }
+                    } else {
+                        // desired firewallPolicy ARN is not yet added to SyncState, so still not stabilized
                         return false;
                     }
-                    break;
-                case DISASSOCIATE:
-                    if (!Sets.intersection(actualSubnets, subnetsToRemove).isEmpty()) {
-                        // some subnet we want removed is still associated, so return false.
-                        return false;
+                }
+
+                // after confirming that firewallPolicy is associated to all subnets, check the firewallStatus and
+                // configurationSyncStateSummary because this policy might have brought in new ruleGroups which also should
+                // be in sync and that can be verified though the consolidated configurationSyncStateSummary.
+                return response.firewallStatus().status() == FirewallStatusValue.READY &&
+                        response.firewallStatus().configurationSyncStateSummary() == ConfigurationSyncState.IN_SYNC;
+            } catch (final Exception e) {
+                if (callbackContext.getRetries().absorbs(e)) {
+                    return false;
+                }
+                throw new CfnGeneralServiceException("FirewallPolicy failed to associate.");
+            }
+        }
+
+        // tags on resource request overrides tags attached to the CloudFormation stack this resource belongs to
+        private ProgressEvent<ResourceModel, CallbackContext> updateTags(final ProgressEvent<ResourceModel, CallbackContext> progress) {
+            final TagReconciler tags = new TagReconciler(new TagUtils(previousStateModel.getTags(), desiredStateModel.getTags(),
+                    handlerRequest.getPreviousResourceTags(), handlerRequest.getDesiredResourceTags()), callbackContext.getLiveTags());
+
+            return tags.reconcile(progress,
+                    // Untag resource: remove the tags the stack no longer applies
+                    current -> proxy.initiate("Firewall::Update-UntagResource", proxyClient, current.getResourceModel(), callbackContext)
+                            .translateToServiceRequest(model -> Translator.translateToUntagRequest(model, tags.tagsToRemove()))
+                            .makeServiceCall((request, client) ->
+                                    client.injectCredentialsAndInvokeV2(request, client.client()::untagResource))
+                            .progress(),
+                    // Tag resource: add tags that are missing and update tags for which the value differs
+                    current -> proxy.initiate("Firewall::Update-TagResource", proxyClient, current.getResourceModel(), callbackContext)
+                            .translateToServiceRequest(model -> Translator.translateToTagRequest(model, tags.tagsToAddOrUpdate()))
+                            .makeServiceCall((request, client) ->
+                                    client.injectCredentialsAndInvokeV2(request, client.client()::tagResource))
+                            .progress());
+        }
+
+        private boolean stabilizeSubnets(final ProxyClient<NetworkFirewallClient> client,
+                final ResourceModel model, final CallbackContext callbackContext, final SubnetOperation operation) {
+            try {
+                final DescribeFirewallResponse response = client.injectCredentialsAndInvokeV2(
+                        Translator.translateToDescribeFirewallRequest(model),
+                        client.client()::describeFirewall);
+
+                // get all subnets from SyncStates of current firewall
+                Set<String> actualSubnets = new HashSet<>();
+                for (final Map.Entry<String, SyncState> e : response.firewallStatus().syncStates().entrySet()) {
+                    final Attachment attachment = e.getValue().attachment();
+                    if (attachment.subnetId() != null) {
+                        actualSubnets.add(attachment.subnetId());
                     }
-                    break;
+                }
+
+                switch (operation) {
+                    case ASSOCIATE:
+                        if (!Sets.intersection(actualSubnets, subnetsToAdd).equals(subnetsToAdd)) {
+                            // some subnet we want added is still not associated, so return false.
+                            return false;
+                        }
+                        break;
+                    case DISASSOCIATE:
+                        if (!Sets.intersection(actualSubnets, subnetsToRemove).isEmpty()) {
+                            // some subnet we want removed is still associated, so return false.
+                            return false;
+                        }
+                        break;
+                }
+
+                // after confirming (Associate: subnets started CREATING/SCALING)|(Disassociate: subnets are disassociated),
+                // check the firewallStatus and configurationSyncStateSummary because it shows a consolidated output
+                // of all configs and attachments.
+                return response.firewallStatus().status() == FirewallStatusValue.READY &&
+                        response.firewallStatus().configurationSyncStateSummary() == ConfigurationSyncState.IN_SYNC;
+            } catch (final Exception e) {
+                if (callbackContext.getRetries().absorbs(e)) {
+                    return false;
+                }
+                throw new CfnGeneralServiceException("Subnets failed to associate");
             }
+        }
 
-            // after confirming (Associate: subnets started CREATING/SCALING)|(Disassociate: subnets are disassociated),
-            // check the firewallStatus and configurationSyncStateSummary because it shows a consolidated output
-            // of all configs and attachments.
-            return response.firewallStatus().status() == FirewallStatusValue.READY &&
-                    response.firewallStatus().configurationSyncStateSummary() == ConfigurationSyncState.IN_SYNC;
-        } catch (final Exception e) {
-            throw new CfnGeneralServiceException("Subnets failed to associate");
+        private boolean stabilizeAssociateSubnets(final AssociateSubnetsRequest awsRequest,
+                final AssociateSubnetsResponse awsResponse, final ProxyClient<NetworkFirewallClient> client,
+                final ResourceModel model, final CallbackContext callbackContext) {
+            return stabilizeSubnets(client, model, callbackContext, SubnetOperation.ASSOCIATE);
         }
-    }
 
-    private boolean stabilizeAssociateSubnets(final AssociateSubnetsRequest awsRequest,
-            final AssociateSubnetsResponse awsResponse, final ProxyClient<NetworkFirewallClient> client,
-            final ResourceModel model, final CallbackContext callbackContext) {
-        return stabilizeSubnets(client, model, callbackContext, SubnetOperation.ASSOCIATE);
+        private boolean stabilizeDisassociateSubnets(final DisassociateSubnetsRequest awsRequest,
+                final DisassociateSubnetsResponse awsResponse, final ProxyClient<NetworkFirewallClient> client,
+                final ResourceModel model, final CallbackContext callbackContext) {
+            return stabilizeSubnets(client, model, callbackContext, SubnetOperation.DISASSOCIATE);
+        }
     }
 
-    private boolean stabilizeDisassociateSubnets(final DisassociateSubnetsRequest awsRequest,
-            final DisassociateSubnetsResponse awsResponse, final ProxyClient<NetworkFirewallClient> client,
-            final ResourceModel model, final CallbackContext callbackContext) {
-        return stabilizeSubnets(client, model, callbackContext, SubnetOperation.DISASSOCIATE);
+    private enum SubnetOperation {
+        ASSOCIATE,
+        DISASSOCIATE
     }
 
     Set<String> computeSubnetsToAdd(@NonNull final Set<SubnetMapping> previousSubnets,
@@ -0,0 +1,20 @@
+package software.amazon.networkfirewall.firewall;
+
+import software.amazon.awssdk.services.networkfirewall.model.DeleteFirewallResponse;
+import software.amazon.awssdk.services.networkfirewall.model.DescribeFirewallResponse;
+import software.amazon.awssdk.services.networkfirewall.model.FirewallStatus;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BaseHandlerStdTest {
+
+    @Test
+    public void testObservedStatus() {
+        assertThat(BaseHandlerStd.observedStatus(DescribeFirewallResponse.builder().build())).isNull();
+        assertThat(BaseHandlerStd.observedStatus(DeleteFirewallResponse.builder().build())).isNull();
+        assertThat(BaseHandlerStd.observedStatus(DescribeFirewallResponse.builder()
+                .firewallStatus(FirewallStatus.builder().status("PROVISIONING").configurationSyncStateSummary("PENDING").build())
+                .build())).isEqualTo("PROVISIONING/PENDING");
+    }
+}
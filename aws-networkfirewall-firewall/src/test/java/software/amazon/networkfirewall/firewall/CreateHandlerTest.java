@@ -155,6 +155,35 @@ public class CreateHandlerTest extends AbstractTestBase {
         assertThat(model.getTags()).isNullOrEmpty();
     }
 
+    @Test
+    public void handleRequest_AdaptivePollingWaitsInCallback() {
+        // too little time left in the invocation to wait for the next poll in it
+        proxy = new AmazonWebServicesClientProxy(logger, MOCK_CREDENTIALS, () -> Duration.ofSeconds(1).toMillis());
+        proxyClient = MOCK_PROXY(proxy, client);
+        handler = new CreateHandler(HandlerOptions.builder().adaptivePolling(true).build());
+        when(proxyClient.client().describeFirewall(any(DescribeFirewallRequest.class)))
+                .thenReturn(commonDescribeResponse(FirewallStatusValue.PROVISIONING.toString()))
+                .thenReturn(commonDescribeResponse(FirewallStatusValue.READY.toString())) // creation successful
+                .thenReturn(commonDescribeResponse()); // last step of create
+        when(proxyClient.client().createFirewall(any(CreateFirewallRequest.class))).thenReturn(
+                CreateFirewallResponse.builder().firewall(Firewall.builder().firewallArn("validarn").build()).build());
+
+        final ProgressEvent<ResourceModel, CallbackContext> inProgress =
+                handler.handleRequest(proxy, request, new CallbackContext(), proxyClient, logger);
+
+        // a firewall of two zones is not expected for minutes, the next poll is a minute away
+        assertThat(inProgress.getStatus()).isEqualTo(OperationStatus.IN_PROGRESS);
+        assertThat(inProgress.getCallbackDelaySeconds()).isEqualTo(60);
+        assertThat(inProgress.getCallbackContext().getPollingStartedAt()).isNotNull();
+
+        final ProgressEvent<ResourceModel, CallbackContext> handlerResponse =
+                handler.handleRequest(proxy, request, inProgress.getCallbackContext(), proxyClient, logger);
+
+        assertThat(handlerResponse.getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        verify(proxyClient.client()).createFirewall(any(CreateFirewallRequest.class));
+        verify(proxyClient.client(), times(3)).describeFirewall(any(DescribeFirewallRequest.class));
+    }
+
     @Test
     public void handleRequest_SimpleSuccess_WithFirewallRequestTags() {
         // setup mock requests and responses
@@ -18,6 +18,8 @@ import software.amazon.cloudformation.proxy.OperationStatus;
 import software.amazon.cloudformation.proxy.ProgressEvent;
 import software.amazon.cloudformation.proxy.ProxyClient;
 import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+import software.amazon.networkfirewall.common.Deadline;
+import software.amazon.networkfirewall.common.RetryPolicy;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -143,6 +145,22 @@ public class DeleteHandlerTest extends AbstractTestBase {
                 () -> {handler.handleRequest(proxy, request, new CallbackContext(), proxyClient, logger);});
     }
 
+    @Test
+    public void handleRequest_PollsAgainAfterTransientError() {
+        when(proxyClient.client().describeFirewall(any(DescribeFirewallRequest.class)))
+                .thenThrow(InternalServerErrorException.builder().statusCode(500).build())
+                .thenThrow(ResourceNotFoundException.class);
+        final CallbackContext callbackContext = new CallbackContext();
+        callbackContext.setRetries(RetryPolicy.of(1, 100L, 1000L, Deadline.unbounded(), logger));
+
+        final ProgressEvent<ResourceModel, CallbackContext> handlerResponse =
+                handler.handleRequest(proxy, request, callbackContext, proxyClient, logger);
+
+        assertThat(handlerResponse.getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        verify(proxyClient.client(), times(2)).describeFirewall(any(DescribeFirewallRequest.class));
+        verify(proxyClient.client(), times(2)).deleteFirewall(any(DeleteFirewallRequest.class));
+    }
+
     @Test
     public void deleteInternalServiceError() {
         when(proxyClient.client().deleteFirewall(any(DeleteFirewallRequest.class)))
@@ -1,19 +1,35 @@
 package software.amazon.networkfirewall.firewall;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import org.junit.jupiter.api.AfterEach;
+import software.amazon.awssdk.services.networkfirewall.NetworkFirewallAsyncClient;
 import software.amazon.awssdk.services.networkfirewall.NetworkFirewallClient;
+import software.amazon.awssdk.services.networkfirewall.model.Attachment;
 import software.amazon.awssdk.services.networkfirewall.model.CreateFirewallRequest;
+import software.amazon.awssdk.services.networkfirewall.model.DescribeFirewallRequest;
+import software.amazon.awssdk.services.networkfirewall.model.DescribeFirewallResponse;
+import software.amazon.awssdk.services.networkfirewall.model.Firewall;
 import software.amazon.awssdk.services.networkfirewall.model.FirewallMetadata;
 import software.amazon.awssdk.services.networkfirewall.model.ListFirewallsRequest;
+import software.amazon.awssdk.services.networkfirewall.model.FirewallStatusValue;
+import software.amazon.awssdk.services.networkfirewall.model.InvalidRequestException;
 import software.amazon.awssdk.services.networkfirewall.model.ListFirewallsResponse;
+import software.amazon.awssdk.services.networkfirewall.model.ResourceNotFoundException;
+import software.amazon.awssdk.services.networkfirewall.model.SyncState;
+import software.amazon.awssdk.services.networkfirewall.model.ThrottlingException;
+import software.amazon.cloudformation.exceptions.CfnInvalidRequestException;
+import software.amazon.cloudformation.exceptions.CfnThrottlingException;
 import software.amazon.cloudformation.proxy.AmazonWebServicesClientProxy;
 import software.amazon.cloudformation.proxy.Logger;
 import software.amazon.cloudformation.proxy.OperationStatus;
 import software.amazon.cloudformation.proxy.ProgressEvent;
 import software.amazon.cloudformation.proxy.ProxyClient;
 import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+import software.amazon.networkfirewall.common.Deadline;
+import software.amazon.networkfirewall.common.InvocationOptions;
+import software.amazon.networkfirewall.common.RetryPolicy;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -21,12 +37,20 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
@@ -85,4 +109,214 @@ public class ListHandlerTest extends AbstractTestBase {
 
         verify(proxyClient.client()).listFirewalls(any(ListFirewallsRequest.class));
     }
+
+    @Test
+    public void handleRequest_EnrichedWithDescribeFirewall() {
+        final ListFirewallsResponse firewalls = ListFirewallsResponse.builder()
+                .firewalls(metadata("arn1"), metadata("arn2"), metadata("arn3"), metadata("arn4"))
+                .build();
+        when(proxyClient.client().listFirewalls(any(ListFirewallsRequest.class))).thenReturn(firewalls);
+        when(proxyClient.client().describeFirewall(any(DescribeFirewallRequest.class))).thenAnswer(invocation -> {
+            final String arn = ((DescribeFirewallRequest) invocation.getArgument(0)).firewallArn();
+            switch (arn) {
+                case "arn1":
+                    return describeResponse(arn, FirewallStatusValue.READY,
+                            ImmutableMap.of("us-east-1a", syncState("vpce-1a"), "us-east-1b", syncState("vpce-1b")));
+                case "arn2":
+                    throw ResourceNotFoundException.builder().message("deleted since listing").build();
+                case "arn3":
+                    return describeResponse(arn, FirewallStatusValue.DELETING, ImmutableMap.of());
+                default:
+                    return describeResponse(arn, FirewallStatusValue.PROVISIONING,
+                            ImmutableMap.of("us-east-1a", SyncState.builder().build()));
+            }
+        });
+
+        final ProgressEvent<ResourceModel, CallbackContext> response = new ListHandler(enrichmentOptions())
+                .handleRequest(proxy, request, new CallbackContext(), proxyClient, logger);
+
+        assertThat(response.getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        assertThat(response.getResourceModels().stream().map(ResourceModel::getFirewallArn).collect(Collectors.toList()))
+                .containsExactly("arn1", "arn4");
+        final ResourceModel enriched = response.getResourceModels().get(0);
+        assertThat(enriched.getFirewallName()).isEqualTo("name-arn1");
+        assertThat(enriched.getFirewallPolicyArn()).isEqualTo("policyarn");
+        assertThat(enriched.getEndpointIds()).containsExactlyInAnyOrder("us-east-1a:vpce-1a", "us-east-1b:vpce-1b");
+        assertThat(response.getResourceModels().get(1).getEndpointIds()).isEmpty();
+
+        verify(proxyClient.client()).listFirewalls(any(ListFirewallsRequest.class));
+        verify(proxyClient.client(), times(4)).describeFirewall(any(DescribeFirewallRequest.class));
+    }
+
+    @Test
+    public void handleRequest_EnrichedFromVirtualThreads() {
+        final List<FirewallMetadata> listed = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            listed.add(metadata("arn" + i));
+        }
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger maxInFlight = new AtomicInteger();
+        when(proxyClient.client().listFirewalls(any(ListFirewallsRequest.class)))
+                .thenReturn(ListFirewallsResponse.builder().firewalls(listed).build());
+        when(proxyClient.client().describeFirewall(any(DescribeFirewallRequest.class))).thenAnswer(invocation -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            Thread.sleep(10);
+            inFlight.decrementAndGet();
+            return describeResponse(((DescribeFirewallRequest) invocation.getArgument(0)).firewallArn(),
+                    FirewallStatusValue.READY, ImmutableMap.of());
+        });
+
+        // on a runtime without virtual threads the option falls back to the platform pool
+        final ProgressEvent<ResourceModel, CallbackContext> response = new ListHandler(HandlerOptions.builder()
+                .listEnrichment(true)
+                .listEnrichmentParallelism(3)
+                .invocation(InvocationOptions.builder().virtualThreads(true).build())
+                .build())
+                .handleRequest(proxy, request, new CallbackContext(), proxyClient, logger);
+
+        assertThat(response.getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        assertThat(response.getResourceModels()).hasSize(12);
+        assertThat(response.getResourceModels().get(7).getFirewallArn()).isEqualTo("arn7");
+        assertThat(maxInFlight.get()).isLessThanOrEqualTo(3);
+        verify(proxyClient.client(), times(12)).describeFirewall(any(DescribeFirewallRequest.class));
+    }
+
+    @Test
+    public void handleRequest_EnrichmentRetriesThrottledDescribe() {
+        when(proxyClient.client().listFirewalls(any(ListFirewallsRequest.class)))
+                .thenReturn(ListFirewallsResponse.builder().firewalls(metadata("arn1")).build());
+        when(proxyClient.client().describeFirewall(any(DescribeFirewallRequest.class)))
+                .thenThrow(ThrottlingException.builder().message("slow down").build())
+                .thenReturn(describeResponse("arn1", FirewallStatusValue.READY, ImmutableMap.of("us-east-1a", syncState("vpce-1a"))));
+
+        final ProgressEvent<ResourceModel, CallbackContext> response = new ListHandler(enrichmentOptions())
+                .handleRequest(proxy, request, new CallbackContext(), retries(3).instrument(proxyClient), logger);
+
+        assertThat(response.getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        assertThat(response.getResourceModels()).hasSize(1);
+        assertThat(response.getResourceModels().get(0).getEndpointIds()).containsExactly("us-east-1a:vpce-1a");
+
+        verify(proxyClient.client()).listFirewalls(any(ListFirewallsRequest.class));
+        verify(proxyClient.client(), times(2)).describeFirewall(any(DescribeFirewallRequest.class));
+    }
+
+    @Test
+    public void handleRequest_EnrichmentThrottledUntilRetriesExhausted() {
+        when(proxyClient.client().listFirewalls(any(ListFirewallsRequest.class)))
+                .thenReturn(ListFirewallsResponse.builder().firewalls(metadata("arn1")).build());
+        when(proxyClient.client().describeFirewall(any(DescribeFirewallRequest.class)))
+                .thenThrow(ThrottlingException.builder().message("slow down").build());
+
+        assertThrows(CfnThrottlingException.class, () -> new ListHandler(enrichmentOptions())
+                .handleRequest(proxy, request, new CallbackContext(), retries(2).instrument(proxyClient), logger));
+
+        // the retries of the policy are the only ones, the enricher does not retry on top of them
+        verify(proxyClient.client()).listFirewalls(any(ListFirewallsRequest.class));
+        verify(proxyClient.client(), times(3)).describeFirewall(any(DescribeFirewallRequest.class));
+    }
+
+    @Test
+    public void handleRequest_EnrichmentInvalidRequest() {
+        when(proxyClient.client().listFirewalls(any(ListFirewallsRequest.class)))
+                .thenReturn(ListFirewallsResponse.builder().firewalls(metadata("arn1")).build());
+        when(proxyClient.client().describeFirewall(any(DescribeFirewallRequest.class)))
+                .thenThrow(InvalidRequestException.builder().message("invalid").build());
+
+        assertThrows(CfnInvalidRequestException.class, () -> new ListHandler(enrichmentOptions())
+                .handleRequest(proxy, request, new CallbackContext(), proxyClient, logger));
+
+        verify(proxyClient.client()).listFirewalls(any(ListFirewallsRequest.class));
+        verify(proxyClient.client()).describeFirewall(any(DescribeFirewallRequest.class));
+    }
+
+    @Test
+    public void enricher_NothingToDescribe() {
+        assertThat(new FirewallListEnricher(proxyClient, enrichmentOptions(), logger).describe(null)).isEmpty();
+    }
+
+    @Test
+    public void handleRequest_EnrichedThroughTheAsyncClient() {
+        final NetworkFirewallAsyncClient asyncClient = mock(NetworkFirewallAsyncClient.class);
+        final Map<String, Integer> calls = new ConcurrentHashMap<>();
+        when(proxyClient.client().listFirewalls(any(ListFirewallsRequest.class)))
+                .thenReturn(ListFirewallsResponse.builder()
+                        .firewalls(metadata("arn1"), metadata("arn2"), metadata("arn3"))
+                        .build());
+        when(asyncClient.describeFirewall(any(DescribeFirewallRequest.class))).thenAnswer(invocation -> {
+            final String arn = invocation.<DescribeFirewallRequest>getArgument(0).firewallArn();
+            final int call = calls.merge(arn, 1, Integer::sum);
+            if (arn.equals("arn2")) {
+                return failed(ResourceNotFoundException.builder().message("deleted since listing").build());
+            }
+            if (arn.equals("arn1") && call == 1) {
+                return failed(ThrottlingException.builder().message("slow down").build());
+            }
+            return CompletableFuture.completedFuture(describeResponse(arn, FirewallStatusValue.READY, ImmutableMap.of()));
+        });
+        handler = new ListHandler(enrichmentOptions());
+        final CallbackContext callbackContext = new CallbackContext();
+        callbackContext.setAsyncProxyClient(retries(3).instrument(proxy.newProxy(() -> asyncClient)));
+
+        final ProgressEvent<ResourceModel, CallbackContext> response =
+                handler.handleRequest(proxy, request, callbackContext, proxyClient, logger);
+
+        // the retry policy sends the throttled firewall again, the deleted one is left out
+        assertThat(response.getResourceModels()).extracting(ResourceModel::getFirewallArn).containsExactly("arn1", "arn3");
+        assertThat(calls).containsEntry("arn1", 2).containsEntry("arn2", 1).containsEntry("arn3", 1);
+        verify(proxyClient.client()).listFirewalls(any(ListFirewallsRequest.class));
+    }
+
+    @Test
+    public void enricher_AsyncThrottledUntilRetriesExhausted() {
+        final NetworkFirewallAsyncClient asyncClient = mock(NetworkFirewallAsyncClient.class);
+        when(asyncClient.describeFirewall(any(DescribeFirewallRequest.class)))
+                .thenAnswer(invocation -> failed(ThrottlingException.builder().message("slow down").build()));
+        final FirewallListEnricher enricher = new FirewallListEnricher(proxyClient,
+                retries(2).instrument(proxy.newProxy(() -> asyncClient)), enrichmentOptions(), logger);
+
+        assertThrows(CfnThrottlingException.class, () -> enricher.describe(ImmutableList.of(metadata("arn1"))));
+
+        verify(asyncClient, times(3)).describeFirewall(any(DescribeFirewallRequest.class));
+    }
+
+    private static CompletableFuture<DescribeFirewallResponse> failed(final RuntimeException e) {
+        final CompletableFuture<DescribeFirewallResponse> future = new CompletableFuture<>();
+        future.completeExceptionally(e);
+        return future;
+    }
+
+    private static HandlerOptions enrichmentOptions() {
+        return HandlerOptions.builder()
+                .listEnrichment(true)
+                .build();
+    }
+
+    private static RetryPolicy retries(final int budget) {
+        return RetryPolicy.of(budget, 1L, 1L, Deadline.unbounded(), logger);
+    }
+
+    private static FirewallMetadata metadata(final String arn) {
+        return FirewallMetadata.builder().firewallArn(arn).build();
+    }
+
+    private static SyncState syncState(final String endpointId) {
+        return SyncState.builder().attachment(Attachment.builder().endpointId(endpointId).build()).build();
+    }
+
+    private static DescribeFirewallResponse describeResponse(final String arn, final FirewallStatusValue status,
+                                                             final Map<String, SyncState> syncStates) {
+        return DescribeFirewallResponse.builder()
+                .firewall(Firewall.builder()
+                        .firewallArn(arn)
+                        .firewallId("id-" + arn)
+                        .firewallName("name-" + arn)
+                        .firewallPolicyArn("policyarn")
+                        .vpcId("vpcId")
+                        .build())
+                .firewallStatus(software.amazon.awssdk.services.networkfirewall.model.FirewallStatus.builder()
+                        .status(status)
+                        .syncStates(syncStates)
+                        .build())
+                .build();
+    }
 }
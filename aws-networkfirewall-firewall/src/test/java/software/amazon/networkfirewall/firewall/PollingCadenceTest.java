@@ -0,0 +1,152 @@
+package software.amazon.networkfirewall.firewall;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import software.amazon.awssdk.services.networkfirewall.model.Attachment;
+import software.amazon.awssdk.services.networkfirewall.model.AttachmentStatus;
+import software.amazon.awssdk.services.networkfirewall.model.ConfigurationSyncState;
+import software.amazon.awssdk.services.networkfirewall.model.DescribeFirewallResponse;
+import software.amazon.awssdk.services.networkfirewall.model.FirewallStatus;
+import software.amazon.awssdk.services.networkfirewall.model.FirewallStatusValue;
+import software.amazon.awssdk.services.networkfirewall.model.SyncState;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PollingCadenceTest {
+    private final AtomicLong millis = new AtomicLong(1_000_000L);
+
+    // every test uses its own zone count, the estimates learned in one are not seen by another
+    private static ResourceModel modelWithZones(final int zones) {
+        final Set<SubnetMapping> subnetMappings = new HashSet<>();
+        for (int i = 0; i < zones; i++) {
+            subnetMappings.add(new SubnetMapping("subnet-" + i));
+        }
+        return ResourceModel.builder().firewallArn("validarn").subnetMappings(subnetMappings).build();
+    }
+
+    private static DescribeFirewallResponse describeResponse(final FirewallStatusValue status,
+            final ConfigurationSyncState summary, final AttachmentStatus... zones) {
+        final Map<String, SyncState> syncStates = new HashMap<>();
+        for (int i = 0; i < zones.length; i++) {
+            syncStates.put("us-east-1" + (char) ('a' + i), SyncState.builder()
+                    .attachment(Attachment.builder().subnetId("subnet-" + i).status(zones[i]).build())
+                    .build());
+        }
+        return DescribeFirewallResponse.builder()
+                .firewallStatus(FirewallStatus.builder()
+                        .status(status)
+                        .configurationSyncStateSummary(summary)
+                        .syncStates(syncStates)
+                        .build())
+                .build();
+    }
+
+    private PollingCadence cadence(final PollingCadence.Operation operation, final ResourceModel model,
+            final CallbackContext context) {
+        return new PollingCadence(operation, model, context, millis::get);
+    }
+
+    private void advance(final Duration duration) {
+        millis.addAndGet(duration.toMillis());
+    }
+
+    @Test
+    public void testWaitsFollowTheZoneCountAndTheZonesDone() {
+        final CallbackContext context = new CallbackContext();
+        final PollingCadence cadence = cadence(PollingCadence.Operation.CREATE, modelWithZones(4), context);
+        assertThat(cadence.nextDelay(0)).isEqualTo(PollingCadence.MIN_INTERVAL);
+        assertThat(cadence.expected()).isEqualTo(Duration.ofMinutes(8));
+
+        cadence.observed(describeResponse(FirewallStatusValue.PROVISIONING, ConfigurationSyncState.PENDING,
+                AttachmentStatus.CREATING, AttachmentStatus.CREATING, AttachmentStatus.CREATING, AttachmentStatus.CREATING));
+        assertThat(context.getPollingStartedAt()).isEqualTo(millis.get());
+        assertThat(cadence.nextDelay(0)).isEqualTo(PollingCadence.MAX_INTERVAL);
+
+        // half of the zones are attached after two minutes, two more look left
+        advance(Duration.ofMinutes(2));
+        cadence.observed(describeResponse(FirewallStatusValue.PROVISIONING, ConfigurationSyncState.PENDING,
+                AttachmentStatus.READY, AttachmentStatus.READY, AttachmentStatus.CREATING, AttachmentStatus.CREATING));
+        assertThat(cadence.nextDelay(1)).isEqualTo(Duration.ofMinutes(1));
+
+        // three of four after seven minutes, one is already late on the estimate
+        advance(Duration.ofMinutes(5));
+        cadence.observed(describeResponse(FirewallStatusValue.PROVISIONING, ConfigurationSyncState.PENDING,
+                AttachmentStatus.READY, AttachmentStatus.READY, AttachmentStatus.READY, AttachmentStatus.CREATING));
+        assertThat(cadence.nextDelay(2)).isEqualTo(Duration.ofSeconds(30));
+
+        advance(Duration.ofMinutes(2));
+        cadence.observed(describeResponse(FirewallStatusValue.PROVISIONING, ConfigurationSyncState.PENDING,
+                AttachmentStatus.READY, AttachmentStatus.READY, AttachmentStatus.READY, AttachmentStatus.CREATING));
+        assertThat(cadence.nextDelay(3)).isEqualTo(PollingCadence.MIN_INTERVAL);
+    }
+
+    @Test
+    public void testPollsTheTailOftenAndGivesUpAtTheTimeout() {
+        final CallbackContext context = new CallbackContext();
+        final PollingCadence cadence = cadence(PollingCadence.Operation.CREATE, modelWithZones(5), context);
+        cadence.observed(describeResponse(FirewallStatusValue.PROVISIONING, ConfigurationSyncState.PENDING,
+                AttachmentStatus.READY, AttachmentStatus.READY, AttachmentStatus.READY, AttachmentStatus.READY,
+                AttachmentStatus.READY));
+        assertThat(cadence.nextDelay(0)).isEqualTo(PollingCadence.TAIL_INTERVAL);
+
+        cadence.observed(describeResponse(FirewallStatusValue.READY, ConfigurationSyncState.PENDING));
+        assertThat(cadence.nextDelay(1)).isEqualTo(PollingCadence.TAIL_INTERVAL);
+
+        // the first poll is in the callback context, a later invocation carries on from it
+        final PollingCadence callback = cadence(PollingCadence.Operation.CREATE, modelWithZones(5), context);
+        advance(PollingCadence.TIMEOUT);
+        callback.observed(describeResponse(FirewallStatusValue.READY, ConfigurationSyncState.PENDING));
+        assertThat(callback.nextDelay(2)).isEqualTo(Duration.ZERO);
+    }
+
+    @Test
+    public void testLearnsHowLongFirewallsOfAsManyZonesTake() {
+        final PollingCadence first = cadence(PollingCadence.Operation.DELETE, modelWithZones(3), new CallbackContext());
+        assertThat(first.expected()).isEqualTo(Duration.ofSeconds(210));
+        first.observed(describeResponse(FirewallStatusValue.DELETING, ConfigurationSyncState.IN_SYNC,
+                AttachmentStatus.DELETING, AttachmentStatus.DELETING, AttachmentStatus.DELETING));
+        advance(Duration.ofSeconds(90));
+        first.stabilized();
+
+        final PollingCadence second = cadence(PollingCadence.Operation.DELETE, modelWithZones(3), new CallbackContext());
+        assertThat(second.expected()).isEqualTo(Duration.ofSeconds(90));
+        second.observed(describeResponse(FirewallStatusValue.DELETING, ConfigurationSyncState.IN_SYNC,
+                AttachmentStatus.DELETING, AttachmentStatus.DELETING, AttachmentStatus.DELETING));
+        assertThat(second.nextDelay(0)).isEqualTo(Duration.ofSeconds(45));
+        advance(Duration.ofSeconds(150));
+        second.stabilized();
+
+        assertThat(cadence(PollingCadence.Operation.DELETE, modelWithZones(3), new CallbackContext()).expected())
+                .isEqualTo(Duration.ofSeconds(120));
+        assertThat(cadence(PollingCadence.Operation.CREATE, modelWithZones(3), new CallbackContext()).expected())
+                .isEqualTo(Duration.ofMinutes(7));
+    }
+
+    @Test
+    public void testDeleteCountsTheZonesOfTheFirstPollWhenTheModelHasNone() {
+        final ResourceModel model = ResourceModel.builder().firewallArn("validarn").build();
+        final PollingCadence cadence = cadence(PollingCadence.Operation.DELETE, model, new CallbackContext());
+        cadence.observed(describeResponse(FirewallStatusValue.DELETING, ConfigurationSyncState.IN_SYNC,
+                AttachmentStatus.DELETING, AttachmentStatus.DELETING, AttachmentStatus.DELETING,
+                AttachmentStatus.DELETING, AttachmentStatus.DELETING, AttachmentStatus.DELETING));
+        assertThat(cadence.expected()).isEqualTo(Duration.ofMinutes(5));
+        assertThat(cadence.nextDelay(0)).isEqualTo(PollingCadence.MAX_INTERVAL);
+
+        // two zones are gone after a minute
+        advance(Duration.ofMinutes(1));
+        cadence.observed(describeResponse(FirewallStatusValue.DELETING, ConfigurationSyncState.IN_SYNC,
+                AttachmentStatus.DELETING, AttachmentStatus.DELETING, AttachmentStatus.DELETING,
+                AttachmentStatus.DELETING));
+        assertThat(cadence.nextDelay(1)).isEqualTo(Duration.ofMinutes(1));
+
+        advance(Duration.ofMinutes(1));
+        cadence.observed(describeResponse(FirewallStatusValue.DELETING, ConfigurationSyncState.IN_SYNC));
+        assertThat(cadence.nextDelay(2)).isEqualTo(PollingCadence.TAIL_INTERVAL);
+    }
+}
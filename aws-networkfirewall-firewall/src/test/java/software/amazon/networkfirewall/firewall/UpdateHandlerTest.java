@@ -3,6 +3,7 @@ package software.amazon.networkfirewall.firewall;
 import java.time.Duration;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
@@ -26,6 +27,7 @@ import software.amazon.awssdk.services.networkfirewall.model.TagResourceRequest;
 import software.amazon.awssdk.services.networkfirewall.model.UntagResourceRequest;
 import software.amazon.awssdk.services.networkfirewall.model.UpdateFirewallDeleteProtectionRequest;
 import software.amazon.awssdk.services.networkfirewall.model.UpdateFirewallDescriptionRequest;
+import software.amazon.awssdk.services.networkfirewall.model.UpdateFirewallDescriptionResponse;
 import software.amazon.awssdk.services.networkfirewall.model.UpdateFirewallPolicyChangeProtectionRequest;
 import software.amazon.awssdk.services.networkfirewall.model.UpdateSubnetChangeProtectionRequest;
 import software.amazon.cloudformation.proxy.AmazonWebServicesClientProxy;
@@ -33,6 +35,7 @@ import software.amazon.cloudformation.proxy.OperationStatus;
 import software.amazon.cloudformation.proxy.ProgressEvent;
 import software.amazon.cloudformation.proxy.ProxyClient;
 import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+import software.amazon.networkfirewall.common.Deadline;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -544,6 +547,89 @@ public class UpdateHandlerTest extends AbstractTestBase {
                 .firewallArn("validarn").firewallPolicyArn("policyArn").vpcId("vpcId").subnetMappings(subnetMappings);
     }
 
+    @Test
+    public void verifyRedrivenUpdateSkipsChangesAlreadyMade() {
+        // an earlier attempt associated the policy, turned on delete protection and swapped subnet-B for subnet-C,
+        // but failed before it updated the description
+        final Firewall liveFirewall = commonDescribeResponse().firewall().toBuilder()
+                .firewallPolicyArn("newPolicyArn")
+                .deleteProtection(true)
+                .description("old description")
+                .subnetMappings(software.amazon.awssdk.services.networkfirewall.model.SubnetMapping.builder().subnetId("subnet-A").build(),
+                        software.amazon.awssdk.services.networkfirewall.model.SubnetMapping.builder().subnetId("subnet-C").build())
+                .build();
+        when(proxyClient.client().describeFirewall(any(DescribeFirewallRequest.class)))
+                .thenReturn(commonDescribeResponse().toBuilder().firewall(liveFirewall).build());
+
+        final ResourceModel previousModel = baseModel().deleteProtection(false).description("old description").build();
+        final ResourceModel desiredModel = baseModel()
+                .firewallPolicyArn("newPolicyArn")
+                .deleteProtection(true)
+                .description("new description")
+                .subnetMappings(ImmutableSet.of(new SubnetMapping("subnet-A"), new SubnetMapping("subnet-C")))
+                .build();
+        final ResourceHandlerRequest<ResourceModel> request = ResourceHandlerRequest.<ResourceModel>builder()
+                .desiredResourceState(desiredModel)
+                .previousResourceState(previousModel)
+                .build();
+        final ProgressEvent<ResourceModel, CallbackContext> handlerResponse =
+                handler.handleRequest(proxy, request, new CallbackContext(), proxyClient, logger);
+
+        // validate result: only the description is updated, with no stabilization polls
+        validateCommonParameters(handlerResponse);
+        verify(proxyClient.client()).updateFirewallDescription(any(UpdateFirewallDescriptionRequest.class));
+        verify(proxyClient.client(), times(2)).describeFirewall(any(DescribeFirewallRequest.class));
+        verify(proxyClient.client(), never()).associateFirewallPolicy(any(AssociateFirewallPolicyRequest.class));
+        verify(proxyClient.client(), never()).updateFirewallDeleteProtection(any(UpdateFirewallDeleteProtectionRequest.class));
+        verify(proxyClient.client(), never()).associateSubnets(any(AssociateSubnetsRequest.class));
+        verify(proxyClient.client(), never()).disassociateSubnets(any(DisassociateSubnetsRequest.class));
+        verify(proxyClient.client(), never()).updateSubnetChangeProtection(any(UpdateSubnetChangeProtectionRequest.class));
+        verify(proxyClient.client(), never()).updateFirewallPolicyChangeProtection(any(UpdateFirewallPolicyChangeProtectionRequest.class));
+        verify(proxyClient.client(), never()).tagResource(any(TagResourceRequest.class));
+        verify(proxyClient.client(), never()).untagResource(any(UntagResourceRequest.class));
+    }
+
+    @Test
+    public void verifyCallbackKeepsSkippingChangesAlreadyMade() {
+        // an earlier attempt turned on delete protection and tagged the firewall, but failed before it updated the
+        // description
+        final Firewall liveFirewall = commonDescribeResponse().firewall().toBuilder()
+                .deleteProtection(true)
+                .tags(software.amazon.awssdk.services.networkfirewall.model.Tag.builder().key("key1").value("value1").build())
+                .build();
+        when(proxyClient.client().describeFirewall(any(DescribeFirewallRequest.class)))
+                .thenReturn(commonDescribeResponse().toBuilder().firewall(liveFirewall).build());
+        final AtomicLong nanos = new AtomicLong();
+        when(proxyClient.client().updateFirewallDescription(any(UpdateFirewallDescriptionRequest.class))).thenAnswer(invocation -> {
+            nanos.addAndGet(Duration.ofSeconds(10).toNanos());
+            return UpdateFirewallDescriptionResponse.builder().build();
+        });
+
+        final ResourceHandlerRequest<ResourceModel> request = ResourceHandlerRequest.<ResourceModel>builder()
+                .previousResourceState(baseModel().deleteProtection(false).description("old description").build())
+                .desiredResourceState(baseModel().deleteProtection(true).description("new description").build())
+                .desiredResourceTags(ImmutableMap.of("key1", "value1"))
+                .build();
+        // the description update leaves no time for the rest, which is left to a callback
+        final CallbackContext callbackContext = new CallbackContext();
+        callbackContext.setDeadline(Deadline.after(Duration.ofSeconds(15), nanos::get));
+        final ProgressEvent<ResourceModel, CallbackContext> inProgress =
+                handler.handleRequest(proxy, request, callbackContext, proxyClient, logger);
+        assertThat(inProgress.getStatus()).isEqualTo(OperationStatus.IN_PROGRESS);
+
+        inProgress.getCallbackContext().setDeadline(Deadline.after(Duration.ofSeconds(15), nanos::get));
+        final ProgressEvent<ResourceModel, CallbackContext> handlerResponse =
+                handler.handleRequest(proxy, request, inProgress.getCallbackContext(), proxyClient, logger);
+
+        // validate result: the callback replays the existence check and still skips what the firewall has
+        validateCommonParameters(handlerResponse);
+        verify(proxyClient.client()).updateFirewallDescription(any(UpdateFirewallDescriptionRequest.class));
+        verify(proxyClient.client(), times(2)).describeFirewall(any(DescribeFirewallRequest.class));
+        verify(proxyClient.client(), never()).updateFirewallDeleteProtection(any(UpdateFirewallDeleteProtectionRequest.class));
+        verify(proxyClient.client(), never()).tagResource(any(TagResourceRequest.class));
+        verify(proxyClient.client(), never()).untagResource(any(UntagResourceRequest.class));
+    }
+
     @Test
     public void verifyAssociateSubnets() {
         // setup mock requests and responses
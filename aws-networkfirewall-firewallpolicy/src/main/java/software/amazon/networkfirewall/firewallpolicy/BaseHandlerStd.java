@@ -1,28 +1,75 @@
 package software.amazon.networkfirewall.firewallpolicy;
 
+import software.amazon.awssdk.awscore.AwsResponse;
 import software.amazon.awssdk.services.networkfirewall.NetworkFirewallClient;
+import software.amazon.awssdk.services.networkfirewall.model.DescribeFirewallPolicyResponse;
+import software.amazon.awssdk.services.networkfirewall.model.FirewallPolicyResponse;
 import software.amazon.cloudformation.proxy.AmazonWebServicesClientProxy;
 import software.amazon.cloudformation.proxy.Logger;
 import software.amazon.cloudformation.proxy.ProgressEvent;
 import software.amazon.cloudformation.proxy.ProxyClient;
 import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+import software.amazon.networkfirewall.common.ClientPool;
+import software.amazon.networkfirewall.common.InvocationRuntime;
+import software.amazon.networkfirewall.common.ReferencedResource;
+import software.amazon.networkfirewall.common.StatelessActionValidator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
 
 // Placeholder for the functionality that could be shared across Create/Read/Update/Delete/List Handlers
 
 public abstract class BaseHandlerStd extends BaseHandler<CallbackContext> {
+  protected final HandlerOptions options;
+
+  // the read cache and the propagation wait the handlers of firewall policies share with those of rule groups
+  protected final ReferencedResource<ResourceModel> referencedResource;
+
+  private final InvocationRuntime runtime;
+
+  protected BaseHandlerStd() {
+    this(HandlerOptions.fromEnvironment());
+  }
+
+  // the options the handler was constructed with also set up each invocation of it
+  protected BaseHandlerStd(final HandlerOptions options) {
+    this.options = options;
+    this.referencedResource = new ReferencedResource<>(ResourceModel.TYPE_NAME, options);
+    this.runtime = new InvocationRuntime(ResourceModel.TYPE_NAME, BaseHandlerStd::observedStatus,
+      options.getInvocation());
+  }
+
   @Override
   public final ProgressEvent<ResourceModel, CallbackContext> handleRequest(
     final AmazonWebServicesClientProxy proxy,
     final ResourceHandlerRequest<ResourceModel> request,
     final CallbackContext callbackContext,
     final Logger logger) {
-    return handleRequest(
-      proxy,
-      request,
-      callbackContext != null ? callbackContext : new CallbackContext(),
-      proxy.newProxy(ClientBuilder.getClient(request.getRegion())),
-      logger
-    );
+    return handleRequest(proxy, request, callbackContext, ClientPool.getClient(request.getRegion()), logger);
+  }
+
+  // the entry point with the client the handler calls the service through, for harnesses that drive the handlers in
+  // process against a stand-in for the service
+  public final ProgressEvent<ResourceModel, CallbackContext> handleRequest(
+    final AmazonWebServicesClientProxy proxy,
+    final ResourceHandlerRequest<ResourceModel> request,
+    final CallbackContext callbackContext,
+    final Supplier<NetworkFirewallClient> client,
+    final Logger logger) {
+    // the state of this invocation lives in its callback context, so concurrent invocations of a handler keep apart
+    final CallbackContext context = callbackContext != null ? callbackContext : new CallbackContext();
+    return runtime.run(proxy, request, client, getClass(), context, logger,
+      proxyClient -> handleRequest(proxy, request, context, proxyClient, logger));
+  }
+
+  // what a stabilizer waits on, the status of the firewall policy
+  static String observedStatus(final AwsResponse response) {
+    if (!(response instanceof DescribeFirewallPolicyResponse)) {
+      return null;
+    }
+    final FirewallPolicyResponse policy = ((DescribeFirewallPolicyResponse) response).firewallPolicyResponse();
+    return policy == null ? null : policy.firewallPolicyStatusAsString();
   }
 
   protected abstract ProgressEvent<ResourceModel, CallbackContext> handleRequest(
@@ -31,4 +78,46 @@ public abstract class BaseHandlerStd extends BaseHandler<CallbackContext> {
     final CallbackContext callbackContext,
     final ProxyClient<NetworkFirewallClient> proxyClient,
     final Logger logger);
+
+  // optional pre-flight: check the referenced rule groups so that a bad policy fails before it reaches the service
+  protected ProgressEvent<ResourceModel, CallbackContext> validateRuleGroupReferences(
+    final ProxyClient<NetworkFirewallClient> proxyClient,
+    final ProgressEvent<ResourceModel, CallbackContext> progress) {
+    // a callback re-runs the chain, the references it validated before are not described again
+    if (options.isValidateRuleGroupReferences() && !progress.getCallbackContext().isRuleGroupReferencesValidated()) {
+      new RuleGroupReferenceValidator(proxyClient, progress.getCallbackContext().getAsyncProxyClient(),
+        options.getReferenceValidationParallelism(), options.getInvocation().isVirtualThreads())
+        .validate(progress.getResourceModel().getFirewallPolicy());
+      progress.getCallbackContext().setRuleGroupReferencesValidated(true);
+    }
+    return progress;
+  }
+
+  // the stateless default actions hold exactly one standard action, the others name custom actions of the policy
+  protected static void validateStatelessActions(final FirewallPolicy policy) {
+    if (policy == null) {
+      return;
+    }
+    final List<String> customActionNames = new ArrayList<>();
+    if (policy.getStatelessCustomActions() != null) {
+      for (final CustomAction customAction : policy.getStatelessCustomActions()) {
+        customActionNames.add(customAction.getActionName());
+      }
+    }
+    new StatelessActionValidator(customActionNames)
+      .actions("StatelessDefaultActions", policy.getStatelessDefaultActions())
+      .actions("StatelessFragmentDefaultActions", policy.getStatelessFragmentDefaultActions())
+      .validate(ResourceModel.TYPE_NAME);
+  }
+
+  // report the rule capacity a DryRun request says the policy would consume
+  protected static void logConsumedCapacity(final Logger logger, final FirewallPolicyResponse firewallPolicyResponse) {
+    if (firewallPolicyResponse == null) {
+      logger.log(String.format("%s DryRun validation succeeded.", ResourceModel.TYPE_NAME));
+      return;
+    }
+    logger.log(String.format("%s DryRun validation succeeded, consumed stateless capacity %s, consumed stateful capacity %s.",
+      ResourceModel.TYPE_NAME, firewallPolicyResponse.consumedStatelessRuleCapacity(),
+      firewallPolicyResponse.consumedStatefulRuleCapacity()));
+  }
 }
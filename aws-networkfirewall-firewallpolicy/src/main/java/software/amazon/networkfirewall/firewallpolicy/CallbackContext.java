@@ -1,10 +1,53 @@
 package software.amazon.networkfirewall.firewallpolicy;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import software.amazon.awssdk.services.networkfirewall.NetworkFirewallAsyncClient;
+import software.amazon.cloudformation.proxy.ProxyClient;
 import software.amazon.cloudformation.proxy.StdCallbackContext;
+import software.amazon.networkfirewall.common.Deadline;
+import software.amazon.networkfirewall.common.FlightRecorderEvents;
+import software.amazon.networkfirewall.common.ReferencedResource;
+import software.amazon.networkfirewall.common.RetryPolicy;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
 
 @lombok.Getter
 @lombok.Setter
 @lombok.ToString
 @lombok.EqualsAndHashCode(callSuper = true)
-public class CallbackContext extends StdCallbackContext {
+public class CallbackContext extends StdCallbackContext implements ReferencedResource.Context {
+    // the time left, the retries left and the async client of the current invocation, set up by BaseHandlerStd for
+    // each invocation and never carried over to the next; unbounded, none and null when a handler is invoked directly
+    @JsonIgnore
+    @lombok.ToString.Exclude
+    private transient Deadline deadline = Deadline.unbounded();
+    @JsonIgnore
+    @lombok.ToString.Exclude
+    private transient RetryPolicy retries = RetryPolicy.none();
+    @JsonIgnore
+    @lombok.ToString.Exclude
+    private transient ProxyClient<NetworkFirewallAsyncClient> asyncProxyClient;
+
+    // the rule group references of the policy passed validation in an earlier invocation
+    private boolean ruleGroupReferencesValidated;
+
+    // when the update succeeded and the update token it left, for the optional propagation wait
+    private Long propagationStartedAt;
+    private String propagationUpdateToken;
+
+    // milliseconds each firewall the update has reached so far took to get it
+    private Map<String, Long> propagatedFirewalls = new TreeMap<>();
+
+    // the tags the policy had when an update described it, for the tag step of the invocations after it; null
+    // until it is described
+    private Map<String, String> liveTags;
+
+    // every call chain starts by translating its request, which marks the start of its phase
+    @Override
+    public <M, R> Function<M, R> request(final String callGraph, final Function<M, R> func) {
+        FlightRecorderEvents.phase(callGraph);
+        return super.request(callGraph, FlightRecorderEvents.translation(callGraph, func));
+    }
 }
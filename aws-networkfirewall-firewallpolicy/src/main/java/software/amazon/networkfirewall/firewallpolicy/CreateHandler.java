@@ -9,12 +9,18 @@ import software.amazon.cloudformation.proxy.Logger;
 import software.amazon.cloudformation.proxy.ProgressEvent;
 import software.amazon.cloudformation.proxy.ProxyClient;
 import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+import software.amazon.networkfirewall.common.FlightRecorderEvents;
 
 import static software.amazon.networkfirewall.firewallpolicy.ExceptionTranslator.translateToCfnException;
 
 public class CreateHandler extends BaseHandlerStd {
-    private Logger logger;
-    private ResourceModel resourceModel;
+    public CreateHandler() {
+        this(HandlerOptions.fromEnvironment());
+    }
+
+    public CreateHandler(final HandlerOptions options) {
+        super(options);
+    }
 
     protected ProgressEvent<ResourceModel, CallbackContext> handleRequest(
         final AmazonWebServicesClientProxy proxy,
@@ -23,22 +29,50 @@ public class CreateHandler extends BaseHandlerStd {
         final ProxyClient<NetworkFirewallClient> proxyClient,
         final Logger logger) {
 
-        this.logger = logger;
-        this.resourceModel = request.getDesiredResourceState();
+        final ResourceModel resourceModel = request.getDesiredResourceState();
+
+        // invalid action combinations and references are rejected locally before any request is made
+        validateStatelessActions(resourceModel.getFirewallPolicy());
 
         final TagUtils tagUtils = new TagUtils(null, request.getDesiredResourceState().getTags(), null, request.getDesiredResourceTags());
         return ProgressEvent.progress(request.getDesiredResourceState(), callbackContext)
+            .then(progress -> validateRuleGroupReferences(proxyClient, progress))
+            .then(progress -> validateWithDryRun(proxy, proxyClient, progress, tagUtils, logger))
             .then(progress ->
                 proxy.initiate("AWS-NetworkFirewall-FirewallPolicy::Create", proxyClient,progress.getResourceModel(), progress.getCallbackContext())
                         .translateToServiceRequest(model -> Translator.translateToCreateRequest(model, tagUtils.tagsToAddOrUpdate()))
-                        .makeServiceCall(this::createFirewallPolicy)
-                        .stabilize(this::isStabilized)
+                        .makeServiceCall((createFirewallPolicyRequest, client) ->
+                                createFirewallPolicy(createFirewallPolicyRequest, client, resourceModel, logger))
+                        .stabilize(FlightRecorderEvents.polled(this::isStabilized))
                         .progress()
             )
-            .then(progress -> new ReadHandler().handleRequest(proxy, request, callbackContext, proxyClient, logger));
+            .then(progress -> new ReadHandler(options).handleRequest(proxy, request, callbackContext, proxyClient, logger));
+    }
+
+    // optional pre-flight: let the service validate the policy and its rule group references before it is created
+    private ProgressEvent<ResourceModel, CallbackContext> validateWithDryRun(final AmazonWebServicesClientProxy proxy,
+            final ProxyClient<NetworkFirewallClient> proxyClient, final ProgressEvent<ResourceModel, CallbackContext> progress,
+            final TagUtils tagUtils, final Logger logger) {
+        if (!options.isDryRunPreflight()) {
+            return progress;
+        }
+        return proxy.initiate("AWS-NetworkFirewall-FirewallPolicy::Create-DryRun", proxyClient, progress.getResourceModel(), progress.getCallbackContext())
+                .translateToServiceRequest(model -> Translator.translateToDryRunCreateRequest(model, tagUtils.tagsToAddOrUpdate()))
+                .makeServiceCall((createFirewallPolicyRequest, client) -> {
+                    CreateFirewallPolicyResponse createFirewallPolicyResponse = null;
+                    try {
+                        createFirewallPolicyResponse = client.injectCredentialsAndInvokeV2(createFirewallPolicyRequest, client.client()::createFirewallPolicy);
+                        logConsumedCapacity(logger, createFirewallPolicyResponse.firewallPolicyResponse());
+                    } catch (final AwsServiceException e) {
+                        translateToCfnException(e);
+                    }
+                    return createFirewallPolicyResponse;
+                })
+                .progress();
     }
 
-    private CreateFirewallPolicyResponse createFirewallPolicy (CreateFirewallPolicyRequest createFirewallPolicyRequest, final ProxyClient<NetworkFirewallClient> proxyClient) {
+    private CreateFirewallPolicyResponse createFirewallPolicy (CreateFirewallPolicyRequest createFirewallPolicyRequest, final ProxyClient<NetworkFirewallClient> proxyClient,
+            final ResourceModel resourceModel, final Logger logger) {
         CreateFirewallPolicyResponse createFirewallPolicyResponse = null;
         try {
             createFirewallPolicyResponse = proxyClient.injectCredentialsAndInvokeV2(createFirewallPolicyRequest, proxyClient.client()::createFirewallPolicy);
@@ -12,11 +12,18 @@ import software.amazon.cloudformation.proxy.Logger;
 import software.amazon.cloudformation.proxy.ProgressEvent;
 import software.amazon.cloudformation.proxy.ProxyClient;
 import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+import software.amazon.networkfirewall.common.FlightRecorderEvents;
 
 import static software.amazon.networkfirewall.firewallpolicy.ExceptionTranslator.translateToCfnException;
 
 public class DeleteHandler extends BaseHandlerStd {
-    private Logger logger;
+    public DeleteHandler() {
+        this(HandlerOptions.fromEnvironment());
+    }
+
+    public DeleteHandler(final HandlerOptions options) {
+        super(options);
+    }
 
     protected ProgressEvent<ResourceModel, CallbackContext> handleRequest(
         final AmazonWebServicesClientProxy proxy,
@@ -25,14 +32,14 @@ public class DeleteHandler extends BaseHandlerStd {
         final ProxyClient<NetworkFirewallClient> proxyClient,
         final Logger logger) {
 
-        this.logger = logger;
-
         return ProgressEvent.progress(request.getDesiredResourceState(), callbackContext)
             .then(progress ->
                 proxy.initiate("AWS-NetworkFirewall-FirewallPolicy::Delete", proxyClient, progress.getResourceModel(), progress.getCallbackContext())
                         .translateToServiceRequest(Translator::translateToDeleteRequest)
-                        .makeServiceCall(this::deleteFirewallPolicy)
-                        .stabilize(this::isDeleteStabilized)
+                        .makeServiceCall((deleteFirewallPolicyRequest, client) ->
+                                deleteFirewallPolicy(deleteFirewallPolicyRequest, client, logger))
+                        .stabilize(FlightRecorderEvents.polled((deleteFirewallPolicyRequest, deleteFirewallPolicyResponse,
+                                client, model, context) -> isDeleteStabilized(deleteFirewallPolicyRequest, client, context, logger)))
                         .progress())
                 .then(progress -> ProgressEvent.defaultSuccessHandler(null));
     }
@@ -40,11 +47,13 @@ public class DeleteHandler extends BaseHandlerStd {
     /**
      * @param deleteFirewallPolicyRequest {@link DeleteFirewallPolicyRequest}.
      * @param client                  ProxyClient
+     * @param logger                  Logger
      * @return DeleteSchemaVersionsResponse
      */
     private DeleteFirewallPolicyResponse deleteFirewallPolicy(
             final DeleteFirewallPolicyRequest deleteFirewallPolicyRequest,
-            final ProxyClient<NetworkFirewallClient> client) {
+            final ProxyClient<NetworkFirewallClient> client,
+            final Logger logger) {
 
         final NetworkFirewallClient networkFirewallClient = client.client();
 
@@ -53,6 +62,7 @@ public class DeleteHandler extends BaseHandlerStd {
 
             deleteFirewallPolicyResponse =
                     client.injectCredentialsAndInvokeV2(deleteFirewallPolicyRequest, networkFirewallClient::deleteFirewallPolicy);
+            referencedResource.invalidateReadModel(deleteFirewallPolicyRequest.firewallPolicyArn());
             logger.log(
                     String.format(
                             "Firewall policy: %s is successfully deleted.",
@@ -69,10 +79,9 @@ public class DeleteHandler extends BaseHandlerStd {
 
     private Boolean isDeleteStabilized(
             final DeleteFirewallPolicyRequest deleteFirewallPolicyRequest,
-            final DeleteFirewallPolicyResponse deleteFirewallPolicyResponse,
             final ProxyClient<NetworkFirewallClient> proxyClient,
-            final ResourceModel resourceModel,
-            final CallbackContext callbackContext) {
+            final CallbackContext callbackContext,
+            final Logger logger) {
         try {
             final NetworkFirewallClient networkFirewallClient = proxyClient.client();
             DescribeFirewallPolicyRequest describeFirewallPolicyRequest = DescribeFirewallPolicyRequest.builder()
@@ -94,6 +103,9 @@ public class DeleteHandler extends BaseHandlerStd {
         } catch (final ResourceNotFoundException e) {
             return true;
         } catch (final AwsServiceException e) {
+            if (callbackContext.getRetries().absorbs(e)) {
+                return false;
+            }
             throw new CfnGeneralServiceException(
                     String.format("Firewall policy: %s deletion status couldn't be retrieved: %s",
                             ResourceModel.TYPE_NAME,
@@ -11,11 +11,25 @@ import software.amazon.cloudformation.proxy.Logger;
 import software.amazon.cloudformation.proxy.ProgressEvent;
 import software.amazon.cloudformation.proxy.ProxyClient;
 import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+import software.amazon.networkfirewall.common.ModelCache;
 
 import static software.amazon.networkfirewall.firewallpolicy.ExceptionTranslator.translateToCfnException;
 
 public class ReadHandler extends BaseHandlerStd {
-    private Logger logger;
+    private final ModelCache<ResourceModel> models;
+
+    public ReadHandler() {
+        this(HandlerOptions.fromEnvironment());
+    }
+
+    ReadHandler(final HandlerOptions options) {
+        super(options);
+        this.models = referencedResource.readModels();
+    }
+
+    ReadHandler(final ModelCache<ResourceModel> models) {
+        this.models = models;
+    }
 
     protected ProgressEvent<ResourceModel, CallbackContext> handleRequest(
         final AmazonWebServicesClientProxy proxy,
@@ -24,16 +38,17 @@ public class ReadHandler extends BaseHandlerStd {
         final ProxyClient<NetworkFirewallClient> proxyClient,
         final Logger logger) {
 
-        this.logger = logger;
         return proxy.initiate("AWS-NetworkFirewall-FirewallPolicy::Read", proxyClient, request.getDesiredResourceState(), callbackContext)
             .translateToServiceRequest(Translator::translateToReadRequest)
-            .makeServiceCall(this::describeFirewallPolicy)
-            .done(describeFirewallPolicyResponse -> ProgressEvent.defaultSuccessHandler(Translator.translateFromReadResponse(describeFirewallPolicyResponse)));
+            .makeServiceCall((describeFirewallPolicyRequest, client) ->
+                describeFirewallPolicy(describeFirewallPolicyRequest, client, logger))
+            .done(describeFirewallPolicyResponse -> ProgressEvent.defaultSuccessHandler(Translator.translateFromReadResponse(describeFirewallPolicyResponse, models)));
     }
 
     private DescribeFirewallPolicyResponse describeFirewallPolicy(
             final DescribeFirewallPolicyRequest describeFirewallPolicyRequest,
-            final ProxyClient<NetworkFirewallClient> client) {
+            final ProxyClient<NetworkFirewallClient> client,
+            final Logger logger) {
 
         final NetworkFirewallClient networkFirewallClient = client.client();
 
@@ -0,0 +1,207 @@
+package software.amazon.networkfirewall.firewallpolicy;
+
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+import software.amazon.awssdk.services.networkfirewall.NetworkFirewallAsyncClient;
+import software.amazon.awssdk.services.networkfirewall.NetworkFirewallClient;
+import software.amazon.awssdk.services.networkfirewall.model.DescribeRuleGroupRequest;
+import software.amazon.awssdk.services.networkfirewall.model.DescribeRuleGroupResponse;
+import software.amazon.awssdk.services.networkfirewall.model.ResourceNotFoundException;
+import software.amazon.awssdk.services.networkfirewall.model.RuleGroupResponse;
+import software.amazon.awssdk.services.networkfirewall.model.RuleGroupType;
+import software.amazon.cloudformation.exceptions.CfnInvalidRequestException;
+import software.amazon.cloudformation.proxy.ProxyClient;
+import software.amazon.networkfirewall.common.AsyncFanOut;
+import software.amazon.networkfirewall.common.FanOutExecutors;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+import static software.amazon.networkfirewall.firewallpolicy.ExceptionTranslator.translateToCfnException;
+
+/**
+ * Checks the rule groups a firewall policy references before the policy is sent to the service:
+ *  - every referenced rule group exists and its type matches the slot it is referenced from
+ *  - stateless priorities are unique
+ *  - the summed capacity of each slot fits the firewall policy limit
+ * All referenced rule groups are described in one bounded parallel round and every problem found is
+ * reported in a single failure. With an async client the round is sent through it, at most the parallelism
+ * of calls in flight, instead of from a pool of threads.
+ */
+public class RuleGroupReferenceValidator {
+    // per firewall policy limits on the summed capacity of the referenced rule groups
+    static final int MAX_STATELESS_RULE_CAPACITY = 30000;
+    static final int MAX_STATEFUL_RULE_CAPACITY = 30000;
+
+    private final ProxyClient<NetworkFirewallClient> proxyClient;
+    private final ProxyClient<NetworkFirewallAsyncClient> asyncProxyClient;
+    private final int parallelism;
+    private final boolean virtualThreads;
+
+    public RuleGroupReferenceValidator(final ProxyClient<NetworkFirewallClient> proxyClient, final int parallelism) {
+        this(proxyClient, null, parallelism);
+    }
+
+    public RuleGroupReferenceValidator(final ProxyClient<NetworkFirewallClient> proxyClient,
+                                       final ProxyClient<NetworkFirewallAsyncClient> asyncProxyClient,
+                                       final int parallelism) {
+        this(proxyClient, asyncProxyClient, parallelism, false);
+    }
+
+    /**
+     * @param virtualThreads describe from virtual threads rather than a pool of platform threads, on a runtime
+     *                       that has them
+     */
+    public RuleGroupReferenceValidator(final ProxyClient<NetworkFirewallClient> proxyClient,
+                                       final ProxyClient<NetworkFirewallAsyncClient> asyncProxyClient,
+                                       final int parallelism, final boolean virtualThreads) {
+        this.proxyClient = proxyClient;
+        this.asyncProxyClient = asyncProxyClient;
+        this.parallelism = Math.max(1, parallelism);
+        this.virtualThreads = virtualThreads;
+    }
+
+    void validate(final FirewallPolicy policy) {
+        if (policy == null) {
+            return;
+        }
+        final Set<StatelessRuleGroupReference> statelessReferences = policy.getStatelessRuleGroupReferences() == null
+                ? Collections.emptySet() : policy.getStatelessRuleGroupReferences();
+        final Set<StatefulRuleGroupReference> statefulReferences = policy.getStatefulRuleGroupReferences() == null
+                ? Collections.emptySet() : policy.getStatefulRuleGroupReferences();
+
+        final List<String> errors = new ArrayList<>(validateStatelessPriorities(statelessReferences));
+
+        final Set<String> statelessArns = new TreeSet<>();
+        statelessReferences.forEach(reference -> statelessArns.add(reference.getResourceArn()));
+        final Set<String> statefulArns = new TreeSet<>();
+        statefulReferences.forEach(reference -> statefulArns.add(reference.getResourceArn()));
+
+        final Set<String> arns = new TreeSet<>(statelessArns);
+        arns.addAll(statefulArns);
+        final Map<String, RuleGroupResponse> ruleGroups = describeRuleGroups(arns);
+
+        errors.addAll(validateSlot(statelessArns, ruleGroups, RuleGroupType.STATELESS, MAX_STATELESS_RULE_CAPACITY));
+        errors.addAll(validateSlot(statefulArns, ruleGroups, RuleGroupType.STATEFUL, MAX_STATEFUL_RULE_CAPACITY));
+
+        if (!errors.isEmpty()) {
+            throw new CfnInvalidRequestException(String.format("Firewall policy: %s references invalid rule groups: %s",
+                    ResourceModel.TYPE_NAME, String.join("; ", errors)));
+        }
+    }
+
+    static List<String> validateStatelessPriorities(final Set<StatelessRuleGroupReference> references) {
+        final Map<Integer, Set<String>> arnsByPriority = new TreeMap<>();
+        for (final StatelessRuleGroupReference reference : references) {
+            if (reference.getPriority() == null) {
+                continue;
+            }
+            arnsByPriority.computeIfAbsent(reference.getPriority(), priority -> new TreeSet<>()).add(reference.getResourceArn());
+        }
+        final List<String> errors = new ArrayList<>();
+        arnsByPriority.forEach((priority, arns) -> {
+            if (arns.size() > 1) {
+                errors.add(String.format("stateless priority %s is used by more than one rule group %s", priority, arns));
+            }
+        });
+        return errors;
+    }
+
+    private static List<String> validateSlot(final Set<String> arns, final Map<String, RuleGroupResponse> ruleGroups,
+                                             final RuleGroupType expectedType, final int maxCapacity) {
+        final List<String> errors = new ArrayList<>();
+        int totalCapacity = 0;
+        for (final String arn : arns) {
+            final RuleGroupResponse ruleGroup = ruleGroups.get(arn);
+            if (ruleGroup == null) {
+                errors.add(String.format("rule group %s does not exist", arn));
+                continue;
+            }
+            if (ruleGroup.type() != expectedType) {
+                errors.add(String.format("rule group %s is %s but is referenced as %s", arn, ruleGroup.typeAsString(), expectedType));
+                continue;
+            }
+            if (ruleGroup.capacity() != null) {
+                totalCapacity += ruleGroup.capacity();
+            }
+        }
+        if (totalCapacity > maxCapacity) {
+            errors.add(String.format("%s rule groups use %d capacity which exceeds the limit of %d",
+                    expectedType, totalCapacity, maxCapacity));
+        }
+        return errors;
+    }
+
+    private Map<String, RuleGroupResponse> describeRuleGroups(final Set<String> arns) {
+        if (arns.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        if (asyncProxyClient != null) {
+            return describeRuleGroupsAsync(arns);
+        }
+        final ExecutorService executor =
+                FanOutExecutors.newExecutor("reference-validation", Math.min(parallelism, arns.size()), virtualThreads);
+        try {
+            final Map<String, Future<RuleGroupResponse>> pending = new LinkedHashMap<>();
+            for (final String arn : arns) {
+                pending.put(arn, executor.submit(() -> describeRuleGroup(() -> proxyClient.injectCredentialsAndInvokeV2(
+                        describeRequest(arn), proxyClient.client()::describeRuleGroup).ruleGroupResponse())));
+            }
+            final Map<String, RuleGroupResponse> ruleGroups = new HashMap<>();
+            for (final Map.Entry<String, Future<RuleGroupResponse>> entry : pending.entrySet()) {
+                final RuleGroupResponse ruleGroup = AsyncFanOut.await(entry.getValue(), "DescribeRuleGroup");
+                if (ruleGroup != null) {
+                    ruleGroups.put(entry.getKey(), ruleGroup);
+                }
+            }
+            return ruleGroups;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Map<String, RuleGroupResponse> describeRuleGroupsAsync(final Set<String> arns) {
+        final AsyncFanOut<NetworkFirewallAsyncClient> fanOut = new AsyncFanOut<>(asyncProxyClient, parallelism);
+        final Map<String, CompletableFuture<RuleGroupResponse>> pending = new LinkedHashMap<>();
+        for (final String arn : arns) {
+            pending.put(arn, fanOut.send(describeRequest(arn), fanOut.client()::describeRuleGroup)
+                    .thenApply(DescribeRuleGroupResponse::ruleGroupResponse));
+        }
+        final Map<String, RuleGroupResponse> ruleGroups = new HashMap<>();
+        for (final Map.Entry<String, CompletableFuture<RuleGroupResponse>> entry : pending.entrySet()) {
+            final RuleGroupResponse ruleGroup = describeRuleGroup(() -> AsyncFanOut.join(entry.getValue()));
+            if (ruleGroup != null) {
+                ruleGroups.put(entry.getKey(), ruleGroup);
+            }
+        }
+        return ruleGroups;
+    }
+
+    private static DescribeRuleGroupRequest describeRequest(final String arn) {
+        return DescribeRuleGroupRequest.builder()
+                .ruleGroupArn(arn)
+                .build();
+    }
+
+    // returns null when the rule group does not exist so that it is reported together with the other problems
+    private static RuleGroupResponse describeRuleGroup(final Supplier<RuleGroupResponse> describeRuleGroup) {
+        try {
+            return describeRuleGroup.get();
+        } catch (final ResourceNotFoundException e) {
+            return null;
+        } catch (final AwsServiceException e) {
+            translateToCfnException(e);
+        }
+        return null;
+    }
+}
@@ -17,6 +17,7 @@ import software.amazon.awssdk.services.networkfirewall.model.PublishMetricAction
 import software.amazon.awssdk.services.networkfirewall.model.StatefulRuleGroupReference;
 import software.amazon.awssdk.services.networkfirewall.model.StatelessRuleGroupReference;
 import software.amazon.awssdk.services.networkfirewall.model.UpdateFirewallPolicyRequest;
+import software.amazon.networkfirewall.common.ModelCache;
 
 import java.util.*;
 import java.util.stream.Collectors;
@@ -45,6 +46,17 @@ public class Translator {
             .build();
   }
 
+  /**
+   * Request to validate the creation of a resource without creating it
+   * @param model resource model
+   * @return awsRequest the aws service request to create a resource with DryRun set
+   */
+  static CreateFirewallPolicyRequest translateToDryRunCreateRequest(final ResourceModel model, final Map<String, String> tags) {
+    return translateToCreateRequest(model, tags).toBuilder()
+            .dryRun(true)
+            .build();
+  }
+
   /**
    * Request to read a resource
    * @param model resource model
@@ -86,12 +98,35 @@ public class Translator {
    * @return model resource model
    */
   static ResourceModel translateFromReadResponse(final DescribeFirewallPolicyResponse response) {
+    return translateFromReadResponse(response, translatePolicyFromSDK(response.firewallPolicy()));
+  }
+
+  /**
+   * Translates resource object from sdk into a resource model, reusing the policy translated from an earlier
+   * response with the same UpdateToken. Tagging does not change the token, so the tags are translated every time.
+   * The cached policy is shared by every invocation of the container, so each model gets a copy of it.
+   * @param response the aws service describe resource response
+   * @param models translated models of the container, null to translate the whole response
+   * @return model resource model
+   */
+  static ResourceModel translateFromReadResponse(final DescribeFirewallPolicyResponse response,
+          final ModelCache<ResourceModel> models) {
+    if (models == null) {
+      return translateFromReadResponse(response);
+    }
+    final ResourceModel translated = models.get(response.firewallPolicyResponse().firewallPolicyArn(),
+            response.updateToken(), () -> translateFromReadResponse(response));
+    return translateFromReadResponse(response, copyPolicy(translated.getFirewallPolicy()));
+  }
+
+  private static ResourceModel translateFromReadResponse(final DescribeFirewallPolicyResponse response,
+          final software.amazon.networkfirewall.firewallpolicy.FirewallPolicy firewallPolicy) {
     return ResourceModel.builder()
             .firewallPolicyArn(response.firewallPolicyResponse().firewallPolicyArn())
             .firewallPolicyName(response.firewallPolicyResponse().firewallPolicyName())
             .firewallPolicyId(response.firewallPolicyResponse().firewallPolicyId())
             .description(response.firewallPolicyResponse().description())
-            .firewallPolicy(translatePolicyFromSDK(response.firewallPolicy()))
+            .firewallPolicy(firewallPolicy)
             .tags(translateTagsFromSdk(response.firewallPolicyResponse().tags()))
             .build();
   }
@@ -111,6 +146,17 @@ public class Translator {
             .build();
   }
 
+  /**
+   * Request to validate the update of a previously created resource without modifying it
+   * @param model resource model
+   * @return awsRequest the aws service request to modify a resource with DryRun set
+   */
+  static UpdateFirewallPolicyRequest translateToDryRunUpdateRequest(final ResourceModel model, final String updateToken) {
+    return translateToUpdateRequest(model, updateToken).toBuilder()
+            .dryRun(true)
+            .build();
+  }
+
   /**
    * Request to list resources
    * @return awsRequest the aws service request to list resources within aws account
@@ -247,6 +293,82 @@ public class Translator {
     return new HashSet<>(actions);
   }
 
+  /**
+   * Copies a translated policy, so that the copy shares no mutable object with it
+   * @param policy policy translated from sdk
+   * @return copy of the policy
+   */
+  static software.amazon.networkfirewall.firewallpolicy.FirewallPolicy copyPolicy(
+          final software.amazon.networkfirewall.firewallpolicy.FirewallPolicy policy) {
+    if (policy == null) {
+      return null;
+    }
+    return software.amazon.networkfirewall.firewallpolicy.FirewallPolicy.builder()
+            .statefulRuleGroupReferences(policy.getStatefulRuleGroupReferences() != null
+                    ? copyStatefulRuleGroupReferences(policy.getStatefulRuleGroupReferences()) : null)
+            .statelessRuleGroupReferences(policy.getStatelessRuleGroupReferences() != null
+                    ? copyStatelessRuleGroupReferences(policy.getStatelessRuleGroupReferences()) : null)
+            .statelessDefaultActions(policy.getStatelessDefaultActions() != null
+                    ? new HashSet<>(policy.getStatelessDefaultActions()) : null)
+            .statelessFragmentDefaultActions(policy.getStatelessFragmentDefaultActions() != null
+                    ? new HashSet<>(policy.getStatelessFragmentDefaultActions()) : null)
+            .statelessCustomActions(policy.getStatelessCustomActions() != null
+                    ? copyCustomActions(policy.getStatelessCustomActions()) : null)
+            .build();
+  }
+
+  private static Set<software.amazon.networkfirewall.firewallpolicy.StatefulRuleGroupReference> copyStatefulRuleGroupReferences(
+          final Set<software.amazon.networkfirewall.firewallpolicy.StatefulRuleGroupReference> references) {
+    Set<software.amazon.networkfirewall.firewallpolicy.StatefulRuleGroupReference> result = new HashSet<>();
+
+    for (software.amazon.networkfirewall.firewallpolicy.StatefulRuleGroupReference reference : references) {
+      result.add(software.amazon.networkfirewall.firewallpolicy.StatefulRuleGroupReference.builder()
+              .resourceArn(reference.getResourceArn())
+              .build());
+    }
+    return result;
+  }
+
+  private static Set<software.amazon.networkfirewall.firewallpolicy.StatelessRuleGroupReference> copyStatelessRuleGroupReferences(
+          final Set<software.amazon.networkfirewall.firewallpolicy.StatelessRuleGroupReference> references) {
+    Set<software.amazon.networkfirewall.firewallpolicy.StatelessRuleGroupReference> result = new HashSet<>();
+
+    for (software.amazon.networkfirewall.firewallpolicy.StatelessRuleGroupReference reference : references) {
+      result.add(software.amazon.networkfirewall.firewallpolicy.StatelessRuleGroupReference.builder()
+              .resourceArn(reference.getResourceArn())
+              .priority(reference.getPriority())
+              .build());
+    }
+    return result;
+  }
+
+  private static Set<software.amazon.networkfirewall.firewallpolicy.CustomAction> copyCustomActions(
+          final Set<software.amazon.networkfirewall.firewallpolicy.CustomAction> actions) {
+    Set<software.amazon.networkfirewall.firewallpolicy.CustomAction> result = new HashSet<>();
+
+    for (software.amazon.networkfirewall.firewallpolicy.CustomAction action : actions) {
+      software.amazon.networkfirewall.firewallpolicy.ActionDefinition definition = action.getActionDefinition();
+      software.amazon.networkfirewall.firewallpolicy.PublishMetricAction publishAction =
+              definition != null ? definition.getPublishMetricAction() : null;
+      Set<software.amazon.networkfirewall.firewallpolicy.Dimension> dimensions = null;
+      if (publishAction != null && publishAction.getDimensions() != null) {
+        dimensions = new HashSet<>();
+        for (software.amazon.networkfirewall.firewallpolicy.Dimension dim : publishAction.getDimensions()) {
+          dimensions.add(new software.amazon.networkfirewall.firewallpolicy.Dimension(dim.getValue()));
+        }
+      }
+      result.add(software.amazon.networkfirewall.firewallpolicy.CustomAction.builder()
+              .actionName(action.getActionName())
+              .actionDefinition(definition == null ? null : software.amazon.networkfirewall.firewallpolicy.ActionDefinition.builder()
+                      .publishMetricAction(publishAction == null ? null : software.amazon.networkfirewall.firewallpolicy.PublishMetricAction.builder()
+                              .dimensions(dimensions)
+                              .build())
+                      .build())
+              .build());
+    }
+    return result;
+  }
+
   private static FirewallPolicy translatePolicyToSDK(
           final software.amazon.networkfirewall.firewallpolicy.FirewallPolicy policy) {
     return FirewallPolicy.builder()
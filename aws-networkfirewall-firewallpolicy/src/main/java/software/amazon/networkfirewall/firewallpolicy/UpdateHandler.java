@@ -9,17 +9,20 @@ import software.amazon.cloudformation.proxy.Logger;
 import software.amazon.cloudformation.proxy.ProgressEvent;
 import software.amazon.cloudformation.proxy.ProxyClient;
 import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+import software.amazon.networkfirewall.common.Deadline;
+import software.amazon.networkfirewall.common.FlightRecorderEvents;
+import software.amazon.networkfirewall.common.TagReconciler;
 
 import static software.amazon.networkfirewall.firewallpolicy.ExceptionTranslator.translateToCfnException;
 
 public class UpdateHandler extends BaseHandlerStd {
-    private Logger logger;
-    private AmazonWebServicesClientProxy proxy;
-    private ResourceHandlerRequest<ResourceModel> handlerRequest;
-    private CallbackContext callbackContext;
-    private ProxyClient<NetworkFirewallClient> proxyClient;
-    private ResourceModel desiredStateModel;
-    private ResourceModel previousStateModel;
+    public UpdateHandler() {
+        this(HandlerOptions.fromEnvironment());
+    }
+
+    public UpdateHandler(final HandlerOptions options) {
+        super(options);
+    }
 
     protected ProgressEvent<ResourceModel, CallbackContext> handleRequest(
         final AmazonWebServicesClientProxy proxy,
@@ -29,76 +32,125 @@ public class UpdateHandler extends BaseHandlerStd {
         final ProxyClient<NetworkFirewallClient> proxyClient,
         final Logger logger) {
 
-        this.logger = logger;
-        this.proxy = proxy;
-        this.handlerRequest = request;
-        this.callbackContext = callbackContext;
-        this.proxyClient = proxyClient;
-        this.desiredStateModel = request.getDesiredResourceState();
-        this.previousStateModel = request.getPreviousResourceState();
+        final Update update = new Update(proxy, request, callbackContext, proxyClient, logger);
 
-        return ProgressEvent.progress(request.getDesiredResourceState(), callbackContext)
-                .then(this::updateFirewallPolicy)
-                .then(this::updateTags)
-                .then(progress -> new ReadHandler().handleRequest(proxy, request, callbackContext, proxyClient, logger));
-    }
+        // invalid action combinations and references are rejected locally before any request is made
+        validateStatelessActions(request.getDesiredResourceState().getFirewallPolicy());
 
-    private ProgressEvent<ResourceModel, CallbackContext> updateFirewallPolicy(
-            final ProgressEvent<ResourceModel, CallbackContext> progress) {
-
-        return proxy.initiate(
-                "AWS-NetworkFirewall-FirewallPolicy::Update", proxyClient, progress.getResourceModel(), callbackContext)
-                .translateToServiceRequest((model) -> Translator.translateToUpdateRequest(model,getUpdateToken(proxyClient, model)))
-                .makeServiceCall((updateFirewallPolicyRequest, proxyInvocation) -> {
-                            {
-                                UpdateFirewallPolicyResponse updateFirewallPolicyResponse = null;
-
-                                try {
-                                    updateFirewallPolicyResponse = proxyInvocation.injectCredentialsAndInvokeV2(updateFirewallPolicyRequest, proxyInvocation.client()::updateFirewallPolicy);
-                                    logger.log(String.format("Firewall policy: %s has successfully been updated.", ResourceModel.TYPE_NAME));
-                                } catch (final AwsServiceException e) {
-                                    translateToCfnException(e);
-                                }
-
-                                return updateFirewallPolicyResponse;
-                            }
-                        })
-                .stabilize(this::isStabilized)
-                .progress();
+        final Deadline deadline = callbackContext.getDeadline();
+        return ProgressEvent.progress(request.getDesiredResourceState(), callbackContext)
+                .then(deadline.checkpoint(progress -> validateRuleGroupReferences(proxyClient, progress)))
+                .then(deadline.checkpoint(update::validateWithDryRun))
+                .then(deadline.checkpoint(update::updateFirewallPolicy))
+                .then(deadline.checkpoint(update::updateTags))
+                .then(deadline.checkpoint(progress -> referencedResource.awaitPropagation(proxyClient, logger,
+                        progress.getResourceModel().getFirewallPolicyArn(), progress)))
+                .then(deadline.checkpoint(progress ->
+                        new ReadHandler(options).handleRequest(proxy, request, callbackContext, proxyClient, logger)));
     }
 
-    // tags on resource request overrides tags attached to the CloudFormation stack this resource belongs to
-    private ProgressEvent<ResourceModel, CallbackContext> updateTags(ProgressEvent<ResourceModel, CallbackContext> progress) {
-        final TagUtils tagUtils = new TagUtils(previousStateModel.getTags(), desiredStateModel.getTags(),
-                handlerRequest.getPreviousResourceTags(), handlerRequest.getDesiredResourceTags());
-        // Untag resource: get tags to remove from firewall resource
-        if (tagUtils.tagsToRemove().size() > 0) {
-            progress = proxy.initiate("AWS-NetworkFirewall-FirewallPolicy::Update-UntagResource", proxyClient, progress.getResourceModel(), callbackContext)
-                    .translateToServiceRequest(model ->
-                            Translator.translateToUntagRequest(model, tagUtils.tagsToRemove().keySet()))
-                    .makeServiceCall((request, client) ->
-                            client.injectCredentialsAndInvokeV2(request, client.client()::untagResource))
-                    .progress();
+    // what the steps of one update share; the wrapper keeps a single handler for the invocations it runs, so none of
+    // it is kept in the handler
+    private final class Update {
+        private final Logger logger;
+        private final AmazonWebServicesClientProxy proxy;
+        private final ResourceHandlerRequest<ResourceModel> handlerRequest;
+        private final CallbackContext callbackContext;
+        private final ProxyClient<NetworkFirewallClient> proxyClient;
+        private final ResourceModel desiredStateModel;
+        private final ResourceModel previousStateModel;
+
+        private Update(final AmazonWebServicesClientProxy proxy, final ResourceHandlerRequest<ResourceModel> request,
+                final CallbackContext callbackContext, final ProxyClient<NetworkFirewallClient> proxyClient,
+                final Logger logger) {
+            this.logger = logger;
+            this.proxy = proxy;
+            this.handlerRequest = request;
+            this.callbackContext = callbackContext;
+            this.proxyClient = proxyClient;
+            this.desiredStateModel = request.getDesiredResourceState();
+            this.previousStateModel = request.getPreviousResourceState();
+        }
 
-            if (progress.isFailed()) {
+        // optional pre-flight: let the service validate the new policy definition before the update is made
+        private ProgressEvent<ResourceModel, CallbackContext> validateWithDryRun(
+                final ProgressEvent<ResourceModel, CallbackContext> progress) {
+            if (!options.isDryRunPreflight()) {
                 return progress;
             }
+            return proxy.initiate(
+                    "AWS-NetworkFirewall-FirewallPolicy::Update-DryRun", proxyClient, progress.getResourceModel(), callbackContext)
+                    .translateToServiceRequest((model) -> Translator.translateToDryRunUpdateRequest(model, getUpdateToken(proxyClient, model, callbackContext)))
+                    .makeServiceCall((updateFirewallPolicyRequest, proxyInvocation) -> {
+                        UpdateFirewallPolicyResponse updateFirewallPolicyResponse = null;
+                        try {
+                            updateFirewallPolicyResponse = proxyInvocation.injectCredentialsAndInvokeV2(updateFirewallPolicyRequest, proxyInvocation.client()::updateFirewallPolicy);
+                            logConsumedCapacity(logger, updateFirewallPolicyResponse.firewallPolicyResponse());
+                        } catch (final AwsServiceException e) {
+                            translateToCfnException(e);
+                        }
+                        return updateFirewallPolicyResponse;
+                    })
+                    .progress();
         }
 
-        // Tag resource: add tags that are added newly and update tags for which the value has been updated
-        if (tagUtils.tagsToAddOrUpdate().size() > 0) {
-            progress = proxy.initiate("AWS-NetworkFirewall-FirewallPolicy::Update-TagResource", proxyClient, progress.getResourceModel(), callbackContext)
-                    .translateToServiceRequest(model ->
-                            Translator.translateToTagRequest(model, tagUtils.tagsToAddOrUpdate()))
-                    .makeServiceCall((request, client) ->
-                            client.injectCredentialsAndInvokeV2(request, client.client()::tagResource))
+        private ProgressEvent<ResourceModel, CallbackContext> updateFirewallPolicy(
+                final ProgressEvent<ResourceModel, CallbackContext> progress) {
+
+            return proxy.initiate(
+                    "AWS-NetworkFirewall-FirewallPolicy::Update", proxyClient, progress.getResourceModel(), callbackContext)
+                    .translateToServiceRequest((model) -> Translator.translateToUpdateRequest(model,getUpdateToken(proxyClient, model, callbackContext)))
+                    .makeServiceCall((updateFirewallPolicyRequest, proxyInvocation) -> {
+                                {
+                                    UpdateFirewallPolicyResponse updateFirewallPolicyResponse = null;
+
+                                    try {
+                                        updateFirewallPolicyResponse = proxyInvocation.injectCredentialsAndInvokeV2(updateFirewallPolicyRequest, proxyInvocation.client()::updateFirewallPolicy);
+                                        referencedResource.invalidateReadModel(updateFirewallPolicyRequest.firewallPolicyArn());
+                                        referencedResource.recordUpdate(callbackContext, updateFirewallPolicyResponse.updateToken());
+                                        logger.log(String.format("Firewall policy: %s has successfully been updated.", ResourceModel.TYPE_NAME));
+                                    } catch (final AwsServiceException e) {
+                                        translateToCfnException(e);
+                                    }
+
+                                    return updateFirewallPolicyResponse;
+                                }
+                            })
+                    .stabilize(FlightRecorderEvents.polled(UpdateHandler.this::isStabilized))
                     .progress();
         }
 
-        return progress;
+        // tags on resource request overrides tags attached to the CloudFormation stack this resource belongs to
+        private ProgressEvent<ResourceModel, CallbackContext> updateTags(final ProgressEvent<ResourceModel, CallbackContext> progress) {
+            final TagReconciler tags = new TagReconciler(new TagUtils(previousStateModel.getTags(), desiredStateModel.getTags(),
+                    handlerRequest.getPreviousResourceTags(), handlerRequest.getDesiredResourceTags()), callbackContext.getLiveTags());
+
+            return tags.reconcile(progress,
+                    // Untag resource: remove the tags the stack no longer applies
+                    current -> proxy.initiate("AWS-NetworkFirewall-FirewallPolicy::Update-UntagResource", proxyClient, current.getResourceModel(), callbackContext)
+                            .translateToServiceRequest(model -> Translator.translateToUntagRequest(model, tags.tagsToRemove()))
+                            .makeServiceCall((request, client) ->
+                                    client.injectCredentialsAndInvokeV2(request, client.client()::untagResource))
+                            .progress(),
+                    // Tag resource: add tags that are missing and update tags for which the value differs
+                    current -> proxy.initiate("AWS-NetworkFirewall-FirewallPolicy::Update-TagResource", proxyClient, current.getResourceModel(), callbackContext)
+                            .translateToServiceRequest(model -> Translator.translateToTagRequest(model, tags.tagsToAddOrUpdate()))
+                            .makeServiceCall((request, client) ->
+                                    client.injectCredentialsAndInvokeV2(request, client.client()::tagResource))
+                            .progress());
+        }
+    }
+
+    // the tags the policy has now, for the tag step to reconcile against; kept in the context, since a callback
+    // replays the calls that found them from the call graph
+    private static void recordLiveTags(final CallbackContext callbackContext, final DescribeFirewallPolicyResponse response) {
+        if (response.firewallPolicyResponse() != null) {
+            callbackContext.setLiveTags(TagReconciler.liveTags(response.firewallPolicyResponse().tags()));
+        }
     }
 
-    private String getUpdateToken(final ProxyClient<NetworkFirewallClient> proxyClient, final ResourceModel model) {
+    private static String getUpdateToken(final ProxyClient<NetworkFirewallClient> proxyClient, final ResourceModel model,
+            final CallbackContext callbackContext) {
         final DescribeFirewallPolicyRequest describeRuleGroupRequest = DescribeFirewallPolicyRequest.builder()
                 .firewallPolicyArn(model.getFirewallPolicyArn())
                 .firewallPolicyName(model.getFirewallPolicyName())
@@ -114,6 +166,7 @@ public class UpdateHandler extends BaseHandlerStd {
             throw new CfnGeneralServiceException(String
                     .format("Firewall policy: %s is unable to update", ResourceModel.TYPE_NAME));
         }
+        recordLiveTags(callbackContext, response);
         return response.updateToken();
     }
 
@@ -125,8 +178,12 @@ public class UpdateHandler extends BaseHandlerStd {
             final DescribeFirewallPolicyResponse response = client.injectCredentialsAndInvokeV2(
                     Translator.translateToReadRequest(model),
                     client.client()::describeFirewallPolicy);
+            recordLiveTags(callbackContext, response);
             return isStabilized(response.firewallPolicyResponse().firewallPolicyStatus());
         } catch (final AwsServiceException e) {
+            if (callbackContext.getRetries().absorbs(e)) {
+                return false;
+            }
             translateToCfnException(e);
         }
         return false;
@@ -0,0 +1,20 @@
+package software.amazon.networkfirewall.firewallpolicy;
+
+import software.amazon.awssdk.services.networkfirewall.model.DeleteFirewallPolicyResponse;
+import software.amazon.awssdk.services.networkfirewall.model.DescribeFirewallPolicyResponse;
+import software.amazon.awssdk.services.networkfirewall.model.FirewallPolicyResponse;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BaseHandlerStdTest {
+
+    @Test
+    public void testObservedStatus() {
+        assertThat(BaseHandlerStd.observedStatus(DescribeFirewallPolicyResponse.builder().build())).isNull();
+        assertThat(BaseHandlerStd.observedStatus(DeleteFirewallPolicyResponse.builder().build())).isNull();
+        assertThat(BaseHandlerStd.observedStatus(DescribeFirewallPolicyResponse.builder()
+                .firewallPolicyResponse(FirewallPolicyResponse.builder().firewallPolicyStatus("ACTIVE").build())
+                .build())).isEqualTo("ACTIVE");
+    }
+}
@@ -18,8 +18,10 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
@@ -79,6 +81,136 @@ public class CreateHandlerTest extends AbstractTestBase {
         assertThat(response.getErrorCode()).isNull();
     }
 
+    @Test
+    public void testDryRunPreflightSuccessState() {
+        handler = new CreateHandler(HandlerOptions.builder().dryRunPreflight(true).build());
+        final CreateFirewallPolicyRequest dryRunRequest = CREATE_FIREWALL_POLICY_REQUEST.toBuilder().dryRun(true).build();
+        final CreateFirewallPolicyResponse dryRunResponse = CREATE_FIREWALL_POLICY_RESPONSE.toBuilder()
+                .firewallPolicyResponse(CREATE_FIREWALL_POLICY_RESPONSE.firewallPolicyResponse().toBuilder()
+                        .consumedStatelessRuleCapacity(10)
+                        .consumedStatefulRuleCapacity(20)
+                        .build())
+                .build();
+
+        when(proxyClient.injectCredentialsAndInvokeV2(dryRunRequest, networkFirewallClient::createFirewallPolicy))
+                .thenReturn(dryRunResponse);
+
+        when(proxyClient.injectCredentialsAndInvokeV2(
+                CREATE_FIREWALL_POLICY_REQUEST,
+                networkFirewallClient::createFirewallPolicy)
+        ).thenReturn(CREATE_FIREWALL_POLICY_RESPONSE);
+
+        when(proxyClient.injectCredentialsAndInvokeV2(
+                DESCRIBE_FIREWALL_POLICY_REQUEST,
+                networkFirewallClient::describeFirewallPolicy)
+        ).thenReturn(DESCRIBE_FIREWALL_POLICY_RESPONSE);
+
+        final ProgressEvent<ResourceModel, CallbackContext> response = handler.handleRequest(
+                proxy,
+                RESOURCE_HANDLER_REQUEST,
+                new CallbackContext(), proxyClient, logger
+        );
+
+        // one DryRun call followed by the real create
+        verify(networkFirewallClient, times(2)).createFirewallPolicy(any(CreateFirewallPolicyRequest.class));
+        verify(networkFirewallClient, times(2)).describeFirewallPolicy(any(DescribeFirewallPolicyRequest.class));
+        assertThat(response).isNotNull();
+        assertThat(response.getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        assertThat(response.getResourceModel()).isEqualTo(CREATE_FIREWALL_POLICY_RESPONSE_RESOURCE);
+    }
+
+    @Test
+    public void testRuleGroupReferenceValidationSuccessState() {
+        handler = new CreateHandler(HandlerOptions.builder().validateRuleGroupReferences(true).build());
+        when(networkFirewallClient.describeRuleGroup(any(DescribeRuleGroupRequest.class))).thenAnswer(invocation -> {
+            final DescribeRuleGroupRequest describeRuleGroupRequest = invocation.getArgument(0);
+            return DescribeRuleGroupResponse.builder()
+                    .ruleGroupResponse(RuleGroupResponse.builder()
+                            .ruleGroupArn(describeRuleGroupRequest.ruleGroupArn())
+                            .type(describeRuleGroupRequest.ruleGroupArn().contains(":stateless-rulegroup/")
+                                    ? RuleGroupType.STATELESS : RuleGroupType.STATEFUL)
+                            .capacity(100)
+                            .build())
+                    .build();
+        });
+
+        when(proxyClient.injectCredentialsAndInvokeV2(
+                CREATE_FIREWALL_POLICY_REQUEST,
+                networkFirewallClient::createFirewallPolicy)
+        ).thenReturn(CREATE_FIREWALL_POLICY_RESPONSE);
+
+        when(proxyClient.injectCredentialsAndInvokeV2(
+                DESCRIBE_FIREWALL_POLICY_REQUEST,
+                networkFirewallClient::describeFirewallPolicy)
+        ).thenReturn(DESCRIBE_FIREWALL_POLICY_RESPONSE);
+
+        final ProgressEvent<ResourceModel, CallbackContext> response = handler.handleRequest(
+                proxy,
+                RESOURCE_HANDLER_REQUEST,
+                new CallbackContext(), proxyClient, logger
+        );
+
+        // one stateless and one stateful rule group are referenced by the policy
+        verify(networkFirewallClient, times(2)).describeRuleGroup(any(DescribeRuleGroupRequest.class));
+        verify(networkFirewallClient, times(1)).createFirewallPolicy(any(CreateFirewallPolicyRequest.class));
+        verify(networkFirewallClient, times(2)).describeFirewallPolicy(any(DescribeFirewallPolicyRequest.class));
+        assertThat(response).isNotNull();
+        assertThat(response.getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        assertThat(response.getResourceModel()).isEqualTo(CREATE_FIREWALL_POLICY_RESPONSE_RESOURCE);
+    }
+
+    @Test
+    public void testRuleGroupReferencesAreNotValidatedAgainInACallback() {
+        handler = new CreateHandler(HandlerOptions.builder().validateRuleGroupReferences(true).build());
+        when(networkFirewallClient.describeRuleGroup(any(DescribeRuleGroupRequest.class))).thenAnswer(invocation -> {
+            final DescribeRuleGroupRequest describeRuleGroupRequest = invocation.getArgument(0);
+            return DescribeRuleGroupResponse.builder()
+                    .ruleGroupResponse(RuleGroupResponse.builder()
+                            .ruleGroupArn(describeRuleGroupRequest.ruleGroupArn())
+                            .type(describeRuleGroupRequest.ruleGroupArn().contains(":stateless-rulegroup/")
+                                    ? RuleGroupType.STATELESS : RuleGroupType.STATEFUL)
+                            .capacity(100)
+                            .build())
+                    .build();
+        });
+
+        when(proxyClient.injectCredentialsAndInvokeV2(
+                CREATE_FIREWALL_POLICY_REQUEST,
+                networkFirewallClient::createFirewallPolicy)
+        ).thenReturn(CREATE_FIREWALL_POLICY_RESPONSE);
+
+        when(proxyClient.injectCredentialsAndInvokeV2(
+                DESCRIBE_FIREWALL_POLICY_REQUEST,
+                networkFirewallClient::describeFirewallPolicy)
+        ).thenReturn(DESCRIBE_FIREWALL_POLICY_RESPONSE);
+
+        // the second invocation gets the context the first one returned, as a callback does
+        final CallbackContext context = new CallbackContext();
+        handler.handleRequest(proxy, RESOURCE_HANDLER_REQUEST, context, proxyClient, logger);
+        assertThat(context.isRuleGroupReferencesValidated()).isTrue();
+        final ProgressEvent<ResourceModel, CallbackContext> response =
+                handler.handleRequest(proxy, RESOURCE_HANDLER_REQUEST, context, proxyClient, logger);
+
+        verify(networkFirewallClient, times(2)).describeRuleGroup(any(DescribeRuleGroupRequest.class));
+        verify(networkFirewallClient, times(1)).createFirewallPolicy(any(CreateFirewallPolicyRequest.class));
+        verify(networkFirewallClient, atLeastOnce()).describeFirewallPolicy(any(DescribeFirewallPolicyRequest.class));
+        assertThat(response.getStatus()).isEqualTo(OperationStatus.SUCCESS);
+    }
+
+    @Test
+    public void testDryRunPreflightFailure() {
+        handler = new CreateHandler(HandlerOptions.builder().dryRunPreflight(true).build());
+        final CreateFirewallPolicyRequest dryRunRequest = CREATE_FIREWALL_POLICY_REQUEST.toBuilder().dryRun(true).build();
+        when(proxyClient.injectCredentialsAndInvokeV2(dryRunRequest, networkFirewallClient::createFirewallPolicy))
+                .thenThrow(InvalidRequestException.class);
+
+        assertThrows(CfnInvalidRequestException.class, () ->
+                handler.handleRequest(proxy, RESOURCE_HANDLER_REQUEST, new CallbackContext(), proxyClient, logger));
+
+        // the real create is never attempted when the pre-flight fails
+        verify(networkFirewallClient, times(1)).createFirewallPolicy(any(CreateFirewallPolicyRequest.class));
+    }
+
     @Test
     public void testLimitExceededException() {
         when(proxyClient.injectCredentialsAndInvokeV2(CREATE_FIREWALL_POLICY_REQUEST, networkFirewallClient::createFirewallPolicy))
@@ -10,6 +10,7 @@ import software.amazon.cloudformation.proxy.AmazonWebServicesClientProxy;
 import software.amazon.cloudformation.proxy.OperationStatus;
 import software.amazon.cloudformation.proxy.ProgressEvent;
 import software.amazon.cloudformation.proxy.ProxyClient;
+import software.amazon.networkfirewall.common.ModelCache;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -77,6 +78,29 @@ public class DeleteHandlerTest extends AbstractTestBase {
         assertThat(response.getErrorCode()).isNull();
     }
 
+    @Test
+    public void testSuccessStateInvalidatesReadCache() {
+        final HandlerOptions options = HandlerOptions.builder().readCacheSize(10).build();
+        handler = new DeleteHandler(options);
+        final ModelCache<ResourceModel> models = handler.referencedResource.readModels();
+        models.get(DELETE_FIREWALL_POLICY_REQUEST.firewallPolicyArn(), "token-1", () -> DESCRIBE_FIREWALL_POLICY_RESPONSE_RESOURCE_MODEL);
+        when(proxyClient.injectCredentialsAndInvokeV2(
+                DELETE_FIREWALL_POLICY_REQUEST,
+                networkFirewallClient::deleteFirewallPolicy)
+        ).thenReturn(DELETE_FIREWALL_POLICY_RESPONSE);
+        when(proxyClient.injectCredentialsAndInvokeV2(
+                DESCRIBE_FIREWALL_POLICY_REQUEST,
+                networkFirewallClient::describeFirewallPolicy)
+        ).thenThrow(ResourceNotFoundException.class);
+
+        final ProgressEvent<ResourceModel, CallbackContext> response =
+                handler.handleRequest(proxy, RESOURCE_HANDLER_REQUEST, new CallbackContext(), proxyClient, logger);
+
+        assertThat(response.getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        final ResourceModel retranslated = ResourceModel.builder().build();
+        assertThat(models.get(DELETE_FIREWALL_POLICY_REQUEST.firewallPolicyArn(), "token-1", () -> retranslated)).isSameAs(retranslated);
+    }
+
     @Test
     public void testResourceNotFoundException() {
         when(proxyClient.injectCredentialsAndInvokeV2(DELETE_FIREWALL_POLICY_REQUEST, networkFirewallClient::deleteFirewallPolicy))
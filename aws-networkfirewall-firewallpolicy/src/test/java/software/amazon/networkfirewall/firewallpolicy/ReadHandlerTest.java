@@ -5,6 +5,7 @@ import software.amazon.awssdk.services.networkfirewall.model.*;
 import software.amazon.awssdk.services.networkfirewall.model.ResourceNotFoundException;
 import software.amazon.cloudformation.exceptions.*;
 import software.amazon.cloudformation.proxy.*;
+import software.amazon.networkfirewall.common.ModelCache;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -12,6 +13,9 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.time.Duration;
+import java.util.Collections;
+
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.*;
@@ -70,6 +74,58 @@ public class ReadHandlerTest extends AbstractTestBase {
         assertThat(response.getErrorCode()).isNull();
     }
 
+    @Test
+    public void testSuccessStateFromReadCache() {
+        final ModelCache<ResourceModel> models = new ModelCache<>(10, Duration.ofMinutes(5));
+        handler = new ReadHandler(models);
+        final DescribeFirewallPolicyResponse describeResponse = DESCRIBE_FIREWALL_POLICY_RESPONSE.toBuilder()
+                .updateToken("token-1")
+                .build();
+        // tagging leaves the UpdateToken as it was
+        final DescribeFirewallPolicyResponse untaggedResponse = describeResponse.toBuilder()
+                .firewallPolicyResponse(describeResponse.firewallPolicyResponse().toBuilder()
+                        .tags(Collections.emptyList())
+                        .build())
+                .build();
+        when(proxyClient
+                .injectCredentialsAndInvokeV2(DESCRIBE_FIREWALL_POLICY_REQUEST, networkFirewallClient::describeFirewallPolicy))
+                .thenReturn(describeResponse)
+                .thenReturn(untaggedResponse);
+
+        final ProgressEvent<ResourceModel, CallbackContext> first
+                = handler.handleRequest(proxy, RESOURCE_HANDLER_REQUEST, new CallbackContext(), proxyClient, logger);
+        final ProgressEvent<ResourceModel, CallbackContext> second
+                = handler.handleRequest(proxy, RESOURCE_HANDLER_REQUEST, new CallbackContext(), proxyClient, logger);
+
+        assertThat(first.getResourceModel()).isEqualTo(DESCRIBE_FIREWALL_POLICY_RESPONSE_RESOURCE_MODEL);
+        assertThat(second.getResourceModel().getFirewallPolicy())
+                .isEqualTo(DESCRIBE_FIREWALL_POLICY_RESPONSE_RESOURCE_MODEL.getFirewallPolicy())
+                .isNotSameAs(first.getResourceModel().getFirewallPolicy());
+        assertThat(second.getResourceModel().getTags()).isEmpty();
+        assertThat(first.getResourceModel().getTags()).isEqualTo(DESCRIBE_FIREWALL_POLICY_RESPONSE_RESOURCE_MODEL.getTags());
+        assertThat(models.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void testChangingACachedModelLeavesTheNextRead() {
+        handler = new ReadHandler(new ModelCache<>(10, Duration.ofMinutes(5)));
+        when(proxyClient
+                .injectCredentialsAndInvokeV2(DESCRIBE_FIREWALL_POLICY_REQUEST, networkFirewallClient::describeFirewallPolicy))
+                .thenReturn(DESCRIBE_FIREWALL_POLICY_RESPONSE.toBuilder().updateToken("token-1").build());
+
+        final FirewallPolicy policy = handler.handleRequest(proxy, RESOURCE_HANDLER_REQUEST, new CallbackContext(), proxyClient, logger)
+                .getResourceModel().getFirewallPolicy();
+        policy.getStatelessDefaultActions().add("aws:drop");
+        policy.getStatelessCustomActions().iterator().next().getActionDefinition().getPublishMetricAction()
+                .getDimensions().clear();
+        policy.getStatelessRuleGroupReferences().iterator().next().setPriority(2);
+        policy.setStatefulRuleGroupReferences(null);
+
+        assertThat(handler.handleRequest(proxy, RESOURCE_HANDLER_REQUEST, new CallbackContext(), proxyClient, logger)
+                .getResourceModel()).isEqualTo(DESCRIBE_FIREWALL_POLICY_RESPONSE_RESOURCE_MODEL);
+        assertThat(Translator.copyPolicy(null)).isNull();
+    }
+
     @Test
     public void testInvalidRequestException() {
         when(proxyClient.injectCredentialsAndInvokeV2(DESCRIBE_FIREWALL_POLICY_REQUEST, networkFirewallClient::describeFirewallPolicy))
@@ -0,0 +1,251 @@
+package software.amazon.networkfirewall.firewallpolicy;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import software.amazon.awssdk.services.networkfirewall.NetworkFirewallAsyncClient;
+import software.amazon.awssdk.services.networkfirewall.NetworkFirewallClient;
+import software.amazon.awssdk.services.networkfirewall.model.DescribeRuleGroupRequest;
+import software.amazon.awssdk.services.networkfirewall.model.DescribeRuleGroupResponse;
+import software.amazon.awssdk.services.networkfirewall.model.ResourceNotFoundException;
+import software.amazon.awssdk.services.networkfirewall.model.RuleGroupResponse;
+import software.amazon.awssdk.services.networkfirewall.model.RuleGroupType;
+import software.amazon.awssdk.services.networkfirewall.model.ThrottlingException;
+import software.amazon.cloudformation.exceptions.CfnInvalidRequestException;
+import software.amazon.cloudformation.exceptions.CfnThrottlingException;
+import software.amazon.cloudformation.proxy.AmazonWebServicesClientProxy;
+import software.amazon.cloudformation.proxy.ProxyClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class RuleGroupReferenceValidatorTest extends AbstractTestBase {
+    private static final String STATELESS_ARN_1 = "arn:aws:network-firewall:us-east-1:123456789012:stateless-rulegroup/Stateless1";
+    private static final String STATELESS_ARN_2 = "arn:aws:network-firewall:us-east-1:123456789012:stateless-rulegroup/Stateless2";
+    private static final String STATEFUL_ARN_1 = "arn:aws:network-firewall:us-east-1:123456789012:stateful-rulegroup/Stateful1";
+    private static final String STATEFUL_ARN_2 = "arn:aws:network-firewall:us-east-1:123456789012:stateful-rulegroup/Stateful2";
+    private static final String MISSING_ARN = "arn:aws:network-firewall:us-east-1:123456789012:stateful-rulegroup/Missing";
+
+    private AmazonWebServicesClientProxy proxy;
+    private NetworkFirewallClient networkFirewallClient;
+    private ProxyClient<NetworkFirewallClient> proxyClient;
+    private Map<String, RuleGroupResponse> ruleGroups;
+
+    @BeforeEach
+    public void setup() {
+        proxy = new AmazonWebServicesClientProxy(logger, MOCK_CREDENTIALS, () -> Duration.ofSeconds(600).toMillis());
+        networkFirewallClient = mock(NetworkFirewallClient.class);
+        proxyClient = MOCK_PROXY(proxy, networkFirewallClient);
+
+        ruleGroups = new HashMap<>();
+        ruleGroups.put(STATELESS_ARN_1, ruleGroup(STATELESS_ARN_1, RuleGroupType.STATELESS, 100));
+        ruleGroups.put(STATELESS_ARN_2, ruleGroup(STATELESS_ARN_2, RuleGroupType.STATELESS, 200));
+        ruleGroups.put(STATEFUL_ARN_1, ruleGroup(STATEFUL_ARN_1, RuleGroupType.STATEFUL, 1000));
+        ruleGroups.put(STATEFUL_ARN_2, ruleGroup(STATEFUL_ARN_2, RuleGroupType.STATEFUL, 2000));
+    }
+
+    @AfterEach
+    public void tear_down() {
+        verifyNoMoreInteractions(networkFirewallClient);
+    }
+
+    @Test
+    public void testValidReferences() {
+        stubDescribeRuleGroup();
+
+        new RuleGroupReferenceValidator(proxyClient, 2).validate(policy(
+                new HashSet<>(Arrays.asList(stateless(STATELESS_ARN_1, 1), stateless(STATELESS_ARN_2, 2))),
+                new HashSet<>(Arrays.asList(stateful(STATEFUL_ARN_1), stateful(STATEFUL_ARN_2)))));
+
+        verify(networkFirewallClient, times(4)).describeRuleGroup(any(DescribeRuleGroupRequest.class));
+    }
+
+    @Test
+    public void testNoReferences() {
+        new RuleGroupReferenceValidator(proxyClient, 2).validate(policy(null, null));
+        new RuleGroupReferenceValidator(proxyClient, 2).validate(null);
+
+        verify(networkFirewallClient, never()).describeRuleGroup(any(DescribeRuleGroupRequest.class));
+    }
+
+    @Test
+    public void testAllProblemsReportedTogether() {
+        stubDescribeRuleGroup();
+
+        final CfnInvalidRequestException exception = assertThrows(CfnInvalidRequestException.class, () ->
+                new RuleGroupReferenceValidator(proxyClient, 4).validate(policy(
+                        new HashSet<>(Arrays.asList(stateless(STATELESS_ARN_1, 1), stateless(STATELESS_ARN_2, 1),
+                                stateless(STATEFUL_ARN_1, 2))),
+                        new HashSet<>(Arrays.asList(stateful(STATEFUL_ARN_2), stateful(MISSING_ARN))))));
+
+        assertThat(exception.getMessage())
+                .contains("stateless priority 1 is used by more than one rule group")
+                .contains(STATEFUL_ARN_1 + " is STATEFUL but is referenced as STATELESS")
+                .contains(MISSING_ARN + " does not exist");
+        // every referenced rule group is described exactly once, in a single round
+        verify(networkFirewallClient, times(5)).describeRuleGroup(any(DescribeRuleGroupRequest.class));
+    }
+
+    @Test
+    public void testCapacityExceeded() {
+        ruleGroups.put(STATEFUL_ARN_1, ruleGroup(STATEFUL_ARN_1, RuleGroupType.STATEFUL, 20000));
+        ruleGroups.put(STATEFUL_ARN_2, ruleGroup(STATEFUL_ARN_2, RuleGroupType.STATEFUL, 15000));
+        stubDescribeRuleGroup();
+
+        final CfnInvalidRequestException exception = assertThrows(CfnInvalidRequestException.class, () ->
+                new RuleGroupReferenceValidator(proxyClient, 2).validate(policy(
+                        null, new HashSet<>(Arrays.asList(stateful(STATEFUL_ARN_1), stateful(STATEFUL_ARN_2))))));
+
+        assertThat(exception.getMessage()).contains("STATEFUL rule groups use 35000 capacity which exceeds the limit of 30000");
+        verify(networkFirewallClient, times(2)).describeRuleGroup(any(DescribeRuleGroupRequest.class));
+    }
+
+    @Test
+    public void testServiceErrorIsTranslated() {
+        when(networkFirewallClient.describeRuleGroup(any(DescribeRuleGroupRequest.class))).thenThrow(ThrottlingException.class);
+
+        assertThrows(CfnThrottlingException.class, () ->
+                new RuleGroupReferenceValidator(proxyClient, 2).validate(policy(
+                        new HashSet<>(Arrays.asList(stateless(STATELESS_ARN_1, 1))), null)));
+
+        verify(networkFirewallClient, times(1)).describeRuleGroup(any(DescribeRuleGroupRequest.class));
+    }
+
+    @Test
+    public void testParallelismIsBounded() {
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger maxInFlight = new AtomicInteger();
+        when(networkFirewallClient.describeRuleGroup(any(DescribeRuleGroupRequest.class))).thenAnswer(invocation -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            Thread.sleep(20);
+            inFlight.decrementAndGet();
+            final DescribeRuleGroupRequest request = invocation.getArgument(0);
+            return DescribeRuleGroupResponse.builder().ruleGroupResponse(ruleGroups.get(request.ruleGroupArn())).build();
+        });
+
+        new RuleGroupReferenceValidator(proxyClient, 2).validate(policy(
+                new HashSet<>(Arrays.asList(stateless(STATELESS_ARN_1, 1), stateless(STATELESS_ARN_2, 2))),
+                new HashSet<>(Arrays.asList(stateful(STATEFUL_ARN_1), stateful(STATEFUL_ARN_2)))));
+
+        assertThat(maxInFlight.get()).isLessThanOrEqualTo(2);
+        verify(networkFirewallClient, times(4)).describeRuleGroup(any(DescribeRuleGroupRequest.class));
+    }
+
+    @Test
+    public void testParallelismIsBoundedOnVirtualThreads() {
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger maxInFlight = new AtomicInteger();
+        when(networkFirewallClient.describeRuleGroup(any(DescribeRuleGroupRequest.class))).thenAnswer(invocation -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            Thread.sleep(20);
+            inFlight.decrementAndGet();
+            final DescribeRuleGroupRequest request = invocation.getArgument(0);
+            return DescribeRuleGroupResponse.builder().ruleGroupResponse(ruleGroups.get(request.ruleGroupArn())).build();
+        });
+
+        // on a runtime without virtual threads the option falls back to the platform pool
+        new RuleGroupReferenceValidator(proxyClient, null, 2, true).validate(policy(
+                new HashSet<>(Arrays.asList(stateless(STATELESS_ARN_1, 1), stateless(STATELESS_ARN_2, 2))),
+                new HashSet<>(Arrays.asList(stateful(STATEFUL_ARN_1), stateful(STATEFUL_ARN_2)))));
+
+        assertThat(maxInFlight.get()).isLessThanOrEqualTo(2);
+        verify(networkFirewallClient, times(4)).describeRuleGroup(any(DescribeRuleGroupRequest.class));
+    }
+
+    @Test
+    public void testAllProblemsReportedTogetherThroughTheAsyncClient() {
+        final NetworkFirewallAsyncClient asyncClient = mock(NetworkFirewallAsyncClient.class);
+        when(asyncClient.describeRuleGroup(any(DescribeRuleGroupRequest.class))).thenAnswer(invocation -> {
+            final DescribeRuleGroupRequest request = invocation.getArgument(0);
+            final RuleGroupResponse ruleGroup = ruleGroups.get(request.ruleGroupArn());
+            if (ruleGroup == null) {
+                return failed(ResourceNotFoundException.builder().message("not found").build());
+            }
+            return CompletableFuture.completedFuture(DescribeRuleGroupResponse.builder().ruleGroupResponse(ruleGroup).build());
+        });
+
+        final CfnInvalidRequestException exception = assertThrows(CfnInvalidRequestException.class, () ->
+                new RuleGroupReferenceValidator(proxyClient, proxy.newProxy(() -> asyncClient), 2).validate(policy(
+                        new HashSet<>(Arrays.asList(stateless(STATELESS_ARN_1, 1), stateless(STATEFUL_ARN_1, 2))),
+                        new HashSet<>(Arrays.asList(stateful(STATEFUL_ARN_2), stateful(MISSING_ARN))))));
+
+        assertThat(exception.getMessage())
+                .contains(STATEFUL_ARN_1 + " is STATEFUL but is referenced as STATELESS")
+                .contains(MISSING_ARN + " does not exist");
+        // the round went through the async client only
+        verify(asyncClient, times(4)).describeRuleGroup(any(DescribeRuleGroupRequest.class));
+    }
+
+    @Test
+    public void testAsyncServiceErrorIsTranslated() {
+        final NetworkFirewallAsyncClient asyncClient = mock(NetworkFirewallAsyncClient.class);
+        when(asyncClient.describeRuleGroup(any(DescribeRuleGroupRequest.class)))
+                .thenReturn(failed(ThrottlingException.builder().message("slow down").build()));
+
+        assertThrows(CfnThrottlingException.class, () ->
+                new RuleGroupReferenceValidator(proxyClient, proxy.newProxy(() -> asyncClient), 2).validate(policy(
+                        new HashSet<>(Arrays.asList(stateless(STATELESS_ARN_1, 1))), null)));
+
+        verify(asyncClient, times(1)).describeRuleGroup(any(DescribeRuleGroupRequest.class));
+    }
+
+    private static CompletableFuture<DescribeRuleGroupResponse> failed(final RuntimeException e) {
+        final CompletableFuture<DescribeRuleGroupResponse> future = new CompletableFuture<>();
+        future.completeExceptionally(e);
+        return future;
+    }
+
+    private void stubDescribeRuleGroup() {
+        when(networkFirewallClient.describeRuleGroup(any(DescribeRuleGroupRequest.class))).thenAnswer(invocation -> {
+            final DescribeRuleGroupRequest request = invocation.getArgument(0);
+            final RuleGroupResponse ruleGroup = ruleGroups.get(request.ruleGroupArn());
+            if (ruleGroup == null) {
+                throw ResourceNotFoundException.builder().message("not found").build();
+            }
+            return DescribeRuleGroupResponse.builder().ruleGroupResponse(ruleGroup).build();
+        });
+    }
+
+    private static RuleGroupResponse ruleGroup(final String arn, final RuleGroupType type, final int capacity) {
+        return RuleGroupResponse.builder()
+                .ruleGroupArn(arn)
+                .type(type)
+                .capacity(capacity)
+                .build();
+    }
+
+    private static StatelessRuleGroupReference stateless(final String arn, final int priority) {
+        return StatelessRuleGroupReference.builder().resourceArn(arn).priority(priority).build();
+    }
+
+    private static StatefulRuleGroupReference stateful(final String arn) {
+        return StatefulRuleGroupReference.builder().resourceArn(arn).build();
+    }
+
+    private static FirewallPolicy policy(final Set<StatelessRuleGroupReference> stateless,
+                                         final Set<StatefulRuleGroupReference> stateful) {
+        return FirewallPolicy.builder()
+                .statelessRuleGroupReferences(stateless)
+                .statefulRuleGroupReferences(stateful)
+                .build();
+    }
+}
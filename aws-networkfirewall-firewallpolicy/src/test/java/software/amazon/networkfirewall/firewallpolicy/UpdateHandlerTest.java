@@ -1,7 +1,11 @@
 package software.amazon.networkfirewall.firewallpolicy;
 
+import java.io.IOException;
 import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicLong;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import software.amazon.awssdk.services.networkfirewall.NetworkFirewallClient;
 import software.amazon.awssdk.services.networkfirewall.model.*;
 import software.amazon.awssdk.services.networkfirewall.model.ResourceNotFoundException;
@@ -10,6 +14,8 @@ import software.amazon.cloudformation.proxy.AmazonWebServicesClientProxy;
 import software.amazon.cloudformation.proxy.OperationStatus;
 import software.amazon.cloudformation.proxy.ProgressEvent;
 import software.amazon.cloudformation.proxy.ProxyClient;
+import software.amazon.cloudformation.resource.Serializer;
+import software.amazon.networkfirewall.common.Deadline;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -18,6 +24,7 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.*;
 import static org.mockito.Mockito.when;
@@ -62,6 +69,41 @@ public class UpdateHandlerTest extends AbstractTestBase {
                 networkFirewallClient::describeFirewallPolicy)
         ).thenReturn(DESCRIBE_FIREWALL_POLICY_RESPONSE);
 
+        final ProgressEvent<ResourceModel, CallbackContext> response = handler.handleRequest(
+                proxy,
+                RESOURCE_HANDLER_REQUEST,
+                new CallbackContext(), proxyClient, logger
+        );
+
+        assertThat(response).isNotNull();
+        assertThat(response.getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        assertThat(response.getCallbackDelaySeconds()).isEqualTo(0);
+        assertThat(response.getResourceModel()).isEqualTo(UPDATE_FIREWALL_POLICY_RESPONSE_RESOURCE);
+        assertThat(response.getResourceModels()).isNull();
+        assertThat(response.getMessage()).isNull();
+        assertThat(response.getErrorCode()).isNull();
+        // the policy already has the desired tags, so none are sent
+        verify(networkFirewallClient, never()).tagResource(any(TagResourceRequest.class));
+        verify(networkFirewallClient, never()).untagResource(any(UntagResourceRequest.class));
+    }
+
+    @Test
+    public void testReconcilesTagsAgainstLiveTags() {
+        final DescribeFirewallPolicyResponse staleTags = DESCRIBE_FIREWALL_POLICY_RESPONSE.toBuilder()
+                .firewallPolicyResponse(DESCRIBE_FIREWALL_POLICY_RESPONSE.firewallPolicyResponse().toBuilder()
+                        .tags(software.amazon.awssdk.services.networkfirewall.model.Tag.builder().key("key2").build())
+                        .build())
+                .build();
+        when(proxyClient.injectCredentialsAndInvokeV2(
+                UPDATE_FIREWALL_POLICY_REQUEST,
+                networkFirewallClient::updateFirewallPolicy)
+        ).thenReturn(UPDATE_FIREWALL_POLICY_RESPONSE);
+
+        when(proxyClient.injectCredentialsAndInvokeV2(
+                DESCRIBE_FIREWALL_POLICY_REQUEST,
+                networkFirewallClient::describeFirewallPolicy)
+        ).thenReturn(staleTags);
+
         when(proxyClient.injectCredentialsAndInvokeV2(
                 TAG_RESOURCE_REQUEST,
                 networkFirewallClient::tagResource)
@@ -78,13 +120,170 @@ public class UpdateHandlerTest extends AbstractTestBase {
                 new CallbackContext(), proxyClient, logger
         );
 
+        assertThat(response.getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        verify(networkFirewallClient).untagResource(
+                argThat((UntagResourceRequest request) -> request.tagKeys().equals(UNTAG_RESOURCE_REQUEST.tagKeys())));
+        verify(networkFirewallClient).tagResource(
+                argThat((TagResourceRequest request) -> request.tags().equals(TAG_RESOURCE_REQUEST.tags())));
+    }
+
+    @Test
+    public void testCallbackReconcilesTagsAgainstTheDescribedPolicy() throws IOException {
+        final DescribeFirewallPolicyResponse staleTags = DESCRIBE_FIREWALL_POLICY_RESPONSE.toBuilder()
+                .firewallPolicyResponse(DESCRIBE_FIREWALL_POLICY_RESPONSE.firewallPolicyResponse().toBuilder()
+                        .tags(software.amazon.awssdk.services.networkfirewall.model.Tag.builder().key("key2").value("value2").build())
+                        .build())
+                .build();
+        final AtomicLong nanos = new AtomicLong();
+        when(proxyClient.injectCredentialsAndInvokeV2(
+                UPDATE_FIREWALL_POLICY_REQUEST,
+                networkFirewallClient::updateFirewallPolicy)
+        ).thenAnswer(invocation -> {
+            nanos.addAndGet(Duration.ofSeconds(10).toNanos());
+            return UPDATE_FIREWALL_POLICY_RESPONSE;
+        });
+
+        when(proxyClient.injectCredentialsAndInvokeV2(
+                DESCRIBE_FIREWALL_POLICY_REQUEST,
+                networkFirewallClient::describeFirewallPolicy)
+        ).thenReturn(staleTags);
+
+        when(proxyClient.injectCredentialsAndInvokeV2(
+                TAG_RESOURCE_REQUEST,
+                networkFirewallClient::tagResource)
+        ).thenReturn(TAG_RESOURCE_RESPONSE);
+
+        when(proxyClient.injectCredentialsAndInvokeV2(
+                UNTAG_RESOURCE_REQUEST,
+                networkFirewallClient::untagResource)
+        ).thenReturn(UNTAG_RESOURCE_RESPONSE);
+
+        // the update leaves no time for the tags, which are left to a callback
+        final CallbackContext context = new CallbackContext();
+        context.setDeadline(Deadline.after(Duration.ofSeconds(15), nanos::get));
+        final ProgressEvent<ResourceModel, CallbackContext> inProgress = handler.handleRequest(
+                proxy,
+                RESOURCE_HANDLER_REQUEST,
+                context, proxyClient, logger
+        );
+        assertThat(inProgress.getStatus()).isEqualTo(OperationStatus.IN_PROGRESS);
+        verify(networkFirewallClient, never()).tagResource(any(TagResourceRequest.class));
+
+        // the callback gets the context as CloudFormation hands it back, with the tags the policy was described with
+        final Serializer serializer = new Serializer();
+        final CallbackContext callbackContext = serializer.deserialize(serializer.serialize(inProgress.getCallbackContext()),
+                new TypeReference<CallbackContext>() {});
+        assertThat(callbackContext.getLiveTags()).containsOnly(entry("key2", "value2"));
+        final ProgressEvent<ResourceModel, CallbackContext> response = handler.handleRequest(
+                proxy,
+                RESOURCE_HANDLER_REQUEST,
+                callbackContext, proxyClient, logger
+        );
+
+        assertThat(response.getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        verify(networkFirewallClient).updateFirewallPolicy(any(UpdateFirewallPolicyRequest.class));
+        verify(networkFirewallClient).untagResource(
+                argThat((UntagResourceRequest request) -> request.tagKeys().equals(UNTAG_RESOURCE_REQUEST.tagKeys())));
+        verify(networkFirewallClient).tagResource(
+                argThat((TagResourceRequest request) -> request.tags().equals(TAG_RESOURCE_REQUEST.tags())));
+    }
+
+    @Test
+    public void testDryRunPreflightSuccessState() {
+        handler = new UpdateHandler(HandlerOptions.builder().dryRunPreflight(true).build());
+        final UpdateFirewallPolicyRequest dryRunRequest = UPDATE_FIREWALL_POLICY_REQUEST.toBuilder().dryRun(true).build();
+
+        when(proxyClient.injectCredentialsAndInvokeV2(dryRunRequest, networkFirewallClient::updateFirewallPolicy))
+                .thenReturn(UPDATE_FIREWALL_POLICY_RESPONSE);
+
+        when(proxyClient.injectCredentialsAndInvokeV2(
+                UPDATE_FIREWALL_POLICY_REQUEST,
+                networkFirewallClient::updateFirewallPolicy)
+        ).thenReturn(UPDATE_FIREWALL_POLICY_RESPONSE);
+
+        when(proxyClient.injectCredentialsAndInvokeV2(
+                DESCRIBE_FIREWALL_POLICY_REQUEST,
+                networkFirewallClient::describeFirewallPolicy)
+        ).thenReturn(DESCRIBE_FIREWALL_POLICY_RESPONSE);
+
+        final ProgressEvent<ResourceModel, CallbackContext> response = handler.handleRequest(
+                proxy,
+                RESOURCE_HANDLER_REQUEST,
+                new CallbackContext(), proxyClient, logger
+        );
+
+        // one DryRun call followed by the real update
+        verify(networkFirewallClient, times(2)).updateFirewallPolicy(any(UpdateFirewallPolicyRequest.class));
         assertThat(response).isNotNull();
         assertThat(response.getStatus()).isEqualTo(OperationStatus.SUCCESS);
-        assertThat(response.getCallbackDelaySeconds()).isEqualTo(0);
         assertThat(response.getResourceModel()).isEqualTo(UPDATE_FIREWALL_POLICY_RESPONSE_RESOURCE);
-        assertThat(response.getResourceModels()).isNull();
-        assertThat(response.getMessage()).isNull();
-        assertThat(response.getErrorCode()).isNull();
+    }
+
+    @Test
+    public void testPropagationWaitSuccessState() {
+        handler = new UpdateHandler(HandlerOptions.builder().propagationWait(true).build());
+        final String policyArn = UPDATE_FIREWALL_POLICY_RESPONSE.firewallPolicyResponse().firewallPolicyArn();
+        final String firewallArn = "arn:aws:network-firewall:us-east-1:123456789012:firewall/uses-the-policy";
+
+        when(proxyClient.injectCredentialsAndInvokeV2(
+                UPDATE_FIREWALL_POLICY_REQUEST,
+                networkFirewallClient::updateFirewallPolicy)
+        ).thenReturn(UPDATE_FIREWALL_POLICY_RESPONSE.toBuilder().updateToken("updated").build());
+
+        when(proxyClient.injectCredentialsAndInvokeV2(
+                DESCRIBE_FIREWALL_POLICY_REQUEST,
+                networkFirewallClient::describeFirewallPolicy)
+        ).thenReturn(DESCRIBE_FIREWALL_POLICY_RESPONSE);
+
+        when(networkFirewallClient.listFirewalls(any(ListFirewallsRequest.class))).thenReturn(ListFirewallsResponse.builder()
+                .firewalls(FirewallMetadata.builder().firewallArn(firewallArn).build())
+                .build());
+        when(networkFirewallClient.describeFirewall(any(DescribeFirewallRequest.class))).thenReturn(DescribeFirewallResponse.builder()
+                .firewallStatus(FirewallStatus.builder()
+                        .syncStates(Collections.singletonMap("us-east-1a", SyncState.builder()
+                                .config(Collections.singletonMap(policyArn, PerObjectStatus.builder()
+                                        .syncStatus(PerObjectSyncStatus.IN_SYNC)
+                                        .updateToken("updated")
+                                        .build()))
+                                .build()))
+                        .build())
+                .build());
+
+        final CallbackContext context = new CallbackContext();
+        final ProgressEvent<ResourceModel, CallbackContext> response = handler.handleRequest(
+                proxy,
+                RESOURCE_HANDLER_REQUEST,
+                context, proxyClient, logger
+        );
+
+        assertThat(response).isNotNull();
+        assertThat(response.getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        assertThat(response.getResourceModel()).isEqualTo(UPDATE_FIREWALL_POLICY_RESPONSE_RESOURCE);
+        // the policy has reached the firewall that uses it, and the wait is over
+        assertThat(context.getPropagatedFirewalls()).containsOnlyKeys(firewallArn);
+        assertThat(context.getPropagationStartedAt()).isNull();
+        verify(networkFirewallClient).listFirewalls(any(ListFirewallsRequest.class));
+        verify(networkFirewallClient).describeFirewall(any(DescribeFirewallRequest.class));
+    }
+
+    @Test
+    void testDryRunPreflightFailure() {
+        handler = new UpdateHandler(HandlerOptions.builder().dryRunPreflight(true).build());
+        final UpdateFirewallPolicyRequest dryRunRequest = UPDATE_FIREWALL_POLICY_REQUEST.toBuilder().dryRun(true).build();
+
+        when(proxyClient.injectCredentialsAndInvokeV2(
+                DESCRIBE_FIREWALL_POLICY_REQUEST,
+                networkFirewallClient::describeFirewallPolicy)
+        ).thenReturn(DESCRIBE_FIREWALL_POLICY_RESPONSE);
+
+        when(proxyClient.injectCredentialsAndInvokeV2(dryRunRequest, networkFirewallClient::updateFirewallPolicy))
+                .thenThrow(InvalidRequestException.class);
+
+        assertThrows(CfnInvalidRequestException.class, () ->
+                handler.handleRequest(proxy, RESOURCE_HANDLER_REQUEST, new CallbackContext(), proxyClient, logger));
+
+        // the real update is never attempted when the pre-flight fails
+        verify(networkFirewallClient, times(1)).updateFirewallPolicy(any(UpdateFirewallPolicyRequest.class));
     }
 
     @Test
@@ -0,0 +1,28 @@
+package software.amazon.networkfirewall.loadtest;
+
+import lombok.Value;
+import software.amazon.cloudformation.proxy.HandlerErrorCode;
+import software.amazon.cloudformation.proxy.OperationStatus;
+
+import java.time.Duration;
+
+/**
+ * How a handler ran to completion: its last event, how often it was invoked and how long it took
+ * from the first invocation to the last one returning, callback delays included.
+ */
+@Value
+public class Completion<M> {
+    M model;
+    OperationStatus status;
+    HandlerErrorCode errorCode;
+    String message;
+    // invocations including callback re-invocations and retries
+    int invocations;
+    // invocations caused by a retriable failure rather than by IN_PROGRESS
+    int retries;
+    Duration latency;
+
+    public boolean isSuccess() {
+        return status == OperationStatus.SUCCESS;
+    }
+}
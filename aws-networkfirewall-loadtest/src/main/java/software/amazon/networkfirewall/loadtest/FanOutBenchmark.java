@@ -0,0 +1,174 @@
+package software.amazon.networkfirewall.loadtest;
+
+import lombok.Value;
+import software.amazon.awssdk.services.networkfirewall.model.CreateRuleGroupRequest;
+import software.amazon.awssdk.services.networkfirewall.model.DescribeRuleGroupRequest;
+import software.amazon.awssdk.services.networkfirewall.model.RuleGroupType;
+import software.amazon.networkfirewall.common.FanOutExecutors;
+import software.amazon.networkfirewall.common.InvocationOptions;
+import software.amazon.networkfirewall.testing.InMemoryNetworkFirewallClient;
+import software.amazon.networkfirewall.testing.ServiceBehavior;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Compares the fan-out executor of the handlers on platform threads and on virtual threads: thousands of
+ * DescribeRuleGroup calls against the in-memory service, each waiting out the latency of the service, with at
+ * most the parallelism of them in flight. Each executor describes the rule groups once to warm up and once
+ * measured, and reports the wall time, the calls per second, the p50 and p99 latency of a call from its
+ * submission and the peak of live platform threads.
+ *
+ * Virtual threads need a Java 21 JVM; on an older one only platform threads are measured.
+ */
+public class FanOutBenchmark {
+    static final String DESCRIBES = "NETWORKFIREWALL_FANOUT_DESCRIBES";
+    static final String PARALLELISM = "NETWORKFIREWALL_FANOUT_PARALLELISM";
+    static final String LATENCY_MILLIS = "NETWORKFIREWALL_FANOUT_LATENCY_MILLIS";
+    static final int RULE_GROUPS = 100;
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private final InMemoryNetworkFirewallClient client;
+    private final int describes;
+    private final int parallelism;
+    private final List<String> ruleGroupArns = new ArrayList<>();
+
+    public FanOutBenchmark(final InMemoryNetworkFirewallClient client, final int describes, final int parallelism) {
+        this.client = client;
+        this.describes = describes;
+        this.parallelism = parallelism;
+    }
+
+    public static void main(final String[] args) {
+        final Duration latency =
+                Duration.ofMillis(InvocationOptions.positiveIntOrDefault(System.getenv(LATENCY_MILLIS), 50));
+        final InMemoryNetworkFirewallClient client =
+                new InMemoryNetworkFirewallClient(ServiceBehavior.builder().latency(latency).build());
+        final List<Result> results = new FanOutBenchmark(client,
+                InvocationOptions.positiveIntOrDefault(System.getenv(DESCRIBES), 5000),
+                InvocationOptions.positiveIntOrDefault(System.getenv(PARALLELISM), 1000)).run();
+        System.out.print(format(results));
+        if (!FanOutExecutors.virtualThreadsAvailable()) {
+            System.out.printf("%nVirtual threads need Java 21, this JVM is %s%n", System.getProperty("java.version"));
+        }
+    }
+
+    public List<Result> run() {
+        createRuleGroups();
+        final List<Result> results = new ArrayList<>();
+        results.add(measure("platform", false));
+        if (FanOutExecutors.virtualThreadsAvailable()) {
+            results.add(measure("virtual", true));
+        }
+        return results;
+    }
+
+    private Result measure(final String threads, final boolean virtualThreads) {
+        describeAll(virtualThreads);
+        THREADS.resetPeakThreadCount();
+        final long start = System.nanoTime();
+        final List<Duration> latencies = describeAll(virtualThreads);
+        final Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+        Collections.sort(latencies);
+        return new Result(threads, describes, parallelism, elapsed, LoadReport.percentile(latencies, 0.5),
+                LoadReport.percentile(latencies, 0.99), THREADS.getPeakThreadCount());
+    }
+
+    // the latency of every call, from its submission to the response
+    private List<Duration> describeAll(final boolean virtualThreads) {
+        final ExecutorService executor = FanOutExecutors.newExecutor("fan-out-benchmark", parallelism, virtualThreads);
+        try {
+            final List<Future<Duration>> pending = new ArrayList<>();
+            for (int i = 0; i < describes; i++) {
+                final DescribeRuleGroupRequest request = DescribeRuleGroupRequest.builder()
+                        .ruleGroupArn(ruleGroupArns.get(i % ruleGroupArns.size()))
+                        .build();
+                final long submitted = System.nanoTime();
+                pending.add(executor.submit(() -> {
+                    client.describeRuleGroup(request);
+                    return Duration.ofNanos(System.nanoTime() - submitted);
+                }));
+            }
+            final List<Duration> latencies = new ArrayList<>();
+            for (final Future<Duration> future : pending) {
+                latencies.add(await(future));
+            }
+            return latencies;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void createRuleGroups() {
+        final ExecutorService executor = FanOutExecutors.newExecutor("fan-out-benchmark", RULE_GROUPS, false);
+        try {
+            final List<Future<String>> pending = new ArrayList<>();
+            for (int i = 0; i < Math.min(describes, RULE_GROUPS); i++) {
+                final CreateRuleGroupRequest request = CreateRuleGroupRequest.builder()
+                        .ruleGroupName("fan-out-" + i)
+                        .type(RuleGroupType.STATEFUL)
+                        .capacity(100)
+                        .rules("pass ip any any -> any any (sid:1;)")
+                        .build();
+                pending.add(executor.submit(() -> client.createRuleGroup(request).ruleGroupResponse().ruleGroupArn()));
+            }
+            for (final Future<String> future : pending) {
+                ruleGroupArns.add(await(future));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static <T> T await(final Future<T> future) {
+        try {
+            return future.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (final ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    static String format(final List<Result> results) {
+        final StringBuilder report = new StringBuilder();
+        report.append(String.format("%-9s %9s %11s %9s %9s %8s %8s %12s%n",
+                "threads", "describes", "parallelism", "wall ms", "calls/s", "p50 ms", "p99 ms", "peak threads"));
+        for (final Result result : results) {
+            report.append(String.format("%-9s %9d %11d %9d %9.0f %8d %8d %12d%n",
+                    result.getThreads(), result.getDescribes(), result.getParallelism(), result.getElapsed().toMillis(),
+                    result.callsPerSecond(), result.getP50().toMillis(), result.getP99().toMillis(),
+                    result.getPeakThreads()));
+        }
+        if (results.size() == 2 && !results.get(1).getElapsed().isZero()) {
+            report.append(String.format("%n%s threads finish %.1fx faster than %s threads%n",
+                    results.get(1).getThreads(), (double) results.get(0).getElapsed().toNanos()
+                            / results.get(1).getElapsed().toNanos(), results.get(0).getThreads()));
+        }
+        return report.toString();
+    }
+
+    @Value
+    public static class Result {
+        String threads;
+        int describes;
+        int parallelism;
+        Duration elapsed;
+        Duration p50;
+        Duration p99;
+        int peakThreads;
+
+        double callsPerSecond() {
+            return elapsed.isZero() ? 0 : describes * 1e9 / elapsed.toNanos();
+        }
+    }
+}
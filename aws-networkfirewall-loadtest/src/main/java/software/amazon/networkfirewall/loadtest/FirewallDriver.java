@@ -0,0 +1,72 @@
+package software.amazon.networkfirewall.loadtest;
+
+import software.amazon.networkfirewall.firewall.CallbackContext;
+import software.amazon.networkfirewall.firewall.CreateHandler;
+import software.amazon.networkfirewall.firewall.DeleteHandler;
+import software.amazon.networkfirewall.firewall.HandlerOptions;
+import software.amazon.networkfirewall.firewall.ResourceModel;
+import software.amazon.networkfirewall.firewall.SubnetMapping;
+import software.amazon.networkfirewall.firewall.UpdateHandler;
+
+import java.util.HashSet;
+import java.util.Set;
+
+public class FirewallDriver implements ResourceDriver<ResourceModel> {
+    static final String VPC_ID = "vpc-loadtest";
+
+    private final HandlerRunner runner;
+    // one handler per action for every resource of the run, the way the wrapper keeps them
+    private final CreateHandler createHandler;
+    private final UpdateHandler updateHandler;
+    private final DeleteHandler deleteHandler;
+
+    public FirewallDriver(final HandlerRunner runner) {
+        this.runner = runner;
+        final HandlerOptions options = HandlerOptions.builder().invocation(runner.getInvocationOptions()).build();
+        this.createHandler = new CreateHandler(options);
+        this.updateHandler = new UpdateHandler(options);
+        this.deleteHandler = new DeleteHandler(options);
+    }
+
+    @Override
+    public String typeName() {
+        return ResourceModel.TYPE_NAME;
+    }
+
+    // the policy is the only reference, every revision adds a subnet
+    @Override
+    public ResourceModel model(final ResourceSpec spec) {
+        final Set<SubnetMapping> subnets = new HashSet<>();
+        for (int i = 0; i < spec.getSubnets() + spec.getRevision(); i++) {
+            subnets.add(SubnetMapping.builder().subnetId(String.format("subnet-%s-%d", spec.getName(), i)).build());
+        }
+        return ResourceModel.builder()
+                .firewallName(spec.getName())
+                .firewallArn(spec.getArn())
+                .firewallPolicyArn(spec.getReferences().isEmpty() ? null : spec.getReferences().get(0))
+                .vpcId(VPC_ID)
+                .subnetMappings(subnets)
+                .description("revision " + spec.getRevision())
+                .build();
+    }
+
+    @Override
+    public String arn(final ResourceModel model) {
+        return model.getFirewallArn();
+    }
+
+    @Override
+    public Completion<ResourceModel> create(final ResourceModel desired) {
+        return runner.run(createHandler::handleRequest, runner.request(desired, null), CallbackContext.class);
+    }
+
+    @Override
+    public Completion<ResourceModel> update(final ResourceModel previous, final ResourceModel desired) {
+        return runner.run(updateHandler::handleRequest, runner.request(desired, previous), CallbackContext.class);
+    }
+
+    @Override
+    public Completion<ResourceModel> delete(final ResourceModel current) {
+        return runner.run(deleteHandler::handleRequest, runner.request(current, null), CallbackContext.class);
+    }
+}
@@ -0,0 +1,81 @@
+package software.amazon.networkfirewall.loadtest;
+
+import software.amazon.networkfirewall.firewallpolicy.CallbackContext;
+import software.amazon.networkfirewall.firewallpolicy.CreateHandler;
+import software.amazon.networkfirewall.firewallpolicy.DeleteHandler;
+import software.amazon.networkfirewall.firewallpolicy.HandlerOptions;
+import software.amazon.networkfirewall.firewallpolicy.FirewallPolicy;
+import software.amazon.networkfirewall.firewallpolicy.ResourceModel;
+import software.amazon.networkfirewall.firewallpolicy.StatefulRuleGroupReference;
+import software.amazon.networkfirewall.firewallpolicy.StatelessRuleGroupReference;
+import software.amazon.networkfirewall.firewallpolicy.UpdateHandler;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+public class FirewallPolicyDriver implements ResourceDriver<ResourceModel> {
+    private final HandlerRunner runner;
+    // one handler per action for every resource of the run, the way the wrapper keeps them
+    private final CreateHandler createHandler;
+    private final UpdateHandler updateHandler;
+    private final DeleteHandler deleteHandler;
+
+    public FirewallPolicyDriver(final HandlerRunner runner) {
+        this.runner = runner;
+        final HandlerOptions options = HandlerOptions.builder().invocation(runner.getInvocationOptions()).build();
+        this.createHandler = new CreateHandler(options);
+        this.updateHandler = new UpdateHandler(options);
+        this.deleteHandler = new DeleteHandler(options);
+    }
+
+    @Override
+    public String typeName() {
+        return ResourceModel.TYPE_NAME;
+    }
+
+    // references are rule group ARNs, stateless ones get ascending priorities
+    @Override
+    public ResourceModel model(final ResourceSpec spec) {
+        final Set<StatelessRuleGroupReference> stateless = new HashSet<>();
+        final Set<StatefulRuleGroupReference> stateful = new HashSet<>();
+        for (final String arn : spec.getReferences()) {
+            if (arn.contains(":stateless-rulegroup/")) {
+                stateless.add(StatelessRuleGroupReference.builder().resourceArn(arn).priority(stateless.size() + 1).build());
+            } else {
+                stateful.add(StatefulRuleGroupReference.builder().resourceArn(arn).build());
+            }
+        }
+        return ResourceModel.builder()
+                .firewallPolicyName(spec.getName())
+                .firewallPolicyArn(spec.getArn())
+                .description("revision " + spec.getRevision())
+                .firewallPolicy(FirewallPolicy.builder()
+                        .statelessDefaultActions(Collections.singleton("aws:forward_to_sfe"))
+                        .statelessFragmentDefaultActions(Collections.singleton("aws:forward_to_sfe"))
+                        .statelessRuleGroupReferences(stateless.isEmpty() ? null : stateless)
+                        .statefulRuleGroupReferences(stateful.isEmpty() ? null : stateful)
+                        .build())
+                .build();
+    }
+
+    @Override
+    public String arn(final ResourceModel model) {
+        return model.getFirewallPolicyArn();
+    }
+
+    @Override
+    public Completion<ResourceModel> create(final ResourceModel desired) {
+        return runner.run(createHandler::handleRequest, runner.request(desired, null), CallbackContext.class);
+    }
+
+    @Override
+    public Completion<ResourceModel> update(final ResourceModel previous, final ResourceModel desired) {
+        return runner.run(updateHandler::handleRequest, runner.request(desired, previous), CallbackContext.class);
+    }
+
+    @Override
+    public Completion<ResourceModel> delete(final ResourceModel current) {
+        return runner.run(deleteHandler::handleRequest, runner.request(current, null), CallbackContext.class);
+    }
+}
@@ -0,0 +1,22 @@
+package software.amazon.networkfirewall.loadtest;
+
+import software.amazon.awssdk.services.networkfirewall.NetworkFirewallClient;
+import software.amazon.cloudformation.proxy.AmazonWebServicesClientProxy;
+import software.amazon.cloudformation.proxy.Logger;
+import software.amazon.cloudformation.proxy.ProgressEvent;
+import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+
+import java.util.function.Supplier;
+
+/**
+ * One invocation of a resource handler, the shape of the BaseHandlerStd#handleRequest entry point every module has
+ * for a client of the caller's.
+ */
+@FunctionalInterface
+public interface HandlerInvocation<M, C> {
+    ProgressEvent<M, C> handleRequest(AmazonWebServicesClientProxy proxy,
+                                      ResourceHandlerRequest<M> request,
+                                      C callbackContext,
+                                      Supplier<NetworkFirewallClient> client,
+                                      Logger logger);
+}
@@ -0,0 +1,204 @@
+package software.amazon.networkfirewall.loadtest;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+import software.amazon.awssdk.services.networkfirewall.NetworkFirewallClient;
+import software.amazon.cloudformation.exceptions.BaseHandlerException;
+import software.amazon.cloudformation.proxy.AmazonWebServicesClientProxy;
+import software.amazon.cloudformation.proxy.Credentials;
+import software.amazon.cloudformation.proxy.DelayFactory;
+import software.amazon.cloudformation.proxy.HandlerErrorCode;
+import software.amazon.cloudformation.proxy.Logger;
+import software.amazon.cloudformation.proxy.LoggerProxy;
+import software.amazon.cloudformation.proxy.OperationStatus;
+import software.amazon.cloudformation.proxy.ProgressEvent;
+import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+import software.amazon.cloudformation.proxy.WaitStrategy;
+import software.amazon.cloudformation.resource.Serializer;
+import software.amazon.networkfirewall.common.InvocationOptions;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Type;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Drives a handler the way CloudFormation does: every invocation goes through the handler's entry point
+ * with a fresh proxy and its own time budget, IN_PROGRESS events are re-invoked with their model and
+ * their callback context, which crosses over as JSON, after the callback delay, and failures with a
+ * retriable error code are invoked again. All waits are compressed by the time scale of the load test.
+ */
+public class HandlerRunner {
+    static final String REGION = "us-east-1";
+    static final String ACCOUNT_ID = "123456789012";
+    static final Set<HandlerErrorCode> RETRIABLE_ERROR_CODES = Collections.unmodifiableSet(EnumSet.copyOf(Arrays.asList(
+            HandlerErrorCode.Throttling, HandlerErrorCode.ServiceInternalError, HandlerErrorCode.NetworkFailure)));
+    // CloudFormation gives up on a resource after a while, so does the runner
+    static final int MAX_INVOCATIONS = 1000;
+    private static final Duration DEFAULT_POLL_DELAY = Duration.ofSeconds(5);
+    private static final Duration RETRY_DELAY = Duration.ofSeconds(5);
+
+    private final NetworkFirewallClient client;
+    private final LoadTestOptions options;
+    private final Map<String, String> stackTags;
+    private final Logger logger;
+    private final LoggerProxy loggerProxy = new LoggerProxy();
+    private final Credentials credentials = new Credentials("accessKey", "secretKey", "token");
+    private final Serializer serializer = new Serializer();
+    private final InvocationOptions invocationOptions;
+    // the stack every resource of the run belongs to, the scope its coalesced Describe calls share
+    private final String stackId =
+            "arn:aws:cloudformation:" + REGION + ":" + ACCOUNT_ID + ":stack/loadtest/" + UUID.randomUUID();
+    private final DelayFactory delayFactory = (callGraph, delay) -> delay != null ? delay : attempt -> DEFAULT_POLL_DELAY;
+
+    public HandlerRunner(final NetworkFirewallClient client, final LoadTestOptions options, final Map<String, String> stackTags) {
+        this.client = client;
+        this.options = options;
+        this.stackTags = stackTags;
+        this.logger = options.isVerbose() ? System.out::println : message -> { };
+        // the handlers coalesce Describe calls themselves, and back off for retries on the compressed clock
+        this.invocationOptions = InvocationOptions.builder()
+                .coalesceDescribes(options.isCoalesceDescribes())
+                .retryBaseDelayMillis(scaledMillis(InvocationOptions.DEFAULT_RETRY_BASE_DELAY_MILLIS))
+                .retryMaxDelayMillis(scaledMillis(InvocationOptions.DEFAULT_RETRY_MAX_DELAY_MILLIS))
+                .build();
+    }
+
+    // the options the handlers of the run are constructed with
+    public InvocationOptions getInvocationOptions() {
+        return invocationOptions;
+    }
+
+    public <M> ResourceHandlerRequest<M> request(final M desired, final M previous) {
+        return ResourceHandlerRequest.<M>builder()
+                .clientRequestToken(UUID.randomUUID().toString())
+                .desiredResourceState(desired)
+                .previousResourceState(previous)
+                .desiredResourceTags(stackTags)
+                .previousResourceTags(previous == null ? null : stackTags)
+                .logicalResourceIdentifier("LoadTestResource")
+                .awsAccountId(ACCOUNT_ID)
+                .awsPartition("aws")
+                .region(REGION)
+                .stackId(stackId)
+                .build();
+    }
+
+    public <M, C> Completion<M> run(final HandlerInvocation<M, C> handler, final ResourceHandlerRequest<M> request,
+                                    final Class<C> contextType) {
+        final long start = System.nanoTime();
+        // the first invocation gets no callback context, the handler makes its own
+        C callbackContext = null;
+        int invocations = 0;
+        int retries = 0;
+        while (true) {
+            invocations++;
+            final ProgressEvent<M, C> event = invoke(handler, request, callbackContext);
+            if (event.isInProgress() && invocations < MAX_INVOCATIONS) {
+                callbackContext = roundTrip(event.getCallbackContext() != null ? event.getCallbackContext() : callbackContext,
+                        contextType);
+                if (event.getResourceModel() != null) {
+                    request.setDesiredResourceState(event.getResourceModel());
+                }
+                sleep(options.scaled(Duration.ofSeconds(event.getCallbackDelaySeconds())));
+                continue;
+            }
+            if (event.isFailed() && RETRIABLE_ERROR_CODES.contains(event.getErrorCode())
+                    && retries < options.getMaxHandlerRetries()) {
+                retries++;
+                sleep(options.scaled(RETRY_DELAY.multipliedBy(retries)));
+                continue;
+            }
+            final M model = event.getResourceModel() != null ? event.getResourceModel() : request.getDesiredResourceState();
+            final Duration latency = Duration.ofNanos(System.nanoTime() - start);
+            if (event.isInProgress()) {
+                return new Completion<>(model, OperationStatus.FAILED, HandlerErrorCode.NotStabilized,
+                        "Still in progress after " + invocations + " invocations", invocations, retries, latency);
+            }
+            return new Completion<>(model, event.getStatus(), event.getErrorCode(), event.getMessage(), invocations, retries, latency);
+        }
+    }
+
+    private <M, C> ProgressEvent<M, C> invoke(final HandlerInvocation<M, C> handler, final ResourceHandlerRequest<M> request,
+                                              final C callbackContext) {
+        final AmazonWebServicesClientProxy proxy = new AmazonWebServicesClientProxy(loggerProxy, credentials, delayFactory,
+                new CompressedWaitStrategy(System.nanoTime()));
+        try {
+            return handler.handleRequest(proxy, request, callbackContext, () -> client, logger);
+        } catch (final BaseHandlerException e) {
+            return ProgressEvent.failed(request.getDesiredResourceState(), callbackContext, e.getErrorCode(), e.getMessage());
+        } catch (final AwsServiceException e) {
+            // what the wrapper makes of service exceptions a handler did not translate
+            return ProgressEvent.failed(request.getDesiredResourceState(), callbackContext,
+                    e.isThrottlingException() ? HandlerErrorCode.Throttling : HandlerErrorCode.GeneralServiceException,
+                    e.getMessage());
+        } catch (final RuntimeException e) {
+            return ProgressEvent.failed(request.getDesiredResourceState(), callbackContext, HandlerErrorCode.InternalFailure,
+                    e.toString());
+        }
+    }
+
+    // the callback context as the next invocation gets it, written out and read back the way CloudFormation does
+    private <C> C roundTrip(final C callbackContext, final Class<C> contextType) {
+        if (callbackContext == null) {
+            return null;
+        }
+        try {
+            return serializer.deserialize(serializer.serialize(callbackContext), new TypeReference<C>() {
+                @Override
+                public Type getType() {
+                    return contextType;
+                }
+            });
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Failed to carry the callback context over to the next invocation", e);
+        }
+    }
+
+    private int scaledMillis(final int millis) {
+        return (int) Math.max(1, options.scaled(Duration.ofMillis(millis)).toMillis());
+    }
+
+    /**
+     * Waits locally while the invocation budget allows it and hands back to the runner otherwise, the
+     * way the proxy does in Lambda. Budget and delays stay in service time, so callback delays keep
+     * their whole seconds, and only the sleeps are compressed.
+     */
+    private final class CompressedWaitStrategy implements WaitStrategy {
+        private final long start;
+
+        private CompressedWaitStrategy(final long start) {
+            this.start = start;
+        }
+
+        @Override
+        public <ModelT, CallbackT> ProgressEvent<ModelT, CallbackT> await(final long operationElapsedTime, final Duration nextAttempt,
+                                                                         final CallbackT context, final ModelT model) {
+            final Duration elapsed = Duration.ofNanos((long) ((System.nanoTime() - start) / options.getTimeScale()));
+            final Duration remaining = options.getInvocationBudget().minus(elapsed);
+            if (remaining.compareTo(nextAttempt.multipliedBy(2)) > 0) {
+                sleep(options.scaled(nextAttempt));
+                return null;
+            }
+            return ProgressEvent.defaultInProgressHandler(context, (int) Math.max(1, nextAttempt.getSeconds()), model);
+        }
+    }
+
+    private static void sleep(final Duration duration) {
+        if (duration.isZero() || duration.isNegative()) {
+            return;
+        }
+        try {
+            Thread.sleep(duration.toMillis(), (int) (duration.toNanos() % 1_000_000));
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting to invoke a handler again", e);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package software.amazon.networkfirewall.loadtest;
+
+import lombok.Value;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Results of a load test, one step per operation and resource type in the order they ran.
+ */
+public class LoadReport {
+    private final List<Step> steps = new ArrayList<>();
+    private Map<String, Long> apiCalls = Collections.emptyMap();
+    private Duration elapsed = Duration.ZERO;
+
+    @Value
+    public static class Step {
+        String operation;
+        String resourceType;
+        int resources;
+        int failures;
+        // failures by handler error code
+        Map<String, Integer> errors;
+        int invocations;
+        int retries;
+        Duration elapsed;
+        Duration p50;
+        Duration p99;
+        long apiCalls;
+        long throttles;
+
+        public double throughput() {
+            return elapsed.isZero() ? 0 : resources * 1e9 / elapsed.toNanos();
+        }
+
+        public double apiCallsPerResource() {
+            return resources == 0 ? 0 : (double) apiCalls / resources;
+        }
+    }
+
+    static <M> Step step(final String operation, final String resourceType, final List<Completion<M>> completions,
+                         final Duration elapsed, final long apiCalls, final long throttles) {
+        final List<Duration> latencies = completions.stream()
+                .map(Completion::getLatency)
+                .sorted()
+                .collect(Collectors.toList());
+        final Map<String, Integer> errors = new TreeMap<>();
+        completions.stream()
+                .filter(completion -> !completion.isSuccess())
+                .forEach(completion -> errors.merge(String.valueOf(completion.getErrorCode()), 1, Integer::sum));
+        return new Step(operation, resourceType, completions.size(),
+                errors.values().stream().mapToInt(Integer::intValue).sum(), errors,
+                completions.stream().mapToInt(Completion::getInvocations).sum(),
+                completions.stream().mapToInt(Completion::getRetries).sum(),
+                elapsed, percentile(latencies, 0.5), percentile(latencies, 0.99), apiCalls, throttles);
+    }
+
+    // nearest rank
+    static Duration percentile(final List<Duration> sorted, final double percentile) {
+        if (sorted.isEmpty()) {
+            return Duration.ZERO;
+        }
+        final int rank = (int) Math.ceil(percentile * sorted.size());
+        return sorted.get(Math.max(rank, 1) - 1);
+    }
+
+    void add(final Step step) {
+        steps.add(step);
+    }
+
+    void complete(final Duration elapsed, final Map<String, Long> apiCalls) {
+        this.elapsed = elapsed;
+        this.apiCalls = apiCalls;
+    }
+
+    public List<Step> getSteps() {
+        return Collections.unmodifiableList(steps);
+    }
+
+    public Map<String, Long> getApiCalls() {
+        return apiCalls;
+    }
+
+    public Duration getElapsed() {
+        return elapsed;
+    }
+
+    public int getFailures() {
+        return steps.stream().mapToInt(Step::getFailures).sum();
+    }
+
+    public String format() {
+        final StringBuilder report = new StringBuilder();
+        report.append(String.format("%-8s %-37s %6s %6s %8s %8s %10s %10s %10s %10s %9s%n",
+                "op", "type", "count", "failed", "invokes", "retries", "res/s", "p50 ms", "p99 ms", "calls/res", "throttles"));
+        for (final Step step : steps) {
+            report.append(String.format("%-8s %-37s %6d %6d %8d %8d %10.2f %10d %10d %10.1f %9d%n",
+                    step.getOperation(), step.getResourceType(), step.getResources(), step.getFailures(),
+                    step.getInvocations(), step.getRetries(), step.throughput(), step.getP50().toMillis(),
+                    step.getP99().toMillis(), step.apiCallsPerResource(), step.getThrottles()));
+            if (!step.getErrors().isEmpty()) {
+                report.append(String.format("%-8s failures by error code: %s%n", "", step.getErrors()));
+            }
+        }
+        report.append(String.format("%nelapsed %d ms, API calls %s%n", elapsed.toMillis(), apiCalls));
+        return report.toString();
+    }
+}
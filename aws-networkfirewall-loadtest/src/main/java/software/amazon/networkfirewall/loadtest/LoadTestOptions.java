@@ -0,0 +1,144 @@
+package software.amazon.networkfirewall.loadtest;
+
+import lombok.Builder;
+import lombok.Value;
+import software.amazon.networkfirewall.testing.ServiceBehavior;
+
+import java.time.Duration;
+
+import static software.amazon.networkfirewall.common.InvocationOptions.positiveIntOrDefault;
+
+/**
+ * Shape of the simulated stack and of the service it is deployed against. Durations are given in
+ * service time and compressed by timeScale, so a run with the defaults deploys in seconds what
+ * takes half an hour against the real service.
+ */
+@Value
+@Builder
+public class LoadTestOptions {
+    static final String RULE_GROUPS = "NETWORKFIREWALL_LOADTEST_RULE_GROUPS";
+    static final String FIREWALL_POLICIES = "NETWORKFIREWALL_LOADTEST_FIREWALL_POLICIES";
+    static final String FIREWALLS = "NETWORKFIREWALL_LOADTEST_FIREWALLS";
+    static final String CONCURRENCY = "NETWORKFIREWALL_LOADTEST_CONCURRENCY";
+    static final String TIME_SCALE = "NETWORKFIREWALL_LOADTEST_TIME_SCALE";
+    static final String THROTTLE_RATE = "NETWORKFIREWALL_LOADTEST_THROTTLE_RATE";
+    static final String ERROR_RATE = "NETWORKFIREWALL_LOADTEST_ERROR_RATE";
+    static final String VERBOSE = "NETWORKFIREWALL_LOADTEST_VERBOSE";
+    static final String COALESCE_DESCRIBES = "NETWORKFIREWALL_LOADTEST_COALESCE_DESCRIBES";
+
+    // resources of the stack, rule groups alternate between stateful and stateless
+    @Builder.Default
+    int ruleGroups = 200;
+
+    @Builder.Default
+    int firewallPolicies = 24;
+
+    // every firewall gets a logging configuration
+    @Builder.Default
+    int firewalls = 12;
+
+    @Builder.Default
+    int subnetsPerFirewall = 2;
+
+    // resources whose handlers run at the same time, as CloudFormation does for independent resources
+    @Builder.Default
+    int concurrency = 32;
+
+    // factor applied to every duration below, to callback delays and to stabilization delays
+    @Builder.Default
+    double timeScale = 0.01;
+
+    // time a single handler invocation may run before it has to hand back to CloudFormation
+    @Builder.Default
+    Duration invocationBudget = Duration.ofSeconds(60);
+
+    // how often a handler failing with a retriable error code is invoked again
+    @Builder.Default
+    int maxHandlerRetries = 5;
+
+    @Builder.Default
+    Duration apiLatency = Duration.ofMillis(80);
+
+    @Builder.Default
+    double throttleRate = 0.0;
+
+    @Builder.Default
+    double errorRate = 0.0;
+
+    @Builder.Default
+    Duration firewallProvisioningTime = Duration.ofMinutes(6);
+
+    @Builder.Default
+    Duration firewallDeletionTime = Duration.ofMinutes(4);
+
+    @Builder.Default
+    Duration subnetAssociationTime = Duration.ofMinutes(3);
+
+    @Builder.Default
+    Duration subnetDisassociationTime = Duration.ofMinutes(2);
+
+    @Builder.Default
+    Duration configSyncTime = Duration.ofSeconds(30);
+
+    @Builder.Default
+    Duration resourceDeletionTime = Duration.ofSeconds(5);
+
+    @Builder.Default
+    Duration transitionJitter = Duration.ofSeconds(30);
+
+    @Builder.Default
+    long seed = 0L;
+
+    // pass the handler log lines through to standard out
+    boolean verbose;
+
+    // let identical Describe calls of handlers running at the same time share one call, as the handler option does
+    boolean coalesceDescribes;
+
+    public static LoadTestOptions fromEnvironment() {
+        return LoadTestOptions.builder()
+                .ruleGroups(positiveIntOrDefault(System.getenv(RULE_GROUPS), 200))
+                .firewallPolicies(positiveIntOrDefault(System.getenv(FIREWALL_POLICIES), 24))
+                .firewalls(positiveIntOrDefault(System.getenv(FIREWALLS), 12))
+                .concurrency(positiveIntOrDefault(System.getenv(CONCURRENCY), 32))
+                .timeScale(rateOrDefault(System.getenv(TIME_SCALE), 0.01))
+                .throttleRate(rateOrDefault(System.getenv(THROTTLE_RATE), 0.0))
+                .errorRate(rateOrDefault(System.getenv(ERROR_RATE), 0.0))
+                .verbose(Boolean.parseBoolean(System.getenv(VERBOSE)))
+                .coalesceDescribes(Boolean.parseBoolean(System.getenv(COALESCE_DESCRIBES)))
+                .build();
+    }
+
+    public ServiceBehavior serviceBehavior() {
+        return ServiceBehavior.builder()
+                .latency(scaled(apiLatency))
+                .latencyJitter(scaled(apiLatency))
+                .throttleRate(throttleRate)
+                .errorRate(errorRate)
+                .seed(seed)
+                .firewallProvisioningTime(scaled(firewallProvisioningTime))
+                .firewallDeletionTime(scaled(firewallDeletionTime))
+                .subnetAssociationTime(scaled(subnetAssociationTime))
+                .subnetDisassociationTime(scaled(subnetDisassociationTime))
+                .configSyncTime(scaled(configSyncTime))
+                .resourceDeletionTime(scaled(resourceDeletionTime))
+                .transitionJitter(scaled(transitionJitter))
+                .build();
+    }
+
+    public Duration scaled(final Duration duration) {
+        return Duration.ofNanos((long) (duration.toNanos() * timeScale));
+    }
+
+    static double rateOrDefault(final String value, final double defaultValue) {
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            final double parsed = Double.parseDouble(value.trim());
+            return parsed >= 0 && parsed <= 1 ? parsed : defaultValue;
+        } catch (final NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package software.amazon.networkfirewall.loadtest;
+
+import software.amazon.networkfirewall.loggingconfiguration.CallbackContext;
+import software.amazon.networkfirewall.loggingconfiguration.CreateHandler;
+import software.amazon.networkfirewall.loggingconfiguration.DeleteHandler;
+import software.amazon.networkfirewall.loggingconfiguration.HandlerOptions;
+import software.amazon.networkfirewall.loggingconfiguration.LogDestinationConfig;
+import software.amazon.networkfirewall.loggingconfiguration.LoggingConfiguration;
+import software.amazon.networkfirewall.loggingconfiguration.ResourceModel;
+import software.amazon.networkfirewall.loggingconfiguration.UpdateHandler;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class LoggingConfigurationDriver implements ResourceDriver<ResourceModel> {
+    private final HandlerRunner runner;
+    // one handler per action for every resource of the run, the way the wrapper keeps them
+    private final CreateHandler createHandler;
+    private final UpdateHandler updateHandler;
+    private final DeleteHandler deleteHandler;
+
+    public LoggingConfigurationDriver(final HandlerRunner runner) {
+        this.runner = runner;
+        final HandlerOptions options = HandlerOptions.builder().invocation(runner.getInvocationOptions()).build();
+        this.createHandler = new CreateHandler(options);
+        this.updateHandler = new UpdateHandler(options);
+        this.deleteHandler = new DeleteHandler(options);
+    }
+
+    @Override
+    public String typeName() {
+        return ResourceModel.TYPE_NAME;
+    }
+
+    // the firewall is the only reference, flow logs go to S3 and updates add alert logs
+    @Override
+    public ResourceModel model(final ResourceSpec spec) {
+        final List<LogDestinationConfig> destinations = new ArrayList<>();
+        destinations.add(LogDestinationConfig.builder()
+                .logType("FLOW")
+                .logDestinationType("S3")
+                .logDestination(Collections.singletonMap("bucketName", spec.getName()))
+                .build());
+        if (spec.getRevision() > 0) {
+            destinations.add(LogDestinationConfig.builder()
+                    .logType("ALERT")
+                    .logDestinationType("CloudWatchLogs")
+                    .logDestination(Collections.singletonMap("logGroup", spec.getName()))
+                    .build());
+        }
+        return ResourceModel.builder()
+                .firewallArn(spec.getReferences().isEmpty() ? null : spec.getReferences().get(0))
+                .loggingConfiguration(LoggingConfiguration.builder().logDestinationConfigs(destinations).build())
+                .build();
+    }
+
+    @Override
+    public String arn(final ResourceModel model) {
+        return model.getFirewallArn();
+    }
+
+    @Override
+    public Completion<ResourceModel> create(final ResourceModel desired) {
+        return runner.run(createHandler::handleRequest, runner.request(desired, null), CallbackContext.class);
+    }
+
+    @Override
+    public Completion<ResourceModel> update(final ResourceModel previous, final ResourceModel desired) {
+        return runner.run(updateHandler::handleRequest, runner.request(desired, previous), CallbackContext.class);
+    }
+
+    @Override
+    public Completion<ResourceModel> delete(final ResourceModel current) {
+        return runner.run(deleteHandler::handleRequest, runner.request(current, null), CallbackContext.class);
+    }
+}
@@ -0,0 +1,19 @@
+package software.amazon.networkfirewall.loadtest;
+
+/**
+ * Runs the Create, Update and Delete handlers of one resource type. Implementations call the
+ * handlers through their public invoke, which takes the in-memory service's ProxyClient.
+ */
+public interface ResourceDriver<M> {
+    String typeName();
+
+    M model(ResourceSpec spec);
+
+    String arn(M model);
+
+    Completion<M> create(M desired);
+
+    Completion<M> update(M previous, M desired);
+
+    Completion<M> delete(M current);
+}
@@ -0,0 +1,33 @@
+package software.amazon.networkfirewall.loadtest;
+
+import lombok.Builder;
+import lombok.Singular;
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * A resource of the simulated stack, turned into a resource model by the driver of its type.
+ */
+@Value
+@Builder
+public class ResourceSpec {
+    String name;
+
+    // identifier of the deployed resource, set for updates and deletes
+    String arn;
+
+    // 0 on create, bumped by every update of the stack
+    int revision;
+
+    // ARNs of the resources this one depends on: rule groups of a policy, the policy of a firewall,
+    // the firewall of a logging configuration
+    @Singular
+    List<String> references;
+
+    // rule groups only
+    boolean stateful;
+
+    // firewalls only
+    int subnets;
+}
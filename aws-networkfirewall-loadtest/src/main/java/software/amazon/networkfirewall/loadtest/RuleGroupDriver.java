@@ -0,0 +1,101 @@
+package software.amazon.networkfirewall.loadtest;
+
+import software.amazon.networkfirewall.rulegroup.Address;
+import software.amazon.networkfirewall.rulegroup.CallbackContext;
+import software.amazon.networkfirewall.rulegroup.CreateHandler;
+import software.amazon.networkfirewall.rulegroup.DeleteHandler;
+import software.amazon.networkfirewall.rulegroup.HandlerOptions;
+import software.amazon.networkfirewall.rulegroup.MatchAttributes;
+import software.amazon.networkfirewall.rulegroup.PortRange;
+import software.amazon.networkfirewall.rulegroup.ResourceModel;
+import software.amazon.networkfirewall.rulegroup.RuleDefinition;
+import software.amazon.networkfirewall.rulegroup.RuleGroup;
+import software.amazon.networkfirewall.rulegroup.RulesSource;
+import software.amazon.networkfirewall.rulegroup.StatelessRule;
+import software.amazon.networkfirewall.rulegroup.StatelessRulesAndCustomActions;
+import software.amazon.networkfirewall.rulegroup.UpdateHandler;
+
+import java.util.Collections;
+
+public class RuleGroupDriver implements ResourceDriver<ResourceModel> {
+    static final int CAPACITY = 100;
+
+    private final HandlerRunner runner;
+    // one handler per action for every resource of the run, the way the wrapper keeps them
+    private final CreateHandler createHandler;
+    private final UpdateHandler updateHandler;
+    private final DeleteHandler deleteHandler;
+
+    public RuleGroupDriver(final HandlerRunner runner) {
+        this.runner = runner;
+        final HandlerOptions options = HandlerOptions.builder().invocation(runner.getInvocationOptions()).build();
+        this.createHandler = new CreateHandler(options);
+        this.updateHandler = new UpdateHandler(options);
+        this.deleteHandler = new DeleteHandler(options);
+    }
+
+    @Override
+    public String typeName() {
+        return ResourceModel.TYPE_NAME;
+    }
+
+    @Override
+    public ResourceModel model(final ResourceSpec spec) {
+        return ResourceModel.builder()
+                .ruleGroupName(spec.getName())
+                .ruleGroupArn(spec.getArn())
+                .type(spec.isStateful() ? "STATEFUL" : "STATELESS")
+                .capacity(CAPACITY)
+                .description("revision " + spec.getRevision())
+                .ruleGroup(RuleGroup.builder()
+                        .rulesSource(spec.isStateful() ? statefulRules(spec.getRevision()) : statelessRules(spec.getRevision()))
+                        .build())
+                .build();
+    }
+
+    @Override
+    public String arn(final ResourceModel model) {
+        return model.getRuleGroupArn();
+    }
+
+    @Override
+    public Completion<ResourceModel> create(final ResourceModel desired) {
+        return runner.run(createHandler::handleRequest, runner.request(desired, null), CallbackContext.class);
+    }
+
+    @Override
+    public Completion<ResourceModel> update(final ResourceModel previous, final ResourceModel desired) {
+        return runner.run(updateHandler::handleRequest, runner.request(desired, previous), CallbackContext.class);
+    }
+
+    @Override
+    public Completion<ResourceModel> delete(final ResourceModel current) {
+        return runner.run(deleteHandler::handleRequest, runner.request(current, null), CallbackContext.class);
+    }
+
+    private static RulesSource statefulRules(final int revision) {
+        return RulesSource.builder()
+                .rulesString(String.format("pass tcp 10.0.0.0/16 any -> any 443 (msg:\"loadtest\"; sid:1; rev:%d;)", revision + 1))
+                .build();
+    }
+
+    private static RulesSource statelessRules(final int revision) {
+        return RulesSource.builder()
+                .statelessRulesAndCustomActions(StatelessRulesAndCustomActions.builder()
+                        .statelessRules(Collections.singleton(StatelessRule.builder()
+                                .priority(1)
+                                .ruleDefinition(RuleDefinition.builder()
+                                        .actions(Collections.singleton("aws:pass"))
+                                        .matchAttributes(MatchAttributes.builder()
+                                                .sources(Collections.singleton(Address.builder().addressDefinition("10.0.0.0/16").build()))
+                                                .destinations(Collections.singleton(Address.builder().addressDefinition("0.0.0.0/0").build()))
+                                                .destinationPorts(Collections.singleton(PortRange.builder()
+                                                        .fromPort(443 + revision).toPort(443 + revision).build()))
+                                                .protocols(Collections.singleton(6))
+                                                .build())
+                                        .build())
+                                .build()))
+                        .build())
+                .build();
+    }
+}
@@ -0,0 +1,249 @@
+package software.amazon.networkfirewall.loadtest;
+
+import software.amazon.networkfirewall.testing.InMemoryNetworkFirewallClient;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+
+/**
+ * Deploys, updates and deletes a stack of rule groups, firewall policies, firewalls and logging
+ * configurations against the in-memory service. Resources of a type run concurrently, types run in
+ * dependency order, and every step is reported with its throughput, completion latency, API calls
+ * per resource and throttles.
+ */
+public class StackLoadTest {
+    static final String CREATE = "Create";
+    static final String UPDATE = "Update";
+    static final String DELETE = "Delete";
+    private static final String NAME_PREFIX = "loadtest-";
+
+    private final LoadTestOptions options;
+    private final InMemoryNetworkFirewallClient service;
+    private final HandlerRunner runner;
+
+    public StackLoadTest(final LoadTestOptions options) {
+        this(options, new InMemoryNetworkFirewallClient(options.serviceBehavior()));
+    }
+
+    StackLoadTest(final LoadTestOptions options, final InMemoryNetworkFirewallClient service) {
+        this.options = options;
+        this.service = service;
+        this.runner = new HandlerRunner(service, options, Collections.singletonMap("loadtest:stack", "networkfirewall"));
+    }
+
+    public static void main(final String[] args) {
+        final LoadReport report = new StackLoadTest(LoadTestOptions.fromEnvironment()).run();
+        System.out.print(report.format());
+    }
+
+    public LoadReport run() {
+        final LoadReport report = new LoadReport();
+        final ExecutorService executor = Executors.newFixedThreadPool(options.getConcurrency());
+        final long start = System.nanoTime();
+        try {
+            final Deployment deployment = new Deployment(report, executor);
+            deployment.create();
+            deployment.update();
+            deployment.delete();
+        } finally {
+            executor.shutdownNow();
+        }
+        report.complete(Duration.ofNanos(System.nanoTime() - start), service.callCounts());
+        return report;
+    }
+
+    private final class Deployment {
+        private final LoadReport report;
+        private final ExecutorService executor;
+        private final Stage<?> ruleGroups;
+        private final Stage<?> policies;
+        private final Stage<?> firewalls;
+        private final Stage<?> loggingConfigurations;
+
+        private Deployment(final LoadReport report, final ExecutorService executor) {
+            this.report = report;
+            this.executor = executor;
+            this.ruleGroups = new Stage<>(new RuleGroupDriver(runner));
+            this.policies = new Stage<>(new FirewallPolicyDriver(runner));
+            this.firewalls = new Stage<>(new FirewallDriver(runner));
+            this.loggingConfigurations = new Stage<>(new LoggingConfigurationDriver(runner));
+        }
+
+        private void create() {
+            ruleGroups.create(ruleGroupSpecs(0));
+            policies.create(policySpecs(0));
+            firewalls.create(firewallSpecs(0));
+            loggingConfigurations.create(loggingSpecs(0));
+        }
+
+        private void update() {
+            ruleGroups.update(ruleGroupSpecs(1));
+            policies.update(policySpecs(1));
+            firewalls.update(firewallSpecs(1));
+            loggingConfigurations.update(loggingSpecs(1));
+        }
+
+        private void delete() {
+            loggingConfigurations.delete();
+            firewalls.delete();
+            policies.delete();
+            ruleGroups.delete();
+        }
+
+        private List<ResourceSpec> ruleGroupSpecs(final int revision) {
+            final List<ResourceSpec> specs = new ArrayList<>();
+            for (int i = 0; i < options.getRuleGroups(); i++) {
+                specs.add(ResourceSpec.builder()
+                        .name(NAME_PREFIX + "rulegroup-" + i)
+                        .arn(ruleGroups.arn(i))
+                        .revision(revision)
+                        .stateful(i % 2 == 0)
+                        .build());
+            }
+            return specs;
+        }
+
+        // rule groups are spread round robin so that every one of them is referenced
+        private List<ResourceSpec> policySpecs(final int revision) {
+            final List<ResourceSpec> specs = new ArrayList<>();
+            for (int i = 0; i < options.getFirewallPolicies(); i++) {
+                final ResourceSpec.ResourceSpecBuilder spec = ResourceSpec.builder()
+                        .name(NAME_PREFIX + "policy-" + i)
+                        .arn(policies.arn(i))
+                        .revision(revision);
+                for (int ruleGroup = i; ruleGroup < options.getRuleGroups(); ruleGroup += options.getFirewallPolicies()) {
+                    final String arn = ruleGroups.arn(ruleGroup);
+                    if (arn != null) {
+                        spec.reference(arn);
+                    }
+                }
+                specs.add(spec.build());
+            }
+            return specs;
+        }
+
+        private List<ResourceSpec> firewallSpecs(final int revision) {
+            final List<ResourceSpec> specs = new ArrayList<>();
+            for (int i = 0; i < options.getFirewalls(); i++) {
+                final String policyArn = policies.arn(i % options.getFirewallPolicies());
+                specs.add(ResourceSpec.builder()
+                        .name(NAME_PREFIX + "firewall-" + i)
+                        .arn(firewalls.arn(i))
+                        .revision(revision)
+                        .references(policyArn == null ? Collections.emptyList() : Collections.singletonList(policyArn))
+                        .subnets(options.getSubnetsPerFirewall())
+                        .build());
+            }
+            return specs;
+        }
+
+        private List<ResourceSpec> loggingSpecs(final int revision) {
+            final List<ResourceSpec> specs = new ArrayList<>();
+            for (int i = 0; i < options.getFirewalls(); i++) {
+                final String firewallArn = firewalls.arn(i);
+                specs.add(ResourceSpec.builder()
+                        .name(NAME_PREFIX + "logging-" + i)
+                        .arn(loggingConfigurations.arn(i))
+                        .revision(revision)
+                        .references(firewallArn == null ? Collections.emptyList() : Collections.singletonList(firewallArn))
+                        .build());
+            }
+            return specs;
+        }
+
+        /**
+         * The resources of one type, the model of each is the one of its last successful handler run.
+         */
+        private final class Stage<M> {
+            private final ResourceDriver<M> driver;
+            private final List<M> deployed = new ArrayList<>();
+
+            private Stage(final ResourceDriver<M> driver) {
+                this.driver = driver;
+            }
+
+            private String arn(final int index) {
+                return index < deployed.size() && deployed.get(index) != null ? driver.arn(deployed.get(index)) : null;
+            }
+
+            private void create(final List<ResourceSpec> specs) {
+                final List<Completion<M>> completions = step(CREATE, specs.size(),
+                        index -> driver.create(driver.model(specs.get(index))));
+                deployed.clear();
+                completions.forEach(completion -> deployed.add(completion.isSuccess() ? completion.getModel() : null));
+            }
+
+            private void update(final List<ResourceSpec> specs) {
+                final List<Integer> indexes = deployedIndexes();
+                final List<Completion<M>> completions = step(UPDATE, indexes.size(), index -> {
+                    final int resource = indexes.get(index);
+                    return driver.update(deployed.get(resource), driver.model(specs.get(resource)));
+                });
+                for (int index = 0; index < indexes.size(); index++) {
+                    if (completions.get(index).isSuccess()) {
+                        deployed.set(indexes.get(index), completions.get(index).getModel());
+                    }
+                }
+            }
+
+            private void delete() {
+                final List<Integer> indexes = deployedIndexes();
+                step(DELETE, indexes.size(), index -> driver.delete(deployed.get(indexes.get(index))));
+                deployed.clear();
+            }
+
+            private List<Integer> deployedIndexes() {
+                final List<Integer> indexes = new ArrayList<>();
+                for (int index = 0; index < deployed.size(); index++) {
+                    if (deployed.get(index) != null) {
+                        indexes.add(index);
+                    }
+                }
+                return indexes;
+            }
+
+            private List<Completion<M>> step(final String operation, final int count, final IntFunction<Completion<M>> action) {
+                final long callsBefore = service.totalCalls();
+                final long throttlesBefore = service.throttledCalls();
+                final long start = System.nanoTime();
+                final List<Future<Completion<M>>> futures = new ArrayList<>(count);
+                for (int index = 0; index < count; index++) {
+                    final int resource = index;
+                    futures.add(executor.submit(() -> action.apply(resource)));
+                }
+                final List<Completion<M>> completions = futures.stream().map(StackLoadTest::await).collect(Collectors.toList());
+                if (options.isVerbose()) {
+                    completions.stream()
+                            .filter(completion -> !completion.isSuccess())
+                            .forEach(completion -> System.out.println(String.format("%s %s failed with %s: %s", operation,
+                                    driver.typeName(), completion.getErrorCode(), completion.getMessage())));
+                }
+                report.add(LoadReport.step(operation, driver.typeName(), completions, Duration.ofNanos(System.nanoTime() - start),
+                        service.totalCalls() - callsBefore, service.throttledCalls() - throttlesBefore));
+                return completions;
+            }
+        }
+    }
+
+    private static <T> T await(final Future<T> future) {
+        try {
+            return future.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a handler", e);
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
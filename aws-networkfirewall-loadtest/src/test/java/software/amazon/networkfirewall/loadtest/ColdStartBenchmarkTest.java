@@ -0,0 +1,90 @@
+package software.amazon.networkfirewall.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ColdStartBenchmarkTest {
+    private static List<String> java(final Class<?> mainClass) {
+        return Arrays.asList(Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp", System.getProperty("java.class.path"), mainClass.getName());
+    }
+
+    @Test
+    public void testRequestsCarryTheModelOrTheIdentifier() throws Exception {
+        final ObjectMapper mapper = new ObjectMapper();
+        final JsonNode create = mapper.readTree(ColdStartBenchmark.request(ColdStartBenchmark.Resource.FIREWALL, "CREATE"));
+        final JsonNode read = mapper.readTree(ColdStartBenchmark.request(ColdStartBenchmark.Resource.FIREWALL, "READ"));
+
+        assertThat(create.get("action").asText()).isEqualTo("CREATE");
+        assertThat(create.get("resourceType").asText()).isEqualTo("AWS::NetworkFirewall::Firewall");
+        assertThat(create.at("/requestData/resourceProperties/FirewallPolicyArn").asText()).endsWith("firewall-policy/coldstart");
+        assertThat(create.at("/requestData/callerCredentials/accessKeyId").isTextual()).isTrue();
+        assertThat(read.at("/requestData/resourceProperties").size()).isEqualTo(1);
+        assertThat(read.at("/requestData/resourceProperties/FirewallArn").asText()).endsWith("firewall/coldstart");
+        for (final ColdStartBenchmark.Resource resource : ColdStartBenchmark.Resource.values()) {
+            assertThat(resource.properties()).isNotEmpty();
+            assertThat(resource.getPackageName()).startsWith("software.amazon.networkfirewall.");
+        }
+    }
+
+    @Test
+    public void testEveryRequestIsMadeByANewProcess(@TempDir final Path workingDirectory) {
+        final Map<String, List<String>> executables = new LinkedHashMap<>();
+        executables.put("jvm", java(Responding.class));
+        executables.put("native", java(Crashing.class));
+
+        final List<ColdStartBenchmark.Result> results = new ColdStartBenchmark(executables,
+                ColdStartBenchmark.Resource.RULE_GROUP, 2, workingDirectory).run();
+
+        assertThat(results).extracting(ColdStartBenchmark.Result::getAction).containsExactly("CREATE", "CREATE", "READ", "READ");
+        assertThat(results).extracting(ColdStartBenchmark.Result::getExecutable).containsExactly("jvm", "native", "jvm", "native");
+        assertThat(results).extracting(ColdStartBenchmark.Result::getFailures).containsExactly(0, 2, 0, 2);
+        assertThat(results).allSatisfy(result -> {
+            assertThat(result.getRuns()).isEqualTo(2);
+            assertThat(result.getMax()).isGreaterThanOrEqualTo(result.getP90()).isGreaterThanOrEqualTo(result.getP50());
+        });
+        assertThat(workingDirectory.toFile().list()).isEmpty();
+    }
+
+    @Test
+    public void testFormatComparesTheExecutables() {
+        final String report = ColdStartBenchmark.format(Arrays.asList(
+                new ColdStartBenchmark.Result("jvm", "CREATE", 3, 0, Duration.ofMillis(900), Duration.ofMillis(1000), Duration.ofMillis(1100)),
+                new ColdStartBenchmark.Result("native", "CREATE", 3, 1, Duration.ofMillis(100), Duration.ofMillis(120), Duration.ofMillis(130)),
+                new ColdStartBenchmark.Result("cds", "CREATE", 3, 0, Duration.ofMillis(600), Duration.ofMillis(650), Duration.ofMillis(700)),
+                new ColdStartBenchmark.Result("jvm", "READ", 3, 0, Duration.ofMillis(800), Duration.ofMillis(850), Duration.ofMillis(900))));
+
+        assertThat(report).contains("p50 ms").contains("1100")
+                .contains("CREATE: native starts 9.0x faster at p50")
+                .contains("CREATE: cds starts 1.5x faster at p50");
+        assertThat(report).doesNotContain("READ: native");
+    }
+
+    public static class Responding {
+        public static void main(final String[] args) throws Exception {
+            Files.write(Paths.get("response.txt"), args[0].getBytes("UTF-8"));
+            System.out.println("__CFN_RESOURCE_START_RESPONSE__");
+            System.out.println("{\"status\":\"FAILED\"}");
+            System.out.println(ColdStartBenchmark.RESPONSE_END);
+        }
+    }
+
+    public static class Crashing {
+        public static void main(final String[] args) {
+            System.exit(1);
+        }
+    }
+}
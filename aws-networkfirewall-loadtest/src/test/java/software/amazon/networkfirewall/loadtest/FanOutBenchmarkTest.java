@@ -0,0 +1,49 @@
+package software.amazon.networkfirewall.loadtest;
+
+import org.junit.jupiter.api.Test;
+import software.amazon.networkfirewall.common.FanOutExecutors;
+import software.amazon.networkfirewall.testing.InMemoryNetworkFirewallClient;
+import software.amazon.networkfirewall.testing.ServiceBehavior;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FanOutBenchmarkTest {
+    @Test
+    public void testDescribesAtMostTheParallelismAtATime() {
+        final InMemoryNetworkFirewallClient client =
+                new InMemoryNetworkFirewallClient(ServiceBehavior.builder().latency(Duration.ofMillis(20)).build());
+
+        final List<FanOutBenchmark.Result> results = new FanOutBenchmark(client, 200, 50).run();
+
+        assertThat(results).extracting(FanOutBenchmark.Result::getThreads).startsWith("platform")
+                .hasSize(FanOutExecutors.virtualThreadsAvailable() ? 2 : 1);
+        assertThat(results).allSatisfy(result -> {
+            assertThat(result.getDescribes()).isEqualTo(200);
+            // four rounds of calls, each waiting out the latency of the service
+            assertThat(result.getElapsed()).isGreaterThanOrEqualTo(Duration.ofMillis(80));
+            assertThat(result.getP99()).isGreaterThanOrEqualTo(result.getP50()).isGreaterThanOrEqualTo(Duration.ofMillis(20));
+        });
+        assertThat(results.get(0).getPeakThreads()).isGreaterThanOrEqualTo(50);
+        // a warm-up and a measured pass of each executor after creating the rule groups
+        assertThat(client.callCount("CreateRuleGroup")).isEqualTo(FanOutBenchmark.RULE_GROUPS);
+        assertThat(client.callCount("DescribeRuleGroup")).isEqualTo(400L * results.size());
+    }
+
+    @Test
+    public void testFormatComparesTheThreads() {
+        final String report = FanOutBenchmark.format(Arrays.asList(
+                new FanOutBenchmark.Result("platform", 5000, 1000, Duration.ofMillis(600), Duration.ofMillis(60),
+                        Duration.ofMillis(150), 1012),
+                new FanOutBenchmark.Result("virtual", 5000, 1000, Duration.ofMillis(300), Duration.ofMillis(51),
+                        Duration.ofMillis(70), 24)));
+
+        assertThat(report).contains("peak threads").contains("1012").contains("8333")
+                .contains("virtual threads finish 2.0x faster than platform threads");
+        assertThat(FanOutBenchmark.format(Arrays.asList(new FanOutBenchmark.Result("platform", 10, 2,
+                Duration.ofMillis(10), Duration.ZERO, Duration.ZERO, 3)))).doesNotContain("faster");
+    }
+}
@@ -0,0 +1,112 @@
+package software.amazon.networkfirewall.loadtest;
+
+import software.amazon.networkfirewall.testing.InMemoryNetworkFirewallClient;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class StackLoadTestTest {
+    private static final List<String> TYPES = Arrays.asList("AWS::NetworkFirewall::RuleGroup",
+            "AWS::NetworkFirewall::FirewallPolicy", "AWS::NetworkFirewall::Firewall", "AWS::NetworkFirewall::LoggingConfiguration");
+
+    private static LoadTestOptions.LoadTestOptionsBuilder smallStack() {
+        return LoadTestOptions.builder()
+                .ruleGroups(6)
+                .firewallPolicies(2)
+                .firewalls(2)
+                .concurrency(4)
+                .timeScale(0.002)
+                .seed(7L);
+    }
+
+    @Test
+    public void testStackDeploysUpdatesAndDeletes() {
+        final InMemoryNetworkFirewallClient service = new InMemoryNetworkFirewallClient(smallStack().build().serviceBehavior());
+        final LoadReport report = new StackLoadTest(smallStack().build(), service).run();
+
+        assertThat(report.getFailures()).isZero();
+        assertThat(report.getSteps()).extracting(LoadReport.Step::getOperation).containsExactly(
+                "Create", "Create", "Create", "Create", "Update", "Update", "Update", "Update",
+                "Delete", "Delete", "Delete", "Delete");
+        assertThat(report.getSteps().subList(0, 4)).extracting(LoadReport.Step::getResourceType).containsExactlyElementsOf(TYPES);
+        assertThat(report.getSteps()).extracting(LoadReport.Step::getResources)
+                .containsExactly(6, 2, 2, 2, 6, 2, 2, 2, 2, 2, 2, 6);
+        assertThat(report.getSteps()).allSatisfy(step -> {
+            assertThat(step.getApiCalls()).isPositive();
+            assertThat(step.getP99()).isGreaterThanOrEqualTo(step.getP50());
+            assertThat(step.throughput()).isPositive();
+        });
+        assertThat(report.getApiCalls()).containsKeys("CreateFirewall", "DescribeFirewall", "DeleteRuleGroup");
+        assertThat(report.getApiCalls().values().stream().mapToLong(Long::longValue).sum()).isEqualTo(service.totalCalls());
+        assertThat(report.format()).contains("calls/res").contains("AWS::NetworkFirewall::LoggingConfiguration");
+    }
+
+    @Test
+    public void testStackDeploysWithCoalescedDescribes() {
+        final InMemoryNetworkFirewallClient service =
+                new InMemoryNetworkFirewallClient(smallStack().coalesceDescribes(true).build().serviceBehavior());
+        final LoadReport report = new StackLoadTest(smallStack().coalesceDescribes(true).build(), service).run();
+
+        assertThat(report.getFailures()).isZero();
+        assertThat(report.getSteps()).hasSize(12);
+        assertThat(report.getApiCalls().values().stream().mapToLong(Long::longValue).sum()).isEqualTo(service.totalCalls());
+    }
+
+    @Test
+    public void testShortInvocationBudgetCausesCallbackReinvocations() {
+        final LoadReport report = new StackLoadTest(smallStack()
+                .ruleGroups(2)
+                .firewallPolicies(1)
+                .firewalls(1)
+                .invocationBudget(Duration.ofSeconds(1))
+                .build()).run();
+
+        final LoadReport.Step firewallCreate = report.getSteps().get(2);
+        assertThat(firewallCreate.getResourceType()).isEqualTo("AWS::NetworkFirewall::Firewall");
+        assertThat(firewallCreate.getFailures()).isZero();
+        assertThat(firewallCreate.getInvocations()).isGreaterThan(firewallCreate.getResources());
+    }
+
+    @Test
+    public void testThrottlesAndFailuresAreReported() {
+        final LoadReport report = new StackLoadTest(smallStack()
+                .throttleRate(0.3)
+                .maxHandlerRetries(0)
+                .build()).run();
+
+        assertThat(report.getSteps().stream().mapToLong(LoadReport.Step::getThrottles).sum()).isPositive();
+        assertThat(report.getFailures()).isPositive();
+        final List<String> errors = report.getSteps().stream()
+                .flatMap(step -> step.getErrors().keySet().stream())
+                .distinct()
+                .collect(Collectors.toList());
+        assertThat(errors).isNotEmpty();
+        assertThat(report.format()).contains("failures by error code");
+    }
+
+    @Test
+    public void testPercentile() {
+        final List<Duration> latencies = Arrays.asList(Duration.ofMillis(1), Duration.ofMillis(2), Duration.ofMillis(3),
+                Duration.ofMillis(4));
+        assertThat(LoadReport.percentile(latencies, 0.5)).isEqualTo(Duration.ofMillis(2));
+        assertThat(LoadReport.percentile(latencies, 0.99)).isEqualTo(Duration.ofMillis(4));
+        assertThat(LoadReport.percentile(latencies, 0)).isEqualTo(Duration.ofMillis(1));
+        assertThat(LoadReport.percentile(Collections.emptyList(), 0.5)).isEqualTo(Duration.ZERO);
+    }
+
+    @Test
+    public void testOptionsFallBackToDefaults() {
+        assertThat(LoadTestOptions.rateOrDefault("0.25", 0.0)).isEqualTo(0.25);
+        assertThat(LoadTestOptions.rateOrDefault("2", 0.1)).isEqualTo(0.1);
+        assertThat(LoadTestOptions.rateOrDefault("often", 0.1)).isEqualTo(0.1);
+        assertThat(LoadTestOptions.rateOrDefault(null, 0.1)).isEqualTo(0.1);
+        assertThat(LoadTestOptions.fromEnvironment().getRuleGroups()).isEqualTo(200);
+        assertThat(LoadTestOptions.builder().timeScale(0.5).build().scaled(Duration.ofSeconds(2))).isEqualTo(Duration.ofSeconds(1));
+    }
+}
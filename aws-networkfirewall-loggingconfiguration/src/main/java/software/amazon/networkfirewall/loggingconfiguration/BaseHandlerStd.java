@@ -1,26 +1,72 @@
 package software.amazon.networkfirewall.loggingconfiguration;
 
+import software.amazon.awssdk.awscore.AwsResponse;
 import software.amazon.awssdk.services.networkfirewall.NetworkFirewallClient;
+import software.amazon.awssdk.services.networkfirewall.model.DescribeLoggingConfigurationResponse;
 import software.amazon.cloudformation.proxy.AmazonWebServicesClientProxy;
 import software.amazon.cloudformation.proxy.Logger;
 import software.amazon.cloudformation.proxy.ProgressEvent;
 import software.amazon.cloudformation.proxy.ProxyClient;
 import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+import software.amazon.networkfirewall.common.ClientPool;
+import software.amazon.networkfirewall.common.InvocationRuntime;
+
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 public abstract class BaseHandlerStd extends BaseHandler<CallbackContext> {
+  protected final HandlerOptions options;
+
+  private final InvocationRuntime runtime;
+
+  protected BaseHandlerStd() {
+    this(HandlerOptions.fromEnvironment());
+  }
+
+  // the options the handler was constructed with also set up each invocation of it
+  protected BaseHandlerStd(final HandlerOptions options) {
+    this.options = options;
+    this.runtime = new InvocationRuntime(ResourceModel.TYPE_NAME, BaseHandlerStd::observedStatus,
+      options.getInvocation());
+  }
+
   @Override
   public final ProgressEvent<ResourceModel, CallbackContext> handleRequest(
     final AmazonWebServicesClientProxy proxy,
     final ResourceHandlerRequest<ResourceModel> request,
     final CallbackContext callbackContext,
     final Logger logger) {
-    return handleRequest(
-      proxy,
-      request,
-      callbackContext != null ? callbackContext : new CallbackContext(),
-      proxy.newProxy(ClientBuilder.getClient(request.getRegion())),
-      logger
-    );
+    return handleRequest(proxy, request, callbackContext, ClientPool.getClient(request.getRegion()), logger);
+  }
+
+  // the entry point with the client the handler calls the service through, for harnesses that drive the handlers in
+  // process against a stand-in for the service
+  public final ProgressEvent<ResourceModel, CallbackContext> handleRequest(
+    final AmazonWebServicesClientProxy proxy,
+    final ResourceHandlerRequest<ResourceModel> request,
+    final CallbackContext callbackContext,
+    final Supplier<NetworkFirewallClient> client,
+    final Logger logger) {
+    // the state of this invocation lives in its callback context, so concurrent invocations of a handler keep apart
+    final CallbackContext context = callbackContext != null ? callbackContext : new CallbackContext();
+    return runtime.run(proxy, request, client, getClass(), context, logger,
+      proxyClient -> handleRequest(proxy, request, context, proxyClient, logger));
+  }
+
+  // what the stabilization waits on, the log types that have a destination
+  static String observedStatus(final AwsResponse response) {
+    if (!(response instanceof DescribeLoggingConfigurationResponse)) {
+      return null;
+    }
+    final software.amazon.awssdk.services.networkfirewall.model.LoggingConfiguration configuration =
+      ((DescribeLoggingConfigurationResponse) response).loggingConfiguration();
+    if (configuration == null || configuration.logDestinationConfigs().isEmpty()) {
+      return "NONE";
+    }
+    return configuration.logDestinationConfigs().stream()
+      .map(software.amazon.awssdk.services.networkfirewall.model.LogDestinationConfig::logTypeAsString)
+      .sorted()
+      .collect(Collectors.joining(","));
   }
 
   protected abstract ProgressEvent<ResourceModel, CallbackContext> handleRequest(
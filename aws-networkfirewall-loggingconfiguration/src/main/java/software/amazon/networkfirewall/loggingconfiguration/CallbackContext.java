@@ -1,10 +1,33 @@
 package software.amazon.networkfirewall.loggingconfiguration;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import software.amazon.awssdk.services.networkfirewall.NetworkFirewallAsyncClient;
+import software.amazon.cloudformation.proxy.ProxyClient;
 import software.amazon.cloudformation.proxy.StdCallbackContext;
+import software.amazon.networkfirewall.common.Deadline;
+import software.amazon.networkfirewall.common.InvocationRuntime;
+import software.amazon.networkfirewall.common.RetryPolicy;
 
 @lombok.Getter
 @lombok.Setter
 @lombok.ToString
 @lombok.EqualsAndHashCode(callSuper = true)
-public class CallbackContext extends StdCallbackContext {
+public class CallbackContext extends StdCallbackContext implements InvocationRuntime.Context {
+    // the time left, the retries left and the async client of the current invocation, set up by BaseHandlerStd for
+    // each invocation and never carried over to the next; unbounded, none and null when a handler is invoked directly
+    @JsonIgnore
+    @lombok.ToString.Exclude
+    private transient Deadline deadline = Deadline.unbounded();
+    @JsonIgnore
+    @lombok.ToString.Exclude
+    private transient RetryPolicy retries = RetryPolicy.none();
+    @JsonIgnore
+    @lombok.ToString.Exclude
+    private transient ProxyClient<NetworkFirewallAsyncClient> asyncProxyClient;
+
+    // the updates are made and only the stabilization is left, set before the first poll
+    private boolean stabilizing;
+
+    // polls made so far across invocations, bounded by Utils.MAX_STABILIZATION_ATTEMPTS
+    private int stabilizationAttempts;
 }
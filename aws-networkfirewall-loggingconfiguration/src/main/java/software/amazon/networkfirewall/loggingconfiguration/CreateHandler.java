@@ -1,16 +1,12 @@
 package software.amazon.networkfirewall.loggingconfiguration;
 
-import com.amazonaws.util.CollectionUtils;
-
 import software.amazon.awssdk.services.networkfirewall.NetworkFirewallClient;
-import software.amazon.awssdk.services.networkfirewall.model.DescribeLoggingConfigurationRequest;
 import software.amazon.awssdk.services.networkfirewall.model.DescribeLoggingConfigurationResponse;
 import software.amazon.awssdk.services.networkfirewall.model.InternalServerErrorException;
 import software.amazon.awssdk.services.networkfirewall.model.InvalidRequestException;
 import software.amazon.awssdk.services.networkfirewall.model.LogDestinationPermissionException;
 import software.amazon.awssdk.services.networkfirewall.model.ResourceNotFoundException;
 import software.amazon.awssdk.services.networkfirewall.model.ThrottlingException;
-import software.amazon.cloudformation.exceptions.CfnAlreadyExistsException;
 import software.amazon.cloudformation.exceptions.CfnInvalidRequestException;
 import software.amazon.cloudformation.exceptions.CfnServiceInternalErrorException;
 import software.amazon.cloudformation.exceptions.CfnThrottlingException;
@@ -25,7 +21,13 @@ import static software.amazon.networkfirewall.loggingconfiguration.Utils.validat
 
 
 public class CreateHandler extends BaseHandlerStd {
-    private Logger logger;
+    public CreateHandler() {
+        this(HandlerOptions.fromEnvironment());
+    }
+
+    public CreateHandler(final HandlerOptions options) {
+        super(options);
+    }
 
     protected ProgressEvent<ResourceModel, CallbackContext> handleRequest(
         final AmazonWebServicesClientProxy proxy,
@@ -34,17 +36,24 @@ public class CreateHandler extends BaseHandlerStd {
         final ProxyClient<NetworkFirewallClient> proxyClient,
         final Logger logger) {
 
-        this.logger = logger;
         final ResourceModel model = request.getDesiredResourceState();
 
-        Utils.validateResourceNotExists(Translator.translateToReadRequest(model), proxyClient);
-        validateInputModel(model);
-
         try {
-            convertTemplateToUpdateLoggingConfigurationCall(model, proxyClient, false, true);
+            // a callback has only the stabilization left, an earlier invocation made the updates
+            if (!callbackContext.isStabilizing()) {
+                final DescribeLoggingConfigurationResponse current =
+                        Utils.validateResourceNotExists(Translator.translateToReadRequest(model), proxyClient);
+                validateInputModel(model);
+                convertTemplateToUpdateLoggingConfigurationCall(model, proxyClient, current.loggingConfiguration(), false);
+            }
 
-            Utils.stablize(proxyClient, model);
-            return new ReadHandler().handleRequest(proxy, request, callbackContext, proxyClient, logger);
+            final DescribeLoggingConfigurationResponse stabilized =
+                    Utils.stablize(proxyClient, model, callbackContext, callbackContext.getDeadline(),
+                            callbackContext.getRetries());
+            if (stabilized == null) {
+                return Utils.stabilizationInProgress(model, callbackContext);
+            }
+            return ProgressEvent.defaultSuccessHandler(Translator.translateFromReadResponse(stabilized));
         } catch(InvalidRequestException e){
             throw new CfnInvalidRequestException(e);
         } catch (InternalServerErrorException | LogDestinationPermissionException | ResourceNotFoundException | InterruptedException e) {
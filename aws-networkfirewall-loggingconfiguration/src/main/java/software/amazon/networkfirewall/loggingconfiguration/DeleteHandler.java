@@ -1,6 +1,7 @@
 package software.amazon.networkfirewall.loggingconfiguration;
 
 import software.amazon.awssdk.services.networkfirewall.NetworkFirewallClient;
+import software.amazon.awssdk.services.networkfirewall.model.DescribeLoggingConfigurationResponse;
 import software.amazon.awssdk.services.networkfirewall.model.InternalServerErrorException;
 import software.amazon.awssdk.services.networkfirewall.model.InvalidRequestException;
 import software.amazon.awssdk.services.networkfirewall.model.LogDestinationPermissionException;
@@ -19,7 +20,13 @@ import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
 import static software.amazon.networkfirewall.loggingconfiguration.Utils.convertTemplateToUpdateLoggingConfigurationCall;
 
 public class DeleteHandler extends BaseHandlerStd {
-    private Logger logger;
+    public DeleteHandler() {
+        this(HandlerOptions.fromEnvironment());
+    }
+
+    public DeleteHandler(final HandlerOptions options) {
+        super(options);
+    }
 
     protected ProgressEvent<ResourceModel, CallbackContext> handleRequest(
         final AmazonWebServicesClientProxy proxy,
@@ -28,16 +35,23 @@ public class DeleteHandler extends BaseHandlerStd {
         final ProxyClient<NetworkFirewallClient> proxyClient,
         final Logger logger) {
 
-        this.logger = logger;
-
         final ResourceModel model = request.getDesiredResourceState();
 
-        Utils.validateResourceExists(Translator.translateToReadRequest(model), proxyClient);
-
         try {
-            convertTemplateToUpdateLoggingConfigurationCall(model, proxyClient, true, false);
+            // a callback has only the stabilization left, an earlier invocation made the updates
+            if (!callbackContext.isStabilizing()) {
+                final DescribeLoggingConfigurationResponse current =
+                        Utils.validateResourceExists(Translator.translateToReadRequest(model), proxyClient);
+                convertTemplateToUpdateLoggingConfigurationCall(model, proxyClient, current.loggingConfiguration(), true);
+            }
 
-            Utils.stablize(proxyClient, model);
+            // the desired state of a delete still holds the destinations, stabilize on them being gone
+            if (Utils.stablize(proxyClient, ResourceModel.builder()
+                    .firewallArn(model.getFirewallArn())
+                    .firewallName(model.getFirewallName())
+                    .build(), callbackContext, callbackContext.getDeadline(), callbackContext.getRetries()) == null) {
+                return Utils.stabilizationInProgress(model, callbackContext);
+            }
             return ProgressEvent.defaultSuccessHandler(null);
         } catch(InvalidRequestException e){
             throw new CfnInvalidRequestException(e);
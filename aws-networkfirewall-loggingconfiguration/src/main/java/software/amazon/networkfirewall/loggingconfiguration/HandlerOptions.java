@@ -0,0 +1,44 @@
+package software.amazon.networkfirewall.loggingconfiguration;
+
+import lombok.Builder;
+import lombok.Value;
+import software.amazon.networkfirewall.common.InvocationOptions;
+
+import static software.amazon.networkfirewall.common.InvocationOptions.positiveIntOrDefault;
+import static software.amazon.networkfirewall.common.InvocationOptions.positiveIntOrNull;
+
+/**
+ * Optional handler behaviour that is switched on per deployment through the function environment
+ * rather than through the resource schema. Everything defaults to the original behaviour.
+ */
+@Value
+@Builder
+public class HandlerOptions {
+    static final String LIST_PARALLELISM = "NETWORKFIREWALL_LIST_PARALLELISM";
+    static final String LIST_PAGE_SIZE = "NETWORKFIREWALL_LIST_PAGE_SIZE";
+    static final int DEFAULT_LIST_PARALLELISM = 16;
+    static final int MAX_LIST_PAGE_SIZE = 100;
+
+    // upper bound on concurrent DescribeLoggingConfiguration calls made for one page of firewalls
+    @Builder.Default
+    int listParallelism = DEFAULT_LIST_PARALLELISM;
+
+    // MaxResults of each ListFirewalls call, null leaves the page size to the service
+    Integer listPageSize;
+
+    // the options every handler of the project is invoked with
+    @Builder.Default
+    InvocationOptions invocation = InvocationOptions.defaults();
+
+    public static HandlerOptions fromEnvironment() {
+        return HandlerOptions.builder()
+                .listParallelism(positiveIntOrDefault(System.getenv(LIST_PARALLELISM), DEFAULT_LIST_PARALLELISM))
+                .listPageSize(listPageSize(positiveIntOrNull(System.getenv(LIST_PAGE_SIZE))))
+                .invocation(InvocationOptions.fromEnvironment())
+                .build();
+    }
+
+    static Integer listPageSize(final Integer pageSize) {
+        return pageSize == null ? null : Math.min(pageSize, MAX_LIST_PAGE_SIZE);
+    }
+}
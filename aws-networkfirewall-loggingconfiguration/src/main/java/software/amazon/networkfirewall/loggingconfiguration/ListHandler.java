@@ -1,12 +1,13 @@
 package software.amazon.networkfirewall.loggingconfiguration;
 
 import com.amazonaws.util.CollectionUtils;
+import software.amazon.awssdk.services.networkfirewall.NetworkFirewallAsyncClient;
 import software.amazon.awssdk.services.networkfirewall.NetworkFirewallClient;
-import software.amazon.awssdk.services.networkfirewall.model.DescribeLoggingConfigurationRequest;
 import software.amazon.awssdk.services.networkfirewall.model.DescribeLoggingConfigurationResponse;
+import software.amazon.awssdk.services.networkfirewall.model.FirewallMetadata;
 import software.amazon.awssdk.services.networkfirewall.model.InternalServerErrorException;
 import software.amazon.awssdk.services.networkfirewall.model.InvalidRequestException;
-import software.amazon.awssdk.services.networkfirewall.model.ResourceNotFoundException;
+import software.amazon.awssdk.services.networkfirewall.model.ListFirewallsResponse;
 import software.amazon.awssdk.services.networkfirewall.model.ThrottlingException;
 import software.amazon.cloudformation.exceptions.CfnInvalidRequestException;
 import software.amazon.cloudformation.exceptions.CfnNotFoundException;
@@ -18,12 +19,25 @@ import software.amazon.cloudformation.proxy.OperationStatus;
 import software.amazon.cloudformation.proxy.ProgressEvent;
 import software.amazon.cloudformation.proxy.ProxyClient;
 import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+import software.amazon.networkfirewall.common.AsyncFanOut;
+import software.amazon.networkfirewall.common.FanOutExecutors;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 
 public class ListHandler extends BaseHandlerStd {
-    private Logger logger;
+    public ListHandler() {
+        this(HandlerOptions.fromEnvironment());
+    }
+
+    ListHandler(final HandlerOptions options) {
+        super(options);
+    }
 
     // A list handler MUST return an array of primary identifiers.
     @Override
@@ -34,32 +48,121 @@ public class ListHandler extends BaseHandlerStd {
             final ProxyClient<NetworkFirewallClient> proxyClient,
             final Logger logger) {
 
-        this.logger = logger;
         final ResourceModel model = request.getDesiredResourceState();
 
-        Utils.describeLoggingConfigurationCall(Translator.translateToReadRequest(model), proxyClient);
+        // without a firewall in the model every logging configuration of the account is listed
+        if (model == null || (model.getFirewallArn() == null && model.getFirewallName() == null)) {
+            return listAccountLoggingConfigurations(request.getNextToken(), proxyClient,
+                    callbackContext.getAsyncProxyClient(), logger);
+        }
+
+        final DescribeLoggingConfigurationResponse describeLoggingConfigurationResponse =
+                Utils.describeLoggingConfigurationCall(Translator.translateToReadRequest(model), proxyClient);
+
+        if (!hasLogDestinations(describeLoggingConfigurationResponse)) {
+            return constructResourceModelFromResponse();
+        }
+
+        return constructResourceModelFromResponse(describeLoggingConfigurationResponse);
+    }
 
-        final DescribeLoggingConfigurationRequest describeLoggingConfigurationRequest = Translator.translateToReadRequest(model);
-        DescribeLoggingConfigurationResponse describeLoggingConfigurationResponse;
+    private ProgressEvent<ResourceModel, CallbackContext> listAccountLoggingConfigurations(
+            final String nextToken, final ProxyClient<NetworkFirewallClient> proxyClient,
+            final ProxyClient<NetworkFirewallAsyncClient> asyncProxyClient, final Logger logger) {
+        final ListFirewallsResponse listFirewallsResponse;
         try {
-            describeLoggingConfigurationResponse = proxyClient.injectCredentialsAndInvokeV2(
-                    describeLoggingConfigurationRequest, proxyClient.client()::describeLoggingConfiguration);
-        } catch (ResourceNotFoundException e) {
-            throw new CfnNotFoundException(ResourceModel.TYPE_NAME, e.toString());
+            listFirewallsResponse = proxyClient.injectCredentialsAndInvokeV2(
+                    Translator.translateToListFirewallsRequest(nextToken, options.getListPageSize()),
+                    proxyClient.client()::listFirewalls);
         } catch (InvalidRequestException e) {
-            throw new CfnInvalidRequestException(describeLoggingConfigurationRequest.toString(), e);
+            throw new CfnInvalidRequestException(e.getMessage(), e);
         } catch (InternalServerErrorException e) {
             throw new CfnServiceInternalErrorException(ResourceModel.TYPE_NAME, e);
         } catch (ThrottlingException e) {
             throw new CfnThrottlingException(ResourceModel.TYPE_NAME, e);
         }
 
-        if (describeLoggingConfigurationResponse.loggingConfiguration() == null ||
-                CollectionUtils.isNullOrEmpty(describeLoggingConfigurationResponse.loggingConfiguration().logDestinationConfigs())) {
-            return constructResourceModelFromResponse();
+        final List<ResourceModel> models = new ArrayList<>();
+        final List<DescribeLoggingConfigurationResponse> responses = asyncProxyClient != null
+                ? describeLoggingConfigurationsAsync(listFirewallsResponse.firewalls(), asyncProxyClient)
+                : describeLoggingConfigurations(listFirewallsResponse.firewalls(), proxyClient);
+        for (final DescribeLoggingConfigurationResponse response : responses) {
+            if (hasLogDestinations(response)) {
+                models.add(Translator.translateFromReadResponse(response));
+            }
         }
+        logger.log(String.format("Described logging configuration of %d firewalls, %d have log destinations.",
+                listFirewallsResponse.firewalls().size(), models.size()));
 
-        return constructResourceModelFromResponse(describeLoggingConfigurationResponse);
+        return ProgressEvent.<ResourceModel, CallbackContext>builder()
+                .resourceModels(models)
+                .nextToken(listFirewallsResponse.nextToken())
+                .status(OperationStatus.SUCCESS)
+                .build();
+    }
+
+    /**
+     * Describes the logging configuration of every listed firewall on a pool bounded by the configured
+     * parallelism, preserving the listed order. Firewalls deleted since they were listed are left out.
+     */
+    private List<DescribeLoggingConfigurationResponse> describeLoggingConfigurations(
+            final List<FirewallMetadata> firewalls, final ProxyClient<NetworkFirewallClient> proxyClient) {
+        final List<DescribeLoggingConfigurationResponse> responses = new ArrayList<>();
+        if (firewalls.isEmpty()) {
+            return responses;
+        }
+        final ExecutorService executor = FanOutExecutors.newExecutor("list",
+                Math.min(options.getListParallelism(), firewalls.size()), options.getInvocation().isVirtualThreads());
+        try {
+            final List<Future<DescribeLoggingConfigurationResponse>> pending = new ArrayList<>();
+            for (final FirewallMetadata firewall : firewalls) {
+                final ResourceModel firewallModel = ResourceModel.builder().firewallArn(firewall.firewallArn()).build();
+                pending.add(executor.submit(() -> {
+                    try {
+                        return Utils.describeLoggingConfigurationCall(Translator.translateToReadRequest(firewallModel), proxyClient);
+                    } catch (CfnNotFoundException e) {
+                        return null;
+                    }
+                }));
+            }
+            for (final Future<DescribeLoggingConfigurationResponse> future : pending) {
+                final DescribeLoggingConfigurationResponse response = AsyncFanOut.await(future, "DescribeLoggingConfiguration");
+                if (response != null) {
+                    responses.add(response);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return responses;
+    }
+
+    /**
+     * The same through the async client: at most the configured parallelism of calls are in flight, and they
+     * complete on the threads of its HTTP client rather than on a pool of this invocation.
+     */
+    private List<DescribeLoggingConfigurationResponse> describeLoggingConfigurationsAsync(
+            final List<FirewallMetadata> firewalls, final ProxyClient<NetworkFirewallAsyncClient> asyncProxyClient) {
+        final AsyncFanOut<NetworkFirewallAsyncClient> fanOut = new AsyncFanOut<>(asyncProxyClient, options.getListParallelism());
+        final List<CompletableFuture<DescribeLoggingConfigurationResponse>> pending = new ArrayList<>();
+        for (final FirewallMetadata firewall : firewalls) {
+            final ResourceModel firewallModel = ResourceModel.builder().firewallArn(firewall.firewallArn()).build();
+            pending.add(fanOut.send(Translator.translateToReadRequest(firewallModel), fanOut.client()::describeLoggingConfiguration));
+        }
+        final List<DescribeLoggingConfigurationResponse> responses = new ArrayList<>();
+        for (final CompletableFuture<DescribeLoggingConfigurationResponse> future : pending) {
+            try {
+                responses.add(Utils.describeLoggingConfigurationCall(() -> AsyncFanOut.join(future)));
+            } catch (CfnNotFoundException e) {
+                // deleted since it was listed
+            }
+        }
+        return responses;
+    }
+
+    private static boolean hasLogDestinations(final DescribeLoggingConfigurationResponse describeLoggingConfigurationResponse) {
+        return describeLoggingConfigurationResponse.loggingConfiguration() != null &&
+                !CollectionUtils.isNullOrEmpty(describeLoggingConfigurationResponse.loggingConfiguration().logDestinationConfigs());
     }
 
     private ProgressEvent<ResourceModel, CallbackContext> constructResourceModelFromResponse(
@@ -2,6 +2,7 @@ package software.amazon.networkfirewall.loggingconfiguration;
 
 import software.amazon.awssdk.services.networkfirewall.model.DescribeLoggingConfigurationRequest;
 import software.amazon.awssdk.services.networkfirewall.model.DescribeLoggingConfigurationResponse;
+import software.amazon.awssdk.services.networkfirewall.model.ListFirewallsRequest;
 import software.amazon.awssdk.services.networkfirewall.model.UpdateLoggingConfigurationRequest;
 
 import java.util.ArrayList;
@@ -28,6 +29,19 @@ public class Translator {
               .build();
   }
 
+  /**
+   * Request to list the firewalls whose logging configurations are listed
+   * @param nextToken token passed to the aws service list resources request
+   * @param maxResults page size, null leaves it to the service
+   * @return awsRequest the aws service request to list firewalls within aws account
+   */
+  static ListFirewallsRequest translateToListFirewallsRequest(final String nextToken, final Integer maxResults) {
+      return ListFirewallsRequest.builder()
+              .nextToken(nextToken)
+              .maxResults(maxResults)
+              .build();
+  }
+
   /**
    * Translates resource object from sdk into a resource model
    * @param describeLoggingConfigurationResponse the networkFirewall describeLoggingConfiguration response
@@ -1,7 +1,7 @@
 package software.amazon.networkfirewall.loggingconfiguration;
 
 import software.amazon.awssdk.services.networkfirewall.NetworkFirewallClient;
-
+import software.amazon.awssdk.services.networkfirewall.model.DescribeLoggingConfigurationResponse;
 import software.amazon.awssdk.services.networkfirewall.model.InternalServerErrorException;
 import software.amazon.awssdk.services.networkfirewall.model.InvalidRequestException;
 import software.amazon.awssdk.services.networkfirewall.model.LogDestinationPermissionException;
@@ -21,7 +21,13 @@ import static software.amazon.networkfirewall.loggingconfiguration.Utils.convert
 import static software.amazon.networkfirewall.loggingconfiguration.Utils.validateInputModel;
 
 public class UpdateHandler extends BaseHandlerStd {
-    private Logger logger;
+    public UpdateHandler() {
+        this(HandlerOptions.fromEnvironment());
+    }
+
+    public UpdateHandler(final HandlerOptions options) {
+        super(options);
+    }
 
     protected ProgressEvent<ResourceModel, CallbackContext> handleRequest(
         final AmazonWebServicesClientProxy proxy,
@@ -30,19 +36,25 @@ public class UpdateHandler extends BaseHandlerStd {
         final ProxyClient<NetworkFirewallClient> proxyClient,
         final Logger logger) {
 
-        this.logger = logger;
-
         final ResourceModel model = request.getDesiredResourceState();
 
 
-        Utils.validateResourceExists(Translator.translateToReadRequest(model), proxyClient);
-        validateInputModel(model);
-
         try {
-            convertTemplateToUpdateLoggingConfigurationCall(model, proxyClient);
+            // a callback has only the stabilization left, an earlier invocation made the updates
+            if (!callbackContext.isStabilizing()) {
+                final DescribeLoggingConfigurationResponse current =
+                        Utils.validateResourceExists(Translator.translateToReadRequest(model), proxyClient);
+                validateInputModel(model);
+                convertTemplateToUpdateLoggingConfigurationCall(model, proxyClient, current.loggingConfiguration(), false);
+            }
 
-            Utils.stablize(proxyClient, model);
-            return new ReadHandler().handleRequest(proxy, request, callbackContext, proxyClient, logger);
+            final DescribeLoggingConfigurationResponse stabilized =
+                    Utils.stablize(proxyClient, model, callbackContext, callbackContext.getDeadline(),
+                            callbackContext.getRetries());
+            if (stabilized == null) {
+                return Utils.stabilizationInProgress(model, callbackContext);
+            }
+            return ProgressEvent.defaultSuccessHandler(Translator.translateFromReadResponse(stabilized));
         } catch(InvalidRequestException e){
             throw new CfnInvalidRequestException(e);
         } catch (InternalServerErrorException | LogDestinationPermissionException | ResourceNotFoundException | InterruptedException e) {
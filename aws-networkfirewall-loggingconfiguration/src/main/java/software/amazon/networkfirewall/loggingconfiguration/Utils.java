@@ -18,7 +18,11 @@ import software.amazon.cloudformation.exceptions.CfnNotFoundException;
 import software.amazon.cloudformation.exceptions.CfnNotStabilizedException;
 import software.amazon.cloudformation.exceptions.CfnServiceInternalErrorException;
 import software.amazon.cloudformation.exceptions.CfnThrottlingException;
+import software.amazon.cloudformation.proxy.ProgressEvent;
 import software.amazon.cloudformation.proxy.ProxyClient;
+import software.amazon.networkfirewall.common.Deadline;
+import software.amazon.networkfirewall.common.FlightRecorderEvents;
+import software.amazon.networkfirewall.common.RetryPolicy;
 
 import java.time.Duration;
 import java.util.ArrayList;
@@ -28,17 +32,21 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.function.Supplier;
 
 import static software.amazon.networkfirewall.loggingconfiguration.Translator.toModelLoggingConfiguration;
-import static software.amazon.networkfirewall.loggingconfiguration.Translator.translateToReadRequest;
 
 public class Utils {
     final static Set<String> logTypeSet = Collections.unmodifiableSet(new HashSet<>(Arrays.asList("FLOW", "ALERT")));
+    static final int MAX_STABILIZATION_ATTEMPTS = 120;
+    static final Duration STABILIZATION_POLL_INTERVAL = Duration.ofSeconds(5);
 
     static DescribeLoggingConfigurationResponse validateResourceExists(
             final DescribeLoggingConfigurationRequest describeLoggingConfigurationRequest,
             final ProxyClient<NetworkFirewallClient> proxyClient) {
+        FlightRecorderEvents.step("ResourceExists");
 
         DescribeLoggingConfigurationResponse describeResult = describeLoggingConfigurationCall(
                 describeLoggingConfigurationRequest, proxyClient);
@@ -55,6 +63,7 @@ public class Utils {
     static DescribeLoggingConfigurationResponse validateResourceNotExists(
             final DescribeLoggingConfigurationRequest describeLoggingConfigurationRequest,
             final ProxyClient<NetworkFirewallClient> proxyClient) {
+        FlightRecorderEvents.step("ResourceNotExists");
 
         DescribeLoggingConfigurationResponse describeResult = describeLoggingConfigurationCall(
                 describeLoggingConfigurationRequest, proxyClient);
@@ -71,10 +80,16 @@ public class Utils {
     static DescribeLoggingConfigurationResponse describeLoggingConfigurationCall(
             final DescribeLoggingConfigurationRequest describeLoggingConfigurationRequest,
             final ProxyClient<NetworkFirewallClient> proxyClient) {
+        return describeLoggingConfigurationCall(() -> proxyClient.injectCredentialsAndInvokeV2(
+                describeLoggingConfigurationRequest, proxyClient.client()::describeLoggingConfiguration));
+    }
+
+    // translates the errors of a describe made any other way, such as the join of an async call
+    static DescribeLoggingConfigurationResponse describeLoggingConfigurationCall(
+            final Supplier<DescribeLoggingConfigurationResponse> describeLoggingConfiguration) {
         DescribeLoggingConfigurationResponse describeResult;
         try{
-            describeResult = proxyClient.injectCredentialsAndInvokeV2(describeLoggingConfigurationRequest,
-                    proxyClient.client()::describeLoggingConfiguration);
+            describeResult = describeLoggingConfiguration.get();
 
         } catch(InvalidRequestException e){
             throw new CfnInvalidRequestException(e.getMessage(), e);
@@ -88,27 +103,16 @@ public class Utils {
         return describeResult;
     }
 
+    /**
+     * Plans and executes the updates that take the logging configuration the caller already described
+     * to the one in the model, so no further describe is needed here.
+     */
     static void convertTemplateToUpdateLoggingConfigurationCall(
-            final ResourceModel model, final ProxyClient<NetworkFirewallClient> proxyClient) {
-        convertTemplateToUpdateLoggingConfigurationCall(model, proxyClient, false, false);
-    }
-
-    //TODO: The signatrue of this method is not reasonable. Instead of using booleans,
-    // we should use some operation enums to reflect the operations.
-    static void convertTemplateToUpdateLoggingConfigurationCall(
-            final ResourceModel model, final ProxyClient<NetworkFirewallClient> proxyClient, boolean isDeleteRequest, boolean isCreateRequest) {
-        LoggingConfiguration trackingLoggingConfiguration;
-
-        if (!isCreateRequest) {
-            final DescribeLoggingConfigurationRequest readRequest = translateToReadRequest(model);
-            final DescribeLoggingConfigurationResponse describeLoggingConfigurationResponse = proxyClient
-                    .injectCredentialsAndInvokeV2(readRequest,
-                            proxyClient.client()::describeLoggingConfiguration);
-            trackingLoggingConfiguration = toModelLoggingConfiguration(
-                    describeLoggingConfigurationResponse.loggingConfiguration());
-        } else {
-            trackingLoggingConfiguration = toModelLoggingConfiguration(null);
-        }
+            final ResourceModel model, final ProxyClient<NetworkFirewallClient> proxyClient,
+            final software.amazon.awssdk.services.networkfirewall.model.LoggingConfiguration currentLoggingConfiguration,
+            boolean isDeleteRequest) {
+        FlightRecorderEvents.step("UpdateLoggingConfiguration");
+        final LoggingConfiguration trackingLoggingConfiguration = toModelLoggingConfiguration(currentLoggingConfiguration);
 
         final Map<String, LogDestinationConfig> newConfigMap = isDeleteRequest? new HashMap<>(): convertToMap(model.getLoggingConfiguration());
         final Map<String, LogDestinationConfig> currentConfigMap = convertToMap(trackingLoggingConfiguration);
@@ -223,35 +227,75 @@ public class Utils {
     }
 
     /**
-     * To stablize the update of loggingConfiguration for 10 seconds.
+     * To stablize the update of loggingConfiguration, polling every 5 seconds for at most 120 polls.
+     * A poll that would not finish before the deadline is left to a callback: the polls made so far
+     * are kept in the callback context and null is returned, for the caller to return IN_PROGRESS
+     * with a callback delay of one poll interval. A poll that failed for a transient reason counts as
+     * not stable yet while the retry policy has retries left.
+     * @return the describe result that matched the model, for the caller to translate, or null
      */
-    static void stablize(ProxyClient<NetworkFirewallClient> client, ResourceModel model) throws InterruptedException {
-        int time = 0;
-        do {
-            if (isStable(client, model)) {
-                return;
+    static DescribeLoggingConfigurationResponse stablize(ProxyClient<NetworkFirewallClient> client, ResourceModel model,
+                                                         CallbackContext callbackContext, Deadline deadline,
+                                                         RetryPolicy retries)
+            throws InterruptedException {
+        FlightRecorderEvents.step("Stabilize");
+        callbackContext.setStabilizing(true);
+        boolean polled = false;
+        while (callbackContext.getStabilizationAttempts() < MAX_STABILIZATION_ATTEMPTS) {
+            // the callback delay already spaced the first poll of an invocation from the previous one
+            if (polled) {
+                if (!deadline.allows(STABILIZATION_POLL_INTERVAL)) {
+                    return null;
+                }
+                Thread.sleep(STABILIZATION_POLL_INTERVAL.toMillis());
+            }
+            FlightRecorderEvents.pollStarted();
+            boolean stable = false;
+            try {
+                final DescribeLoggingConfigurationResponse describeLoggingConfigurationResponse =
+                        describeForStabilization(client, model, retries);
+                stable = describeLoggingConfigurationResponse != null
+                        && isStable(model, describeLoggingConfigurationResponse);
+                if (stable) {
+                    return describeLoggingConfigurationResponse;
+                }
+            } finally {
+                FlightRecorderEvents.pollEnded(stable);
             }
-            time++;
-            Thread.sleep(Duration.ofSeconds(5).toMillis());
-        } while (time < 120);
+            polled = true;
+            callbackContext.setStabilizationAttempts(callbackContext.getStabilizationAttempts() + 1);
+        }
         throw new CfnNotStabilizedException(ResourceModel.TYPE_NAME, model.getFirewallArn());
     }
 
-    static boolean isStable(ProxyClient<NetworkFirewallClient> client, ResourceModel model) {
+    // progress of a stabilization that continues in a callback one poll interval later
+    static ProgressEvent<ResourceModel, CallbackContext> stabilizationInProgress(final ResourceModel model,
+                                                                                final CallbackContext callbackContext) {
+        return ProgressEvent.defaultInProgressHandler(callbackContext,
+                (int) STABILIZATION_POLL_INTERVAL.getSeconds(), model);
+    }
+
+    // null when the describe failed for a transient reason the retry policy absorbed
+    static DescribeLoggingConfigurationResponse describeForStabilization(ProxyClient<NetworkFirewallClient> client,
+                                                                         ResourceModel model, RetryPolicy retries) {
         final DescribeLoggingConfigurationRequest describeLoggingConfigurationRequest = Translator.translateToReadRequest(model);
-        DescribeLoggingConfigurationResponse describeLoggingConfigurationResponse;
         try {
-            describeLoggingConfigurationResponse = client.injectCredentialsAndInvokeV2(
+            return client.injectCredentialsAndInvokeV2(
                     describeLoggingConfigurationRequest, client.client()::describeLoggingConfiguration);
-
-            return (model.getLoggingConfiguration() == null &&
-                    (describeLoggingConfigurationResponse.loggingConfiguration() == null ||
-                            CollectionUtils.isNullOrEmpty(
-                                    describeLoggingConfigurationResponse.loggingConfiguration().logDestinationConfigs())))
-                    || describeLoggingConfigurationResponse.loggingConfiguration()
-                    .equals(Translator.toSdkLoggingConfiguration(model.getLoggingConfiguration()));
         } catch (final Exception e) {
+            if (retries.absorbs(e)) {
+                return null;
+            }
             throw new CfnGeneralServiceException("Failed to retrieve loggingConfiguration definition.");
         }
     }
+
+    static boolean isStable(ResourceModel model, DescribeLoggingConfigurationResponse describeLoggingConfigurationResponse) {
+        return (model.getLoggingConfiguration() == null &&
+                (describeLoggingConfigurationResponse.loggingConfiguration() == null ||
+                        CollectionUtils.isNullOrEmpty(
+                                describeLoggingConfigurationResponse.loggingConfiguration().logDestinationConfigs())))
+                || Objects.equals(describeLoggingConfigurationResponse.loggingConfiguration(),
+                        Translator.toSdkLoggingConfiguration(model.getLoggingConfiguration()));
+    }
 }
@@ -0,0 +1,23 @@
+package software.amazon.networkfirewall.loggingconfiguration;
+
+import java.util.Collections;
+
+import software.amazon.awssdk.services.networkfirewall.model.DescribeLoggingConfigurationResponse;
+import software.amazon.awssdk.services.networkfirewall.model.UpdateLoggingConfigurationResponse;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static software.amazon.networkfirewall.loggingconfiguration.Translator.toSdkLoggingConfiguration;
+
+public class BaseHandlerStdTest extends AbstractTestBase {
+
+    @Test
+    public void testObservedStatus() {
+        assertThat(BaseHandlerStd.observedStatus(UpdateLoggingConfigurationResponse.builder().build())).isNull();
+        assertThat(BaseHandlerStd.observedStatus(DescribeLoggingConfigurationResponse.builder().build())).isEqualTo("NONE");
+        assertThat(BaseHandlerStd.observedStatus(DescribeLoggingConfigurationResponse.builder()
+                .loggingConfiguration(toSdkLoggingConfiguration(buildLoggingConfiguration(
+                        Collections.singletonList(buildLogDestinationConfig("FLOW", "S3"))))).build()))
+                .isEqualTo("FLOW");
+    }
+}
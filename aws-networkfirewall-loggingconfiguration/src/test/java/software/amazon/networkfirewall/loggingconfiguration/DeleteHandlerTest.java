@@ -78,7 +78,6 @@ public class DeleteHandlerTest extends AbstractTestBase {
                 .build();
 
         when(proxyClient.client().describeLoggingConfiguration(any(DescribeLoggingConfigurationRequest.class)))
-                .thenReturn(preCheckLoggingConfigurationResponse)
                 .thenReturn(preCheckLoggingConfigurationResponse)
                 .thenReturn(finalLoggingConfigurationResponse);
 
@@ -99,6 +98,7 @@ public class DeleteHandlerTest extends AbstractTestBase {
         assertThat(response.getMessage()).isNull();
         assertThat(response.getErrorCode()).isNull();
 
+        verify(proxyClient.client(), times(2)).describeLoggingConfiguration(any(DescribeLoggingConfigurationRequest.class));
         verify(proxyClient.client(), times(1)).updateLoggingConfiguration(any(UpdateLoggingConfigurationRequest.class));
     }
 
@@ -107,6 +107,7 @@ public class DeleteHandlerTest extends AbstractTestBase {
         LogDestinationConfig config1 = buildLogDestinationConfig("FLOW", "S3");
         LogDestinationConfig config2 = buildLogDestinationConfig("ALERT", "CloudWatchLogs");
         model = buildResourceModel();
+        model.setLoggingConfiguration(buildLoggingConfiguration(Arrays.asList(config1, config2)));
 
         final DescribeLoggingConfigurationResponse preCheckLoggingConfigurationResponse = DescribeLoggingConfigurationResponse.builder()
                 .firewallArn(firewallArn)
@@ -129,7 +130,6 @@ public class DeleteHandlerTest extends AbstractTestBase {
                 .build();
 
         when(proxyClient.client().describeLoggingConfiguration(any(DescribeLoggingConfigurationRequest.class)))
-                .thenReturn(preCheckLoggingConfigurationResponse)
                 .thenReturn(preCheckLoggingConfigurationResponse)
                 .thenReturn(finalLoggingConfigurationResponse);
 
@@ -151,6 +151,7 @@ public class DeleteHandlerTest extends AbstractTestBase {
         assertThat(response.getMessage()).isNull();
         assertThat(response.getErrorCode()).isNull();
 
+        verify(proxyClient.client(), times(2)).describeLoggingConfiguration(any(DescribeLoggingConfigurationRequest.class));
         verify(proxyClient.client(), times(2)).updateLoggingConfiguration(any(UpdateLoggingConfigurationRequest.class));
     }
 
@@ -1,18 +1,33 @@
 package software.amazon.networkfirewall.loggingconfiguration;
 
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import software.amazon.awssdk.services.networkfirewall.NetworkFirewallAsyncClient;
 import software.amazon.awssdk.services.networkfirewall.NetworkFirewallClient;
 import software.amazon.awssdk.services.networkfirewall.model.DescribeLoggingConfigurationRequest;
 import software.amazon.awssdk.services.networkfirewall.model.DescribeLoggingConfigurationResponse;
+import software.amazon.awssdk.services.networkfirewall.model.FirewallMetadata;
+import software.amazon.awssdk.services.networkfirewall.model.ListFirewallsRequest;
+import software.amazon.awssdk.services.networkfirewall.model.ListFirewallsResponse;
+import software.amazon.awssdk.services.networkfirewall.model.ResourceNotFoundException;
+import software.amazon.awssdk.services.networkfirewall.model.ThrottlingException;
 import software.amazon.cloudformation.exceptions.CfnNotFoundException;
 import software.amazon.cloudformation.exceptions.CfnServiceInternalErrorException;
+import software.amazon.cloudformation.exceptions.CfnThrottlingException;
 import software.amazon.cloudformation.proxy.AmazonWebServicesClientProxy;
 import software.amazon.cloudformation.proxy.OperationStatus;
 import software.amazon.cloudformation.proxy.ProgressEvent;
 import software.amazon.cloudformation.proxy.ProxyClient;
 import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+import software.amazon.networkfirewall.common.InvocationOptions;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -65,7 +80,6 @@ public class ListHandlerTest extends AbstractTestBase{
                 .build();
 
         when(proxyClient.client().describeLoggingConfiguration(any(DescribeLoggingConfigurationRequest.class)))
-                .thenReturn(finalLoggingConfigurationResponse)
                 .thenReturn(finalLoggingConfigurationResponse);
 
 
@@ -84,7 +98,7 @@ public class ListHandlerTest extends AbstractTestBase{
         assertThat(response.getMessage()).isNull();
         assertThat(response.getErrorCode()).isNull();
 
-        verify(proxyClient.client(), times(2)).describeLoggingConfiguration(any(DescribeLoggingConfigurationRequest.class));
+        verify(proxyClient.client(), times(1)).describeLoggingConfiguration(any(DescribeLoggingConfigurationRequest.class));
     }
 
     @Test
@@ -97,7 +111,6 @@ public class ListHandlerTest extends AbstractTestBase{
                 .build();
 
         when(proxyClient.client().describeLoggingConfiguration(any(DescribeLoggingConfigurationRequest.class)))
-                .thenReturn(finalLoggingConfigurationResponse)
                 .thenReturn(finalLoggingConfigurationResponse);
 
         final ResourceHandlerRequest<ResourceModel> request = ResourceHandlerRequest.<ResourceModel>builder()
@@ -114,7 +127,7 @@ public class ListHandlerTest extends AbstractTestBase{
         assertThat(response.getMessage()).isNull();
         assertThat(response.getErrorCode()).isNull();
 
-        verify(proxyClient.client(), times(2)).describeLoggingConfiguration(any(DescribeLoggingConfigurationRequest.class));
+        verify(proxyClient.client(), times(1)).describeLoggingConfiguration(any(DescribeLoggingConfigurationRequest.class));
     }
 
     @Test
@@ -134,4 +147,207 @@ public class ListHandlerTest extends AbstractTestBase{
 
         verify(proxyClient.client(), times(1)).describeLoggingConfiguration(any(DescribeLoggingConfigurationRequest.class));
     }
+
+    @Test
+    public void handleRequest_AccountWideListing() {
+        final LogDestinationConfig config1 = buildLogDestinationConfig("FLOW", "S3");
+        when(proxyClient.client().listFirewalls(any(ListFirewallsRequest.class)))
+                .thenReturn(ListFirewallsResponse.builder()
+                        .firewalls(metadata("arn1"), metadata("arn2"), metadata("arn3"))
+                        .nextToken("next")
+                        .build());
+        when(proxyClient.client().describeLoggingConfiguration(any(DescribeLoggingConfigurationRequest.class)))
+                .thenAnswer(invocation -> {
+                    final String arn = ((DescribeLoggingConfigurationRequest) invocation.getArgument(0)).firewallArn();
+                    if ("arn3".equals(arn)) {
+                        throw ResourceNotFoundException.builder().message("deleted since listing").build();
+                    }
+                    final DescribeLoggingConfigurationResponse.Builder response =
+                            DescribeLoggingConfigurationResponse.builder().firewallArn(arn);
+                    if ("arn1".equals(arn)) {
+                        response.loggingConfiguration(toSdkLoggingConfiguration(
+                                buildLoggingConfiguration(Collections.singletonList(config1))));
+                    }
+                    return response.build();
+                });
+
+        final ResourceHandlerRequest<ResourceModel> request = ResourceHandlerRequest.<ResourceModel>builder()
+                .desiredResourceState(ResourceModel.builder().build())
+                .build();
+
+        final ProgressEvent<ResourceModel, CallbackContext> response =
+                new ListHandler(HandlerOptions.builder().listParallelism(2).build())
+                        .handleRequest(proxy, request, new CallbackContext(), proxyClient, logger);
+
+        assertThat(response.getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        assertThat(response.getNextToken()).isEqualTo("next");
+        assertThat(response.getResourceModels()).hasSize(1);
+        assertThat(response.getResourceModels().get(0).getFirewallArn()).isEqualTo("arn1");
+        assertThat(response.getResourceModels().get(0).getLoggingConfiguration().getLogDestinationConfigs())
+                .containsExactly(config1);
+
+        verify(proxyClient.client(), times(1)).listFirewalls(any(ListFirewallsRequest.class));
+        verify(proxyClient.client(), times(3)).describeLoggingConfiguration(any(DescribeLoggingConfigurationRequest.class));
+    }
+
+    @Test
+    public void handleRequest_AccountWideListingParallelismIsBounded() {
+        final List<FirewallMetadata> firewalls = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            firewalls.add(metadata("arn" + i));
+        }
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger maxInFlight = new AtomicInteger();
+        when(proxyClient.client().listFirewalls(any(ListFirewallsRequest.class)))
+                .thenReturn(ListFirewallsResponse.builder().firewalls(firewalls).build());
+        when(proxyClient.client().describeLoggingConfiguration(any(DescribeLoggingConfigurationRequest.class)))
+                .thenAnswer(invocation -> {
+                    maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                    Thread.sleep(10);
+                    inFlight.decrementAndGet();
+                    final String arn = ((DescribeLoggingConfigurationRequest) invocation.getArgument(0)).firewallArn();
+                    return DescribeLoggingConfigurationResponse.builder()
+                            .firewallArn(arn)
+                            .loggingConfiguration(toSdkLoggingConfiguration(buildLoggingConfiguration(
+                                    Collections.singletonList(buildLogDestinationConfig("ALERT", "S3")))))
+                            .build();
+                });
+
+        final ProgressEvent<ResourceModel, CallbackContext> response =
+                new ListHandler(HandlerOptions.builder().listParallelism(4).listPageSize(20).build())
+                        .handleRequest(proxy, ResourceHandlerRequest.<ResourceModel>builder().build(),
+                                new CallbackContext(), proxyClient, logger);
+
+        assertThat(response.getResourceModels()).hasSize(20);
+        assertThat(response.getResourceModels().get(7).getFirewallArn()).isEqualTo("arn7");
+        assertThat(response.getNextToken()).isNull();
+        assertThat(maxInFlight.get()).isLessThanOrEqualTo(4);
+
+        verify(proxyClient.client(), times(1)).listFirewalls(any(ListFirewallsRequest.class));
+        verify(proxyClient.client(), times(20)).describeLoggingConfiguration(any(DescribeLoggingConfigurationRequest.class));
+    }
+
+    @Test
+    public void handleRequest_AccountWideListingFromVirtualThreads() {
+        final List<FirewallMetadata> firewalls = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            firewalls.add(metadata("arn" + i));
+        }
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger maxInFlight = new AtomicInteger();
+        when(proxyClient.client().listFirewalls(any(ListFirewallsRequest.class)))
+                .thenReturn(ListFirewallsResponse.builder().firewalls(firewalls).build());
+        when(proxyClient.client().describeLoggingConfiguration(any(DescribeLoggingConfigurationRequest.class)))
+                .thenAnswer(invocation -> {
+                    maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                    Thread.sleep(10);
+                    inFlight.decrementAndGet();
+                    final String arn = ((DescribeLoggingConfigurationRequest) invocation.getArgument(0)).firewallArn();
+                    return DescribeLoggingConfigurationResponse.builder()
+                            .firewallArn(arn)
+                            .loggingConfiguration(toSdkLoggingConfiguration(buildLoggingConfiguration(
+                                    Collections.singletonList(buildLogDestinationConfig("ALERT", "S3")))))
+                            .build();
+                });
+
+        // on a runtime without virtual threads the option falls back to the platform pool
+        final ProgressEvent<ResourceModel, CallbackContext> response = new ListHandler(HandlerOptions.builder()
+                .listParallelism(4).listPageSize(20)
+                .invocation(InvocationOptions.builder().virtualThreads(true).build()).build())
+                        .handleRequest(proxy, ResourceHandlerRequest.<ResourceModel>builder().build(),
+                                new CallbackContext(), proxyClient, logger);
+
+        assertThat(response.getResourceModels()).hasSize(20);
+        assertThat(response.getResourceModels().get(7).getFirewallArn()).isEqualTo("arn7");
+        assertThat(response.getNextToken()).isNull();
+        assertThat(maxInFlight.get()).isLessThanOrEqualTo(4);
+
+        verify(proxyClient.client(), times(1)).listFirewalls(any(ListFirewallsRequest.class));
+        verify(proxyClient.client(), times(20)).describeLoggingConfiguration(any(DescribeLoggingConfigurationRequest.class));
+    }
+
+    @Test
+    public void handleRequest_AccountWideListingThroughTheAsyncClient() {
+        final List<FirewallMetadata> firewalls = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            firewalls.add(metadata("arn" + i));
+        }
+        final NetworkFirewallAsyncClient asyncClient = mock(NetworkFirewallAsyncClient.class);
+        final ScheduledExecutorService network = Executors.newSingleThreadScheduledExecutor();
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger maxInFlight = new AtomicInteger();
+        when(proxyClient.client().listFirewalls(any(ListFirewallsRequest.class)))
+                .thenReturn(ListFirewallsResponse.builder().firewalls(firewalls).build());
+        when(asyncClient.describeLoggingConfiguration(any(DescribeLoggingConfigurationRequest.class)))
+                .thenAnswer(invocation -> {
+                    maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                    final String arn = ((DescribeLoggingConfigurationRequest) invocation.getArgument(0)).firewallArn();
+                    final CompletableFuture<DescribeLoggingConfigurationResponse> response = new CompletableFuture<>();
+                    network.schedule(() -> {
+                        inFlight.decrementAndGet();
+                        if ("arn3".equals(arn)) {
+                            response.completeExceptionally(ResourceNotFoundException.builder().message("deleted").build());
+                        } else {
+                            response.complete(DescribeLoggingConfigurationResponse.builder()
+                                    .firewallArn(arn)
+                                    .loggingConfiguration(toSdkLoggingConfiguration(buildLoggingConfiguration(
+                                            Collections.singletonList(buildLogDestinationConfig("ALERT", "S3")))))
+                                    .build());
+                        }
+                    }, 5, TimeUnit.MILLISECONDS);
+                    return response;
+                });
+        final ListHandler asyncHandler = new ListHandler(HandlerOptions.builder().listParallelism(4).build());
+        final CallbackContext callbackContext = new CallbackContext();
+        callbackContext.setAsyncProxyClient(proxy.newProxy(() -> asyncClient));
+
+        try {
+            final ProgressEvent<ResourceModel, CallbackContext> response = asyncHandler.handleRequest(proxy,
+                    ResourceHandlerRequest.<ResourceModel>builder().build(), callbackContext, proxyClient, logger);
+
+            // the deleted firewall is left out, the rest keep their listed order
+            assertThat(response.getResourceModels()).hasSize(19);
+            assertThat(response.getResourceModels().get(3).getFirewallArn()).isEqualTo("arn4");
+            assertThat(maxInFlight.get()).isLessThanOrEqualTo(4);
+        } finally {
+            network.shutdownNow();
+        }
+
+        verify(proxyClient.client(), times(1)).listFirewalls(any(ListFirewallsRequest.class));
+        verify(asyncClient, times(20)).describeLoggingConfiguration(any(DescribeLoggingConfigurationRequest.class));
+    }
+
+    @Test
+    public void handleRequest_AccountWideListingThrottled() {
+        when(proxyClient.client().listFirewalls(any(ListFirewallsRequest.class)))
+                .thenReturn(ListFirewallsResponse.builder().firewalls(metadata("arn1")).build());
+        when(proxyClient.client().describeLoggingConfiguration(any(DescribeLoggingConfigurationRequest.class)))
+                .thenThrow(ThrottlingException.builder().message("slow down").build());
+
+        assertThrows(CfnThrottlingException.class, () -> new ListHandler(HandlerOptions.builder().build())
+                .handleRequest(proxy, ResourceHandlerRequest.<ResourceModel>builder().build(),
+                        new CallbackContext(), proxyClient, logger));
+
+        verify(proxyClient.client(), times(1)).listFirewalls(any(ListFirewallsRequest.class));
+        verify(proxyClient.client(), times(1)).describeLoggingConfiguration(any(DescribeLoggingConfigurationRequest.class));
+    }
+
+    @Test
+    public void handleRequest_AccountWideListingNoFirewalls() {
+        when(proxyClient.client().listFirewalls(any(ListFirewallsRequest.class)))
+                .thenReturn(ListFirewallsResponse.builder().build());
+
+        final ProgressEvent<ResourceModel, CallbackContext> response = new ListHandler(HandlerOptions.builder().build())
+                .handleRequest(proxy, ResourceHandlerRequest.<ResourceModel>builder().build(),
+                        new CallbackContext(), proxyClient, logger);
+
+        assertThat(response.getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        assertThat(response.getResourceModels()).isEmpty();
+
+        verify(proxyClient.client(), times(1)).listFirewalls(any(ListFirewallsRequest.class));
+    }
+
+    private static FirewallMetadata metadata(final String arn) {
+        return FirewallMetadata.builder().firewallArn(arn).build();
+    }
 }
@@ -9,6 +9,7 @@ import java.util.Map;
 import software.amazon.awssdk.services.networkfirewall.NetworkFirewallClient;
 import software.amazon.awssdk.services.networkfirewall.model.DescribeLoggingConfigurationRequest;
 import software.amazon.awssdk.services.networkfirewall.model.DescribeLoggingConfigurationResponse;
+import software.amazon.awssdk.services.networkfirewall.model.InternalServerErrorException;
 import software.amazon.awssdk.services.networkfirewall.model.UpdateLoggingConfigurationRequest;
 import software.amazon.awssdk.services.networkfirewall.model.UpdateLoggingConfigurationResponse;
 import software.amazon.cloudformation.exceptions.CfnInvalidRequestException;
@@ -19,6 +20,8 @@ import software.amazon.cloudformation.proxy.OperationStatus;
 import software.amazon.cloudformation.proxy.ProgressEvent;
 import software.amazon.cloudformation.proxy.ProxyClient;
 import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+import software.amazon.networkfirewall.common.Deadline;
+import software.amazon.networkfirewall.common.RetryPolicy;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -89,7 +92,6 @@ public class UpdateHandlerTest extends AbstractTestBase {
                 .build();
 
         when(proxyClient.client().describeLoggingConfiguration(any(DescribeLoggingConfigurationRequest.class)))
-                .thenReturn(preCheckLoggingConfigurationResponse)
                 .thenReturn(preCheckLoggingConfigurationResponse)
                 .thenReturn(finalLoggingConfigurationResponse);
 
@@ -111,9 +113,88 @@ public class UpdateHandlerTest extends AbstractTestBase {
         assertThat(response.getMessage()).isNull();
         assertThat(response.getErrorCode()).isNull();
 
+        verify(proxyClient.client(), times(2)).describeLoggingConfiguration(any(DescribeLoggingConfigurationRequest.class));
         verify(proxyClient.client(), times(2)).updateLoggingConfiguration(any(UpdateLoggingConfigurationRequest.class));
     }
 
+    @Test
+    public void handleRequest_StabilizationContinuesInCallbackAfterDeadline() {
+        final LoggingConfiguration current = buildLoggingConfiguration(
+                Collections.singletonList(buildLogDestinationConfig("FLOW", "CloudWatchLogs")));
+        final LoggingConfiguration desired = buildLoggingConfiguration(Arrays.asList(
+                buildLogDestinationConfig("FLOW", "CloudWatchLogs"), buildLogDestinationConfig("ALERT", "S3")));
+        model = buildResourceModel(desired);
+        final DescribeLoggingConfigurationResponse currentResponse = DescribeLoggingConfigurationResponse.builder()
+                .firewallArn(firewallArn)
+                .loggingConfiguration(toSdkLoggingConfiguration(current))
+                .build();
+        when(proxyClient.client().describeLoggingConfiguration(any(DescribeLoggingConfigurationRequest.class)))
+                .thenReturn(currentResponse)
+                .thenReturn(currentResponse)
+                .thenReturn(DescribeLoggingConfigurationResponse.builder()
+                        .firewallArn(firewallArn)
+                        .loggingConfiguration(toSdkLoggingConfiguration(desired))
+                        .build());
+        when(proxyClient.client().updateLoggingConfiguration(any(UpdateLoggingConfigurationRequest.class)))
+                .thenReturn(UpdateLoggingConfigurationResponse.builder().build());
+        final ResourceHandlerRequest<ResourceModel> request = ResourceHandlerRequest.<ResourceModel>builder()
+                .desiredResourceState(model)
+                .build();
+
+        // no time is left after the first poll, so the next one is left to a callback
+        final CallbackContext callbackContext = new CallbackContext();
+        callbackContext.setDeadline(Deadline.after(Duration.ZERO));
+        final ProgressEvent<ResourceModel, CallbackContext> inProgress =
+                handler.handleRequest(proxy, request, callbackContext, proxyClient, logger);
+
+        assertThat(inProgress.getStatus()).isEqualTo(OperationStatus.IN_PROGRESS);
+        assertThat(inProgress.getCallbackDelaySeconds()).isEqualTo(5);
+        assertThat(inProgress.getCallbackContext().isStabilizing()).isTrue();
+        assertThat(inProgress.getCallbackContext().getStabilizationAttempts()).isEqualTo(1);
+
+        final ProgressEvent<ResourceModel, CallbackContext> response =
+                handler.handleRequest(proxy, request, inProgress.getCallbackContext(), proxyClient, logger);
+
+        assertThat(response.getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        assertThat(response.getResourceModel().getLoggingConfiguration()).isEqualTo(desired);
+        verify(proxyClient.client(), times(3)).describeLoggingConfiguration(any(DescribeLoggingConfigurationRequest.class));
+        verify(proxyClient.client(), times(1)).updateLoggingConfiguration(any(UpdateLoggingConfigurationRequest.class));
+    }
+
+    @Test
+    public void handleRequest_StabilizationPollsAgainAfterTransientError() {
+        final LoggingConfiguration current = buildLoggingConfiguration(
+                Collections.singletonList(buildLogDestinationConfig("FLOW", "CloudWatchLogs")));
+        final LoggingConfiguration desired = buildLoggingConfiguration(Arrays.asList(
+                buildLogDestinationConfig("FLOW", "CloudWatchLogs"), buildLogDestinationConfig("ALERT", "S3")));
+        model = buildResourceModel(desired);
+        when(proxyClient.client().describeLoggingConfiguration(any(DescribeLoggingConfigurationRequest.class)))
+                .thenReturn(DescribeLoggingConfigurationResponse.builder()
+                        .firewallArn(firewallArn)
+                        .loggingConfiguration(toSdkLoggingConfiguration(current))
+                        .build())
+                .thenThrow(InternalServerErrorException.builder().statusCode(500).build())
+                .thenReturn(DescribeLoggingConfigurationResponse.builder()
+                        .firewallArn(firewallArn)
+                        .loggingConfiguration(toSdkLoggingConfiguration(desired))
+                        .build());
+        when(proxyClient.client().updateLoggingConfiguration(any(UpdateLoggingConfigurationRequest.class)))
+                .thenReturn(UpdateLoggingConfigurationResponse.builder().build());
+        final ResourceHandlerRequest<ResourceModel> request = ResourceHandlerRequest.<ResourceModel>builder()
+                .desiredResourceState(model)
+                .build();
+
+        final CallbackContext callbackContext = new CallbackContext();
+        callbackContext.setRetries(RetryPolicy.of(1, 100L, 1000L, Deadline.unbounded(), logger));
+        final ProgressEvent<ResourceModel, CallbackContext> response =
+                handler.handleRequest(proxy, request, callbackContext, proxyClient, logger);
+
+        assertThat(response.getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        assertThat(response.getResourceModel().getLoggingConfiguration()).isEqualTo(desired);
+        verify(proxyClient.client(), times(3)).describeLoggingConfiguration(any(DescribeLoggingConfigurationRequest.class));
+        verify(proxyClient.client(), times(1)).updateLoggingConfiguration(any(UpdateLoggingConfigurationRequest.class));
+    }
+
     @Test
     public void handleRequest_SuccessWith2CurrentLogDestinations() {
         LogDestinationConfig currentConfig1 = buildLogDestinationConfig("FLOW", "CloudWatchLogs");
@@ -151,7 +232,6 @@ public class UpdateHandlerTest extends AbstractTestBase {
                 .build();
 
         when(proxyClient.client().describeLoggingConfiguration(any(DescribeLoggingConfigurationRequest.class)))
-                .thenReturn(preCheckLoggingConfigurationResponse)
                 .thenReturn(preCheckLoggingConfigurationResponse)
                 .thenReturn(finalLoggingConfigurationResponse);
 
@@ -174,6 +254,7 @@ public class UpdateHandlerTest extends AbstractTestBase {
         assertThat(response.getMessage()).isNull();
         assertThat(response.getErrorCode()).isNull();
 
+        verify(proxyClient.client(), times(2)).describeLoggingConfiguration(any(DescribeLoggingConfigurationRequest.class));
         verify(proxyClient.client(), times(3)).updateLoggingConfiguration(any(UpdateLoggingConfigurationRequest.class));
     }
 
@@ -215,7 +296,6 @@ public class UpdateHandlerTest extends AbstractTestBase {
                 .build();
 
         when(proxyClient.client().describeLoggingConfiguration(any(DescribeLoggingConfigurationRequest.class)))
-                .thenReturn(preCheckLoggingConfigurationResponse)
                 .thenReturn(preCheckLoggingConfigurationResponse)
                 .thenReturn(finalLoggingConfigurationResponse);
 
@@ -238,6 +318,7 @@ public class UpdateHandlerTest extends AbstractTestBase {
         assertThat(response.getMessage()).isNull();
         assertThat(response.getErrorCode()).isNull();
 
+        verify(proxyClient.client(), times(2)).describeLoggingConfiguration(any(DescribeLoggingConfigurationRequest.class));
         verify(proxyClient.client(), times(3)).updateLoggingConfiguration(any(UpdateLoggingConfigurationRequest.class));
     }
 
@@ -285,7 +366,6 @@ public class UpdateHandlerTest extends AbstractTestBase {
                 .build();
 
         when(proxyClient.client().describeLoggingConfiguration(any(DescribeLoggingConfigurationRequest.class)))
-                .thenReturn(preCheckLoggingConfigurationResponse)
                 .thenReturn(preCheckLoggingConfigurationResponse)
                 .thenReturn(finalLoggingConfigurationResponse);
 
@@ -309,6 +389,7 @@ public class UpdateHandlerTest extends AbstractTestBase {
         assertThat(response.getMessage()).isNull();
         assertThat(response.getErrorCode()).isNull();
 
+        verify(proxyClient.client(), times(2)).describeLoggingConfiguration(any(DescribeLoggingConfigurationRequest.class));
         verify(proxyClient.client(), times(4)).updateLoggingConfiguration(any(UpdateLoggingConfigurationRequest.class));
     }
 
@@ -345,7 +426,6 @@ public class UpdateHandlerTest extends AbstractTestBase {
                 .build();
 
         when(proxyClient.client().describeLoggingConfiguration(any(DescribeLoggingConfigurationRequest.class)))
-                .thenReturn(preCheckLoggingConfigurationResponse)
                 .thenReturn(preCheckLoggingConfigurationResponse)
                 .thenReturn(finalLoggingConfigurationResponse);
 
@@ -366,6 +446,7 @@ public class UpdateHandlerTest extends AbstractTestBase {
         assertThat(response.getMessage()).isNull();
         assertThat(response.getErrorCode()).isNull();
 
+        verify(proxyClient.client(), times(2)).describeLoggingConfiguration(any(DescribeLoggingConfigurationRequest.class));
         verify(proxyClient.client(), times(1)).updateLoggingConfiguration(any(UpdateLoggingConfigurationRequest.class));
     }
 
@@ -408,7 +489,6 @@ public class UpdateHandlerTest extends AbstractTestBase {
                 .build();
 
         when(proxyClient.client().describeLoggingConfiguration(any(DescribeLoggingConfigurationRequest.class)))
-                .thenReturn(preCheckLoggingConfigurationResponse)
                 .thenReturn(preCheckLoggingConfigurationResponse)
                 .thenReturn(finalLoggingConfigurationResponse);
 
@@ -430,6 +510,7 @@ public class UpdateHandlerTest extends AbstractTestBase {
         assertThat(response.getMessage()).isNull();
         assertThat(response.getErrorCode()).isNull();
 
+        verify(proxyClient.client(), times(2)).describeLoggingConfiguration(any(DescribeLoggingConfigurationRequest.class));
         verify(proxyClient.client(), times(2)).updateLoggingConfiguration(any(UpdateLoggingConfigurationRequest.class));
     }
 
@@ -472,7 +553,6 @@ public class UpdateHandlerTest extends AbstractTestBase {
                 .build();
 
         when(proxyClient.client().describeLoggingConfiguration(any(DescribeLoggingConfigurationRequest.class)))
-                .thenReturn(preCheckLoggingConfigurationResponse)
                 .thenReturn(preCheckLoggingConfigurationResponse)
                 .thenReturn(finalLoggingConfigurationResponse);
 
@@ -494,6 +574,7 @@ public class UpdateHandlerTest extends AbstractTestBase {
         assertThat(response.getMessage()).isNull();
         assertThat(response.getErrorCode()).isNull();
 
+        verify(proxyClient.client(), times(2)).describeLoggingConfiguration(any(DescribeLoggingConfigurationRequest.class));
         verify(proxyClient.client(), times(2)).updateLoggingConfiguration(any(UpdateLoggingConfigurationRequest.class));
     }
 
@@ -529,7 +610,6 @@ public class UpdateHandlerTest extends AbstractTestBase {
                 .build();
 
         when(proxyClient.client().describeLoggingConfiguration(any(DescribeLoggingConfigurationRequest.class)))
-                .thenReturn(preCheckLoggingConfigurationResponse)
                 .thenReturn(preCheckLoggingConfigurationResponse);
 
         when(proxyClient.client().updateLoggingConfiguration(any(UpdateLoggingConfigurationRequest.class)))
@@ -541,6 +621,7 @@ public class UpdateHandlerTest extends AbstractTestBase {
 
         assertThrows(CfnNotFoundException.class, () -> handler.handleRequest(proxy, request, new CallbackContext(), proxyClient, logger));
 
+        verify(proxyClient.client(), times(1)).describeLoggingConfiguration(any(DescribeLoggingConfigurationRequest.class));
         verify(proxyClient.client(), times(1)).updateLoggingConfiguration(any(UpdateLoggingConfigurationRequest.class));
     }
 
@@ -582,6 +663,7 @@ public class UpdateHandlerTest extends AbstractTestBase {
 
         assertThrows(CfnInvalidRequestException.class, () -> handler.handleRequest(proxy, request, new CallbackContext(), proxyClient, logger));
 
+        verify(proxyClient.client(), times(1)).describeLoggingConfiguration(any(DescribeLoggingConfigurationRequest.class));
         verify(proxyClient.client(), times(0)).updateLoggingConfiguration(any(UpdateLoggingConfigurationRequest.class));
     }
 }
@@ -1,28 +1,81 @@
 package software.amazon.networkfirewall.rulegroup;
 
+import software.amazon.awssdk.awscore.AwsResponse;
 import software.amazon.awssdk.services.networkfirewall.NetworkFirewallClient;
+import software.amazon.awssdk.services.networkfirewall.model.DescribeRuleGroupResponse;
+import software.amazon.awssdk.services.networkfirewall.model.RuleGroupResponse;
 import software.amazon.cloudformation.proxy.AmazonWebServicesClientProxy;
 import software.amazon.cloudformation.proxy.Logger;
 import software.amazon.cloudformation.proxy.ProgressEvent;
 import software.amazon.cloudformation.proxy.ProxyClient;
 import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+import software.amazon.networkfirewall.common.ClientPool;
+import software.amazon.networkfirewall.common.InvocationRuntime;
+import software.amazon.networkfirewall.common.ReferencedResource;
+import software.amazon.networkfirewall.common.StatelessActionValidator;
+import software.amazon.networkfirewall.common.StepTrace;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
 
 // Placeholder for the functionality that could be shared across Create/Read/Update/Delete/List Handlers
 
 public abstract class BaseHandlerStd extends BaseHandler<CallbackContext> {
+  protected final HandlerOptions options;
+
+  // the read cache and the propagation wait the handlers of rule groups share with those of firewall policies
+  protected final ReferencedResource<ResourceModel> referencedResource;
+
+  private final InvocationRuntime runtime;
+
+  protected BaseHandlerStd() {
+    this(HandlerOptions.fromEnvironment());
+  }
+
+  // the options the handler was constructed with also set up each invocation of it
+  protected BaseHandlerStd(final HandlerOptions options) {
+    this.options = options;
+    this.referencedResource = new ReferencedResource<>(ResourceModel.TYPE_NAME, options);
+    this.runtime = new InvocationRuntime(ResourceModel.TYPE_NAME, BaseHandlerStd::observedStatus,
+      options.getInvocation());
+  }
+
   @Override
   public final ProgressEvent<ResourceModel, CallbackContext> handleRequest(
     final AmazonWebServicesClientProxy proxy,
     final ResourceHandlerRequest<ResourceModel> request,
     final CallbackContext callbackContext,
     final Logger logger) {
-    return handleRequest(
-      proxy,
-      request,
-      callbackContext != null ? callbackContext : new CallbackContext(),
-      proxy.newProxy(ClientBuilder.getClient(request.getRegion())),
-      logger
-    );
+    return handleRequest(proxy, request, callbackContext, ClientPool.getClient(request.getRegion()), logger);
+  }
+
+  // the entry point with the client the handler calls the service through, for harnesses that drive the handlers in
+  // process against a stand-in for the service
+  public final ProgressEvent<ResourceModel, CallbackContext> handleRequest(
+    final AmazonWebServicesClientProxy proxy,
+    final ResourceHandlerRequest<ResourceModel> request,
+    final CallbackContext callbackContext,
+    final Supplier<NetworkFirewallClient> client,
+    final Logger logger) {
+    // the state of this invocation lives in its callback context, so concurrent invocations of a handler keep apart
+    final CallbackContext context = callbackContext != null ? callbackContext : new CallbackContext();
+    return runtime.run(proxy, request, client, getClass(), context, logger,
+      proxyClient -> handleRequest(proxy, request, context, proxyClient, logger));
+  }
+
+  // the trace of an invocation when the options ask for one, exported as they name
+  protected StepTrace trace(final String name, final ResourceHandlerRequest<ResourceModel> request, final Logger logger) {
+    return runtime.trace(name, request.getClientRequestToken(), logger);
+  }
+
+  // what a stabilizer waits on, the status of the rule group
+  static String observedStatus(final AwsResponse response) {
+    if (!(response instanceof DescribeRuleGroupResponse)) {
+      return null;
+    }
+    final RuleGroupResponse ruleGroup = ((DescribeRuleGroupResponse) response).ruleGroupResponse();
+    return ruleGroup == null ? null : ruleGroup.ruleGroupStatusAsString();
   }
 
   protected abstract ProgressEvent<ResourceModel, CallbackContext> handleRequest(
@@ -31,4 +84,35 @@ public abstract class BaseHandlerStd extends BaseHandler<CallbackContext> {
     final CallbackContext callbackContext,
     final ProxyClient<NetworkFirewallClient> proxyClient,
     final Logger logger);
+
+  // the actions of every stateless rule hold exactly one standard action, the others name custom actions of the rule group
+  protected static void validateStatelessActions(final RuleGroup ruleGroup) {
+    if (ruleGroup == null || ruleGroup.getRulesSource() == null
+      || ruleGroup.getRulesSource().getStatelessRulesAndCustomActions() == null) {
+      return;
+    }
+    final StatelessRulesAndCustomActions rulesAndCustomActions = ruleGroup.getRulesSource().getStatelessRulesAndCustomActions();
+    final List<String> customActionNames = new ArrayList<>();
+    if (rulesAndCustomActions.getCustomActions() != null) {
+      for (final CustomAction customAction : rulesAndCustomActions.getCustomActions()) {
+        customActionNames.add(customAction.getActionName());
+      }
+    }
+    final StatelessActionValidator validator = new StatelessActionValidator(customActionNames);
+    if (rulesAndCustomActions.getStatelessRules() != null) {
+      for (final StatelessRule rule : rulesAndCustomActions.getStatelessRules()) {
+        validator.actions(String.format("stateless rule with priority %s", rule.getPriority()),
+          rule.getRuleDefinition() == null ? null : rule.getRuleDefinition().getActions());
+      }
+    }
+    validator.validate(ResourceModel.TYPE_NAME);
+  }
+
+  // report what a DryRun request says the rule group would consume against the capacity that was asked for
+  protected static void logConsumedCapacity(final Logger logger, final Integer requestedCapacity,
+    final RuleGroupResponse ruleGroupResponse) {
+    final Integer consumedCapacity = ruleGroupResponse == null ? null : ruleGroupResponse.consumedCapacity();
+    logger.log(String.format("%s DryRun validation succeeded, consumed capacity %s of %s.",
+      ResourceModel.TYPE_NAME, consumedCapacity, requestedCapacity));
+  }
 }
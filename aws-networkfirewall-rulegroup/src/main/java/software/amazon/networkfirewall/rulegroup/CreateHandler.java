@@ -12,12 +12,18 @@ import software.amazon.cloudformation.proxy.Logger;
 import software.amazon.cloudformation.proxy.ProgressEvent;
 import software.amazon.cloudformation.proxy.ProxyClient;
 import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+import software.amazon.networkfirewall.common.FlightRecorderEvents;
 
 import static software.amazon.networkfirewall.rulegroup.ExceptionTranslator.translateToCfnException;
 
 public class CreateHandler extends BaseHandlerStd {
-    private Logger logger;
-    private ResourceModel resourceModel;
+    public CreateHandler() {
+        this(HandlerOptions.fromEnvironment());
+    }
+
+    public CreateHandler(final HandlerOptions options) {
+        super(options);
+    }
 
     protected ProgressEvent<ResourceModel, CallbackContext> handleRequest(
         final AmazonWebServicesClientProxy proxy,
@@ -26,26 +32,57 @@ public class CreateHandler extends BaseHandlerStd {
         final ProxyClient<NetworkFirewallClient> proxyClient,
         final Logger logger) {
 
-        this.logger = logger;
-        this.resourceModel = request.getDesiredResourceState();
+        final ResourceModel resourceModel = request.getDesiredResourceState();
+
+        // invalid action combinations and references are rejected locally before any request is made
+        validateStatelessActions(resourceModel.getRuleGroup());
 
         // get tags from resource request and CFN stack.
         final TagUtils tagUtils = new TagUtils(null, request.getDesiredResourceState().getTags(),
                 null, request.getDesiredResourceTags());
 
         return ProgressEvent.progress(request.getDesiredResourceState(), callbackContext)
+            .then(progress -> validateWithDryRun(proxy, proxyClient, progress, tagUtils, logger))
             .then(progress ->
                 proxy.initiate("AWS-NetworkFirewall-RuleGroup::Create", proxyClient, progress.getResourceModel(), progress.getCallbackContext())
                         .translateToServiceRequest(model -> Translator.translateToCreateRequest(model, tagUtils.tagsToAddOrUpdate()))
-                        .makeServiceCall(this::createRuleGroupServiceCall)
-                        .stabilize(this::isCreated)
+                        .makeServiceCall((createRuleGroupRequest, client) ->
+                                createRuleGroupServiceCall(createRuleGroupRequest, client, resourceModel, logger))
+                        .stabilize(FlightRecorderEvents.polled((createRuleGroupRequest, createRuleGroupResponse, client, model,
+                                context) -> isCreated(client, model, context, logger)))
                         .progress()
                 )
-            .then(progress -> new ReadHandler().handleRequest(proxy, request, callbackContext, proxyClient, logger));
+            .then(progress -> new ReadHandler(options).handleRequest(proxy, request, callbackContext, proxyClient, logger));
+    }
+
+    // optional pre-flight: let the service validate the rule group and report its capacity before it is created
+    private ProgressEvent<ResourceModel, CallbackContext> validateWithDryRun(final AmazonWebServicesClientProxy proxy,
+            final ProxyClient<NetworkFirewallClient> proxyClient, final ProgressEvent<ResourceModel, CallbackContext> progress,
+            final TagUtils tagUtils, final Logger logger) {
+        if (!options.isDryRunPreflight()) {
+            return progress;
+        }
+        return proxy.initiate("AWS-NetworkFirewall-RuleGroup::Create-DryRun", proxyClient, progress.getResourceModel(), progress.getCallbackContext())
+                .translateToServiceRequest(model -> Translator.translateToDryRunCreateRequest(model, tagUtils.tagsToAddOrUpdate()))
+                .makeServiceCall((createRuleGroupRequest, client) ->
+                        dryRunCreateRuleGroupServiceCall(createRuleGroupRequest, client, logger))
+                .progress();
+    }
+
+    private CreateRuleGroupResponse dryRunCreateRuleGroupServiceCall(final CreateRuleGroupRequest createRuleGroupRequest,
+            final ProxyClient<NetworkFirewallClient> client, final Logger logger) {
+        final CreateRuleGroupResponse response;
+        try {
+            response = client.injectCredentialsAndInvokeV2(createRuleGroupRequest, client.client()::createRuleGroup);
+        } catch (final AwsServiceException e) {
+            throw translateToCfnException(e);
+        }
+        logConsumedCapacity(logger, createRuleGroupRequest.capacity(), response.ruleGroupResponse());
+        return response;
     }
 
     private CreateRuleGroupResponse createRuleGroupServiceCall(final CreateRuleGroupRequest createRuleGroupRequest,
-            final ProxyClient<NetworkFirewallClient> client) {
+            final ProxyClient<NetworkFirewallClient> client, final ResourceModel resourceModel, final Logger logger) {
         final CreateRuleGroupResponse response;
         try {
             response = client.injectCredentialsAndInvokeV2(createRuleGroupRequest, client.client()::createRuleGroup);
@@ -58,8 +95,8 @@ public class CreateHandler extends BaseHandlerStd {
         return response;
     }
 
-    private boolean isCreated(final CreateRuleGroupRequest createRuleGroupRequest, final CreateRuleGroupResponse createRuleGroupResponse,
-            final ProxyClient<NetworkFirewallClient> client, final ResourceModel model, final CallbackContext callbackContext ) {
+    private boolean isCreated(final ProxyClient<NetworkFirewallClient> client, final ResourceModel model,
+            final CallbackContext callbackContext, final Logger logger) {
         try {
             final DescribeRuleGroupResponse describeRuleGroupResponse = client.injectCredentialsAndInvokeV2(
                     Translator.translateToReadRequest(model),
@@ -79,6 +116,9 @@ public class CreateHandler extends BaseHandlerStd {
                     throw new CfnGeneralServiceException(String.format("%s create failed.", ResourceModel.TYPE_NAME));
             }
         } catch (final AwsServiceException e) {
+            if (callbackContext.getRetries().absorbs(e)) {
+                return false;
+            }
             throw new CfnGeneralServiceException(String.format("%s create failed.", ResourceModel.TYPE_NAME));
         }
     }
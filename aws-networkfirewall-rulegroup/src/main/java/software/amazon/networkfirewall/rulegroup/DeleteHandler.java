@@ -11,11 +11,18 @@ import software.amazon.cloudformation.proxy.Logger;
 import software.amazon.cloudformation.proxy.ProgressEvent;
 import software.amazon.cloudformation.proxy.ProxyClient;
 import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+import software.amazon.networkfirewall.common.FlightRecorderEvents;
 
 import static software.amazon.networkfirewall.rulegroup.ExceptionTranslator.translateToCfnException;
 
 public class DeleteHandler extends BaseHandlerStd {
-    private Logger logger;
+    public DeleteHandler() {
+        this(HandlerOptions.fromEnvironment());
+    }
+
+    public DeleteHandler(final HandlerOptions options) {
+        super(options);
+    }
 
     protected ProgressEvent<ResourceModel, CallbackContext> handleRequest(
         final AmazonWebServicesClientProxy proxy,
@@ -24,33 +31,34 @@ public class DeleteHandler extends BaseHandlerStd {
         final ProxyClient<NetworkFirewallClient> proxyClient,
         final Logger logger) {
 
-        this.logger = logger;
-
         return ProgressEvent.progress(request.getDesiredResourceState(), callbackContext)
             .then(progress ->
                 proxy.initiate("AWS-NetworkFirewall-RuleGroup::Delete", proxyClient, progress.getResourceModel(), progress.getCallbackContext())
                         .translateToServiceRequest(Translator::translateToDeleteRequest)
-                        .makeServiceCall(this::deleteRuleGroupServiceCall)
-                        .stabilize(this::isDeleted)
+                        .makeServiceCall((deleteRuleGroupRequest, client) ->
+                                deleteRuleGroupServiceCall(deleteRuleGroupRequest, client, logger))
+                        .stabilize(FlightRecorderEvents.polled((deleteRuleGroupRequest, deleteRuleGroupResponse, client, model,
+                                context) -> isDeleted(client, model, context, logger)))
                         .progress()
             )
             .then(progress -> ProgressEvent.defaultSuccessHandler(null));
     }
 
     private DeleteRuleGroupResponse deleteRuleGroupServiceCall(final DeleteRuleGroupRequest deleteRuleGroupRequest,
-            final ProxyClient<NetworkFirewallClient> client) {
+            final ProxyClient<NetworkFirewallClient> client, final Logger logger) {
         final DeleteRuleGroupResponse response;
         try {
             response = client.injectCredentialsAndInvokeV2(deleteRuleGroupRequest, client.client()::deleteRuleGroup);
         } catch (final AwsServiceException e) {
             throw translateToCfnException(e);
         }
+        referencedResource.invalidateReadModel(deleteRuleGroupRequest.ruleGroupArn());
         logger.log(String.format("%s delete request made successfully.", ResourceModel.TYPE_NAME));
         return response;
     }
 
-    private boolean isDeleted(final DeleteRuleGroupRequest deleteRuleGroupRequest, final DeleteRuleGroupResponse deleteRuleGroupResponse,
-            final ProxyClient<NetworkFirewallClient> client, final ResourceModel model, final CallbackContext callbackContext) {
+    private boolean isDeleted(final ProxyClient<NetworkFirewallClient> client, final ResourceModel model,
+            final CallbackContext callbackContext, final Logger logger) {
         final String ruleGroupIdentifier = model.getRuleGroupArn() != null ? model.getRuleGroupArn() : model.getRuleGroupName();
         try {
             client.injectCredentialsAndInvokeV2(Translator.translateToReadRequest(model), client.client()::describeRuleGroup);
@@ -58,6 +66,9 @@ public class DeleteHandler extends BaseHandlerStd {
             logger.log(String.format("%s : %s successfully deleted.", ResourceModel.TYPE_NAME, ruleGroupIdentifier));
             return true;
         } catch (final AwsServiceException e) {
+            if (callbackContext.getRetries().absorbs(e)) {
+                return false;
+            }
             logger.log(String.format("Failed to delete %s : %s", ResourceModel.TYPE_NAME, ruleGroupIdentifier));
             throw new CfnGeneralServiceException(String.format("%s delete failed.", ResourceModel.TYPE_NAME));
         }
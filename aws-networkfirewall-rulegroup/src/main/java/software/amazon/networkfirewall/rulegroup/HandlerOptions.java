@@ -0,0 +1,99 @@
+package software.amazon.networkfirewall.rulegroup;
+
+import lombok.Builder;
+import lombok.Value;
+import software.amazon.networkfirewall.common.InvocationOptions;
+import software.amazon.networkfirewall.common.ReferencedResource;
+
+import static software.amazon.networkfirewall.common.InvocationOptions.positiveIntOrDefault;
+import static software.amazon.networkfirewall.common.InvocationOptions.positiveIntOrNull;
+
+/**
+ * Optional handler behaviour that is switched on per deployment through the function environment
+ * rather than through the resource schema. Everything defaults to the original behaviour.
+ */
+@Value
+@Builder
+public class HandlerOptions implements ReferencedResource.Options {
+    static final String DRY_RUN_PREFLIGHT = "NETWORKFIREWALL_DRY_RUN_PREFLIGHT";
+    static final String LIST_ENRICHMENT = "NETWORKFIREWALL_LIST_ENRICHMENT";
+    static final String LIST_ENRICHMENT_PARALLELISM = "NETWORKFIREWALL_LIST_ENRICHMENT_PARALLELISM";
+    static final String LIST_PAGE_SIZE = "NETWORKFIREWALL_LIST_PAGE_SIZE";
+    static final String READ_CACHE_SIZE = "NETWORKFIREWALL_READ_CACHE_SIZE";
+    static final String READ_CACHE_TTL_SECONDS = "NETWORKFIREWALL_READ_CACHE_TTL_SECONDS";
+    static final String PROPAGATION_WAIT = "NETWORKFIREWALL_PROPAGATION_WAIT";
+    static final String PROPAGATION_PARALLELISM = "NETWORKFIREWALL_PROPAGATION_PARALLELISM";
+    static final String PROPAGATION_POLL_SECONDS = "NETWORKFIREWALL_PROPAGATION_POLL_SECONDS";
+    static final String PROPAGATION_TIMEOUT_SECONDS = "NETWORKFIREWALL_PROPAGATION_TIMEOUT_SECONDS";
+    static final int DEFAULT_LIST_ENRICHMENT_PARALLELISM = 8;
+    static final int MAX_LIST_PAGE_SIZE = 100;
+    static final int DEFAULT_READ_CACHE_TTL_SECONDS = 300;
+    static final int DEFAULT_PROPAGATION_PARALLELISM = 8;
+    static final int DEFAULT_PROPAGATION_POLL_SECONDS = 10;
+    static final int DEFAULT_PROPAGATION_TIMEOUT_SECONDS = 900;
+
+    // validate create/update requests with DryRun before the real mutation is made
+    boolean dryRunPreflight;
+
+    // describe every rule group of a list page so that list returns complete models
+    boolean listEnrichment;
+
+    // upper bound on concurrent DescribeRuleGroup calls made while enriching a list page
+    @Builder.Default
+    int listEnrichmentParallelism = DEFAULT_LIST_ENRICHMENT_PARALLELISM;
+
+    // MaxResults of each ListRuleGroups call, null leaves the page size to the service
+    Integer listPageSize;
+
+    // the options every handler of the project is invoked with
+    @Builder.Default
+    InvocationOptions invocation = InvocationOptions.defaults();
+
+    // rule groups whose translated model a warm container keeps for reads at the same UpdateToken, 0 keeps none
+    int readCacheSize;
+
+    // seconds a translated model is kept at most
+    @Builder.Default
+    int readCacheTtlSeconds = DEFAULT_READ_CACHE_TTL_SECONDS;
+
+    // after an update, wait until every firewall that uses the rule group shows the new version in sync in all of its
+    // zones, and log how long each firewall took
+    boolean propagationWait;
+
+    // upper bound on concurrent DescribeFirewall calls made while waiting for an update to propagate
+    @Builder.Default
+    int propagationParallelism = DEFAULT_PROPAGATION_PARALLELISM;
+
+    // seconds between two rounds of DescribeFirewall calls of the propagation wait
+    @Builder.Default
+    int propagationPollSeconds = DEFAULT_PROPAGATION_POLL_SECONDS;
+
+    // seconds after the update the wait gives up on firewalls that are still behind; the update succeeds anyway
+    @Builder.Default
+    int propagationTimeoutSeconds = DEFAULT_PROPAGATION_TIMEOUT_SECONDS;
+
+    public static HandlerOptions fromEnvironment() {
+        return HandlerOptions.builder()
+                .dryRunPreflight(Boolean.parseBoolean(System.getenv(DRY_RUN_PREFLIGHT)))
+                .listEnrichment(Boolean.parseBoolean(System.getenv(LIST_ENRICHMENT)))
+                .listEnrichmentParallelism(positiveIntOrDefault(System.getenv(LIST_ENRICHMENT_PARALLELISM),
+                        DEFAULT_LIST_ENRICHMENT_PARALLELISM))
+                .listPageSize(listPageSize(positiveIntOrNull(System.getenv(LIST_PAGE_SIZE))))
+                .invocation(InvocationOptions.fromEnvironment())
+                .readCacheSize(positiveIntOrDefault(System.getenv(READ_CACHE_SIZE), 0))
+                .readCacheTtlSeconds(positiveIntOrDefault(System.getenv(READ_CACHE_TTL_SECONDS),
+                        DEFAULT_READ_CACHE_TTL_SECONDS))
+                .propagationWait(Boolean.parseBoolean(System.getenv(PROPAGATION_WAIT)))
+                .propagationParallelism(positiveIntOrDefault(System.getenv(PROPAGATION_PARALLELISM),
+                        DEFAULT_PROPAGATION_PARALLELISM))
+                .propagationPollSeconds(positiveIntOrDefault(System.getenv(PROPAGATION_POLL_SECONDS),
+                        DEFAULT_PROPAGATION_POLL_SECONDS))
+                .propagationTimeoutSeconds(positiveIntOrDefault(System.getenv(PROPAGATION_TIMEOUT_SECONDS),
+                        DEFAULT_PROPAGATION_TIMEOUT_SECONDS))
+                .build();
+    }
+
+    static Integer listPageSize(final Integer pageSize) {
+        return pageSize == null ? null : Math.min(pageSize, MAX_LIST_PAGE_SIZE);
+    }
+}
@@ -1,18 +1,45 @@
 package software.amazon.networkfirewall.rulegroup;
 
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+import software.amazon.awssdk.services.networkfirewall.NetworkFirewallAsyncClient;
 import software.amazon.awssdk.services.networkfirewall.NetworkFirewallClient;
+import software.amazon.awssdk.services.networkfirewall.model.DescribeRuleGroupRequest;
+import software.amazon.awssdk.services.networkfirewall.model.DescribeRuleGroupResponse;
 import software.amazon.awssdk.services.networkfirewall.model.ListRuleGroupsRequest;
 import software.amazon.awssdk.services.networkfirewall.model.ListRuleGroupsResponse;
+import software.amazon.awssdk.services.networkfirewall.model.ResourceNotFoundException;
+import software.amazon.awssdk.services.networkfirewall.model.ResourceStatus;
+import software.amazon.awssdk.services.networkfirewall.model.RuleGroupMetadata;
 import software.amazon.cloudformation.proxy.AmazonWebServicesClientProxy;
 import software.amazon.cloudformation.proxy.Logger;
 import software.amazon.cloudformation.proxy.ProgressEvent;
 import software.amazon.cloudformation.proxy.OperationStatus;
 import software.amazon.cloudformation.proxy.ProxyClient;
 import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+import software.amazon.networkfirewall.common.AsyncFanOut;
+import software.amazon.networkfirewall.common.FanOutExecutors;
+import software.amazon.networkfirewall.common.ModelCache;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+import static software.amazon.networkfirewall.rulegroup.ExceptionTranslator.translateToCfnException;
 
 public class ListHandler extends BaseHandlerStd {
+    private final ModelCache<ResourceModel> models;
+
+    public ListHandler() {
+        this(HandlerOptions.fromEnvironment());
+    }
+
+    ListHandler(final HandlerOptions options) {
+        super(options);
+        this.models = referencedResource.readModels();
+    }
 
     @Override
     public ProgressEvent<ResourceModel, CallbackContext> handleRequest(
@@ -22,10 +49,17 @@ public class ListHandler extends BaseHandlerStd {
             final ProxyClient<NetworkFirewallClient> proxyClient,
             final Logger logger) {
 
-        final ListRuleGroupsRequest listRuleGroupsRequest = Translator.translateToListRequest(request.getNextToken());
+        final ListRuleGroupsRequest listRuleGroupsRequest = Translator.translateToListRequest(request.getNextToken(), options.getListPageSize());
         final ListRuleGroupsResponse response = proxy.injectCredentialsAndInvokeV2(listRuleGroupsRequest, proxyClient.client()::listRuleGroups);
 
-        final List<ResourceModel> models = Translator.translateFromListRequest(response);
+        final List<ResourceModel> models;
+        if (!options.isListEnrichment()) {
+            models = Translator.translateFromListRequest(response);
+        } else if (callbackContext.getAsyncProxyClient() != null) {
+            models = describeRuleGroupsAsync(callbackContext.getAsyncProxyClient(), response.ruleGroups());
+        } else {
+            models = describeRuleGroups(proxyClient, response.ruleGroups());
+        }
 
         return ProgressEvent.<ResourceModel, CallbackContext>builder()
                 .resourceModels(models)
@@ -33,4 +67,75 @@ public class ListHandler extends BaseHandlerStd {
                 .status(OperationStatus.SUCCESS)
                 .build();
     }
+
+    // describe the rule groups of one page concurrently, keeping the order in which they were listed
+    private List<ResourceModel> describeRuleGroups(final ProxyClient<NetworkFirewallClient> proxyClient,
+            final List<RuleGroupMetadata> ruleGroups) {
+        final List<ResourceModel> models = new ArrayList<>();
+        if (ruleGroups == null || ruleGroups.isEmpty()) {
+            return models;
+        }
+        final ExecutorService executor = FanOutExecutors.newExecutor("list-enrichment",
+                Math.min(options.getListEnrichmentParallelism(), ruleGroups.size()),
+                options.getInvocation().isVirtualThreads());
+        try {
+            final List<Future<ResourceModel>> pending = new ArrayList<>();
+            for (final RuleGroupMetadata ruleGroup : ruleGroups) {
+                pending.add(executor.submit(() -> listedModel(() -> proxyClient.injectCredentialsAndInvokeV2(
+                        readRequest(ruleGroup.arn()), proxyClient.client()::describeRuleGroup))));
+            }
+            for (final Future<ResourceModel> future : pending) {
+                final ResourceModel model = AsyncFanOut.await(future, "DescribeRuleGroup");
+                if (model != null) {
+                    models.add(model);
+                }
+            }
+            return models;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // the same through the async client: the calls of the page are sent at most the parallelism at a time and
+    // complete on the threads of its HTTP client, this thread only sends them and collects the models
+    private List<ResourceModel> describeRuleGroupsAsync(final ProxyClient<NetworkFirewallAsyncClient> asyncProxyClient,
+            final List<RuleGroupMetadata> ruleGroups) {
+        final List<ResourceModel> models = new ArrayList<>();
+        if (ruleGroups == null || ruleGroups.isEmpty()) {
+            return models;
+        }
+        final AsyncFanOut<NetworkFirewallAsyncClient> fanOut =
+                new AsyncFanOut<>(asyncProxyClient, options.getListEnrichmentParallelism());
+        final List<CompletableFuture<DescribeRuleGroupResponse>> pending = new ArrayList<>();
+        for (final RuleGroupMetadata ruleGroup : ruleGroups) {
+            pending.add(fanOut.send(readRequest(ruleGroup.arn()), fanOut.client()::describeRuleGroup));
+        }
+        for (final CompletableFuture<DescribeRuleGroupResponse> future : pending) {
+            final ResourceModel model = listedModel(() -> AsyncFanOut.join(future));
+            if (model != null) {
+                models.add(model);
+            }
+        }
+        return models;
+    }
+
+    private static DescribeRuleGroupRequest readRequest(final String ruleGroupArn) {
+        return Translator.translateToReadRequest(ResourceModel.builder().ruleGroupArn(ruleGroupArn).build());
+    }
+
+    // returns null for rule groups deleted since the page was listed, or being deleted, so they are left out
+    private ResourceModel listedModel(final Supplier<DescribeRuleGroupResponse> describeRuleGroup) {
+        final DescribeRuleGroupResponse response;
+        try {
+            response = describeRuleGroup.get();
+        } catch (final ResourceNotFoundException e) {
+            return null;
+        } catch (final AwsServiceException e) {
+            throw translateToCfnException(e);
+        }
+        if (response.ruleGroupResponse().ruleGroupStatus() == ResourceStatus.DELETING) {
+            return null;
+        }
+        return Translator.translateFromReadResponse(response, models);
+    }
 }
@@ -8,11 +8,25 @@ import software.amazon.cloudformation.proxy.Logger;
 import software.amazon.cloudformation.proxy.ProgressEvent;
 import software.amazon.cloudformation.proxy.ProxyClient;
 import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+import software.amazon.networkfirewall.common.ModelCache;
 
 import static software.amazon.networkfirewall.rulegroup.ExceptionTranslator.translateToCfnException;
 
 public class ReadHandler extends BaseHandlerStd {
-    private Logger logger;
+    private final ModelCache<ResourceModel> models;
+
+    public ReadHandler() {
+        this(HandlerOptions.fromEnvironment());
+    }
+
+    ReadHandler(final HandlerOptions options) {
+        super(options);
+        this.models = referencedResource.readModels();
+    }
+
+    ReadHandler(final ModelCache<ResourceModel> models) {
+        this.models = models;
+    }
 
     protected ProgressEvent<ResourceModel, CallbackContext> handleRequest(
         final AmazonWebServicesClientProxy proxy,
@@ -21,8 +35,6 @@ public class ReadHandler extends BaseHandlerStd {
         final ProxyClient<NetworkFirewallClient> proxyClient,
         final Logger logger) {
 
-        this.logger = logger;
-
         return proxy.initiate("AWS-NetworkFirewall-RuleGroup::Read", proxyClient, request.getDesiredResourceState(), callbackContext)
             .translateToServiceRequest(Translator::translateToReadRequest)
             .makeServiceCall((describeRuleGroupRequest, client) -> {
@@ -35,6 +47,6 @@ public class ReadHandler extends BaseHandlerStd {
                 logger.log(String.format("%s has successfully been read.", ResourceModel.TYPE_NAME));
                 return response;
             })
-            .done(awsResponse -> ProgressEvent.defaultSuccessHandler(Translator.translateFromReadResponse(awsResponse)));
+            .done(awsResponse -> ProgressEvent.defaultSuccessHandler(Translator.translateFromReadResponse(awsResponse, models)));
     }
 }
@@ -13,13 +13,17 @@ import software.amazon.awssdk.services.networkfirewall.model.RuleGroupResponse;
 import software.amazon.awssdk.services.networkfirewall.model.TagResourceRequest;
 import software.amazon.awssdk.services.networkfirewall.model.UntagResourceRequest;
 import software.amazon.awssdk.services.networkfirewall.model.UpdateRuleGroupRequest;
+import software.amazon.networkfirewall.common.ModelCache;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -49,6 +53,18 @@ public class Translator {
                 .build();
     }
 
+    /**
+     * Request to validate the creation of a resource without creating it
+     *
+     * @param model resource model
+     * @return CreateRuleGroupRequest the aws service create request with DryRun set
+     */
+    static CreateRuleGroupRequest translateToDryRunCreateRequest(final ResourceModel model, final Map<String, String> tags) {
+        return translateToCreateRequest(model, tags).toBuilder()
+                .dryRun(true)
+                .build();
+    }
+
     /**
      * Request to read a resource
      *
@@ -95,15 +111,30 @@ public class Translator {
                 .build();
     }
 
+    /**
+     * Request to validate the update of a resource without updating it
+     *
+     * @param model       resource model
+     * @param updateToken token on which the update operation is conditional on
+     * @return UpdateRuleGroupRequest the aws service update request with DryRun set
+     */
+    static UpdateRuleGroupRequest translateToDryRunUpdateRequest(final ResourceModel model, final String updateToken) {
+        return translateToUpdateRequest(model, updateToken).toBuilder()
+                .dryRun(true)
+                .build();
+    }
+
     /**
      * Request to list resources
      *
      * @param nextToken token passed to the aws service list resources request
+     * @param maxResults page size of the list request, null to use the service default
      * @return ListRuleGroupsRequest the aws service request to list resources within aws account
      */
-    static ListRuleGroupsRequest translateToListRequest(final String nextToken) {
+    static ListRuleGroupsRequest translateToListRequest(final String nextToken, final Integer maxResults) {
         return ListRuleGroupsRequest.builder()
                 .nextToken(nextToken)
+                .maxResults(maxResults)
                 .build();
     }
 
@@ -113,6 +144,29 @@ public class Translator {
      * @return model resource model
      */
     static ResourceModel translateFromReadResponse(final DescribeRuleGroupResponse response) {
+        return translateFromReadResponse(response, translateRuleGroupFromSdk(response.ruleGroup()));
+    }
+
+    /**
+     * Translates resource object from sdk into a resource model, reusing the rule group translated from an earlier
+     * response with the same UpdateToken. Tagging does not change the token, so the tags are translated every time.
+     * The cached rule group is shared by every invocation of the container, so each model gets a copy of it.
+     *
+     * @param models translated models of the container, null to translate the whole response
+     * @return model resource model
+     */
+    static ResourceModel translateFromReadResponse(final DescribeRuleGroupResponse response,
+            final ModelCache<ResourceModel> models) {
+        if (models == null) {
+            return translateFromReadResponse(response);
+        }
+        final ResourceModel translated = models.get(response.ruleGroupResponse().ruleGroupArn(),
+                response.updateToken(), () -> translateFromReadResponse(response));
+        return translateFromReadResponse(response, copyRuleGroup(translated.getRuleGroup()));
+    }
+
+    private static ResourceModel translateFromReadResponse(final DescribeRuleGroupResponse response,
+            final RuleGroup ruleGroup) {
         final RuleGroupResponse ruleGroupResponse = response.ruleGroupResponse();
         return ResourceModel.builder()
                 .capacity(ruleGroupResponse.capacity())
@@ -122,7 +176,7 @@ public class Translator {
                 .ruleGroupName(ruleGroupResponse.ruleGroupName())
                 .type(ruleGroupResponse.typeAsString())
                 .tags(translateTagsFromSdk(ruleGroupResponse.tags()))
-                .ruleGroup(translateRuleGroupFromSdk(response.ruleGroup()))
+                .ruleGroup(ruleGroup)
                 .build();
     }
 
@@ -851,6 +905,145 @@ public class Translator {
                 .build();
     }
 
+    /**
+     * Copies a translated rule group field by field, which is cheaper than translating the response again.
+     *
+     * @param ruleGroup rule group translated from sdk
+     * @return copy sharing no mutable object with the rule group
+     */
+    static RuleGroup copyRuleGroup(final RuleGroup ruleGroup) {
+        if (ruleGroup == null) {
+            return null;
+        }
+        return RuleGroup.builder()
+                .rulesSource(copyRulesSource(ruleGroup.getRulesSource()))
+                .ruleVariables(copyRuleVariables(ruleGroup.getRuleVariables()))
+                .build();
+    }
+
+    private static RulesSource copyRulesSource(final RulesSource rulesSource) {
+        if (rulesSource == null) {
+            return null;
+        }
+        return RulesSource.builder()
+                .rulesSourceList(copyRulesSourceList(rulesSource.getRulesSourceList()))
+                .rulesString(rulesSource.getRulesString())
+                .statefulRules(copySet(rulesSource.getStatefulRules(), Translator::copyStatefulRule))
+                .statelessRulesAndCustomActions(copyStatelessRulesAndCustomActions(rulesSource.getStatelessRulesAndCustomActions()))
+                .build();
+    }
+
+    private static RulesSourceList copyRulesSourceList(final RulesSourceList rulesSourceList) {
+        if (rulesSourceList == null) {
+            return null;
+        }
+        return RulesSourceList.builder()
+                .generatedRulesType(rulesSourceList.getGeneratedRulesType())
+                .targets(copySet(rulesSourceList.getTargets()))
+                .targetTypes(copySet(rulesSourceList.getTargetTypes()))
+                .build();
+    }
+
+    private static StatefulRule copyStatefulRule(final StatefulRule statefulRule) {
+        final Header header = statefulRule.getHeader();
+        return StatefulRule.builder()
+                .action(statefulRule.getAction())
+                .header(header == null ? null : Header.builder()
+                        .destination(header.getDestination())
+                        .destinationPort(header.getDestinationPort())
+                        .direction(header.getDirection())
+                        .protocol(header.getProtocol())
+                        .source(header.getSource())
+                        .sourcePort(header.getSourcePort())
+                        .build())
+                .ruleOptions(copySet(statefulRule.getRuleOptions(), ruleOption -> RuleOption.builder()
+                        .keyword(ruleOption.getKeyword())
+                        .settings(copySet(ruleOption.getSettings()))
+                        .build()))
+                .build();
+    }
+
+    private static StatelessRulesAndCustomActions copyStatelessRulesAndCustomActions(
+            final StatelessRulesAndCustomActions statelessRulesAndCustomActions) {
+        if (statelessRulesAndCustomActions == null) {
+            return null;
+        }
+        return StatelessRulesAndCustomActions.builder()
+                .statelessRules(copySet(statelessRulesAndCustomActions.getStatelessRules(), Translator::copyStatelessRule))
+                .customActions(copySet(statelessRulesAndCustomActions.getCustomActions(), Translator::copyCustomAction))
+                .build();
+    }
+
+    private static StatelessRule copyStatelessRule(final StatelessRule statelessRule) {
+        final RuleDefinition ruleDefinition = statelessRule.getRuleDefinition();
+        return StatelessRule.builder()
+                .priority(statelessRule.getPriority())
+                .ruleDefinition(ruleDefinition == null ? null : RuleDefinition.builder()
+                        .actions(copySet(ruleDefinition.getActions()))
+                        .matchAttributes(copyMatchAttributes(ruleDefinition.getMatchAttributes()))
+                        .build())
+                .build();
+    }
+
+    private static MatchAttributes copyMatchAttributes(final MatchAttributes matchAttributes) {
+        if (matchAttributes == null) {
+            return null;
+        }
+        return MatchAttributes.builder()
+                .destinationPorts(copySet(matchAttributes.getDestinationPorts(), Translator::copyPortRange))
+                .destinations(copySet(matchAttributes.getDestinations(), Translator::copyAddress))
+                .protocols(copySet(matchAttributes.getProtocols()))
+                .sourcePorts(copySet(matchAttributes.getSourcePorts(), Translator::copyPortRange))
+                .sources(copySet(matchAttributes.getSources(), Translator::copyAddress))
+                .tCPFlags(copySet(matchAttributes.getTCPFlags(), tcpFlagField -> TCPFlagField.builder()
+                        .flags(copySet(tcpFlagField.getFlags()))
+                        .masks(copySet(tcpFlagField.getMasks()))
+                        .build()))
+                .build();
+    }
+
+    private static PortRange copyPortRange(final PortRange portRange) {
+        return PortRange.builder()
+                .fromPort(portRange.getFromPort())
+                .toPort(portRange.getToPort())
+                .build();
+    }
+
+    private static Address copyAddress(final Address address) {
+        return Address.builder()
+                .addressDefinition(address.getAddressDefinition())
+                .build();
+    }
+
+    private static CustomAction copyCustomAction(final CustomAction customAction) {
+        final ActionDefinition actionDefinition = customAction.getActionDefinition();
+        final PublishMetricAction publishMetricAction = actionDefinition == null ? null : actionDefinition.getPublishMetricAction();
+        return CustomAction.builder()
+                .actionName(customAction.getActionName())
+                .actionDefinition(actionDefinition == null ? null : ActionDefinition.builder()
+                        .publishMetricAction(publishMetricAction == null ? null : PublishMetricAction.builder()
+                                .dimensions(copySet(publishMetricAction.getDimensions(), dimension -> Dimension.builder()
+                                        .value(dimension.getValue())
+                                        .build()))
+                                .build())
+                        .build())
+                .build();
+    }
+
+    private static RuleVariables copyRuleVariables(final RuleVariables ruleVariables) {
+        if (ruleVariables == null) {
+            return null;
+        }
+        return RuleVariables.builder()
+                .iPSets(copyMap(ruleVariables.getIPSets(), ipSet -> IPSet.builder()
+                        .definition(copySet(ipSet.getDefinition()))
+                        .build()))
+                .portSets(copyMap(ruleVariables.getPortSets(), portSet -> PortSet.builder()
+                        .definition(copySet(portSet.getDefinition()))
+                        .build()))
+                .build();
+    }
+
     /**
      * Translates resource objects from sdk into a resource model (primary identifier only)
      *
@@ -871,6 +1064,32 @@ public class Translator {
                 .orElseGet(Stream::empty);
     }
 
+    private static <T> Set<T> copySet(final Set<T> set) {
+        return set == null ? null : new HashSet<>(set);
+    }
+
+    private static <T> Set<T> copySet(final Set<T> set, final UnaryOperator<T> copy) {
+        if (set == null) {
+            return null;
+        }
+        final Set<T> copied = new HashSet<>(set.size() * 4 / 3 + 1);
+        for (final T element : set) {
+            copied.add(element == null ? null : copy.apply(element));
+        }
+        return copied;
+    }
+
+    private static <V> Map<String, V> copyMap(final Map<String, V> map, final UnaryOperator<V> copy) {
+        if (map == null) {
+            return null;
+        }
+        final Map<String, V> copied = new HashMap<>(map.size() * 4 / 3 + 1);
+        for (final Map.Entry<String, V> entry : map.entrySet()) {
+            copied.put(entry.getKey(), entry.getValue() == null ? null : copy.apply(entry.getValue()));
+        }
+        return copied;
+    }
+
     private static <T> Set<T> convertToSetFromSdk(final Collection<T> collection) {
         if (CollectionUtils.isNullOrEmpty(collection)) {
             return null;
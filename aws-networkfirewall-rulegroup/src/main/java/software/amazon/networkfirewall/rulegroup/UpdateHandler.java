@@ -19,17 +19,22 @@ import software.amazon.cloudformation.proxy.Logger;
 import software.amazon.cloudformation.proxy.ProgressEvent;
 import software.amazon.cloudformation.proxy.ProxyClient;
 import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+import software.amazon.networkfirewall.common.FlightRecorderEvents;
+import software.amazon.networkfirewall.common.StepTrace;
+import software.amazon.networkfirewall.common.TagReconciler;
+
+import java.util.function.Function;
 
 import static software.amazon.networkfirewall.rulegroup.ExceptionTranslator.translateToCfnException;
 
 public class UpdateHandler extends BaseHandlerStd {
-    private Logger logger;
-    private AmazonWebServicesClientProxy proxy;
-    private ResourceHandlerRequest<ResourceModel> handlerRequest;
-    private CallbackContext callbackContext;
-    private ProxyClient<NetworkFirewallClient> proxyClient;
-    private ResourceModel desiredStateModel;
-    private ResourceModel previousStateModel;
+    public UpdateHandler() {
+        this(HandlerOptions.fromEnvironment());
+    }
+
+    public UpdateHandler(final HandlerOptions options) {
+        super(options);
+    }
 
     protected ProgressEvent<ResourceModel, CallbackContext> handleRequest(
         final AmazonWebServicesClientProxy proxy,
@@ -38,67 +43,182 @@ public class UpdateHandler extends BaseHandlerStd {
         final ProxyClient<NetworkFirewallClient> proxyClient,
         final Logger logger) {
 
-        this.logger = logger;
-        this.proxy = proxy;
-        this.handlerRequest = request;
-        this.callbackContext = callbackContext;
-        this.proxyClient = proxyClient;
-        this.desiredStateModel = request.getDesiredResourceState();
-        this.previousStateModel = request.getPreviousResourceState();
-
-        return ProgressEvent.progress(request.getDesiredResourceState(), callbackContext)
-                .then(this::verifyResourceExists)
-                .then(this::updateRuleGroup)
-                .then(this::updateTags)
-                .then(progress -> new ReadHandler().handleRequest(proxy, request, callbackContext, proxyClient, logger));
+        // invalid action combinations and references are rejected locally before any request is made
+        validateStatelessActions(request.getDesiredResourceState().getRuleGroup());
+
+        return new Update(proxy, request, callbackContext, logger).run(proxyClient);
     }
 
-    private ProgressEvent<ResourceModel, CallbackContext> verifyResourceExists(
-            final ProgressEvent<ResourceModel, CallbackContext> progress) {
-        return proxy.initiate(
-                "RuleGroup::Update-ResourceExists", proxyClient, progress.getResourceModel(), callbackContext)
-                .translateToServiceRequest(Translator::translateToReadRequest)
-                .makeServiceCall((describeRuleGroupRequest, client) -> {
-                    try {
-                        DescribeRuleGroupResponse describeResponse = client.injectCredentialsAndInvokeV2(describeRuleGroupRequest, client.client()::describeRuleGroup);
-                        final Integer actualCapacityFromCreate = describeResponse.ruleGroupResponse().capacity();
-                        if (desiredStateModel.getCapacity() == null) {
-                            desiredStateModel.setCapacity(actualCapacityFromCreate);
-                        } else {
-                            if (!actualCapacityFromCreate.equals(desiredStateModel.getCapacity())) {
-                                throw new CfnInvalidRequestException("RuleGroup capacity cannot be updated.");
+    // what the steps of one update share; the wrapper keeps a single handler for the invocations it runs, so none of
+    // it is kept in the handler
+    private final class Update {
+        private final Logger logger;
+        private final AmazonWebServicesClientProxy proxy;
+        private final ResourceHandlerRequest<ResourceModel> handlerRequest;
+        private final CallbackContext callbackContext;
+        private final ResourceModel desiredStateModel;
+        private final ResourceModel previousStateModel;
+        private final StepTrace trace;
+        private ProxyClient<NetworkFirewallClient> proxyClient;
+
+        private Update(final AmazonWebServicesClientProxy proxy, final ResourceHandlerRequest<ResourceModel> request,
+                final CallbackContext callbackContext, final Logger logger) {
+            this.logger = logger;
+            this.proxy = proxy;
+            this.handlerRequest = request;
+            this.callbackContext = callbackContext;
+            this.desiredStateModel = request.getDesiredResourceState();
+            this.previousStateModel = request.getPreviousResourceState();
+            this.trace = trace("AWS-NetworkFirewall-RuleGroup::Update", request, logger)
+                    .attribute("ruleGroupArn", desiredStateModel.getRuleGroupArn())
+                    .attribute("ruleGroupName", desiredStateModel.getRuleGroupName())
+                    .attribute("type", desiredStateModel.getType());
+        }
+
+        private ProgressEvent<ResourceModel, CallbackContext> run(final ProxyClient<NetworkFirewallClient> proxyClient) {
+            this.proxyClient = trace.instrument(proxyClient);
+            try {
+                return trace.completed(ProgressEvent.progress(handlerRequest.getDesiredResourceState(), callbackContext)
+                        .then(step("ResourceExists", this::verifyResourceExists))
+                        .then(step("DryRun", this::validateWithDryRun))
+                        .then(step("UpdateRuleGroup", this::updateRuleGroup))
+                        .then(step("Tags", this::updateTags))
+                        .then(step("Propagation", progress -> referencedResource.awaitPropagation(this.proxyClient,
+                                logger, desiredStateModel.getRuleGroupArn(), progress)))
+                        .then(step("Read", progress -> new ReadHandler(options).handleRequest(proxy, handlerRequest,
+                                callbackContext, this.proxyClient, logger))));
+            } finally {
+                trace.export();
+            }
+        }
+
+        // a traced step that is left to the next invocation when it can no longer start before the deadline
+        private Function<ProgressEvent<ResourceModel, CallbackContext>, ProgressEvent<ResourceModel, CallbackContext>> step(
+                final String name,
+                final Function<ProgressEvent<ResourceModel, CallbackContext>, ProgressEvent<ResourceModel, CallbackContext>> step) {
+            return trace.step(name, callbackContext.getDeadline().checkpoint(step));
+        }
+
+        private ProgressEvent<ResourceModel, CallbackContext> verifyResourceExists(
+                final ProgressEvent<ResourceModel, CallbackContext> progress) {
+            return proxy.initiate(
+                    "RuleGroup::Update-ResourceExists", proxyClient, progress.getResourceModel(), callbackContext)
+                    .translateToServiceRequest(Translator::translateToReadRequest)
+                    .makeServiceCall((describeRuleGroupRequest, client) -> {
+                        try {
+                            DescribeRuleGroupResponse describeResponse = client.injectCredentialsAndInvokeV2(describeRuleGroupRequest, client.client()::describeRuleGroup);
+                            // the tags the rule group has now, for the tag step to reconcile against; kept in the context,
+                            // since a callback replays this call from the call graph
+                            callbackContext.setLiveTags(TagReconciler.liveTags(describeResponse.ruleGroupResponse().tags()));
+                            final Integer actualCapacityFromCreate = describeResponse.ruleGroupResponse().capacity();
+                            if (desiredStateModel.getCapacity() == null) {
+                                desiredStateModel.setCapacity(actualCapacityFromCreate);
+                            } else {
+                                if (!actualCapacityFromCreate.equals(desiredStateModel.getCapacity())) {
+                                    throw new CfnInvalidRequestException("RuleGroup capacity cannot be updated.");
+                                }
                             }
+                        } catch (final ResourceNotFoundException e) {
+                            throw new CfnNotFoundException(e);
+                        } catch (final AwsServiceException e) {
+                            translateToCfnException(e);
                         }
-                    } catch (final ResourceNotFoundException e) {
-                        throw new CfnNotFoundException(e);
-                    } catch (final AwsServiceException e) {
-                        translateToCfnException(e);
-                    }
-                    // resource we are trying to update exists, return success
-                    return ProgressEvent.defaultSuccessHandler(null);
-                })
-                .progress();
-    }
+                        // resource we are trying to update exists, return success
+                        return ProgressEvent.defaultSuccessHandler(null);
+                    })
+                    .progress();
+        }
 
-    private ProgressEvent<ResourceModel, CallbackContext>  updateRuleGroup(final ProgressEvent<ResourceModel, CallbackContext> progress) {
-        return proxy.initiate("AWS-NetworkFirewall-RuleGroup::Update", proxyClient, progress.getResourceModel(), progress.getCallbackContext())
-                .translateToServiceRequest((model) -> Translator.translateToUpdateRequest(model, getUpdateToken(proxyClient, model)))
-                .makeServiceCall(this::updateRuleGroupServiceCall)
-                .stabilize(this::isStabilized)
-                .progress();
-    }
+        // optional pre-flight: let the service validate the new rule group definition before the update is made
+        private ProgressEvent<ResourceModel, CallbackContext> validateWithDryRun(final ProgressEvent<ResourceModel, CallbackContext> progress) {
+            if (!options.isDryRunPreflight()) {
+                return progress;
+            }
+            return proxy.initiate("AWS-NetworkFirewall-RuleGroup::Update-DryRun", proxyClient, progress.getResourceModel(), progress.getCallbackContext())
+                    .translateToServiceRequest((model) -> Translator.translateToDryRunUpdateRequest(model, getUpdateToken(proxyClient, model)))
+                    .makeServiceCall((updateRuleGroupRequest, client) -> {
+                        final UpdateRuleGroupResponse response;
+                        try {
+                            response = client.injectCredentialsAndInvokeV2(updateRuleGroupRequest, client.client()::updateRuleGroup);
+                        } catch (final AwsServiceException e) {
+                            throw translateToCfnException(e);
+                        }
+                        logConsumedCapacity(logger, desiredStateModel.getCapacity(), response.ruleGroupResponse());
+                        return response;
+                    })
+                    .progress();
+        }
 
-    private UpdateRuleGroupResponse  updateRuleGroupServiceCall(final UpdateRuleGroupRequest updateRuleGroupRequest, final ProxyClient<NetworkFirewallClient> client) {
-        final UpdateRuleGroupResponse response;
-        try {
-            response = client.injectCredentialsAndInvokeV2(updateRuleGroupRequest, client.client()::updateRuleGroup);
-            // set the primaryIdentifier to be used in the tagging step
-            desiredStateModel.setRuleGroupArn(response.ruleGroupResponse().ruleGroupArn());
-        } catch (final AwsServiceException e) {
-            throw translateToCfnException(e);
+        private ProgressEvent<ResourceModel, CallbackContext>  updateRuleGroup(final ProgressEvent<ResourceModel, CallbackContext> progress) {
+            return proxy.initiate("AWS-NetworkFirewall-RuleGroup::Update", proxyClient, progress.getResourceModel(), progress.getCallbackContext())
+                    .translateToServiceRequest((model) -> Translator.translateToUpdateRequest(model, getUpdateToken(proxyClient, model)))
+                    .makeServiceCall(this::updateRuleGroupServiceCall)
+                    .stabilize(trace.polled(FlightRecorderEvents.polled(this::isStabilized)))
+                    .progress();
+        }
+
+        private UpdateRuleGroupResponse  updateRuleGroupServiceCall(final UpdateRuleGroupRequest updateRuleGroupRequest, final ProxyClient<NetworkFirewallClient> client) {
+            final UpdateRuleGroupResponse response;
+            try {
+                response = client.injectCredentialsAndInvokeV2(updateRuleGroupRequest, client.client()::updateRuleGroup);
+                // set the primaryIdentifier to be used in the tagging step
+                desiredStateModel.setRuleGroupArn(response.ruleGroupResponse().ruleGroupArn());
+                referencedResource.invalidateReadModel(response.ruleGroupResponse().ruleGroupArn());
+                referencedResource.recordUpdate(callbackContext, response.updateToken());
+            } catch (final AwsServiceException e) {
+                throw translateToCfnException(e);
+            }
+            logger.log(String.format("%s successfully updated.", ResourceModel.TYPE_NAME));
+            return response;
+        }
+
+        private boolean isStabilized(final UpdateRuleGroupRequest updateRuleGroupRequest, final UpdateRuleGroupResponse updateRuleGroupResponse,
+                final ProxyClient<NetworkFirewallClient> client, final ResourceModel model, final CallbackContext callbackContext ) {
+            try {
+                final DescribeRuleGroupResponse describeRuleGroupResponse = client.injectCredentialsAndInvokeV2(
+                        Translator.translateToReadRequest(model),
+                        client.client()::describeRuleGroup);
+                final ResourceStatus status = describeRuleGroupResponse.ruleGroupResponse().ruleGroupStatus();
+                final String ruleGroupArn = describeRuleGroupResponse.ruleGroupResponse().ruleGroupArn();
+                switch (status) {
+                    case ACTIVE:
+                        logger.log(String.format("%s : %s successfully updated.", ResourceModel.TYPE_NAME, ruleGroupArn));
+                        return true;
+                    case DELETING:
+                        logger.log(String.format("%s : %s marked for deletion.", ResourceModel.TYPE_NAME, ruleGroupArn));
+                        throw new CfnGeneralServiceException(String.format("%s update failed.", ResourceModel.TYPE_NAME));
+                    default:
+                        logger.log(String.format("Invalid/Unsupported RuleGroupStatus found while updating %s : %s",
+                                ResourceModel.TYPE_NAME, ruleGroupArn));
+                        throw new CfnGeneralServiceException(String.format("%s update failed.", ResourceModel.TYPE_NAME));
+                }
+            } catch (final AwsServiceException e) {
+                if (callbackContext.getRetries().absorbs(e)) {
+                    return false;
+                }
+                throw new CfnGeneralServiceException(String.format("%s update failed.", ResourceModel.TYPE_NAME));
+            }
+        }
+
+        // tags on resource request overrides tags attached to the CloudFormation stack this resource belongs to
+        private ProgressEvent<ResourceModel, CallbackContext> updateTags(final ProgressEvent<ResourceModel, CallbackContext> progress) {
+            final TagReconciler tags = new TagReconciler(new TagUtils(previousStateModel.getTags(), desiredStateModel.getTags(),
+                    handlerRequest.getPreviousResourceTags(), handlerRequest.getDesiredResourceTags()), callbackContext.getLiveTags());
+
+            return tags.reconcile(progress,
+                    // Untag resource: remove the tags the stack no longer applies
+                    current -> proxy.initiate("RuleGroup::Update-UntagResource", proxyClient, current.getResourceModel(), callbackContext)
+                            .translateToServiceRequest(model -> Translator.translateToUntagRequest(model, tags.tagsToRemove()))
+                            .makeServiceCall((request, client) ->
+                                    client.injectCredentialsAndInvokeV2(request, client.client()::untagResource))
+                            .progress(),
+                    // Tag resource: add tags that are missing and update tags for which the value differs
+                    current -> proxy.initiate("RuleGroup::Update-TagResource", proxyClient, current.getResourceModel(), callbackContext)
+                            .translateToServiceRequest(model -> Translator.translateToTagRequest(model, tags.tagsToAddOrUpdate()))
+                            .makeServiceCall((request, client) ->
+                                    client.injectCredentialsAndInvokeV2(request, client.client()::tagResource))
+                            .progress());
         }
-        logger.log(String.format("%s successfully updated.", ResourceModel.TYPE_NAME));
-        return response;
     }
 
     private String getUpdateToken(final ProxyClient<NetworkFirewallClient> proxyClient, final ResourceModel model) {
@@ -117,61 +237,4 @@ public class UpdateHandler extends BaseHandlerStd {
         }
         return response.updateToken();
     }
-
-    private boolean isStabilized(final UpdateRuleGroupRequest updateRuleGroupRequest, final UpdateRuleGroupResponse updateRuleGroupResponse,
-            final ProxyClient<NetworkFirewallClient> client, final ResourceModel model, final CallbackContext callbackContext ) {
-        try {
-            final DescribeRuleGroupResponse describeRuleGroupResponse = client.injectCredentialsAndInvokeV2(
-                    Translator.translateToReadRequest(model),
-                    client.client()::describeRuleGroup);
-            final ResourceStatus status = describeRuleGroupResponse.ruleGroupResponse().ruleGroupStatus();
-            final String ruleGroupArn = describeRuleGroupResponse.ruleGroupResponse().ruleGroupArn();
-            switch (status) {
-                case ACTIVE:
-                    logger.log(String.format("%s : %s successfully updated.", ResourceModel.TYPE_NAME, ruleGroupArn));
-                    return true;
-                case DELETING:
-                    logger.log(String.format("%s : %s marked for deletion.", ResourceModel.TYPE_NAME, ruleGroupArn));
-                    throw new CfnGeneralServiceException(String.format("%s update failed.", ResourceModel.TYPE_NAME));
-                default:
-                    logger.log(String.format("Invalid/Unsupported RuleGroupStatus found while updating %s : %s",
-                            ResourceModel.TYPE_NAME, ruleGroupArn));
-                    throw new CfnGeneralServiceException(String.format("%s update failed.", ResourceModel.TYPE_NAME));
-            }
-        } catch (final AwsServiceException e) {
-            throw new CfnGeneralServiceException(String.format("%s update failed.", ResourceModel.TYPE_NAME));
-        }
-    }
-
-    // tags on resource request overrides tags attached to the CloudFormation stack this resource belongs to
-    private ProgressEvent<ResourceModel, CallbackContext> updateTags(ProgressEvent<ResourceModel, CallbackContext> progress) {
-        final TagUtils tagUtils = new TagUtils(previousStateModel.getTags(), desiredStateModel.getTags(),
-                handlerRequest.getPreviousResourceTags(), handlerRequest.getDesiredResourceTags());
-
-        // Untag resource: get tags to remove from firewall resource
-        if (tagUtils.tagsToRemove().size() > 0) {
-            progress = proxy.initiate("RuleGroup::Update-UntagResource", proxyClient, progress.getResourceModel(), callbackContext)
-                    .translateToServiceRequest(model ->
-                            Translator.translateToUntagRequest(model, tagUtils.tagsToRemove().keySet()))
-                    .makeServiceCall((request, client) ->
-                            client.injectCredentialsAndInvokeV2(request, client.client()::untagResource))
-                    .progress();
-
-            if (progress.isFailed()) {
-                return progress;
-            }
-        }
-
-        // Tag resource: add tags that are added newly and update tags for which the value has been updated
-        if (tagUtils.tagsToAddOrUpdate().size() > 0) {
-            progress = proxy.initiate("RuleGroup::Update-TagResource", proxyClient, progress.getResourceModel(), callbackContext)
-                    .translateToServiceRequest(model ->
-                            Translator.translateToTagRequest(model, tagUtils.tagsToAddOrUpdate()))
-                    .makeServiceCall((request, client) ->
-                            client.injectCredentialsAndInvokeV2(request, client.client()::tagResource))
-                    .progress();
-        }
-
-        return progress;
-    }
 }
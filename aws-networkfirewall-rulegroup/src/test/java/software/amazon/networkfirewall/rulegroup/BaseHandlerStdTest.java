@@ -0,0 +1,20 @@
+package software.amazon.networkfirewall.rulegroup;
+
+import software.amazon.awssdk.services.networkfirewall.model.DeleteRuleGroupResponse;
+import software.amazon.awssdk.services.networkfirewall.model.DescribeRuleGroupResponse;
+import software.amazon.awssdk.services.networkfirewall.model.RuleGroupResponse;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BaseHandlerStdTest {
+
+    @Test
+    public void testObservedStatus() {
+        assertThat(BaseHandlerStd.observedStatus(DescribeRuleGroupResponse.builder().build())).isNull();
+        assertThat(BaseHandlerStd.observedStatus(DeleteRuleGroupResponse.builder().build())).isNull();
+        assertThat(BaseHandlerStd.observedStatus(DescribeRuleGroupResponse.builder()
+                .ruleGroupResponse(RuleGroupResponse.builder().ruleGroupStatus("ACTIVE").build())
+                .build())).isEqualTo("ACTIVE");
+    }
+}
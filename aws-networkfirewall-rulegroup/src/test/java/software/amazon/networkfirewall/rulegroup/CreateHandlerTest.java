@@ -7,6 +7,7 @@ import java.util.Set;
 
 import software.amazon.awssdk.services.networkfirewall.NetworkFirewallClient;
 import software.amazon.awssdk.services.networkfirewall.model.CreateRuleGroupRequest;
+import software.amazon.awssdk.services.networkfirewall.model.CreateRuleGroupResponse;
 import software.amazon.awssdk.services.networkfirewall.model.DescribeRuleGroupRequest;
 import software.amazon.awssdk.services.networkfirewall.model.DescribeRuleGroupResponse;
 import software.amazon.awssdk.services.networkfirewall.model.InsufficientCapacityException;
@@ -387,6 +388,66 @@ public class CreateHandlerTest extends AbstractTestBase {
         validateStatefulResourceModel(response.getResourceModel(), cfnStatefulRuleGroup4, statefulTags);
     }
 
+    @Test
+    public void testHandleRequest_createWithDryRunPreflightSuccess() {
+        handler = new CreateHandler(HandlerOptions.builder().dryRunPreflight(true).build());
+        model = ResourceModel
+                .builder()
+                .ruleGroupName(STATELESS_RULEGROUP_NAME)
+                .ruleGroup(cfnStatelessRuleGroup1)
+                .description(DESCRIPTION)
+                .capacity(CAPACITY)
+                .type(STATELESS_RULEGROUP_TYPE)
+                .build();
+        request = ResourceHandlerRequest.<ResourceModel>builder()
+            .desiredResourceState(model)
+            .build();
+
+        final CreateRuleGroupRequest dryRunRequest = createStatelessRuleGroupRequest1.toBuilder().dryRun(true).build();
+        final CreateRuleGroupResponse dryRunResponse = CreateRuleGroupResponse.builder()
+                .ruleGroupResponse(statelessSdkRuleGroupResponseWithNoTags.toBuilder().consumedCapacity(3).build())
+                .build();
+        when(proxyClient.injectCredentialsAndInvokeV2(dryRunRequest, networkFirewallClient::createRuleGroup)).thenReturn(dryRunResponse);
+        when(proxyClient.injectCredentialsAndInvokeV2(createStatelessRuleGroupRequest1, networkFirewallClient::createRuleGroup)).thenReturn(createStatelessRuleGroupResponse1);
+        when(proxyClient.injectCredentialsAndInvokeV2(describeCreateStatelessRuleGroupRequest1, networkFirewallClient::describeRuleGroup)).thenReturn(describeCreateStatelessRuleGroupResponse1);
+
+        final ProgressEvent<ResourceModel, CallbackContext> response = handler.handleRequest(proxy, request, new CallbackContext(), proxyClient, logger);
+
+        // one DryRun call followed by the real create
+        verify(proxyClient.client(), times(2)).createRuleGroup(any(CreateRuleGroupRequest.class));
+        verify(proxyClient.client(), times(2)).describeRuleGroup(any(DescribeRuleGroupRequest.class));
+
+        assertThat(response).isNotNull();
+        assertThat(response.getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        validateStatelessResourceModel(response.getResourceModel(), cfnStatelessRuleGroup1, new HashSet<Tag>());
+    }
+
+    @Test
+    public void testHandleRequest_createWithDryRunPreflightFailure() {
+        handler = new CreateHandler(HandlerOptions.builder().dryRunPreflight(true).build());
+        model = ResourceModel
+                .builder()
+                .ruleGroupName(STATELESS_RULEGROUP_NAME)
+                .ruleGroup(cfnStatelessRuleGroup1)
+                .description(DESCRIPTION)
+                .capacity(CAPACITY)
+                .type(STATELESS_RULEGROUP_TYPE)
+                .build();
+        request = ResourceHandlerRequest.<ResourceModel>builder()
+            .desiredResourceState(model)
+            .build();
+
+        final CreateRuleGroupRequest dryRunRequest = createStatelessRuleGroupRequest1.toBuilder().dryRun(true).build();
+        when(proxyClient.injectCredentialsAndInvokeV2(dryRunRequest, networkFirewallClient::createRuleGroup)).thenThrow(InvalidRequestException.class);
+
+        assertThrows(CfnInvalidRequestException.class, () ->
+                handler.handleRequest(proxy, request, new CallbackContext(), proxyClient, logger));
+
+        // the real create is never attempted when the pre-flight fails
+        verify(proxyClient.client(), times(1)).createRuleGroup(any(CreateRuleGroupRequest.class));
+        verify(proxyClient.client(), never()).describeRuleGroup(any(DescribeRuleGroupRequest.class));
+    }
+
     @Test
     public void testHandleRequest_throwsInvalidRequestException() {
         when(proxyClient.injectCredentialsAndInvokeV2(createStatelessRuleGroupRequest1, networkFirewallClient::createRuleGroup)).thenThrow(InvalidRequestException.class);
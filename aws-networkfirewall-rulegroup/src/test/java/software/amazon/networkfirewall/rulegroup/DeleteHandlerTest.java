@@ -15,6 +15,7 @@ import software.amazon.cloudformation.proxy.OperationStatus;
 import software.amazon.cloudformation.proxy.ProgressEvent;
 import software.amazon.cloudformation.proxy.ProxyClient;
 import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+import software.amazon.networkfirewall.common.ModelCache;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -99,6 +100,41 @@ public class DeleteHandlerTest extends AbstractTestBase {
         assertThat(response.getErrorCode()).isNull();
     }
 
+    @Test
+    public void testHandleRequest_deleteInvalidatesReadCache() {
+        final HandlerOptions options = HandlerOptions.builder().readCacheSize(10).build();
+        handler = new DeleteHandler(options);
+        final ModelCache<ResourceModel> models = handler.referencedResource.readModels();
+        final ResourceModel model = ResourceModel
+                .builder()
+                .ruleGroupArn(STATELESS_RULEGROUP_ARN)
+                .build();
+        models.get(STATELESS_RULEGROUP_ARN, UPDATE_TOKEN, () -> model);
+
+        final ResourceHandlerRequest<ResourceModel> request = ResourceHandlerRequest.<ResourceModel>builder()
+            .desiredResourceState(model)
+            .build();
+
+        final DeleteRuleGroupRequest deleteStatelessRuleGroupRequest = DeleteRuleGroupRequest.builder()
+                .ruleGroupArn(STATELESS_RULEGROUP_ARN)
+                .build();
+        final DescribeRuleGroupRequest describeRuleGroupRequest = DescribeRuleGroupRequest.builder()
+                .ruleGroupArn(STATELESS_RULEGROUP_ARN)
+                .build();
+
+        when(proxyClient.injectCredentialsAndInvokeV2(deleteStatelessRuleGroupRequest, networkFirewallClient::deleteRuleGroup))
+                .thenReturn(DeleteRuleGroupResponse.builder().ruleGroupResponse(statelessSdkRuleGroupResponseWithNoTags).build());
+        when(proxyClient.injectCredentialsAndInvokeV2(describeRuleGroupRequest, networkFirewallClient::describeRuleGroup)).thenThrow(ResourceNotFoundException.class);
+
+        final ProgressEvent<ResourceModel, CallbackContext> response = handler.handleRequest(proxy, request, new CallbackContext(), proxyClient, logger);
+
+        assertThat(response.getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        final ResourceModel retranslated = ResourceModel.builder().build();
+        assertThat(models.get(STATELESS_RULEGROUP_ARN, UPDATE_TOKEN, () -> retranslated)).isSameAs(retranslated);
+        verify(proxyClient.client(), times(1)).deleteRuleGroup(any(DeleteRuleGroupRequest.class));
+        verify(proxyClient.client(), times(1)).describeRuleGroup(any(DescribeRuleGroupRequest.class));
+    }
+
     @Test
     public void testHandleRequest_deleteStatelessRuleGroupSuccess2() {
         // Delete succeeds after few calls
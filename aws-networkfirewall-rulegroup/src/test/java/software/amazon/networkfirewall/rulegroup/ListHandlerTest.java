@@ -2,17 +2,26 @@ package software.amazon.networkfirewall.rulegroup;
 
 import com.google.common.collect.ImmutableList;
 import org.junit.jupiter.api.AfterEach;
+import software.amazon.awssdk.services.networkfirewall.NetworkFirewallAsyncClient;
 import software.amazon.awssdk.services.networkfirewall.NetworkFirewallClient;
+import software.amazon.awssdk.services.networkfirewall.model.DescribeRuleGroupRequest;
+import software.amazon.awssdk.services.networkfirewall.model.DescribeRuleGroupResponse;
 import software.amazon.awssdk.services.networkfirewall.model.ListFirewallsRequest;
 import software.amazon.awssdk.services.networkfirewall.model.ListRuleGroupsRequest;
 import software.amazon.awssdk.services.networkfirewall.model.ListRuleGroupsResponse;
+import software.amazon.awssdk.services.networkfirewall.model.ResourceNotFoundException;
+import software.amazon.awssdk.services.networkfirewall.model.ResourceStatus;
 import software.amazon.awssdk.services.networkfirewall.model.RuleGroupMetadata;
+import software.amazon.awssdk.services.networkfirewall.model.RuleGroupResponse;
+import software.amazon.awssdk.services.networkfirewall.model.ThrottlingException;
+import software.amazon.cloudformation.exceptions.CfnThrottlingException;
 import software.amazon.cloudformation.proxy.AmazonWebServicesClientProxy;
 import software.amazon.cloudformation.proxy.Logger;
 import software.amazon.cloudformation.proxy.OperationStatus;
 import software.amazon.cloudformation.proxy.ProgressEvent;
 import software.amazon.cloudformation.proxy.ProxyClient;
 import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+import software.amazon.networkfirewall.common.InvocationOptions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -20,12 +29,18 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
@@ -92,4 +107,193 @@ public class ListHandlerTest extends AbstractTestBase {
         assertThat(response.getMessage()).isNull();
         assertThat(response.getErrorCode()).isNull();
     }
+
+    @Test
+    public void testHandleRequest_listRuleGroupWithEnrichment() {
+        handler = new ListHandler(HandlerOptions.builder()
+                .listEnrichment(true)
+                .listEnrichmentParallelism(2)
+                .listPageSize(50)
+                .build());
+        setupRuleGroupTest();
+
+        final String deletingArn = STATEFUL_RULEGROUP_ARN + "-deleting";
+        final String deletedArn = STATEFUL_RULEGROUP_ARN + "-deleted";
+        List<RuleGroupMetadata> rulegroups = ImmutableList.of(
+                RuleGroupMetadata.builder().arn(STATELESS_RULEGROUP_ARN).build(),
+                RuleGroupMetadata.builder().arn(deletingArn).build(),
+                RuleGroupMetadata.builder().arn(deletedArn).build(),
+                RuleGroupMetadata.builder().arn(STATEFUL_RULEGROUP_ARN).build());
+        ListRuleGroupsResponse listResponse = ListRuleGroupsResponse.builder()
+                .ruleGroups(rulegroups)
+                .nextToken("next")
+                .build();
+
+        when(proxyClient.client().listRuleGroups(any(ListRuleGroupsRequest.class))).thenReturn(listResponse);
+        when(proxyClient.client().describeRuleGroup(any(DescribeRuleGroupRequest.class))).thenAnswer(invocation -> {
+            final String arn = invocation.<DescribeRuleGroupRequest>getArgument(0).ruleGroupArn();
+            if (arn.equals(STATELESS_RULEGROUP_ARN)) {
+                return describeCreateStatelessRuleGroupResponse1;
+            } else if (arn.equals(STATEFUL_RULEGROUP_ARN)) {
+                return describeCreateStatefulRuleGroupResponse1;
+            } else if (arn.equals(deletingArn)) {
+                return DescribeRuleGroupResponse.builder()
+                        .ruleGroupResponse(RuleGroupResponse.builder()
+                                .ruleGroupArn(deletingArn)
+                                .ruleGroupStatus(ResourceStatus.DELETING)
+                                .build())
+                        .build();
+            }
+            throw ResourceNotFoundException.builder().build();
+        });
+
+        final ProgressEvent<ResourceModel, CallbackContext> response =
+                handler.handleRequest(proxy, request, new CallbackContext(), proxyClient, logger);
+
+        verify(proxyClient.client()).listRuleGroups(argThat((ListRuleGroupsRequest listRequest) -> listRequest.maxResults() == 50));
+        verify(proxyClient.client(), times(4)).describeRuleGroup(any(DescribeRuleGroupRequest.class));
+
+        assertThat(response).isNotNull();
+        assertThat(response.getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        assertThat(response.getNextToken()).isEqualTo("next");
+        // deleted and deleting rule groups are left out, the rest keep their listed order
+        assertThat(response.getResourceModels()).hasSize(2);
+        final ResourceModel stateless = response.getResourceModels().get(0);
+        assertThat(stateless.getRuleGroupArn()).isEqualTo(STATELESS_RULEGROUP_ARN);
+        assertThat(stateless.getRuleGroupName()).isEqualTo(STATELESS_RULEGROUP_NAME);
+        assertThat(stateless.getType()).isEqualTo(STATELESS_RULEGROUP_TYPE);
+        assertThat(stateless.getCapacity()).isEqualTo(CAPACITY);
+        assertThat(response.getResourceModels().get(1).getRuleGroupArn()).isEqualTo(STATEFUL_RULEGROUP_ARN);
+        assertThat(response.getResourceModels().get(1).getType()).isEqualTo(STATEFUL_RULEGROUP_TYPE);
+    }
+
+    @Test
+    public void testHandleRequest_listRuleGroupWithEnrichmentFromVirtualThreads() {
+        handler = new ListHandler(HandlerOptions.builder()
+                .listEnrichment(true)
+                .listEnrichmentParallelism(3)
+                .invocation(InvocationOptions.builder().virtualThreads(true).build())
+                .build());
+        setupRuleGroupTest();
+
+        final List<RuleGroupMetadata> rulegroups = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            rulegroups.add(RuleGroupMetadata.builder().arn(STATEFUL_RULEGROUP_ARN + i).build());
+        }
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger maxInFlight = new AtomicInteger();
+        when(proxyClient.client().listRuleGroups(any(ListRuleGroupsRequest.class)))
+                .thenReturn(ListRuleGroupsResponse.builder().ruleGroups(rulegroups).build());
+        when(proxyClient.client().describeRuleGroup(any(DescribeRuleGroupRequest.class))).thenAnswer(invocation -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            Thread.sleep(10);
+            inFlight.decrementAndGet();
+            return describeCreateStatefulRuleGroupResponse1.toBuilder()
+                    .ruleGroupResponse(describeCreateStatefulRuleGroupResponse1.ruleGroupResponse().toBuilder()
+                            .ruleGroupArn(invocation.<DescribeRuleGroupRequest>getArgument(0).ruleGroupArn())
+                            .build())
+                    .build();
+        });
+
+        // on a runtime without virtual threads the option falls back to the platform pool
+        final ProgressEvent<ResourceModel, CallbackContext> response =
+                handler.handleRequest(proxy, request, new CallbackContext(), proxyClient, logger);
+
+        assertThat(response.getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        assertThat(response.getResourceModels()).hasSize(12);
+        assertThat(response.getResourceModels().get(7).getRuleGroupArn()).isEqualTo(STATEFUL_RULEGROUP_ARN + 7);
+        assertThat(maxInFlight.get()).isLessThanOrEqualTo(3);
+        verify(proxyClient.client(), times(12)).describeRuleGroup(any(DescribeRuleGroupRequest.class));
+    }
+
+    @Test
+    public void testHandleRequest_listRuleGroupWithEnrichmentEmptyPage() {
+        handler = new ListHandler(HandlerOptions.builder().listEnrichment(true).build());
+
+        when(proxyClient.client().listRuleGroups(any(ListRuleGroupsRequest.class))).thenReturn(ListRuleGroupsResponse.builder().build());
+
+        final ProgressEvent<ResourceModel, CallbackContext> response =
+                handler.handleRequest(proxy, request, new CallbackContext(), proxyClient, logger);
+
+        verify(proxyClient.client()).listRuleGroups(any(ListRuleGroupsRequest.class));
+        assertThat(response.getResourceModels()).isEmpty();
+    }
+
+    @Test
+    public void testHandleRequest_listRuleGroupWithEnrichmentThrottled() {
+        handler = new ListHandler(HandlerOptions.builder().listEnrichment(true).build());
+
+        List<RuleGroupMetadata> rulegroups = ImmutableList.of(RuleGroupMetadata.builder().arn(STATELESS_RULEGROUP_ARN).build());
+        when(proxyClient.client().listRuleGroups(any(ListRuleGroupsRequest.class)))
+                .thenReturn(ListRuleGroupsResponse.builder().ruleGroups(rulegroups).build());
+        when(proxyClient.client().describeRuleGroup(any(DescribeRuleGroupRequest.class))).thenThrow(ThrottlingException.class);
+
+        assertThrows(CfnThrottlingException.class, () ->
+                handler.handleRequest(proxy, request, new CallbackContext(), proxyClient, logger));
+
+        verify(proxyClient.client()).listRuleGroups(any(ListRuleGroupsRequest.class));
+        verify(proxyClient.client()).describeRuleGroup(any(DescribeRuleGroupRequest.class));
+    }
+
+    @Test
+    public void testHandleRequest_listRuleGroupWithAsyncEnrichment() {
+        handler = new ListHandler(HandlerOptions.builder().listEnrichment(true).listEnrichmentParallelism(2).build());
+        final NetworkFirewallAsyncClient asyncClient = mock(NetworkFirewallAsyncClient.class);
+        final CallbackContext callbackContext = new CallbackContext();
+        callbackContext.setAsyncProxyClient(proxy.newProxy(() -> asyncClient));
+        setupRuleGroupTest();
+
+        final String deletedArn = STATEFUL_RULEGROUP_ARN + "-deleted";
+        List<RuleGroupMetadata> rulegroups = ImmutableList.of(
+                RuleGroupMetadata.builder().arn(STATELESS_RULEGROUP_ARN).build(),
+                RuleGroupMetadata.builder().arn(deletedArn).build(),
+                RuleGroupMetadata.builder().arn(STATEFUL_RULEGROUP_ARN).build());
+        when(proxyClient.client().listRuleGroups(any(ListRuleGroupsRequest.class)))
+                .thenReturn(ListRuleGroupsResponse.builder().ruleGroups(rulegroups).build());
+        when(asyncClient.describeRuleGroup(any(DescribeRuleGroupRequest.class))).thenAnswer(invocation -> {
+            final String arn = invocation.<DescribeRuleGroupRequest>getArgument(0).ruleGroupArn();
+            if (arn.equals(STATELESS_RULEGROUP_ARN)) {
+                return CompletableFuture.completedFuture(describeCreateStatelessRuleGroupResponse1);
+            } else if (arn.equals(STATEFUL_RULEGROUP_ARN)) {
+                return CompletableFuture.completedFuture(describeCreateStatefulRuleGroupResponse1);
+            }
+            return failed(ResourceNotFoundException.builder().build());
+        });
+
+        final ProgressEvent<ResourceModel, CallbackContext> response =
+                handler.handleRequest(proxy, request, callbackContext, proxyClient, logger);
+
+        // the describes went through the async client only
+        verify(proxyClient.client()).listRuleGroups(any(ListRuleGroupsRequest.class));
+        verify(asyncClient, times(3)).describeRuleGroup(any(DescribeRuleGroupRequest.class));
+        assertThat(response.getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        assertThat(response.getResourceModels()).extracting(ResourceModel::getRuleGroupArn)
+                .containsExactly(STATELESS_RULEGROUP_ARN, STATEFUL_RULEGROUP_ARN);
+    }
+
+    @Test
+    public void testHandleRequest_listRuleGroupWithAsyncEnrichmentThrottled() {
+        handler = new ListHandler(HandlerOptions.builder().listEnrichment(true).build());
+        final NetworkFirewallAsyncClient asyncClient = mock(NetworkFirewallAsyncClient.class);
+        final CallbackContext callbackContext = new CallbackContext();
+        callbackContext.setAsyncProxyClient(proxy.newProxy(() -> asyncClient));
+
+        List<RuleGroupMetadata> rulegroups = ImmutableList.of(RuleGroupMetadata.builder().arn(STATELESS_RULEGROUP_ARN).build());
+        when(proxyClient.client().listRuleGroups(any(ListRuleGroupsRequest.class)))
+                .thenReturn(ListRuleGroupsResponse.builder().ruleGroups(rulegroups).build());
+        when(asyncClient.describeRuleGroup(any(DescribeRuleGroupRequest.class)))
+                .thenReturn(failed(ThrottlingException.builder().build()));
+
+        assertThrows(CfnThrottlingException.class, () ->
+                handler.handleRequest(proxy, request, callbackContext, proxyClient, logger));
+
+        verify(proxyClient.client()).listRuleGroups(any(ListRuleGroupsRequest.class));
+        verify(asyncClient).describeRuleGroup(any(DescribeRuleGroupRequest.class));
+    }
+
+    private static CompletableFuture<DescribeRuleGroupResponse> failed(final RuntimeException e) {
+        final CompletableFuture<DescribeRuleGroupResponse> future = new CompletableFuture<>();
+        future.completeExceptionally(e);
+        return future;
+    }
 }
@@ -1,6 +1,7 @@
 package software.amazon.networkfirewall.rulegroup;
 
 import java.time.Duration;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
@@ -15,6 +16,7 @@ import software.amazon.cloudformation.proxy.OperationStatus;
 import software.amazon.cloudformation.proxy.ProgressEvent;
 import software.amazon.cloudformation.proxy.ProxyClient;
 import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+import software.amazon.networkfirewall.common.ModelCache;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -222,6 +224,64 @@ public class ReadHandlerTest extends AbstractTestBase {
         validateStatefulResourceModel(response.getResourceModel(), cfnStatefulRuleGroup1, new HashSet<Tag>());
     }
 
+    @Test
+    public void testHandleRequest_describeStatefulRuleGroupFromReadCache() {
+        final ModelCache<ResourceModel> models = new ModelCache<>(10, Duration.ofMinutes(5));
+        handler = new ReadHandler(models);
+        final ResourceModel model = ResourceModel
+                .builder()
+                .ruleGroupArn(STATEFUL_RULEGROUP_ARN)
+                .build();
+
+        final ResourceHandlerRequest<ResourceModel> request = ResourceHandlerRequest.<ResourceModel>builder()
+                .desiredResourceState(model)
+                .build();
+
+        // tagging leaves the UpdateToken as it was
+        final DescribeRuleGroupResponse untaggedResponse = describeUpdateStatefulRuleGroupResponse2.toBuilder()
+                .ruleGroupResponse(describeUpdateStatefulRuleGroupResponse2.ruleGroupResponse().toBuilder()
+                        .tags(Collections.emptyList())
+                        .build())
+                .build();
+        when(proxyClient.injectCredentialsAndInvokeV2(describeStatefulRuleGroupRequestWithArn, networkFirewallClient::describeRuleGroup))
+                .thenReturn(describeUpdateStatefulRuleGroupResponse2)
+                .thenReturn(untaggedResponse);
+
+        final ProgressEvent<ResourceModel, CallbackContext> first = handler.handleRequest(proxy, request, new CallbackContext(), proxyClient, logger);
+        final ProgressEvent<ResourceModel, CallbackContext> second = handler.handleRequest(proxy, request, new CallbackContext(), proxyClient, logger);
+
+        validateStatefulResourceModel(first.getResourceModel(), cfnStatefulRuleGroup2, statefulTags);
+        validateStatefulResourceModel(second.getResourceModel(), cfnStatefulRuleGroup2, new HashSet<Tag>());
+        assertThat(second.getResourceModel()).isNotSameAs(first.getResourceModel());
+        assertThat(second.getResourceModel().getRuleGroup()).isNotSameAs(first.getResourceModel().getRuleGroup());
+        assertThat(models.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void testHandleRequest_changingACachedModelLeavesTheNextRead() {
+        handler = new ReadHandler(new ModelCache<>(10, Duration.ofMinutes(5)));
+        final ResourceHandlerRequest<ResourceModel> request = ResourceHandlerRequest.<ResourceModel>builder()
+                .desiredResourceState(ResourceModel.builder().ruleGroupArn(STATEFUL_RULEGROUP_ARN).build())
+                .build();
+        when(proxyClient.injectCredentialsAndInvokeV2(describeStatefulRuleGroupRequestWithArn, networkFirewallClient::describeRuleGroup))
+                .thenReturn(describeUpdateStatefulRuleGroupResponse2);
+
+        final ResourceModel first = handler.handleRequest(proxy, request, new CallbackContext(), proxyClient, logger)
+                .getResourceModel();
+        first.getRuleGroup().getRulesSource().getRulesSourceList().getTargets().add(".example.com");
+        first.getRuleGroup().getRulesSource().getRulesSourceList().setGeneratedRulesType("DENYLIST");
+        final ResourceModel second = handler.handleRequest(proxy, request, new CallbackContext(), proxyClient, logger)
+                .getResourceModel();
+
+        assertThat(second.getRuleGroup()).isEqualTo(cfnStatefulRuleGroup2);
+        // every part of a rule group is copied
+        for (final RuleGroup ruleGroup : Arrays.asList(cfnStatelessRuleGroup1, cfnStatelessRuleGroup2, cfnStatelessRuleGroup3,
+                cfnStatefulRuleGroup1, cfnStatefulRuleGroup2, cfnStatefulRuleGroup3, cfnStatefulRuleGroup4)) {
+            assertThat(Translator.copyRuleGroup(ruleGroup)).isEqualTo(ruleGroup).isNotSameAs(ruleGroup);
+        }
+        assertThat(Translator.copyRuleGroup(null)).isNull();
+    }
+
     @Test
     public void testHandleRequest_throwsResourceNotFoundException() {
         final ResourceModel model = ResourceModel
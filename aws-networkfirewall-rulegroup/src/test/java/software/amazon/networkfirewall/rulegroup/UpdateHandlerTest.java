@@ -1,21 +1,33 @@
 package software.amazon.networkfirewall.rulegroup;
 
+import java.io.IOException;
 import java.time.Duration;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import software.amazon.awssdk.services.networkfirewall.NetworkFirewallClient;
+import software.amazon.awssdk.services.networkfirewall.model.DescribeFirewallRequest;
+import software.amazon.awssdk.services.networkfirewall.model.DescribeFirewallResponse;
 import software.amazon.awssdk.services.networkfirewall.model.DescribeRuleGroupRequest;
 import software.amazon.awssdk.services.networkfirewall.model.DescribeRuleGroupResponse;
+import software.amazon.awssdk.services.networkfirewall.model.FirewallMetadata;
+import software.amazon.awssdk.services.networkfirewall.model.FirewallStatus;
 import software.amazon.awssdk.services.networkfirewall.model.InsufficientCapacityException;
 import software.amazon.awssdk.services.networkfirewall.model.InternalServerErrorException;
 import software.amazon.awssdk.services.networkfirewall.model.InvalidOperationException;
 import software.amazon.awssdk.services.networkfirewall.model.InvalidRequestException;
 import software.amazon.awssdk.services.networkfirewall.model.InvalidTokenException;
 import software.amazon.awssdk.services.networkfirewall.model.LimitExceededException;
+import software.amazon.awssdk.services.networkfirewall.model.ListFirewallsRequest;
+import software.amazon.awssdk.services.networkfirewall.model.ListFirewallsResponse;
+import software.amazon.awssdk.services.networkfirewall.model.PerObjectStatus;
+import software.amazon.awssdk.services.networkfirewall.model.PerObjectSyncStatus;
 import software.amazon.awssdk.services.networkfirewall.model.ResourceNotFoundException;
+import software.amazon.awssdk.services.networkfirewall.model.SyncState;
 import software.amazon.awssdk.services.networkfirewall.model.TagResourceRequest;
 import software.amazon.awssdk.services.networkfirewall.model.TagResourceResponse;
 import software.amazon.awssdk.services.networkfirewall.model.ThrottlingException;
@@ -33,6 +45,8 @@ import software.amazon.cloudformation.proxy.OperationStatus;
 import software.amazon.cloudformation.proxy.ProgressEvent;
 import software.amazon.cloudformation.proxy.ProxyClient;
 import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+import software.amazon.cloudformation.resource.Serializer;
+import software.amazon.networkfirewall.common.Deadline;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -182,6 +196,115 @@ public class UpdateHandlerTest extends AbstractTestBase {
         validateStatelessResourceModel(response.getResourceModel(), cfnStatelessRuleGroup2, statelessTags);
     }
 
+    @Test
+    public void testHandleRequest_propagationWaitSuccess() {
+        handler = new UpdateHandler(HandlerOptions.builder().propagationWait(true).build());
+        final String firewallArn = "arn:aws:network-firewall:us-east-1:123456789012:firewall/uses-the-rule-group";
+        ResourceModel desiredModel = ResourceModel
+                .builder()
+                .ruleGroup(cfnStatelessRuleGroup2)
+                .ruleGroupName(STATELESS_RULEGROUP_NAME)
+                .type(STATELESS_RULEGROUP_TYPE)
+                .ruleGroupArn(STATELESS_RULEGROUP_ARN)
+                .description(DESCRIPTION)
+                .tags(statelessTags)
+                .build();
+
+        ResourceHandlerRequest<ResourceModel> request = ResourceHandlerRequest.<ResourceModel>builder()
+                .previousResourceState(previousStatelessModelWithNoTags)
+                .desiredResourceState(desiredModel)
+                .build();
+
+        DescribeRuleGroupResponse previousState = DescribeRuleGroupResponse.builder()
+                .ruleGroupResponse(statelessSdkRuleGroupResponseWithNoTags)
+                .ruleGroup(statelessSdkRuleGroup1)
+                .updateToken(UPDATE_TOKEN)
+                .build();
+        when(proxyClient.injectCredentialsAndInvokeV2(describeUpdateStatelessRuleGroupRequest2, networkFirewallClient::describeRuleGroup)).thenReturn(previousState).thenReturn(previousState).thenReturn(describeUpdateStatelessRuleGroupResponse2);
+        when(proxyClient.injectCredentialsAndInvokeV2(updateStatelessRuleGroupRequest2, networkFirewallClient::updateRuleGroup)).thenReturn(updateStatelessRuleGroupResponse2);
+
+        // the firewall shows the rule group at the token of the update in its only zone
+        when(networkFirewallClient.listFirewalls(any(ListFirewallsRequest.class))).thenReturn(ListFirewallsResponse.builder()
+                .firewalls(FirewallMetadata.builder().firewallArn(firewallArn).build())
+                .build());
+        when(networkFirewallClient.describeFirewall(any(DescribeFirewallRequest.class))).thenReturn(DescribeFirewallResponse.builder()
+                .firewallStatus(FirewallStatus.builder()
+                        .syncStates(Collections.singletonMap("us-east-1a", SyncState.builder()
+                                .config(Collections.singletonMap(STATELESS_RULEGROUP_ARN, PerObjectStatus.builder()
+                                        .syncStatus(PerObjectSyncStatus.IN_SYNC)
+                                        .updateToken(updateStatelessRuleGroupResponse2.updateToken())
+                                        .build()))
+                                .build()))
+                        .build())
+                .build());
+
+        final CallbackContext context = new CallbackContext();
+        final ProgressEvent<ResourceModel, CallbackContext> response = handler.handleRequest(proxy, request, context, proxyClient, logger);
+
+        verify(proxyClient.client(), times(1)).updateRuleGroup(any(UpdateRuleGroupRequest.class));
+        verify(proxyClient.client(), times(4)).describeRuleGroup(any(DescribeRuleGroupRequest.class));
+        verify(proxyClient.client(), times(1)).tagResource(any(TagResourceRequest.class));
+        verify(proxyClient.client(), times(1)).listFirewalls(any(ListFirewallsRequest.class));
+        verify(proxyClient.client(), times(1)).describeFirewall(any(DescribeFirewallRequest.class));
+
+        assertThat(response).isNotNull();
+        assertThat(response.getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        assertThat(context.getPropagatedFirewalls()).containsOnlyKeys(firewallArn);
+        assertThat(context.getPropagationStartedAt()).isNull();
+        validateStatelessResourceModel(response.getResourceModel(), cfnStatelessRuleGroup2, statelessTags);
+    }
+
+    @Test
+    public void testHandleRequest_callbackReconcilesTagsAgainstTheDescribedRuleGroup() throws IOException {
+        // an earlier attempt tagged the rule group already, but has not changed its rules yet
+        ResourceModel desiredModel = ResourceModel
+                .builder()
+                .ruleGroup(cfnStatelessRuleGroup2)
+                .ruleGroupName(STATELESS_RULEGROUP_NAME)
+                .type(STATELESS_RULEGROUP_TYPE)
+                .ruleGroupArn(STATELESS_RULEGROUP_ARN)
+                .description(DESCRIPTION)
+                .tags(statelessTags)
+                .build();
+
+        ResourceHandlerRequest<ResourceModel> request = ResourceHandlerRequest.<ResourceModel>builder()
+                .previousResourceState(previousStatelessModelWithNoTags)
+                .desiredResourceState(desiredModel)
+                .build();
+
+        DescribeRuleGroupResponse liveState = DescribeRuleGroupResponse.builder()
+                .ruleGroupResponse(statelessSdkRuleGroupResponseWithTags)
+                .ruleGroup(statelessSdkRuleGroup1)
+                .updateToken(UPDATE_TOKEN)
+                .build();
+        final AtomicLong nanos = new AtomicLong();
+        when(proxyClient.injectCredentialsAndInvokeV2(describeUpdateStatelessRuleGroupRequest2, networkFirewallClient::describeRuleGroup)).thenAnswer(invocation -> {
+            nanos.addAndGet(Duration.ofSeconds(10).toNanos());
+            return liveState;
+        }).thenReturn(liveState).thenReturn(describeUpdateStatelessRuleGroupResponse2);
+        when(proxyClient.injectCredentialsAndInvokeV2(updateStatelessRuleGroupRequest2, networkFirewallClient::updateRuleGroup)).thenReturn(updateStatelessRuleGroupResponse2);
+
+        // the Describe of the rule group leaves no time for the update, which is left to a callback
+        final CallbackContext context = new CallbackContext();
+        context.setDeadline(Deadline.after(Duration.ofSeconds(15), nanos::get));
+        final ProgressEvent<ResourceModel, CallbackContext> inProgress = handler.handleRequest(proxy, request, context, proxyClient, logger);
+        assertThat(inProgress.getStatus()).isEqualTo(OperationStatus.IN_PROGRESS);
+
+        // the callback gets the context as CloudFormation hands it back, and replays the Describe of the rule group
+        final Serializer serializer = new Serializer();
+        final CallbackContext callbackContext = serializer.deserialize(serializer.serialize(inProgress.getCallbackContext()),
+                new TypeReference<CallbackContext>() {});
+        final ProgressEvent<ResourceModel, CallbackContext> response = handler.handleRequest(proxy, request, callbackContext, proxyClient, logger);
+
+        verify(proxyClient.client(), times(1)).updateRuleGroup(any(UpdateRuleGroupRequest.class));
+        verify(proxyClient.client(), times(4)).describeRuleGroup(any(DescribeRuleGroupRequest.class));
+        verify(proxyClient.client(), never()).tagResource(any(TagResourceRequest.class));
+        verify(proxyClient.client(), never()).untagResource(any(UntagResourceRequest.class));
+
+        assertThat(response.getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        validateStatelessResourceModel(response.getResourceModel(), cfnStatelessRuleGroup2, statelessTags);
+    }
+
     @Test
     public void testHandleRequest_updateStatelessRuleGroupSuccess2() {
         // desired state has tags
@@ -279,6 +402,64 @@ public class UpdateHandlerTest extends AbstractTestBase {
         validateStatelessResourceModel(response.getResourceModel(), cfnStatelessRuleGroup1, new HashSet<Tag>());
     }
 
+    @Test
+    public void testHandleRequest_updateWithDryRunPreflightSuccess() {
+        handler = new UpdateHandler(HandlerOptions.builder().dryRunPreflight(true).build());
+        ResourceHandlerRequest<ResourceModel> request = ResourceHandlerRequest.<ResourceModel>builder()
+                .previousResourceState(previousStatelessModelWithNoTags)
+                .desiredResourceState(desiredStatelessModel)
+                .build();
+
+        DescribeRuleGroupResponse previousState = DescribeRuleGroupResponse.builder()
+                .ruleGroupResponse(statelessSdkRuleGroupResponseWithNoTags)
+                .ruleGroup(statelessSdkRuleGroup1)
+                .updateToken(UPDATE_TOKEN)
+                .build();
+        final UpdateRuleGroupRequest dryRunRequest = updateStatelessRuleGroupRequest1.toBuilder().dryRun(true).build();
+        final UpdateRuleGroupResponse dryRunResponse = UpdateRuleGroupResponse.builder()
+                .ruleGroupResponse(statelessSdkRuleGroupResponseWithNoTags.toBuilder().consumedCapacity(3).build())
+                .updateToken(UPDATE_TOKEN)
+                .build();
+        when(proxyClient.injectCredentialsAndInvokeV2(describeUpdateStatelessRuleGroupRequest1, networkFirewallClient::describeRuleGroup)).thenReturn(previousState).thenReturn(previousState).thenReturn(previousState).thenReturn(describeUpdateStatelessRuleGroupResponse1);
+        when(proxyClient.injectCredentialsAndInvokeV2(dryRunRequest, networkFirewallClient::updateRuleGroup)).thenReturn(dryRunResponse);
+        when(proxyClient.injectCredentialsAndInvokeV2(updateStatelessRuleGroupRequest1, networkFirewallClient::updateRuleGroup)).thenReturn(updateStatelessRuleGroupResponse1);
+
+        final ProgressEvent<ResourceModel, CallbackContext> response = handler.handleRequest(proxy, request, new CallbackContext(), proxyClient, logger);
+
+        // one DryRun call followed by the real update
+        verify(proxyClient.client(), times(2)).updateRuleGroup(any(UpdateRuleGroupRequest.class));
+        verify(proxyClient.client(), times(5)).describeRuleGroup(any(DescribeRuleGroupRequest.class));
+
+        assertThat(response).isNotNull();
+        assertThat(response.getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        validateStatelessResourceModel(response.getResourceModel(), cfnStatelessRuleGroup1, new HashSet<Tag>());
+    }
+
+    @Test
+    public void testHandleRequest_updateWithDryRunPreflightFailure() {
+        handler = new UpdateHandler(HandlerOptions.builder().dryRunPreflight(true).build());
+        ResourceHandlerRequest<ResourceModel> request = ResourceHandlerRequest.<ResourceModel>builder()
+                .previousResourceState(previousStatelessModelWithNoTags)
+                .desiredResourceState(desiredStatelessModel)
+                .build();
+
+        DescribeRuleGroupResponse previousState = DescribeRuleGroupResponse.builder()
+                .ruleGroupResponse(statelessSdkRuleGroupResponseWithNoTags)
+                .ruleGroup(statelessSdkRuleGroup1)
+                .updateToken(UPDATE_TOKEN)
+                .build();
+        final UpdateRuleGroupRequest dryRunRequest = updateStatelessRuleGroupRequest1.toBuilder().dryRun(true).build();
+        when(proxyClient.injectCredentialsAndInvokeV2(describeUpdateStatelessRuleGroupRequest1, networkFirewallClient::describeRuleGroup)).thenReturn(previousState);
+        when(proxyClient.injectCredentialsAndInvokeV2(dryRunRequest, networkFirewallClient::updateRuleGroup)).thenThrow(InvalidRequestException.class);
+
+        assertThrows(CfnInvalidRequestException.class, () ->
+                handler.handleRequest(proxy, request, new CallbackContext(), proxyClient, logger));
+
+        // the real update is never attempted when the pre-flight fails
+        verify(proxyClient.client(), times(1)).updateRuleGroup(any(UpdateRuleGroupRequest.class));
+        verify(proxyClient.client(), times(2)).describeRuleGroup(any(DescribeRuleGroupRequest.class));
+    }
+
     @Test
     public void testHandleRequest_updateStatefulRuleGroupSuccess1() {
         // desired state has tags
@@ -0,0 +1,1205 @@
+package software.amazon.networkfirewall.testing;
+
+import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+import software.amazon.awssdk.core.exception.AbortedException;
+import software.amazon.awssdk.services.networkfirewall.NetworkFirewallClient;
+import software.amazon.awssdk.services.networkfirewall.model.AssociateFirewallPolicyRequest;
+import software.amazon.awssdk.services.networkfirewall.model.AssociateFirewallPolicyResponse;
+import software.amazon.awssdk.services.networkfirewall.model.AssociateSubnetsRequest;
+import software.amazon.awssdk.services.networkfirewall.model.AssociateSubnetsResponse;
+import software.amazon.awssdk.services.networkfirewall.model.Attachment;
+import software.amazon.awssdk.services.networkfirewall.model.AttachmentStatus;
+import software.amazon.awssdk.services.networkfirewall.model.ConfigurationSyncState;
+import software.amazon.awssdk.services.networkfirewall.model.CreateFirewallPolicyRequest;
+import software.amazon.awssdk.services.networkfirewall.model.CreateFirewallPolicyResponse;
+import software.amazon.awssdk.services.networkfirewall.model.CreateFirewallRequest;
+import software.amazon.awssdk.services.networkfirewall.model.CreateFirewallResponse;
+import software.amazon.awssdk.services.networkfirewall.model.CreateRuleGroupRequest;
+import software.amazon.awssdk.services.networkfirewall.model.CreateRuleGroupResponse;
+import software.amazon.awssdk.services.networkfirewall.model.DeleteFirewallPolicyRequest;
+import software.amazon.awssdk.services.networkfirewall.model.DeleteFirewallPolicyResponse;
+import software.amazon.awssdk.services.networkfirewall.model.DeleteFirewallRequest;
+import software.amazon.awssdk.services.networkfirewall.model.DeleteFirewallResponse;
+import software.amazon.awssdk.services.networkfirewall.model.DeleteRuleGroupRequest;
+import software.amazon.awssdk.services.networkfirewall.model.DeleteRuleGroupResponse;
+import software.amazon.awssdk.services.networkfirewall.model.DescribeFirewallPolicyRequest;
+import software.amazon.awssdk.services.networkfirewall.model.DescribeFirewallPolicyResponse;
+import software.amazon.awssdk.services.networkfirewall.model.DescribeFirewallRequest;
+import software.amazon.awssdk.services.networkfirewall.model.DescribeFirewallResponse;
+import software.amazon.awssdk.services.networkfirewall.model.DescribeLoggingConfigurationRequest;
+import software.amazon.awssdk.services.networkfirewall.model.DescribeLoggingConfigurationResponse;
+import software.amazon.awssdk.services.networkfirewall.model.DescribeRuleGroupRequest;
+import software.amazon.awssdk.services.networkfirewall.model.DescribeRuleGroupResponse;
+import software.amazon.awssdk.services.networkfirewall.model.DisassociateSubnetsRequest;
+import software.amazon.awssdk.services.networkfirewall.model.DisassociateSubnetsResponse;
+import software.amazon.awssdk.services.networkfirewall.model.Firewall;
+import software.amazon.awssdk.services.networkfirewall.model.FirewallMetadata;
+import software.amazon.awssdk.services.networkfirewall.model.FirewallPolicy;
+import software.amazon.awssdk.services.networkfirewall.model.FirewallPolicyMetadata;
+import software.amazon.awssdk.services.networkfirewall.model.FirewallPolicyResponse;
+import software.amazon.awssdk.services.networkfirewall.model.FirewallStatus;
+import software.amazon.awssdk.services.networkfirewall.model.FirewallStatusValue;
+import software.amazon.awssdk.services.networkfirewall.model.InternalServerErrorException;
+import software.amazon.awssdk.services.networkfirewall.model.InvalidOperationException;
+import software.amazon.awssdk.services.networkfirewall.model.InvalidRequestException;
+import software.amazon.awssdk.services.networkfirewall.model.InvalidTokenException;
+import software.amazon.awssdk.services.networkfirewall.model.ListFirewallPoliciesRequest;
+import software.amazon.awssdk.services.networkfirewall.model.ListFirewallPoliciesResponse;
+import software.amazon.awssdk.services.networkfirewall.model.ListFirewallsRequest;
+import software.amazon.awssdk.services.networkfirewall.model.ListFirewallsResponse;
+import software.amazon.awssdk.services.networkfirewall.model.ListRuleGroupsRequest;
+import software.amazon.awssdk.services.networkfirewall.model.ListRuleGroupsResponse;
+import software.amazon.awssdk.services.networkfirewall.model.ListTagsForResourceRequest;
+import software.amazon.awssdk.services.networkfirewall.model.ListTagsForResourceResponse;
+import software.amazon.awssdk.services.networkfirewall.model.LogDestinationConfig;
+import software.amazon.awssdk.services.networkfirewall.model.LoggingConfiguration;
+import software.amazon.awssdk.services.networkfirewall.model.PerObjectStatus;
+import software.amazon.awssdk.services.networkfirewall.model.PerObjectSyncStatus;
+import software.amazon.awssdk.services.networkfirewall.model.ResourceNotFoundException;
+import software.amazon.awssdk.services.networkfirewall.model.ResourceStatus;
+import software.amazon.awssdk.services.networkfirewall.model.RuleGroup;
+import software.amazon.awssdk.services.networkfirewall.model.RuleGroupMetadata;
+import software.amazon.awssdk.services.networkfirewall.model.RuleGroupResponse;
+import software.amazon.awssdk.services.networkfirewall.model.RuleGroupType;
+import software.amazon.awssdk.services.networkfirewall.model.RulesSource;
+import software.amazon.awssdk.services.networkfirewall.model.StatefulRuleGroupReference;
+import software.amazon.awssdk.services.networkfirewall.model.StatelessRuleGroupReference;
+import software.amazon.awssdk.services.networkfirewall.model.SubnetMapping;
+import software.amazon.awssdk.services.networkfirewall.model.SyncState;
+import software.amazon.awssdk.services.networkfirewall.model.Tag;
+import software.amazon.awssdk.services.networkfirewall.model.TagResourceRequest;
+import software.amazon.awssdk.services.networkfirewall.model.TagResourceResponse;
+import software.amazon.awssdk.services.networkfirewall.model.ThrottlingException;
+import software.amazon.awssdk.services.networkfirewall.model.UntagResourceRequest;
+import software.amazon.awssdk.services.networkfirewall.model.UntagResourceResponse;
+import software.amazon.awssdk.services.networkfirewall.model.UpdateFirewallDeleteProtectionRequest;
+import software.amazon.awssdk.services.networkfirewall.model.UpdateFirewallDeleteProtectionResponse;
+import software.amazon.awssdk.services.networkfirewall.model.UpdateFirewallDescriptionRequest;
+import software.amazon.awssdk.services.networkfirewall.model.UpdateFirewallDescriptionResponse;
+import software.amazon.awssdk.services.networkfirewall.model.UpdateFirewallPolicyChangeProtectionRequest;
+import software.amazon.awssdk.services.networkfirewall.model.UpdateFirewallPolicyChangeProtectionResponse;
+import software.amazon.awssdk.services.networkfirewall.model.UpdateFirewallPolicyRequest;
+import software.amazon.awssdk.services.networkfirewall.model.UpdateFirewallPolicyResponse;
+import software.amazon.awssdk.services.networkfirewall.model.UpdateLoggingConfigurationRequest;
+import software.amazon.awssdk.services.networkfirewall.model.UpdateLoggingConfigurationResponse;
+import software.amazon.awssdk.services.networkfirewall.model.UpdateRuleGroupRequest;
+import software.amazon.awssdk.services.networkfirewall.model.UpdateRuleGroupResponse;
+import software.amazon.awssdk.services.networkfirewall.model.UpdateSubnetChangeProtectionRequest;
+import software.amazon.awssdk.services.networkfirewall.model.UpdateSubnetChangeProtectionResponse;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * A thread-safe, in-memory stand-in for the Network Firewall service covering the calls the resource
+ * handlers make for firewalls, firewall policies, rule groups, logging configurations and tags.
+ *
+ * Asynchronous work is modelled against a {@link Clock} and evaluated on every call:
+ *  - every availability zone of a new firewall is CREATING until it is provisioned, the firewall is
+ *    PROVISIONING until all of them are READY
+ *  - the configuration of each zone is PENDING until it synced, after creation and after every change to
+ *    the associated policy or one of its rule groups, the firewall summary is IN_SYNC once all zones are
+ *  - every mutation issues a new update token and stale tokens are rejected with InvalidTokenException
+ *  - deleted resources are DELETING until they are gone, after which they are not found
+ *
+ * Latency, throttling and internal errors are injected per {@link ServiceBehavior}, and every call is counted.
+ */
+public class InMemoryNetworkFirewallClient implements NetworkFirewallClient {
+    static final String ALREADY_EXISTS_MESSAGE = "A resource with the specified name already exists";
+    private static final int MAX_RESULTS = 100;
+
+    private final ServiceBehavior behavior;
+    private final Clock clock;
+    private final Random random;
+    private final List<String> availabilityZones;
+    private final Object lock = new Object();
+    private final Map<String, FirewallState> firewalls = new LinkedHashMap<>();
+    private final Map<String, PolicyState> policies = new LinkedHashMap<>();
+    private final Map<String, RuleGroupState> ruleGroups = new LinkedHashMap<>();
+    private final Map<String, AtomicLong> calls = new ConcurrentHashMap<>();
+    private final Map<String, Queue<AwsServiceException>> scriptedFailures = new ConcurrentHashMap<>();
+    private final AtomicLong throttledCalls = new AtomicLong();
+    private final AtomicLong failedCalls = new AtomicLong();
+
+    public InMemoryNetworkFirewallClient() {
+        this(ServiceBehavior.builder().build());
+    }
+
+    public InMemoryNetworkFirewallClient(final ServiceBehavior behavior) {
+        this(behavior, Clock.systemUTC());
+    }
+
+    public InMemoryNetworkFirewallClient(final ServiceBehavior behavior, final Clock clock) {
+        this.behavior = behavior;
+        this.clock = clock;
+        this.random = new Random(behavior.getSeed());
+        this.availabilityZones = behavior.getAvailabilityZones() != null ? behavior.getAvailabilityZones()
+                : "abcdef".chars().mapToObj(zone -> behavior.getRegion() + (char) zone).collect(Collectors.toList());
+    }
+
+    @Override
+    public String serviceName() {
+        return SERVICE_NAME;
+    }
+
+    @Override
+    public void close() {
+    }
+
+    /**
+     * Makes the next call of the operation, e.g. "DescribeFirewall", fail with the exception.
+     */
+    public void failNext(final String operation, final AwsServiceException exception) {
+        scriptedFailures.computeIfAbsent(operation, key -> new ConcurrentLinkedQueue<>()).add(exception);
+    }
+
+    public long callCount(final String operation) {
+        final AtomicLong count = calls.get(operation);
+        return count == null ? 0 : count.get();
+    }
+
+    public Map<String, Long> callCounts() {
+        return calls.entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().get(), (a, b) -> a, TreeMap::new));
+    }
+
+    public long totalCalls() {
+        return calls.values().stream().mapToLong(AtomicLong::get).sum();
+    }
+
+    public long throttledCalls() {
+        return throttledCalls.get();
+    }
+
+    public long failedCalls() {
+        return failedCalls.get();
+    }
+
+    public void resetMetrics() {
+        calls.clear();
+        throttledCalls.set(0);
+        failedCalls.set(0);
+    }
+
+    // ----- firewalls -----
+
+    @Override
+    public CreateFirewallResponse createFirewall(final CreateFirewallRequest request) {
+        return invoke("CreateFirewall", now -> {
+            require(request.firewallName(), "FirewallName");
+            require(request.firewallPolicyArn(), "FirewallPolicyArn");
+            require(request.vpcId(), "VpcId");
+            if (request.subnetMappings().isEmpty()) {
+                throw invalidRequest("SubnetMappings must contain at least one subnet");
+            }
+            if (firewalls.values().stream().anyMatch(firewall -> firewall.name.equals(request.firewallName()))) {
+                throw invalidRequest(ALREADY_EXISTS_MESSAGE);
+            }
+            activePolicy(request.firewallPolicyArn());
+
+            final FirewallState firewall = new FirewallState(request.firewallName(),
+                    arn("firewall", request.firewallName()), request.vpcId());
+            firewall.policyArn = request.firewallPolicyArn();
+            firewall.description = request.description();
+            firewall.deleteProtection = Boolean.TRUE.equals(request.deleteProtection());
+            firewall.subnetChangeProtection = Boolean.TRUE.equals(request.subnetChangeProtection());
+            firewall.policyChangeProtection = Boolean.TRUE.equals(request.firewallPolicyChangeProtection());
+            putTags(firewall.tags, request.tags());
+            for (final SubnetMapping subnet : request.subnetMappings()) {
+                attach(firewall, subnet, now.plus(jittered(behavior.getFirewallProvisioningTime())));
+            }
+            firewalls.put(firewall.arn, firewall);
+            return CreateFirewallResponse.builder()
+                    .firewall(firewall.toFirewall())
+                    .firewallStatus(firewall.toStatus(now))
+                    .build();
+        });
+    }
+
+    @Override
+    public DescribeFirewallResponse describeFirewall(final DescribeFirewallRequest request) {
+        return invoke("DescribeFirewall", now -> {
+            final FirewallState firewall = firewall(request.firewallArn(), request.firewallName());
+            return DescribeFirewallResponse.builder()
+                    .updateToken(firewall.updateToken)
+                    .firewall(firewall.toFirewall())
+                    .firewallStatus(firewall.toStatus(now))
+                    .build();
+        });
+    }
+
+    @Override
+    public DeleteFirewallResponse deleteFirewall(final DeleteFirewallRequest request) {
+        return invoke("DeleteFirewall", now -> {
+            final FirewallState firewall = firewall(request.firewallArn(), request.firewallName());
+            if (firewall.deleteProtection) {
+                throw invalidOperation("Firewall " + firewall.name + " has delete protection enabled");
+            }
+            if (firewall.deletedAt == null) {
+                firewall.deletedAt = now.plus(behavior.getFirewallDeletionTime());
+                firewall.attachments.values().forEach(attachment -> {
+                    attachment.status = AttachmentStatus.DELETING;
+                    attachment.transitionAt = firewall.deletedAt;
+                });
+            }
+            return DeleteFirewallResponse.builder()
+                    .firewall(firewall.toFirewall())
+                    .firewallStatus(firewall.toStatus(now))
+                    .build();
+        });
+    }
+
+    @Override
+    public ListFirewallsResponse listFirewalls(final ListFirewallsRequest request) {
+        return invoke("ListFirewalls", now -> {
+            final List<FirewallMetadata> all = firewalls.values().stream()
+                    .filter(firewall -> request.vpcIds().isEmpty() || request.vpcIds().contains(firewall.vpcId))
+                    .sorted((left, right) -> left.name.compareTo(right.name))
+                    .map(firewall -> FirewallMetadata.builder().firewallName(firewall.name).firewallArn(firewall.arn).build())
+                    .collect(Collectors.toList());
+            final Page<FirewallMetadata> page = page(all, request.nextToken(), request.maxResults());
+            return ListFirewallsResponse.builder().firewalls(page.items).nextToken(page.nextToken).build();
+        });
+    }
+
+    @Override
+    public AssociateSubnetsResponse associateSubnets(final AssociateSubnetsRequest request) {
+        return invoke("AssociateSubnets", now -> {
+            final FirewallState firewall = mutableFirewall(request.firewallArn(), request.firewallName(), request.updateToken());
+            if (firewall.subnetChangeProtection) {
+                throw invalidOperation("Firewall " + firewall.name + " has subnet change protection enabled");
+            }
+            for (final SubnetMapping subnet : request.subnetMappings()) {
+                if (firewall.attachmentOf(subnet.subnetId()) == null) {
+                    attach(firewall, subnet, now.plus(jittered(behavior.getSubnetAssociationTime())));
+                }
+            }
+            firewall.updateToken = newToken();
+            return AssociateSubnetsResponse.builder()
+                    .firewallArn(firewall.arn)
+                    .firewallName(firewall.name)
+                    .subnetMappings(firewall.subnetMappings())
+                    .updateToken(firewall.updateToken)
+                    .build();
+        });
+    }
+
+    @Override
+    public DisassociateSubnetsResponse disassociateSubnets(final DisassociateSubnetsRequest request) {
+        return invoke("DisassociateSubnets", now -> {
+            final FirewallState firewall = mutableFirewall(request.firewallArn(), request.firewallName(), request.updateToken());
+            if (firewall.subnetChangeProtection) {
+                throw invalidOperation("Firewall " + firewall.name + " has subnet change protection enabled");
+            }
+            for (final String subnetId : request.subnetIds()) {
+                final AttachmentState attachment = firewall.attachmentOf(subnetId);
+                if (attachment == null) {
+                    throw invalidRequest("Subnet " + subnetId + " is not associated with firewall " + firewall.name);
+                }
+                attachment.status = AttachmentStatus.DELETING;
+                attachment.transitionAt = now.plus(jittered(behavior.getSubnetDisassociationTime()));
+            }
+            firewall.updateToken = newToken();
+            return DisassociateSubnetsResponse.builder()
+                    .firewallArn(firewall.arn)
+                    .firewallName(firewall.name)
+                    .subnetMappings(firewall.subnetMappings())
+                    .updateToken(firewall.updateToken)
+                    .build();
+        });
+    }
+
+    @Override
+    public UpdateFirewallDescriptionResponse updateFirewallDescription(final UpdateFirewallDescriptionRequest request) {
+        return invoke("UpdateFirewallDescription", now -> {
+            final FirewallState firewall = mutableFirewall(request.firewallArn(), request.firewallName(), request.updateToken());
+            firewall.description = request.description();
+            firewall.updateToken = newToken();
+            return UpdateFirewallDescriptionResponse.builder()
+                    .firewallArn(firewall.arn)
+                    .firewallName(firewall.name)
+                    .description(firewall.description)
+                    .updateToken(firewall.updateToken)
+                    .build();
+        });
+    }
+
+    @Override
+    public UpdateFirewallDeleteProtectionResponse updateFirewallDeleteProtection(
+            final UpdateFirewallDeleteProtectionRequest request) {
+        return invoke("UpdateFirewallDeleteProtection", now -> {
+            final FirewallState firewall = mutableFirewall(request.firewallArn(), request.firewallName(), request.updateToken());
+            firewall.deleteProtection = Boolean.TRUE.equals(request.deleteProtection());
+            firewall.updateToken = newToken();
+            return UpdateFirewallDeleteProtectionResponse.builder()
+                    .firewallArn(firewall.arn)
+                    .firewallName(firewall.name)
+                    .deleteProtection(firewall.deleteProtection)
+                    .updateToken(firewall.updateToken)
+                    .build();
+        });
+    }
+
+    @Override
+    public UpdateSubnetChangeProtectionResponse updateSubnetChangeProtection(
+            final UpdateSubnetChangeProtectionRequest request) {
+        return invoke("UpdateSubnetChangeProtection", now -> {
+            final FirewallState firewall = mutableFirewall(request.firewallArn(), request.firewallName(), request.updateToken());
+            firewall.subnetChangeProtection = Boolean.TRUE.equals(request.subnetChangeProtection());
+            firewall.updateToken = newToken();
+            return UpdateSubnetChangeProtectionResponse.builder()
+                    .firewallArn(firewall.arn)
+                    .firewallName(firewall.name)
+                    .subnetChangeProtection(firewall.subnetChangeProtection)
+                    .updateToken(firewall.updateToken)
+                    .build();
+        });
+    }
+
+    @Override
+    public UpdateFirewallPolicyChangeProtectionResponse updateFirewallPolicyChangeProtection(
+            final UpdateFirewallPolicyChangeProtectionRequest request) {
+        return invoke("UpdateFirewallPolicyChangeProtection", now -> {
+            final FirewallState firewall = mutableFirewall(request.firewallArn(), request.firewallName(), request.updateToken());
+            firewall.policyChangeProtection = Boolean.TRUE.equals(request.firewallPolicyChangeProtection());
+            firewall.updateToken = newToken();
+            return UpdateFirewallPolicyChangeProtectionResponse.builder()
+                    .firewallArn(firewall.arn)
+                    .firewallName(firewall.name)
+                    .firewallPolicyChangeProtection(firewall.policyChangeProtection)
+                    .updateToken(firewall.updateToken)
+                    .build();
+        });
+    }
+
+    @Override
+    public AssociateFirewallPolicyResponse associateFirewallPolicy(final AssociateFirewallPolicyRequest request) {
+        return invoke("AssociateFirewallPolicy", now -> {
+            final FirewallState firewall = mutableFirewall(request.firewallArn(), request.firewallName(), request.updateToken());
+            if (firewall.policyChangeProtection) {
+                throw invalidOperation("Firewall " + firewall.name + " has firewall policy change protection enabled");
+            }
+            activePolicy(request.firewallPolicyArn());
+            firewall.policyArn = request.firewallPolicyArn();
+            firewall.updateToken = newToken();
+            resync(firewall, now);
+            return AssociateFirewallPolicyResponse.builder()
+                    .firewallArn(firewall.arn)
+                    .firewallName(firewall.name)
+                    .firewallPolicyArn(firewall.policyArn)
+                    .updateToken(firewall.updateToken)
+                    .build();
+        });
+    }
+
+    // ----- logging configurations -----
+
+    @Override
+    public DescribeLoggingConfigurationResponse describeLoggingConfiguration(final DescribeLoggingConfigurationRequest request) {
+        return invoke("DescribeLoggingConfiguration", now -> {
+            final FirewallState firewall = firewall(request.firewallArn(), request.firewallName());
+            return DescribeLoggingConfigurationResponse.builder()
+                    .firewallArn(firewall.arn)
+                    .loggingConfiguration(firewall.loggingConfiguration())
+                    .build();
+        });
+    }
+
+    @Override
+    public UpdateLoggingConfigurationResponse updateLoggingConfiguration(final UpdateLoggingConfigurationRequest request) {
+        return invoke("UpdateLoggingConfiguration", now -> {
+            final FirewallState firewall = firewall(request.firewallArn(), request.firewallName());
+            final List<LogDestinationConfig> desired = request.loggingConfiguration() == null
+                    ? Collections.emptyList() : request.loggingConfiguration().logDestinationConfigs();
+            validateLoggingChange(firewall.logDestinationConfigs, desired);
+            firewall.logDestinationConfigs = new ArrayList<>(desired);
+            return UpdateLoggingConfigurationResponse.builder()
+                    .firewallArn(firewall.arn)
+                    .firewallName(firewall.name)
+                    .loggingConfiguration(firewall.loggingConfiguration())
+                    .build();
+        });
+    }
+
+    // ----- firewall policies -----
+
+    @Override
+    public CreateFirewallPolicyResponse createFirewallPolicy(final CreateFirewallPolicyRequest request) {
+        return invoke("CreateFirewallPolicy", now -> {
+            require(request.firewallPolicyName(), "FirewallPolicyName");
+            if (request.firewallPolicy() == null) {
+                throw invalidRequest("FirewallPolicy must be specified");
+            }
+            if (policies.values().stream().anyMatch(policy -> policy.name.equals(request.firewallPolicyName()))) {
+                throw invalidRequest(ALREADY_EXISTS_MESSAGE);
+            }
+            validateReferences(request.firewallPolicy());
+
+            final PolicyState policy = new PolicyState(request.firewallPolicyName(),
+                    arn("firewall-policy", request.firewallPolicyName()));
+            policy.policy = request.firewallPolicy();
+            policy.description = request.description();
+            policy.lastModified = now;
+            putTags(policy.tags, request.tags());
+            if (!Boolean.TRUE.equals(request.dryRun())) {
+                policies.put(policy.arn, policy);
+            }
+            return CreateFirewallPolicyResponse.builder()
+                    .updateToken(policy.updateToken)
+                    .firewallPolicyResponse(toResponse(policy))
+                    .build();
+        });
+    }
+
+    @Override
+    public DescribeFirewallPolicyResponse describeFirewallPolicy(final DescribeFirewallPolicyRequest request) {
+        return invoke("DescribeFirewallPolicy", now -> {
+            final PolicyState policy = policy(request.firewallPolicyArn(), request.firewallPolicyName());
+            return DescribeFirewallPolicyResponse.builder()
+                    .updateToken(policy.updateToken)
+                    .firewallPolicyResponse(toResponse(policy))
+                    .firewallPolicy(policy.policy)
+                    .build();
+        });
+    }
+
+    @Override
+    public UpdateFirewallPolicyResponse updateFirewallPolicy(final UpdateFirewallPolicyRequest request) {
+        return invoke("UpdateFirewallPolicy", now -> {
+            final PolicyState policy = policy(request.firewallPolicyArn(), request.firewallPolicyName());
+            requireDeletable(policy.deletedAt, policy.name);
+            checkToken(policy.updateToken, require(request.updateToken(), "UpdateToken"));
+            if (request.firewallPolicy() == null) {
+                throw invalidRequest("FirewallPolicy must be specified");
+            }
+            validateReferences(request.firewallPolicy());
+            if (Boolean.TRUE.equals(request.dryRun())) {
+                return UpdateFirewallPolicyResponse.builder()
+                        .updateToken(policy.updateToken)
+                        .firewallPolicyResponse(toResponse(policy))
+                        .build();
+            }
+
+            policy.policy = request.firewallPolicy();
+            policy.description = request.description();
+            policy.lastModified = now;
+            policy.updateToken = newToken();
+            firewallsUsing(policy.arn).forEach(firewall -> resync(firewall, now));
+            return UpdateFirewallPolicyResponse.builder()
+                    .updateToken(policy.updateToken)
+                    .firewallPolicyResponse(toResponse(policy))
+                    .build();
+        });
+    }
+
+    @Override
+    public DeleteFirewallPolicyResponse deleteFirewallPolicy(final DeleteFirewallPolicyRequest request) {
+        return invoke("DeleteFirewallPolicy", now -> {
+            final PolicyState policy = policy(request.firewallPolicyArn(), request.firewallPolicyName());
+            if (!firewallsUsing(policy.arn).isEmpty()) {
+                throw invalidOperation("Firewall policy " + policy.name + " is associated with a firewall");
+            }
+            if (policy.deletedAt == null) {
+                policy.deletedAt = now.plus(behavior.getResourceDeletionTime());
+            }
+            return DeleteFirewallPolicyResponse.builder().firewallPolicyResponse(toResponse(policy)).build();
+        });
+    }
+
+    @Override
+    public ListFirewallPoliciesResponse listFirewallPolicies(final ListFirewallPoliciesRequest request) {
+        return invoke("ListFirewallPolicies", now -> {
+            final List<FirewallPolicyMetadata> all = policies.values().stream()
+                    .sorted((left, right) -> left.name.compareTo(right.name))
+                    .map(policy -> FirewallPolicyMetadata.builder().name(policy.name).arn(policy.arn).build())
+                    .collect(Collectors.toList());
+            final Page<FirewallPolicyMetadata> page = page(all, request.nextToken(), request.maxResults());
+            return ListFirewallPoliciesResponse.builder().firewallPolicies(page.items).nextToken(page.nextToken).build();
+        });
+    }
+
+    // ----- rule groups -----
+
+    @Override
+    public CreateRuleGroupResponse createRuleGroup(final CreateRuleGroupRequest request) {
+        return invoke("CreateRuleGroup", now -> {
+            require(request.ruleGroupName(), "RuleGroupName");
+            if (request.type() == null || request.type() == RuleGroupType.UNKNOWN_TO_SDK_VERSION) {
+                throw invalidRequest("Type must be STATELESS or STATEFUL");
+            }
+            if (request.capacity() == null || request.capacity() <= 0) {
+                throw invalidRequest("Capacity must be a positive number");
+            }
+            final String arn = arn(ruleGroupResourceType(request.type()), request.ruleGroupName());
+            if (ruleGroups.containsKey(arn)) {
+                throw invalidRequest(ALREADY_EXISTS_MESSAGE);
+            }
+
+            final RuleGroupState ruleGroup = new RuleGroupState(request.ruleGroupName(), arn, request.type(), request.capacity());
+            ruleGroup.ruleGroup = ruleGroupOf(request.ruleGroup(), request.rules());
+            ruleGroup.description = request.description();
+            ruleGroup.lastModified = now;
+            putTags(ruleGroup.tags, request.tags());
+            if (!Boolean.TRUE.equals(request.dryRun())) {
+                ruleGroups.put(ruleGroup.arn, ruleGroup);
+            }
+            return CreateRuleGroupResponse.builder()
+                    .updateToken(ruleGroup.updateToken)
+                    .ruleGroupResponse(toResponse(ruleGroup))
+                    .build();
+        });
+    }
+
+    @Override
+    public DescribeRuleGroupResponse describeRuleGroup(final DescribeRuleGroupRequest request) {
+        return invoke("DescribeRuleGroup", now -> {
+            final RuleGroupState ruleGroup = ruleGroup(request.ruleGroupArn(), request.ruleGroupName(), request.type());
+            return DescribeRuleGroupResponse.builder()
+                    .updateToken(ruleGroup.updateToken)
+                    .ruleGroup(ruleGroup.ruleGroup)
+                    .ruleGroupResponse(toResponse(ruleGroup))
+                    .build();
+        });
+    }
+
+    @Override
+    public UpdateRuleGroupResponse updateRuleGroup(final UpdateRuleGroupRequest request) {
+        return invoke("UpdateRuleGroup", now -> {
+            final RuleGroupState ruleGroup = ruleGroup(request.ruleGroupArn(), request.ruleGroupName(), request.type());
+            requireDeletable(ruleGroup.deletedAt, ruleGroup.name);
+            checkToken(ruleGroup.updateToken, require(request.updateToken(), "UpdateToken"));
+            if (Boolean.TRUE.equals(request.dryRun())) {
+                return UpdateRuleGroupResponse.builder()
+                        .updateToken(ruleGroup.updateToken)
+                        .ruleGroupResponse(toResponse(ruleGroup))
+                        .build();
+            }
+
+            ruleGroup.ruleGroup = ruleGroupOf(request.ruleGroup(), request.rules());
+            ruleGroup.description = request.description();
+            ruleGroup.lastModified = now;
+            ruleGroup.updateToken = newToken();
+            for (final PolicyState policy : policiesReferencing(ruleGroup.arn)) {
+                firewallsUsing(policy.arn).forEach(firewall -> resync(firewall, now));
+            }
+            return UpdateRuleGroupResponse.builder()
+                    .updateToken(ruleGroup.updateToken)
+                    .ruleGroupResponse(toResponse(ruleGroup))
+                    .build();
+        });
+    }
+
+    @Override
+    public DeleteRuleGroupResponse deleteRuleGroup(final DeleteRuleGroupRequest request) {
+        return invoke("DeleteRuleGroup", now -> {
+            final RuleGroupState ruleGroup = ruleGroup(request.ruleGroupArn(), request.ruleGroupName(), request.type());
+            if (!policiesReferencing(ruleGroup.arn).isEmpty()) {
+                throw invalidOperation("Rule group " + ruleGroup.name + " is referenced by a firewall policy");
+            }
+            if (ruleGroup.deletedAt == null) {
+                ruleGroup.deletedAt = now.plus(behavior.getResourceDeletionTime());
+            }
+            return DeleteRuleGroupResponse.builder().ruleGroupResponse(toResponse(ruleGroup)).build();
+        });
+    }
+
+    @Override
+    public ListRuleGroupsResponse listRuleGroups(final ListRuleGroupsRequest request) {
+        return invoke("ListRuleGroups", now -> {
+            final List<RuleGroupMetadata> all = ruleGroups.values().stream()
+                    .filter(ruleGroup -> request.type() == null || request.type() == ruleGroup.type)
+                    .sorted((left, right) -> left.arn.compareTo(right.arn))
+                    .map(ruleGroup -> RuleGroupMetadata.builder().name(ruleGroup.name).arn(ruleGroup.arn).build())
+                    .collect(Collectors.toList());
+            final Page<RuleGroupMetadata> page = page(all, request.nextToken(), request.maxResults());
+            return ListRuleGroupsResponse.builder().ruleGroups(page.items).nextToken(page.nextToken).build();
+        });
+    }
+
+    // ----- tags -----
+
+    @Override
+    public TagResourceResponse tagResource(final TagResourceRequest request) {
+        return invoke("TagResource", now -> {
+            putTags(tagsOf(request.resourceArn()), request.tags());
+            return TagResourceResponse.builder().build();
+        });
+    }
+
+    @Override
+    public UntagResourceResponse untagResource(final UntagResourceRequest request) {
+        return invoke("UntagResource", now -> {
+            tagsOf(request.resourceArn()).keySet().removeAll(request.tagKeys());
+            return UntagResourceResponse.builder().build();
+        });
+    }
+
+    @Override
+    public ListTagsForResourceResponse listTagsForResource(final ListTagsForResourceRequest request) {
+        return invoke("ListTagsForResource", now -> {
+            final Page<Tag> page = page(toTags(tagsOf(request.resourceArn())), request.nextToken(), request.maxResults());
+            return ListTagsForResourceResponse.builder().tags(page.items).nextToken(page.nextToken).build();
+        });
+    }
+
+    // ----- call handling -----
+
+    private <T> T invoke(final String operation, final Function<Instant, T> call) {
+        calls.computeIfAbsent(operation, key -> new AtomicLong()).incrementAndGet();
+        sleep(latency());
+
+        final Queue<AwsServiceException> scripted = scriptedFailures.get(operation);
+        final AwsServiceException scriptedFailure = scripted == null ? null : scripted.poll();
+        if (scriptedFailure != null) {
+            if (scriptedFailure instanceof ThrottlingException) {
+                throttledCalls.incrementAndGet();
+            } else {
+                failedCalls.incrementAndGet();
+            }
+            throw scriptedFailure;
+        }
+        if (behavior.getThrottleRate() > 0 && random.nextDouble() < behavior.getThrottleRate()) {
+            throttledCalls.incrementAndGet();
+            throw error(ThrottlingException.builder(), "ThrottlingException", 400, "Rate exceeded");
+        }
+        if (behavior.getErrorRate() > 0 && random.nextDouble() < behavior.getErrorRate()) {
+            failedCalls.incrementAndGet();
+            throw error(InternalServerErrorException.builder(), "InternalServerError", 500, "Internal failure");
+        }
+
+        synchronized (lock) {
+            final Instant now = clock.instant();
+            advance(now);
+            return call.apply(now);
+        }
+    }
+
+    private long latency() {
+        final long jitter = behavior.getLatencyJitter().toMillis();
+        return behavior.getLatency().toMillis() + (jitter > 0 ? (long) (random.nextDouble() * jitter) : 0);
+    }
+
+    private static void sleep(final long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw AbortedException.builder().message("Interrupted while waiting for the service").cause(e).build();
+        }
+    }
+
+    // removes what finished deleting and moves attachments through their transitions
+    private void advance(final Instant now) {
+        firewalls.values().removeIf(firewall -> firewall.deletedAt != null && !now.isBefore(firewall.deletedAt));
+        policies.values().removeIf(policy -> policy.deletedAt != null && !now.isBefore(policy.deletedAt));
+        ruleGroups.values().removeIf(ruleGroup -> ruleGroup.deletedAt != null && !now.isBefore(ruleGroup.deletedAt));
+        for (final FirewallState firewall : firewalls.values()) {
+            firewall.attachments.values().removeIf(attachment ->
+                    attachment.status == AttachmentStatus.DELETING && !now.isBefore(attachment.transitionAt));
+            for (final AttachmentState attachment : firewall.attachments.values()) {
+                if (attachment.status == AttachmentStatus.CREATING && !now.isBefore(attachment.transitionAt)) {
+                    attachment.status = AttachmentStatus.READY;
+                }
+            }
+        }
+    }
+
+    private Duration jittered(final Duration base) {
+        final long jitter = behavior.getTransitionJitter().toMillis();
+        return jitter > 0 ? base.plusMillis((long) (random.nextDouble() * jitter)) : base;
+    }
+
+    private void attach(final FirewallState firewall, final SubnetMapping subnet, final Instant readyAt) {
+        final String zone = availabilityZone(firewall, subnet.subnetId());
+        final AttachmentState attachment = new AttachmentState(subnet, zone, "vpce-" + newId().substring(0, 17));
+        attachment.transitionAt = readyAt;
+        attachment.configSyncedAt = readyAt.plus(jittered(behavior.getConfigSyncTime()));
+        firewall.attachments.put(zone, attachment);
+    }
+
+    private String availabilityZone(final FirewallState firewall, final String subnetId) {
+        final String configured = behavior.getSubnetAvailabilityZones().get(subnetId);
+        if (configured != null) {
+            if (firewall.attachments.containsKey(configured)) {
+                throw invalidRequest("Firewall " + firewall.name + " already has a subnet in " + configured);
+            }
+            return configured;
+        }
+        return availabilityZones.stream()
+                .filter(zone -> !firewall.attachments.containsKey(zone))
+                .findFirst()
+                .orElseThrow(() -> invalidRequest("Firewall " + firewall.name + " has a subnet in every availability zone"));
+    }
+
+    // the configuration of every zone has to sync again, starting once the zone is provisioned
+    private void resync(final FirewallState firewall, final Instant now) {
+        for (final AttachmentState attachment : firewall.attachments.values()) {
+            final Instant start = attachment.transitionAt.isAfter(now) ? attachment.transitionAt : now;
+            attachment.configSyncedAt = start.plus(jittered(behavior.getConfigSyncTime()));
+        }
+    }
+
+    private static void validateLoggingChange(final List<LogDestinationConfig> current, final List<LogDestinationConfig> desired) {
+        final Map<String, LogDestinationConfig> currentByType = byLogType(current);
+        final Map<String, LogDestinationConfig> desiredByType = byLogType(desired);
+        if (desiredByType.size() != desired.size()) {
+            throw invalidRequest("Each log type can only have one log destination");
+        }
+        final Set<String> logTypes = new HashSet<>(currentByType.keySet());
+        logTypes.addAll(desiredByType.keySet());
+        int changes = 0;
+        for (final String logType : logTypes) {
+            final LogDestinationConfig before = currentByType.get(logType);
+            final LogDestinationConfig after = desiredByType.get(logType);
+            if (Objects.equals(before, after)) {
+                continue;
+            }
+            if (before != null && after != null
+                    && !Objects.equals(before.logDestinationTypeAsString(), after.logDestinationTypeAsString())) {
+                throw invalidRequest("The destination type of log type " + logType + " cannot be changed in place");
+            }
+            changes++;
+        }
+        if (changes > 1) {
+            throw invalidRequest("Only one log destination configuration can be changed per request");
+        }
+    }
+
+    private static Map<String, LogDestinationConfig> byLogType(final List<LogDestinationConfig> configs) {
+        final Map<String, LogDestinationConfig> byType = new HashMap<>();
+        configs.forEach(config -> byType.put(config.logTypeAsString(), config));
+        return byType;
+    }
+
+    private void validateReferences(final FirewallPolicy policy) {
+        for (final StatelessRuleGroupReference reference : policy.statelessRuleGroupReferences()) {
+            requireRuleGroupType(reference.resourceArn(), RuleGroupType.STATELESS);
+        }
+        for (final StatefulRuleGroupReference reference : policy.statefulRuleGroupReferences()) {
+            requireRuleGroupType(reference.resourceArn(), RuleGroupType.STATEFUL);
+        }
+    }
+
+    private void requireRuleGroupType(final String arn, final RuleGroupType type) {
+        final RuleGroupState ruleGroup = ruleGroups.get(arn);
+        if (ruleGroup == null || ruleGroup.deletedAt != null) {
+            throw invalidRequest("Rule group " + arn + " does not exist");
+        }
+        if (ruleGroup.type != type) {
+            throw invalidRequest("Rule group " + arn + " is not of type " + type);
+        }
+    }
+
+    private static void requireDeletable(final Instant deletedAt, final String name) {
+        if (deletedAt != null) {
+            throw invalidOperation(name + " is being deleted");
+        }
+    }
+
+    private static void checkToken(final String expected, final String provided) {
+        if (provided != null && !provided.equals(expected)) {
+            throw error(InvalidTokenException.builder(), "InvalidTokenException", 400,
+                    "The update token is not valid, describe the resource for the current token");
+        }
+    }
+
+    private static String require(final String value, final String field) {
+        if (value == null || value.isEmpty()) {
+            throw invalidRequest(field + " must be specified");
+        }
+        return value;
+    }
+
+    // ----- lookups -----
+
+    private FirewallState firewall(final String arn, final String name) {
+        return find(firewalls.values(), arn, name, firewall -> firewall.arn, firewall -> firewall.name, "Firewall");
+    }
+
+    private FirewallState mutableFirewall(final String arn, final String name, final String updateToken) {
+        final FirewallState firewall = firewall(arn, name);
+        requireDeletable(firewall.deletedAt, firewall.name);
+        checkToken(firewall.updateToken, updateToken);
+        return firewall;
+    }
+
+    private PolicyState policy(final String arn, final String name) {
+        return find(policies.values(), arn, name, policy -> policy.arn, policy -> policy.name, "Firewall policy");
+    }
+
+    private PolicyState activePolicy(final String arn) {
+        final PolicyState policy = policies.get(arn);
+        if (policy == null || policy.deletedAt != null) {
+            throw invalidRequest("Firewall policy " + arn + " does not exist");
+        }
+        return policy;
+    }
+
+    private RuleGroupState ruleGroup(final String arn, final String name, final RuleGroupType type) {
+        final List<RuleGroupState> candidates = ruleGroups.values().stream()
+                .filter(ruleGroup -> type == null || ruleGroup.type == type)
+                .collect(Collectors.toList());
+        if (arn == null && name != null && candidates.stream().filter(ruleGroup -> ruleGroup.name.equals(name)).count() > 1) {
+            throw invalidRequest("Type must be specified to describe rule group " + name + " by name");
+        }
+        return find(candidates, arn, name, ruleGroup -> ruleGroup.arn, ruleGroup -> ruleGroup.name, "Rule group");
+    }
+
+    private static <S> S find(final Collection<S> states, final String arn, final String name,
+                              final Function<S, String> arnOf, final Function<S, String> nameOf, final String kind) {
+        if (arn == null && name == null) {
+            throw invalidRequest(kind + " ARN or name must be specified");
+        }
+        for (final S state : states) {
+            if ((arn == null || arn.equals(arnOf.apply(state))) && (name == null || name.equals(nameOf.apply(state)))) {
+                return state;
+            }
+        }
+        throw error(ResourceNotFoundException.builder(), "ResourceNotFoundException", 400,
+                kind + " " + (arn != null ? arn : name) + " does not exist");
+    }
+
+    private Map<String, String> tagsOf(final String arn) {
+        if (firewalls.containsKey(arn)) {
+            return firewalls.get(arn).tags;
+        }
+        if (policies.containsKey(arn)) {
+            return policies.get(arn).tags;
+        }
+        if (ruleGroups.containsKey(arn)) {
+            return ruleGroups.get(arn).tags;
+        }
+        throw error(ResourceNotFoundException.builder(), "ResourceNotFoundException", 400,
+                "Resource " + arn + " does not exist");
+    }
+
+    private List<FirewallState> firewallsUsing(final String policyArn) {
+        return firewalls.values().stream()
+                .filter(firewall -> firewall.deletedAt == null && policyArn.equals(firewall.policyArn))
+                .collect(Collectors.toList());
+    }
+
+    private List<PolicyState> policiesReferencing(final String ruleGroupArn) {
+        return policies.values().stream()
+                .filter(policy -> policy.referencedRuleGroups().contains(ruleGroupArn))
+                .collect(Collectors.toList());
+    }
+
+    // ----- responses -----
+
+    private FirewallPolicyResponse toResponse(final PolicyState policy) {
+        int stateless = 0;
+        int stateful = 0;
+        for (final String arn : policy.referencedRuleGroups()) {
+            final RuleGroupState ruleGroup = ruleGroups.get(arn);
+            if (ruleGroup != null && ruleGroup.type == RuleGroupType.STATELESS) {
+                stateless += ruleGroup.capacity;
+            } else if (ruleGroup != null) {
+                stateful += ruleGroup.capacity;
+            }
+        }
+        return FirewallPolicyResponse.builder()
+                .firewallPolicyName(policy.name)
+                .firewallPolicyArn(policy.arn)
+                .firewallPolicyId(policy.id)
+                .description(policy.description)
+                .firewallPolicyStatus(policy.deletedAt == null ? ResourceStatus.ACTIVE : ResourceStatus.DELETING)
+                .tags(toTags(policy.tags))
+                .consumedStatelessRuleCapacity(stateless)
+                .consumedStatefulRuleCapacity(stateful)
+                .numberOfAssociations(firewallsUsing(policy.arn).size())
+                .lastModifiedTime(policy.lastModified)
+                .build();
+    }
+
+    private RuleGroupResponse toResponse(final RuleGroupState ruleGroup) {
+        return RuleGroupResponse.builder()
+                .ruleGroupArn(ruleGroup.arn)
+                .ruleGroupName(ruleGroup.name)
+                .ruleGroupId(ruleGroup.id)
+                .description(ruleGroup.description)
+                .type(ruleGroup.type)
+                .capacity(ruleGroup.capacity)
+                .ruleGroupStatus(ruleGroup.deletedAt == null ? ResourceStatus.ACTIVE : ResourceStatus.DELETING)
+                .tags(toTags(ruleGroup.tags))
+                .numberOfAssociations(policiesReferencing(ruleGroup.arn).size())
+                .lastModifiedTime(ruleGroup.lastModified)
+                .build();
+    }
+
+    private static RuleGroup ruleGroupOf(final RuleGroup ruleGroup, final String rules) {
+        if (ruleGroup == null && rules != null) {
+            return RuleGroup.builder().rulesSource(RulesSource.builder().rulesString(rules).build()).build();
+        }
+        return ruleGroup;
+    }
+
+    private static void putTags(final Map<String, String> tags, final List<Tag> added) {
+        added.forEach(tag -> tags.put(tag.key(), tag.value()));
+    }
+
+    private static List<Tag> toTags(final Map<String, String> tags) {
+        return tags.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .map(tag -> Tag.builder().key(tag.getKey()).value(tag.getValue()).build())
+                .collect(Collectors.toList());
+    }
+
+    private static <T> Page<T> page(final List<T> all, final String nextToken, final Integer maxResults) {
+        final int start;
+        try {
+            start = nextToken == null ? 0 : Integer.parseInt(nextToken);
+        } catch (final NumberFormatException e) {
+            throw invalidRequest("Invalid NextToken " + nextToken);
+        }
+        final int size = maxResults == null ? MAX_RESULTS : Math.min(Math.max(maxResults, 1), MAX_RESULTS);
+        final int end = Math.min(all.size(), start + size);
+        return new Page<>(new ArrayList<>(all.subList(Math.min(start, end), end)),
+                end < all.size() ? String.valueOf(end) : null);
+    }
+
+    private String arn(final String resourceType, final String name) {
+        return String.format("arn:aws:network-firewall:%s:%s:%s/%s",
+                behavior.getRegion(), behavior.getAccountId(), resourceType, name);
+    }
+
+    private static String ruleGroupResourceType(final RuleGroupType type) {
+        return type == RuleGroupType.STATELESS ? "stateless-rulegroup" : "stateful-rulegroup";
+    }
+
+    private static String newId() {
+        return UUID.randomUUID().toString().replace("-", "");
+    }
+
+    private static String newToken() {
+        return UUID.randomUUID().toString();
+    }
+
+    private static AwsServiceException invalidRequest(final String message) {
+        return error(InvalidRequestException.builder(), "InvalidRequestException", 400, message);
+    }
+
+    private static AwsServiceException invalidOperation(final String message) {
+        return error(InvalidOperationException.builder(), "InvalidOperationException", 400, message);
+    }
+
+    private static AwsServiceException error(final AwsServiceException.Builder builder, final String errorCode,
+                                             final int statusCode, final String message) {
+        return builder
+                .message(message)
+                .statusCode(statusCode)
+                .awsErrorDetails(AwsErrorDetails.builder()
+                        .errorCode(errorCode)
+                        .errorMessage(message)
+                        .serviceName("NetworkFirewall")
+                        .build())
+                .build();
+    }
+
+    // ----- state -----
+
+    private static final class Page<T> {
+        private final List<T> items;
+        private final String nextToken;
+
+        private Page(final List<T> items, final String nextToken) {
+            this.items = items;
+            this.nextToken = nextToken;
+        }
+    }
+
+    private final class FirewallState {
+        private final String name;
+        private final String arn;
+        private final String id = newId();
+        private final String vpcId;
+        private final Map<String, String> tags = new LinkedHashMap<>();
+        // keyed by availability zone, the key of SyncStates
+        private final Map<String, AttachmentState> attachments = new TreeMap<>();
+        private String policyArn;
+        private String description;
+        private boolean deleteProtection;
+        private boolean subnetChangeProtection;
+        private boolean policyChangeProtection;
+        private String updateToken = newToken();
+        private Instant deletedAt;
+        private List<LogDestinationConfig> logDestinationConfigs = new ArrayList<>();
+
+        private FirewallState(final String name, final String arn, final String vpcId) {
+            this.name = name;
+            this.arn = arn;
+            this.vpcId = vpcId;
+        }
+
+        private AttachmentState attachmentOf(final String subnetId) {
+            return attachments.values().stream()
+                    .filter(attachment -> attachment.subnet.subnetId().equals(subnetId))
+                    .findFirst()
+                    .orElse(null);
+        }
+
+        private List<SubnetMapping> subnetMappings() {
+            return attachments.values().stream()
+                    .filter(attachment -> attachment.status != AttachmentStatus.DELETING)
+                    .map(attachment -> attachment.subnet)
+                    .collect(Collectors.toList());
+        }
+
+        private LoggingConfiguration loggingConfiguration() {
+            return logDestinationConfigs.isEmpty() ? null
+                    : LoggingConfiguration.builder().logDestinationConfigs(logDestinationConfigs).build();
+        }
+
+        private Firewall toFirewall() {
+            return Firewall.builder()
+                    .firewallName(name)
+                    .firewallArn(arn)
+                    .firewallId(id)
+                    .firewallPolicyArn(policyArn)
+                    .vpcId(vpcId)
+                    .subnetMappings(subnetMappings())
+                    .deleteProtection(deleteProtection)
+                    .subnetChangeProtection(subnetChangeProtection)
+                    .firewallPolicyChangeProtection(policyChangeProtection)
+                    .description(description)
+                    .tags(toTags(tags))
+                    .build();
+        }
+
+        private FirewallStatus toStatus(final Instant now) {
+            final PolicyState policy = policies.get(policyArn);
+            final Map<String, String> configTokens = new TreeMap<>();
+            if (policy != null) {
+                configTokens.put(policy.arn, policy.updateToken);
+                for (final String ruleGroupArn : policy.referencedRuleGroups()) {
+                    final RuleGroupState ruleGroup = ruleGroups.get(ruleGroupArn);
+                    configTokens.put(ruleGroupArn, ruleGroup == null ? null : ruleGroup.updateToken);
+                }
+            }
+
+            final Map<String, SyncState> syncStates = new TreeMap<>();
+            boolean allReady = true;
+            boolean allInSync = true;
+            for (final Map.Entry<String, AttachmentState> entry : attachments.entrySet()) {
+                final AttachmentState attachment = entry.getValue();
+                final boolean ready = attachment.status == AttachmentStatus.READY;
+                final boolean inSync = ready && !now.isBefore(attachment.configSyncedAt);
+                allReady &= ready;
+                allInSync &= inSync;
+                final Map<String, PerObjectStatus> config = new TreeMap<>();
+                configTokens.forEach((objectArn, token) -> config.put(objectArn, PerObjectStatus.builder()
+                        .syncStatus(inSync ? PerObjectSyncStatus.IN_SYNC : PerObjectSyncStatus.PENDING)
+                        .updateToken(token)
+                        .build()));
+                syncStates.put(entry.getKey(), SyncState.builder()
+                        .attachment(Attachment.builder()
+                                .subnetId(attachment.subnet.subnetId())
+                                .endpointId(attachment.status == AttachmentStatus.CREATING ? null : attachment.endpointId)
+                                .status(attachment.status)
+                                .build())
+                        .config(config)
+                        .build());
+            }
+
+            final FirewallStatusValue status = deletedAt != null ? FirewallStatusValue.DELETING
+                    : allReady ? FirewallStatusValue.READY : FirewallStatusValue.PROVISIONING;
+            return FirewallStatus.builder()
+                    .status(status)
+                    .configurationSyncStateSummary(status == FirewallStatusValue.READY && allInSync
+                            ? ConfigurationSyncState.IN_SYNC : ConfigurationSyncState.PENDING)
+                    .syncStates(syncStates)
+                    .build();
+        }
+    }
+
+    private static final class AttachmentState {
+        private final SubnetMapping subnet;
+        private final String availabilityZone;
+        private final String endpointId;
+        private AttachmentStatus status = AttachmentStatus.CREATING;
+        // when CREATING turns READY, or DELETING is gone
+        private Instant transitionAt;
+        private Instant configSyncedAt;
+
+        private AttachmentState(final SubnetMapping subnet, final String availabilityZone, final String endpointId) {
+            this.subnet = subnet;
+            this.availabilityZone = availabilityZone;
+            this.endpointId = endpointId;
+        }
+
+        @Override
+        public String toString() {
+            return availabilityZone + ":" + subnet.subnetId() + ":" + status;
+        }
+    }
+
+    private static final class PolicyState {
+        private final String name;
+        private final String arn;
+        private final String id = newId();
+        private final Map<String, String> tags = new LinkedHashMap<>();
+        private FirewallPolicy policy;
+        private String description;
+        private String updateToken = newToken();
+        private Instant lastModified;
+        private Instant deletedAt;
+
+        private PolicyState(final String name, final String arn) {
+            this.name = name;
+            this.arn = arn;
+        }
+
+        private Set<String> referencedRuleGroups() {
+            final Set<String> arns = new HashSet<>();
+            policy.statelessRuleGroupReferences().forEach(reference -> arns.add(reference.resourceArn()));
+            policy.statefulRuleGroupReferences().forEach(reference -> arns.add(reference.resourceArn()));
+            return arns;
+        }
+    }
+
+    private static final class RuleGroupState {
+        private final String name;
+        private final String arn;
+        private final String id = newId();
+        private final RuleGroupType type;
+        private final int capacity;
+        private final Map<String, String> tags = new LinkedHashMap<>();
+        private RuleGroup ruleGroup;
+        private String description;
+        private String updateToken = newToken();
+        private Instant lastModified;
+        private Instant deletedAt;
+
+        private RuleGroupState(final String name, final String arn, final RuleGroupType type, final int capacity) {
+            this.name = name;
+            this.arn = arn;
+            this.type = type;
+            this.capacity = capacity;
+        }
+    }
+}
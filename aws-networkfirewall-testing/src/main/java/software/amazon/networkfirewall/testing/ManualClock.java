@@ -0,0 +1,42 @@
+package software.amazon.networkfirewall.testing;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A clock that only moves when told to, so tests can step the in-memory service through its transitions.
+ */
+public class ManualClock extends Clock {
+    private final AtomicReference<Instant> now;
+
+    public ManualClock() {
+        this(Instant.parse("2020-11-17T00:00:00Z"));
+    }
+
+    public ManualClock(final Instant start) {
+        this.now = new AtomicReference<>(start);
+    }
+
+    public Instant advance(final Duration duration) {
+        return now.updateAndGet(instant -> instant.plus(duration));
+    }
+
+    @Override
+    public ZoneId getZone() {
+        return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(final ZoneId zone) {
+        throw new UnsupportedOperationException("ManualClock is always UTC");
+    }
+
+    @Override
+    public Instant instant() {
+        return now.get();
+    }
+}
@@ -0,0 +1,76 @@
+package software.amazon.networkfirewall.testing;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * How the in-memory service behaves: the latency and faults of every call and how long each
+ * asynchronous transition takes. Everything defaults to an instant, fault-free service.
+ */
+@Value
+@Builder
+public class ServiceBehavior {
+    @Builder.Default
+    String region = "us-east-1";
+
+    @Builder.Default
+    String accountId = "123456789012";
+
+    // fixed latency added to every call, plus a uniformly distributed jitter on top of it
+    @Builder.Default
+    Duration latency = Duration.ZERO;
+
+    @Builder.Default
+    Duration latencyJitter = Duration.ZERO;
+
+    // probability of a call failing with ThrottlingException, and with InternalServerErrorException
+    @Builder.Default
+    double throttleRate = 0.0;
+
+    @Builder.Default
+    double errorRate = 0.0;
+
+    // seed of the random source behind latency jitter, fault injection and transition jitter
+    @Builder.Default
+    long seed = 0L;
+
+    // PROVISIONING -> READY of each availability zone of a new firewall
+    @Builder.Default
+    Duration firewallProvisioningTime = Duration.ZERO;
+
+    // DELETING -> not found of a firewall
+    @Builder.Default
+    Duration firewallDeletionTime = Duration.ZERO;
+
+    // CREATING -> READY of an attachment added by AssociateSubnets
+    @Builder.Default
+    Duration subnetAssociationTime = Duration.ZERO;
+
+    // DELETING -> gone of an attachment removed by DisassociateSubnets
+    @Builder.Default
+    Duration subnetDisassociationTime = Duration.ZERO;
+
+    // PENDING -> IN_SYNC of the configuration of each availability zone after a policy or rule group change
+    @Builder.Default
+    Duration configSyncTime = Duration.ZERO;
+
+    // DELETING -> not found of a firewall policy or rule group
+    @Builder.Default
+    Duration resourceDeletionTime = Duration.ZERO;
+
+    // uniformly distributed jitter added per availability zone to every transition above
+    @Builder.Default
+    Duration transitionJitter = Duration.ZERO;
+
+    // availability zones subnets are placed in, defaults to six zones of the region
+    List<String> availabilityZones;
+
+    // fixed placement of subnets, subnets not listed go to the first zone the firewall does not use yet
+    @Builder.Default
+    Map<String, String> subnetAvailabilityZones = Collections.emptyMap();
+}
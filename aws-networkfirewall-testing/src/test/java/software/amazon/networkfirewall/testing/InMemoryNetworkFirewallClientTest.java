@@ -0,0 +1,582 @@
+package software.amazon.networkfirewall.testing;
+
+import software.amazon.awssdk.core.exception.AbortedException;
+import software.amazon.awssdk.services.networkfirewall.NetworkFirewallClient;
+import software.amazon.awssdk.services.networkfirewall.model.AssociateFirewallPolicyRequest;
+import software.amazon.awssdk.services.networkfirewall.model.AssociateSubnetsRequest;
+import software.amazon.awssdk.services.networkfirewall.model.AttachmentStatus;
+import software.amazon.awssdk.services.networkfirewall.model.ConfigurationSyncState;
+import software.amazon.awssdk.services.networkfirewall.model.CreateFirewallPolicyRequest;
+import software.amazon.awssdk.services.networkfirewall.model.CreateFirewallRequest;
+import software.amazon.awssdk.services.networkfirewall.model.CreateRuleGroupRequest;
+import software.amazon.awssdk.services.networkfirewall.model.DeleteFirewallPolicyRequest;
+import software.amazon.awssdk.services.networkfirewall.model.DeleteFirewallRequest;
+import software.amazon.awssdk.services.networkfirewall.model.DeleteRuleGroupRequest;
+import software.amazon.awssdk.services.networkfirewall.model.DescribeFirewallPolicyRequest;
+import software.amazon.awssdk.services.networkfirewall.model.DescribeFirewallRequest;
+import software.amazon.awssdk.services.networkfirewall.model.DescribeFirewallResponse;
+import software.amazon.awssdk.services.networkfirewall.model.DescribeLoggingConfigurationRequest;
+import software.amazon.awssdk.services.networkfirewall.model.DescribeRuleGroupRequest;
+import software.amazon.awssdk.services.networkfirewall.model.DisassociateSubnetsRequest;
+import software.amazon.awssdk.services.networkfirewall.model.FirewallPolicy;
+import software.amazon.awssdk.services.networkfirewall.model.FirewallPolicyResponse;
+import software.amazon.awssdk.services.networkfirewall.model.FirewallStatusValue;
+import software.amazon.awssdk.services.networkfirewall.model.InternalServerErrorException;
+import software.amazon.awssdk.services.networkfirewall.model.InvalidOperationException;
+import software.amazon.awssdk.services.networkfirewall.model.InvalidRequestException;
+import software.amazon.awssdk.services.networkfirewall.model.InvalidTokenException;
+import software.amazon.awssdk.services.networkfirewall.model.ListFirewallPoliciesRequest;
+import software.amazon.awssdk.services.networkfirewall.model.ListFirewallsRequest;
+import software.amazon.awssdk.services.networkfirewall.model.ListFirewallsResponse;
+import software.amazon.awssdk.services.networkfirewall.model.ListRuleGroupsRequest;
+import software.amazon.awssdk.services.networkfirewall.model.ListTagsForResourceRequest;
+import software.amazon.awssdk.services.networkfirewall.model.LogDestinationConfig;
+import software.amazon.awssdk.services.networkfirewall.model.LoggingConfiguration;
+import software.amazon.awssdk.services.networkfirewall.model.PerObjectSyncStatus;
+import software.amazon.awssdk.services.networkfirewall.model.ResourceNotFoundException;
+import software.amazon.awssdk.services.networkfirewall.model.ResourceStatus;
+import software.amazon.awssdk.services.networkfirewall.model.RuleGroupResponse;
+import software.amazon.awssdk.services.networkfirewall.model.RuleGroupType;
+import software.amazon.awssdk.services.networkfirewall.model.StatefulRuleGroupReference;
+import software.amazon.awssdk.services.networkfirewall.model.StatelessRuleGroupReference;
+import software.amazon.awssdk.services.networkfirewall.model.SubnetMapping;
+import software.amazon.awssdk.services.networkfirewall.model.SyncState;
+import software.amazon.awssdk.services.networkfirewall.model.Tag;
+import software.amazon.awssdk.services.networkfirewall.model.TagResourceRequest;
+import software.amazon.awssdk.services.networkfirewall.model.ThrottlingException;
+import software.amazon.awssdk.services.networkfirewall.model.UntagResourceRequest;
+import software.amazon.awssdk.services.networkfirewall.model.UpdateFirewallDeleteProtectionRequest;
+import software.amazon.awssdk.services.networkfirewall.model.UpdateFirewallDescriptionRequest;
+import software.amazon.awssdk.services.networkfirewall.model.UpdateFirewallPolicyChangeProtectionRequest;
+import software.amazon.awssdk.services.networkfirewall.model.UpdateFirewallPolicyRequest;
+import software.amazon.awssdk.services.networkfirewall.model.UpdateLoggingConfigurationRequest;
+import software.amazon.awssdk.services.networkfirewall.model.UpdateRuleGroupRequest;
+import software.amazon.awssdk.services.networkfirewall.model.UpdateSubnetChangeProtectionRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class InMemoryNetworkFirewallClientTest {
+    private static final String VPC_ID = "vpc-1";
+
+    private ManualClock clock;
+    private InMemoryNetworkFirewallClient client;
+
+    @BeforeEach
+    public void setup() {
+        clock = new ManualClock();
+        final Map<String, String> pinned = new HashMap<>();
+        pinned.put("subnet-pinned", "us-east-1f");
+        pinned.put("subnet-pinned-again", "us-east-1f");
+        client = new InMemoryNetworkFirewallClient(ServiceBehavior.builder()
+                .firewallProvisioningTime(Duration.ofMinutes(5))
+                .firewallDeletionTime(Duration.ofMinutes(3))
+                .subnetAssociationTime(Duration.ofMinutes(2))
+                .subnetDisassociationTime(Duration.ofMinutes(1))
+                .configSyncTime(Duration.ofSeconds(30))
+                .resourceDeletionTime(Duration.ofSeconds(10))
+                .subnetAvailabilityZones(pinned)
+                .build(), clock);
+    }
+
+    @Test
+    public void testFirewallProvisioningAndConfigSync() {
+        final String policyArn = createPolicy("policy", FirewallPolicy.builder().build());
+        client.createFirewall(createFirewallRequest("firewall", policyArn, "subnet-1", "subnet-2"));
+
+        DescribeFirewallResponse response = describeFirewall("firewall");
+        assertThat(response.firewallStatus().status()).isEqualTo(FirewallStatusValue.PROVISIONING);
+        assertThat(response.firewallStatus().configurationSyncStateSummary()).isEqualTo(ConfigurationSyncState.PENDING);
+        assertThat(response.firewallStatus().syncStates()).containsOnlyKeys("us-east-1a", "us-east-1b");
+        final SyncState creating = response.firewallStatus().syncStates().get("us-east-1a");
+        assertThat(creating.attachment().status()).isEqualTo(AttachmentStatus.CREATING);
+        assertThat(creating.attachment().endpointId()).isNull();
+        assertThat(creating.config().get(policyArn).syncStatus()).isEqualTo(PerObjectSyncStatus.PENDING);
+
+        clock.advance(Duration.ofMinutes(5));
+        response = describeFirewall("firewall");
+        assertThat(response.firewallStatus().status()).isEqualTo(FirewallStatusValue.READY);
+        assertThat(response.firewallStatus().configurationSyncStateSummary()).isEqualTo(ConfigurationSyncState.PENDING);
+        assertThat(response.firewallStatus().syncStates().get("us-east-1a").attachment().endpointId()).startsWith("vpce-");
+
+        clock.advance(Duration.ofSeconds(30));
+        response = describeFirewall("firewall");
+        assertThat(response.firewallStatus().configurationSyncStateSummary()).isEqualTo(ConfigurationSyncState.IN_SYNC);
+        assertThat(response.firewallStatus().syncStates().get("us-east-1b").config().get(policyArn).syncStatus())
+                .isEqualTo(PerObjectSyncStatus.IN_SYNC);
+        assertThat(response.firewall().subnetMappings()).extracting(SubnetMapping::subnetId)
+                .containsExactly("subnet-1", "subnet-2");
+        assertThat(client.callCount("DescribeFirewall")).isEqualTo(3);
+    }
+
+    @Test
+    public void testFirewallDeletion() {
+        final String policyArn = createPolicy("policy", FirewallPolicy.builder().build());
+        client.createFirewall(createFirewallRequest("firewall", policyArn, "subnet-1"));
+
+        assertThrows(InvalidOperationException.class, () -> client.deleteFirewallPolicy(
+                DeleteFirewallPolicyRequest.builder().firewallPolicyArn(policyArn).build()));
+
+        final String token = describeFirewall("firewall").updateToken();
+        client.updateFirewallDeleteProtection(UpdateFirewallDeleteProtectionRequest.builder()
+                .firewallName("firewall").deleteProtection(true).updateToken(token).build());
+        assertThrows(InvalidOperationException.class,
+                () -> client.deleteFirewall(DeleteFirewallRequest.builder().firewallName("firewall").build()));
+        client.updateFirewallDeleteProtection(UpdateFirewallDeleteProtectionRequest.builder()
+                .firewallName("firewall").deleteProtection(false).build());
+
+        assertThat(client.deleteFirewall(DeleteFirewallRequest.builder().firewallName("firewall").build())
+                .firewallStatus().status()).isEqualTo(FirewallStatusValue.DELETING);
+        assertThat(client.deleteFirewall(DeleteFirewallRequest.builder().firewallName("firewall").build())
+                .firewallStatus().status()).isEqualTo(FirewallStatusValue.DELETING);
+        assertThrows(InvalidOperationException.class, () -> client.updateFirewallDescription(
+                UpdateFirewallDescriptionRequest.builder().firewallName("firewall").description("late").build()));
+
+        clock.advance(Duration.ofMinutes(3));
+        assertThrows(ResourceNotFoundException.class, () -> describeFirewall("firewall"));
+        assertThat(client.listFirewalls(ListFirewallsRequest.builder().build()).firewalls()).isEmpty();
+        client.deleteFirewallPolicy(DeleteFirewallPolicyRequest.builder().firewallPolicyArn(policyArn).build());
+    }
+
+    @Test
+    public void testSubnetAssociationAndProtection() {
+        final String policyArn = createPolicy("policy", FirewallPolicy.builder().build());
+        client.createFirewall(createFirewallRequest("firewall", policyArn, "subnet-1"));
+        clock.advance(Duration.ofMinutes(6));
+
+        String token = describeFirewall("firewall").updateToken();
+        token = client.associateSubnets(AssociateSubnetsRequest.builder()
+                .firewallName("firewall")
+                .updateToken(token)
+                .subnetMappings(subnet("subnet-1"), subnet("subnet-pinned"))
+                .build()).updateToken();
+        DescribeFirewallResponse response = describeFirewall("firewall");
+        assertThat(response.firewallStatus().status()).isEqualTo(FirewallStatusValue.PROVISIONING);
+        assertThat(response.firewallStatus().syncStates().get("us-east-1f").attachment().status())
+                .isEqualTo(AttachmentStatus.CREATING);
+        assertThrows(InvalidRequestException.class, () -> client.associateSubnets(AssociateSubnetsRequest.builder()
+                .firewallName("firewall").subnetMappings(subnet("subnet-pinned-again")).build()));
+
+        clock.advance(Duration.ofMinutes(2));
+        assertThat(describeFirewall("firewall").firewallStatus().status()).isEqualTo(FirewallStatusValue.READY);
+
+        token = client.disassociateSubnets(DisassociateSubnetsRequest.builder()
+                .firewallName("firewall").subnetIds("subnet-1").updateToken(token).build()).updateToken();
+        response = describeFirewall("firewall");
+        assertThat(response.firewallStatus().syncStates().get("us-east-1a").attachment().status())
+                .isEqualTo(AttachmentStatus.DELETING);
+        assertThat(response.firewall().subnetMappings()).extracting(SubnetMapping::subnetId).containsExactly("subnet-pinned");
+        assertThrows(InvalidRequestException.class, () -> client.disassociateSubnets(DisassociateSubnetsRequest.builder()
+                .firewallName("firewall").subnetIds("subnet-unknown").build()));
+
+        clock.advance(Duration.ofMinutes(1));
+        assertThat(describeFirewall("firewall").firewallStatus().syncStates()).containsOnlyKeys("us-east-1f");
+
+        client.updateSubnetChangeProtection(UpdateSubnetChangeProtectionRequest.builder()
+                .firewallName("firewall").subnetChangeProtection(true).updateToken(token).build());
+        assertThrows(InvalidOperationException.class, () -> client.associateSubnets(AssociateSubnetsRequest.builder()
+                .firewallName("firewall").subnetMappings(subnet("subnet-3")).build()));
+        assertThrows(InvalidOperationException.class, () -> client.disassociateSubnets(DisassociateSubnetsRequest.builder()
+                .firewallName("firewall").subnetIds("subnet-pinned").build()));
+    }
+
+    @Test
+    public void testUpdateTokens() {
+        final String policyArn = createPolicy("policy", FirewallPolicy.builder().build());
+        final String created = client.createFirewall(createFirewallRequest("firewall", policyArn, "subnet-1"))
+                .firewall().firewallArn();
+        final String token = describeFirewall("firewall").updateToken();
+
+        final String next = client.updateFirewallDescription(UpdateFirewallDescriptionRequest.builder()
+                .firewallArn(created).description("updated").updateToken(token).build()).updateToken();
+        assertThat(next).isNotEqualTo(token);
+        assertThat(describeFirewall("firewall").firewall().description()).isEqualTo("updated");
+        assertThrows(InvalidTokenException.class, () -> client.updateFirewallDescription(
+                UpdateFirewallDescriptionRequest.builder().firewallArn(created).description("stale").updateToken(token).build()));
+
+        final String policyToken = client.describeFirewallPolicy(DescribeFirewallPolicyRequest.builder()
+                .firewallPolicyName("policy").build()).updateToken();
+        assertThrows(InvalidRequestException.class, () -> client.updateFirewallPolicy(UpdateFirewallPolicyRequest.builder()
+                .firewallPolicyArn(policyArn).firewallPolicy(FirewallPolicy.builder().build()).build()));
+        client.updateFirewallPolicy(UpdateFirewallPolicyRequest.builder()
+                .firewallPolicyArn(policyArn).firewallPolicy(FirewallPolicy.builder().build()).updateToken(policyToken).build());
+        assertThrows(InvalidTokenException.class, () -> client.updateFirewallPolicy(UpdateFirewallPolicyRequest.builder()
+                .firewallPolicyArn(policyArn).firewallPolicy(FirewallPolicy.builder().build()).updateToken(policyToken).build()));
+    }
+
+    @Test
+    public void testPolicyAndRuleGroupChangesResyncFirewalls() {
+        final String statelessArn = createRuleGroup("stateless", RuleGroupType.STATELESS, 10);
+        final String statefulArn = createRuleGroup("stateful", RuleGroupType.STATEFUL, 20);
+        final String policyArn = createPolicy("policy", FirewallPolicy.builder()
+                .statelessRuleGroupReferences(StatelessRuleGroupReference.builder().resourceArn(statelessArn).priority(1).build())
+                .statefulRuleGroupReferences(StatefulRuleGroupReference.builder().resourceArn(statefulArn).build())
+                .build());
+        client.createFirewall(createFirewallRequest("firewall", policyArn, "subnet-1"));
+        clock.advance(Duration.ofMinutes(6));
+        assertThat(describeFirewall("firewall").firewallStatus().configurationSyncStateSummary())
+                .isEqualTo(ConfigurationSyncState.IN_SYNC);
+
+        final FirewallPolicyResponse policy = client.describeFirewallPolicy(DescribeFirewallPolicyRequest.builder()
+                .firewallPolicyArn(policyArn).build()).firewallPolicyResponse();
+        assertThat(policy.consumedStatelessRuleCapacity()).isEqualTo(10);
+        assertThat(policy.consumedStatefulRuleCapacity()).isEqualTo(20);
+        assertThat(policy.numberOfAssociations()).isEqualTo(1);
+
+        final String ruleGroupToken = client.describeRuleGroup(DescribeRuleGroupRequest.builder()
+                .ruleGroupName("stateful").type(RuleGroupType.STATEFUL).build()).updateToken();
+        final String updatedToken = client.updateRuleGroup(UpdateRuleGroupRequest.builder()
+                .ruleGroupArn(statefulArn).rules("pass ip any any -> any any (sid:1;)").updateToken(ruleGroupToken).build())
+                .updateToken();
+        DescribeFirewallResponse response = describeFirewall("firewall");
+        assertThat(response.firewallStatus().configurationSyncStateSummary()).isEqualTo(ConfigurationSyncState.PENDING);
+        assertThat(response.firewallStatus().syncStates().get("us-east-1a").config().get(statefulArn).updateToken())
+                .isEqualTo(updatedToken);
+
+        clock.advance(Duration.ofSeconds(30));
+        assertThat(describeFirewall("firewall").firewallStatus().configurationSyncStateSummary())
+                .isEqualTo(ConfigurationSyncState.IN_SYNC);
+
+        final String otherPolicyArn = createPolicy("other", FirewallPolicy.builder().build());
+        client.associateFirewallPolicy(AssociateFirewallPolicyRequest.builder()
+                .firewallName("firewall").firewallPolicyArn(otherPolicyArn).build());
+        response = describeFirewall("firewall");
+        assertThat(response.firewall().firewallPolicyArn()).isEqualTo(otherPolicyArn);
+        assertThat(response.firewallStatus().syncStates().get("us-east-1a").config()).containsOnlyKeys(otherPolicyArn);
+        assertThat(response.firewallStatus().configurationSyncStateSummary()).isEqualTo(ConfigurationSyncState.PENDING);
+
+        client.updateFirewallPolicyChangeProtection(UpdateFirewallPolicyChangeProtectionRequest.builder()
+                .firewallName("firewall").firewallPolicyChangeProtection(true).build());
+        assertThrows(InvalidOperationException.class, () -> client.associateFirewallPolicy(AssociateFirewallPolicyRequest.builder()
+                .firewallName("firewall").firewallPolicyArn(policyArn).build()));
+    }
+
+    @Test
+    public void testPolicyReferencesAndRuleGroupLifecycle() {
+        final String statefulArn = createRuleGroup("group", RuleGroupType.STATEFUL, 20);
+        final String statelessArn = createRuleGroup("group", RuleGroupType.STATELESS, 10);
+        assertThat(statefulArn).endsWith(":stateful-rulegroup/group");
+        assertThat(statelessArn).endsWith(":stateless-rulegroup/group");
+        assertThrows(InvalidRequestException.class, () -> createRuleGroup("group", RuleGroupType.STATEFUL, 20));
+        assertThrows(InvalidRequestException.class, () -> client.describeRuleGroup(DescribeRuleGroupRequest.builder()
+                .ruleGroupName("group").build()));
+
+        assertThrows(InvalidRequestException.class, () -> createPolicy("wrong-type", FirewallPolicy.builder()
+                .statelessRuleGroupReferences(StatelessRuleGroupReference.builder().resourceArn(statefulArn).priority(1).build())
+                .build()));
+        assertThrows(InvalidRequestException.class, () -> createPolicy("missing", FirewallPolicy.builder()
+                .statefulRuleGroupReferences(StatefulRuleGroupReference.builder().resourceArn(statefulArn + "-missing").build())
+                .build()));
+        final String policyArn = createPolicy("policy", FirewallPolicy.builder()
+                .statefulRuleGroupReferences(StatefulRuleGroupReference.builder().resourceArn(statefulArn).build())
+                .build());
+        assertThrows(InvalidRequestException.class, () -> createPolicy("policy", FirewallPolicy.builder().build()));
+
+        final RuleGroupResponse referenced = client.describeRuleGroup(DescribeRuleGroupRequest.builder()
+                .ruleGroupArn(statefulArn).build()).ruleGroupResponse();
+        assertThat(referenced.numberOfAssociations()).isEqualTo(1);
+        assertThrows(InvalidOperationException.class, () -> client.deleteRuleGroup(DeleteRuleGroupRequest.builder()
+                .ruleGroupArn(statefulArn).build()));
+
+        assertThat(client.deleteFirewallPolicy(DeleteFirewallPolicyRequest.builder().firewallPolicyName("policy").build())
+                .firewallPolicyResponse().firewallPolicyStatus()).isEqualTo(ResourceStatus.DELETING);
+        assertThrows(InvalidOperationException.class, () -> client.updateFirewallPolicy(UpdateFirewallPolicyRequest.builder()
+                .firewallPolicyArn(policyArn).firewallPolicy(FirewallPolicy.builder().build()).updateToken("token").build()));
+        assertThrows(InvalidRequestException.class, () -> client.createFirewall(createFirewallRequest("firewall", policyArn, "subnet-1")));
+        clock.advance(Duration.ofSeconds(10));
+        assertThrows(ResourceNotFoundException.class, () -> client.describeFirewallPolicy(DescribeFirewallPolicyRequest.builder()
+                .firewallPolicyArn(policyArn).build()));
+
+        assertThat(client.deleteRuleGroup(DeleteRuleGroupRequest.builder().ruleGroupArn(statefulArn).build())
+                .ruleGroupResponse().ruleGroupStatus()).isEqualTo(ResourceStatus.DELETING);
+        clock.advance(Duration.ofSeconds(10));
+        assertThat(client.listRuleGroups(ListRuleGroupsRequest.builder().build()).ruleGroups())
+                .extracting(metadata -> metadata.arn()).containsExactly(statelessArn);
+    }
+
+    @Test
+    public void testDryRunDoesNotChangeState() {
+        final String ruleGroupArn = client.createRuleGroup(CreateRuleGroupRequest.builder()
+                .ruleGroupName("dry").type(RuleGroupType.STATEFUL).capacity(10).dryRun(true).build())
+                .ruleGroupResponse().ruleGroupArn();
+        assertThrows(ResourceNotFoundException.class, () -> client.describeRuleGroup(DescribeRuleGroupRequest.builder()
+                .ruleGroupArn(ruleGroupArn).build()));
+        client.createFirewallPolicy(CreateFirewallPolicyRequest.builder()
+                .firewallPolicyName("dry").firewallPolicy(FirewallPolicy.builder().build()).dryRun(true).build());
+        assertThat(client.listFirewallPolicies(ListFirewallPoliciesRequest.builder().build()).firewallPolicies()).isEmpty();
+
+        final String realArn = createRuleGroup("real", RuleGroupType.STATEFUL, 10);
+        final String token = client.describeRuleGroup(DescribeRuleGroupRequest.builder().ruleGroupArn(realArn).build()).updateToken();
+        assertThat(client.updateRuleGroup(UpdateRuleGroupRequest.builder()
+                .ruleGroupArn(realArn).description("dry").updateToken(token).dryRun(true).build()).updateToken()).isEqualTo(token);
+        assertThat(client.describeRuleGroup(DescribeRuleGroupRequest.builder().ruleGroupArn(realArn).build())
+                .ruleGroupResponse().description()).isNull();
+
+        final String policyArn = createPolicy("policy", FirewallPolicy.builder().build());
+        final String policyToken = client.describeFirewallPolicy(DescribeFirewallPolicyRequest.builder()
+                .firewallPolicyArn(policyArn).build()).updateToken();
+        assertThat(client.updateFirewallPolicy(UpdateFirewallPolicyRequest.builder()
+                .firewallPolicyArn(policyArn).firewallPolicy(FirewallPolicy.builder().build()).description("dry")
+                .updateToken(policyToken).dryRun(true).build()).updateToken()).isEqualTo(policyToken);
+    }
+
+    @Test
+    public void testInvalidCreateRequests() {
+        final String policyArn = createPolicy("policy", FirewallPolicy.builder().build());
+        client.createFirewall(createFirewallRequest("firewall", policyArn, "subnet-1"));
+        final InvalidRequestException duplicate = assertThrows(InvalidRequestException.class,
+                () -> client.createFirewall(createFirewallRequest("firewall", policyArn, "subnet-2")));
+        assertThat(duplicate.getMessage()).contains(InMemoryNetworkFirewallClient.ALREADY_EXISTS_MESSAGE);
+        assertThat(duplicate.awsErrorDetails().errorCode()).isEqualTo("InvalidRequestException");
+
+        assertThrows(InvalidRequestException.class, () -> client.createFirewall(CreateFirewallRequest.builder()
+                .firewallName("no-subnets").firewallPolicyArn(policyArn).vpcId(VPC_ID).build()));
+        assertThrows(InvalidRequestException.class, () -> client.createFirewall(CreateFirewallRequest.builder()
+                .firewallName("no-policy").vpcId(VPC_ID).subnetMappings(subnet("subnet-1")).build()));
+        assertThrows(InvalidRequestException.class, () -> client.createFirewallPolicy(CreateFirewallPolicyRequest.builder()
+                .firewallPolicyName("empty").build()));
+        assertThrows(InvalidRequestException.class, () -> client.createRuleGroup(CreateRuleGroupRequest.builder()
+                .ruleGroupName("typeless").capacity(10).build()));
+        assertThrows(InvalidRequestException.class, () -> client.createRuleGroup(CreateRuleGroupRequest.builder()
+                .ruleGroupName("capacityless").type(RuleGroupType.STATEFUL).build()));
+        assertThrows(InvalidRequestException.class, () -> client.describeFirewall(DescribeFirewallRequest.builder().build()));
+        assertThrows(ResourceNotFoundException.class, () -> describeFirewall("missing"));
+
+        final List<SubnetMapping> everyZone = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            everyZone.add(subnet("subnet-" + i));
+        }
+        assertThrows(InvalidRequestException.class, () -> client.createFirewall(CreateFirewallRequest.builder()
+                .firewallName("too-many").firewallPolicyArn(policyArn).vpcId(VPC_ID).subnetMappings(everyZone).build()));
+    }
+
+    @Test
+    public void testListPagination() {
+        final String policyArn = createPolicy("policy", FirewallPolicy.builder().build());
+        for (int i = 0; i < 5; i++) {
+            client.createFirewall(createFirewallRequest("firewall-" + i, policyArn, "subnet-1"));
+        }
+        client.createFirewall(CreateFirewallRequest.builder()
+                .firewallName("other-vpc").firewallPolicyArn(policyArn).vpcId("vpc-2").subnetMappings(subnet("subnet-1")).build());
+
+        final List<String> names = new ArrayList<>();
+        String nextToken = null;
+        do {
+            final ListFirewallsResponse page = client.listFirewalls(ListFirewallsRequest.builder()
+                    .vpcIds(VPC_ID).maxResults(2).nextToken(nextToken).build());
+            assertThat(page.firewalls().size()).isLessThanOrEqualTo(2);
+            page.firewalls().forEach(firewall -> names.add(firewall.firewallName()));
+            nextToken = page.nextToken();
+        } while (nextToken != null);
+        assertThat(names).containsExactly("firewall-0", "firewall-1", "firewall-2", "firewall-3", "firewall-4");
+        assertThat(client.listFirewalls(ListFirewallsRequest.builder().build()).firewalls()).hasSize(6);
+        assertThrows(InvalidRequestException.class,
+                () -> client.listFirewalls(ListFirewallsRequest.builder().nextToken("not-a-token").build()));
+    }
+
+    @Test
+    public void testTags() {
+        final String policyArn = client.createFirewallPolicy(CreateFirewallPolicyRequest.builder()
+                .firewallPolicyName("policy")
+                .firewallPolicy(FirewallPolicy.builder().build())
+                .tags(tag("b", "2"))
+                .build()).firewallPolicyResponse().firewallPolicyArn();
+        final String firewallArn = client.createFirewall(createFirewallRequest("firewall", policyArn, "subnet-1"))
+                .firewall().firewallArn();
+        final String ruleGroupArn = createRuleGroup("group", RuleGroupType.STATEFUL, 10);
+
+        client.tagResource(TagResourceRequest.builder().resourceArn(policyArn).tags(tag("a", "1"), tag("b", "3")).build());
+        client.untagResource(UntagResourceRequest.builder().resourceArn(policyArn).tagKeys("a").build());
+        client.tagResource(TagResourceRequest.builder().resourceArn(firewallArn).tags(tag("firewall", "yes")).build());
+        client.tagResource(TagResourceRequest.builder().resourceArn(ruleGroupArn).tags(tag("group", "yes")).build());
+
+        assertThat(client.listTagsForResource(ListTagsForResourceRequest.builder().resourceArn(policyArn).build()).tags())
+                .containsExactly(tag("b", "3"));
+        assertThat(describeFirewall("firewall").firewall().tags()).containsExactly(tag("firewall", "yes"));
+        assertThat(client.describeRuleGroup(DescribeRuleGroupRequest.builder().ruleGroupArn(ruleGroupArn).build())
+                .ruleGroupResponse().tags()).containsExactly(tag("group", "yes"));
+        assertThrows(ResourceNotFoundException.class, () -> client.listTagsForResource(ListTagsForResourceRequest.builder()
+                .resourceArn(policyArn + "-missing").build()));
+    }
+
+    @Test
+    public void testLoggingConfigurationChanges() {
+        final String policyArn = createPolicy("policy", FirewallPolicy.builder().build());
+        client.createFirewall(createFirewallRequest("firewall", policyArn, "subnet-1"));
+        assertThat(describeLogging().loggingConfiguration()).isNull();
+
+        final LogDestinationConfig flow = destination("FLOW", "S3", "bucketName", "flow-bucket");
+        final LogDestinationConfig alert = destination("ALERT", "CloudWatchLogs", "logGroup", "alert-group");
+        assertThrows(InvalidRequestException.class, () -> updateLogging(flow, alert));
+        assertThrows(InvalidRequestException.class, () -> updateLogging(flow, destination("FLOW", "S3", "bucketName", "other")));
+
+        updateLogging(flow);
+        updateLogging(flow, alert);
+        assertThat(describeLogging().loggingConfiguration().logDestinationConfigs()).containsExactly(flow, alert);
+
+        updateLogging(destination("FLOW", "S3", "bucketName", "moved"), alert);
+        assertThrows(InvalidRequestException.class,
+                () -> updateLogging(destination("FLOW", "KinesisDataFirehose", "deliveryStream", "stream"), alert));
+        assertThrows(InvalidRequestException.class, () -> updateLogging());
+
+        updateLogging(alert);
+        updateLogging();
+        assertThat(describeLogging().loggingConfiguration()).isNull();
+        client.updateLoggingConfiguration(UpdateLoggingConfigurationRequest.builder().firewallName("firewall").build());
+    }
+
+    @Test
+    public void testFaultInjection() {
+        final InMemoryNetworkFirewallClient throttled = new InMemoryNetworkFirewallClient(ServiceBehavior.builder()
+                .throttleRate(1.0).build());
+        assertThrows(ThrottlingException.class, () -> throttled.listFirewalls(ListFirewallsRequest.builder().build()));
+        assertThat(throttled.throttledCalls()).isEqualTo(1);
+
+        final InMemoryNetworkFirewallClient failing = new InMemoryNetworkFirewallClient(ServiceBehavior.builder()
+                .errorRate(1.0).build());
+        final InternalServerErrorException error = assertThrows(InternalServerErrorException.class,
+                () -> failing.listFirewalls(ListFirewallsRequest.builder().build()));
+        assertThat(error.statusCode()).isEqualTo(500);
+        assertThat(failing.failedCalls()).isEqualTo(1);
+
+        client.failNext("ListFirewalls", ThrottlingException.builder().message("scripted").build());
+        client.failNext("ListFirewalls", InternalServerErrorException.builder().message("scripted").build());
+        assertThrows(ThrottlingException.class, () -> client.listFirewalls(ListFirewallsRequest.builder().build()));
+        assertThrows(InternalServerErrorException.class, () -> client.listFirewalls(ListFirewallsRequest.builder().build()));
+        client.listFirewalls(ListFirewallsRequest.builder().build());
+        assertThat(client.callCounts()).containsEntry("ListFirewalls", 3L);
+        assertThat(client.totalCalls()).isEqualTo(3);
+        assertThat(client.throttledCalls()).isEqualTo(1);
+        assertThat(client.failedCalls()).isEqualTo(1);
+
+        client.resetMetrics();
+        assertThat(client.callCount("ListFirewalls")).isZero();
+        assertThat(client.serviceName()).isEqualTo(NetworkFirewallClient.SERVICE_NAME);
+        client.close();
+    }
+
+    @Test
+    public void testLatencyAndInterruption() {
+        final InMemoryNetworkFirewallClient slow = new InMemoryNetworkFirewallClient(ServiceBehavior.builder()
+                .latency(Duration.ofMillis(20)).latencyJitter(Duration.ofMillis(5)).transitionJitter(Duration.ofMillis(5))
+                .build());
+        final long start = System.nanoTime();
+        slow.listFirewalls(ListFirewallsRequest.builder().build());
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isGreaterThanOrEqualTo(Duration.ofMillis(20));
+
+        Thread.currentThread().interrupt();
+        try {
+            assertThrows(AbortedException.class, () -> slow.listFirewalls(ListFirewallsRequest.builder().build()));
+            assertThat(Thread.currentThread().isInterrupted()).isTrue();
+        } finally {
+            Thread.interrupted();
+        }
+    }
+
+    @Test
+    public void testConcurrentCreates() throws Exception {
+        final InMemoryNetworkFirewallClient shared = new InMemoryNetworkFirewallClient(ServiceBehavior.builder()
+                .latency(Duration.ofMillis(1)).build());
+        shared.createFirewallPolicy(CreateFirewallPolicyRequest.builder()
+                .firewallPolicyName("policy").firewallPolicy(FirewallPolicy.builder().build()).build());
+        final String policyArn = shared.listFirewallPolicies(ListFirewallPoliciesRequest.builder().build())
+                .firewallPolicies().get(0).arn();
+
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            final List<Future<String>> futures = new ArrayList<>();
+            for (int i = 0; i < 64; i++) {
+                final String name = "firewall-" + (i % 32);
+                futures.add(executor.submit(() -> {
+                    try {
+                        return shared.createFirewall(createFirewallRequest(name, policyArn, "subnet-1")).firewall().firewallName();
+                    } catch (final InvalidRequestException e) {
+                        return null;
+                    }
+                }));
+            }
+            final Map<String, Integer> created = new HashMap<>();
+            for (final Future<String> future : futures) {
+                final String name = future.get();
+                if (name != null) {
+                    created.merge(name, 1, Integer::sum);
+                }
+            }
+            assertThat(created).hasSize(32);
+            assertThat(created.values()).containsOnly(1);
+            assertThat(shared.callCount("CreateFirewall")).isEqualTo(64);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private String createPolicy(final String name, final FirewallPolicy policy) {
+        return client.createFirewallPolicy(CreateFirewallPolicyRequest.builder()
+                .firewallPolicyName(name).firewallPolicy(policy).build())
+                .firewallPolicyResponse().firewallPolicyArn();
+    }
+
+    private String createRuleGroup(final String name, final RuleGroupType type, final int capacity) {
+        return client.createRuleGroup(CreateRuleGroupRequest.builder()
+                .ruleGroupName(name).type(type).capacity(capacity).build())
+                .ruleGroupResponse().ruleGroupArn();
+    }
+
+    private DescribeFirewallResponse describeFirewall(final String name) {
+        return client.describeFirewall(DescribeFirewallRequest.builder().firewallName(name).build());
+    }
+
+    private software.amazon.awssdk.services.networkfirewall.model.DescribeLoggingConfigurationResponse describeLogging() {
+        return client.describeLoggingConfiguration(DescribeLoggingConfigurationRequest.builder().firewallName("firewall").build());
+    }
+
+    private void updateLogging(final LogDestinationConfig... configs) {
+        client.updateLoggingConfiguration(UpdateLoggingConfigurationRequest.builder()
+                .firewallName("firewall")
+                .loggingConfiguration(LoggingConfiguration.builder().logDestinationConfigs(Arrays.asList(configs)).build())
+                .build());
+    }
+
+    private static CreateFirewallRequest createFirewallRequest(final String name, final String policyArn, final String... subnets) {
+        final List<SubnetMapping> mappings = new ArrayList<>();
+        for (final String subnet : subnets) {
+            mappings.add(subnet(subnet));
+        }
+        return CreateFirewallRequest.builder()
+                .firewallName(name)
+                .firewallPolicyArn(policyArn)
+                .vpcId(VPC_ID)
+                .subnetMappings(mappings)
+                .build();
+    }
+
+    private static SubnetMapping subnet(final String subnetId) {
+        return SubnetMapping.builder().subnetId(subnetId).build();
+    }
+
+    private static Tag tag(final String key, final String value) {
+        return Tag.builder().key(key).value(value).build();
+    }
+
+    private static LogDestinationConfig destination(final String logType, final String destinationType,
+                                                    final String key, final String value) {
+        return LogDestinationConfig.builder()
+                .logType(logType)
+                .logDestinationType(destinationType)
+                .logDestination(Collections.singletonMap(key, value))
+                .build();
+    }
+}